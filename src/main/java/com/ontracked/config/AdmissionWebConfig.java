@@ -0,0 +1,110 @@
+package com.ontracked.config;
+
+import com.ontracked.service.AdmissionService;
+import com.ontracked.util.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Set;
+
+/**
+ * Applies {@link AdmissionService} limits to every request other than GET,
+ * HEAD or OPTIONS and handlers marked {@link ReadOnlyRoute} or
+ * {@link BypassAdmission}. A request over capacity is answered at once with 429 and a
+ * {@code Retry-After} header; reads bypass admission entirely. A request whose
+ * handler returns a future holds its permit until the async dispatch that
+ * writes the response has completed.
+ *
+ * <p>Enabled unless {@code ontracked.admission.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ontracked.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionWebConfig implements WebMvcConfigurer {
+
+  private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+  private final ObjectProvider<AdmissionService> admissionService;
+
+  public AdmissionWebConfig(ObjectProvider<AdmissionService> admissionService) {
+    this.admissionService = admissionService;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    // Sliced web tests load this configuration without the service layer.
+    admissionService.ifAvailable(service -> registry.addInterceptor(new AdmissionInterceptor(service)));
+  }
+
+  /**
+   * Takes a permit before a write handler runs and returns it, with the elapsed
+   * time, afterwards. An async request passes through {@code preHandle} again on
+   * its ASYNC dispatch; that pass keeps the permit taken by the first one.
+   */
+  static final class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String LIMITER = AdmissionInterceptor.class.getName() + ".limiter";
+    private static final String STARTED = AdmissionInterceptor.class.getName() + ".started";
+
+    private final AdmissionService admissionService;
+
+    AdmissionInterceptor(AdmissionService admissionService) {
+      this.admissionService = admissionService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+      if (READ_METHODS.contains(request.getMethod())
+              || exempt(handler)
+              || request.getDispatcherType() == DispatcherType.ASYNC
+              || request.getAttribute(LIMITER) != null) {
+        return true;
+      }
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      String route = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+      AdaptiveConcurrencyLimiter limiter = admissionService.limiter(route);
+      if (!limiter.tryAcquire()) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.retryAfterSeconds()));
+        response.setContentType("text/plain");
+        response.getWriter().write("Server is busy with " + route + "; retry later.");
+        return false;
+      }
+      request.setAttribute(LIMITER, limiter);
+      request.setAttribute(STARTED, System.nanoTime());
+      return true;
+    }
+
+    private static boolean exempt(Object handler) {
+      return handler instanceof HandlerMethod method
+              && (method.hasMethodAnnotation(ReadOnlyRoute.class) || method.hasMethodAnnotation(BypassAdmission.class));
+    }
+
+    /** Called instead of {@code afterCompletion} when the handler started async processing; the permit stays taken. */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+      Object limiter = request.getAttribute(LIMITER);
+      if (limiter != null) {
+        request.removeAttribute(LIMITER);
+        ((AdaptiveConcurrencyLimiter) limiter).release(System.nanoTime() - (long) request.getAttribute(STARTED));
+      }
+    }
+  }
+}
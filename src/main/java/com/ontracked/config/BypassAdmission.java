@@ -0,0 +1,20 @@
+package com.ontracked.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a write handler that {@link AdmissionWebConfig} lets through without a
+ * permit. Meant for long-lived streams, which would hold a permit for their
+ * whole duration and starve short writes on the same route; such a handler
+ * must bound its own load, as the progress stream does through its buffer.
+ * Unlike {@link ReadOnlyRoute}, it is still rejected on a follower.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BypassAdmission {
+}
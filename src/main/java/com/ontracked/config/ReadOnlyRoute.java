@@ -0,0 +1,19 @@
+package com.ontracked.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler that only reads state although it is mapped to POST, as the
+ * batch lookups are so their id lists need not fit in a URL.
+ * {@link ReplicationWebConfig} serves it on followers and
+ * {@link AdmissionWebConfig} lets it bypass admission, as for a GET.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyRoute {
+}
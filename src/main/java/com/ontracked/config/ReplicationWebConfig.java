@@ -0,0 +1,43 @@
+package com.ontracked.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Set;
+
+/**
+ * Makes a replication follower read-only: any request other than GET, HEAD or
+ * OPTIONS is rejected with 403 so writes can only reach the leader. Handlers
+ * marked {@link ReadOnlyRoute} are served whatever their method.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ontracked.replication.role", havingValue = "follower")
+public class ReplicationWebConfig implements WebMvcConfigurer {
+
+  private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new HandlerInterceptor() {
+      @Override
+      public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+              throws Exception {
+        if (READ_METHODS.contains(request.getMethod())
+                || handler instanceof HandlerMethod method && method.hasMethodAnnotation(ReadOnlyRoute.class)) {
+          return true;
+        }
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        response.setContentType("text/plain");
+        response.getWriter().write("Read-only follower: send writes to the replication leader.");
+        return false;
+      }
+    });
+  }
+}
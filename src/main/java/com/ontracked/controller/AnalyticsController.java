@@ -0,0 +1,82 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.AnalyticsService;
+import com.ontracked.service.AnalyticsService.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * REST controller for ad-hoc analytics queries backed by {@link AnalyticsService}.
+ *
+ * <ul>
+ *   <li>GET /analytics?from=goals&amp;groupBy=ownerRole&amp;agg=avg:latestPercentage – filter,
+ *       group and aggregate goals, check-ins or users; or {@code select} matching rows</li>
+ * </ul>
+ */
+@RestController
+public class AnalyticsController {
+
+  private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
+  private final AnalyticsService analyticsService;
+
+  public AnalyticsController(AnalyticsService analyticsService) {
+    this.analyticsService = analyticsService;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Runs one query. See {@link AnalyticsService#parse} for the parameter syntax.
+   *
+   * @param from      {@code goals}, {@code checkins} or {@code users}
+   * @param where     comma-separated {@code field:op:value} conditions, all of which must hold
+   * @param groupBy   comma-separated fields to group by
+   * @param agg       comma-separated aggregates: {@code count}, {@code sum|avg|min|max:field}
+   * @param select    comma-separated fields of matching rows to return instead of groups
+   * @param limit     most rows returned by a select; defaults to 1000
+   * @param timeoutMs query timeout; defaults to 2000, at most 30000
+   * @return 200 with the result, 400 on an invalid query, or 503 if it timed out
+   */
+  @GetMapping("/analytics")
+  public ResponseEntity<?> query(@RequestParam String from,
+                                 @RequestParam(required = false) List<String> where,
+                                 @RequestParam(required = false) List<String> groupBy,
+                                 @RequestParam(required = false) List<String> agg,
+                                 @RequestParam(required = false) List<String> select,
+                                 @RequestParam(required = false) Integer limit,
+                                 @RequestParam(required = false) Long timeoutMs,
+                                 HttpServletRequest request) {
+    logRequest(request, "/analytics?" + request.getQueryString());
+    Query query;
+    try {
+      query = analyticsService.parse(from, where, groupBy, agg, select, limit, timeoutMs);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    try {
+      return ResponseEntity.ok(analyticsService.execute(query));
+    } catch (TimeoutException e) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    } catch (Exception e) {
+      logger.error("Analytics query failed", e);
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to run query");
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.ontracked.controller;
+
+import com.ontracked.config.ReadOnlyRoute;
+import com.ontracked.dto.checkin.CheckInRequest;
+import com.ontracked.dto.checkin.CheckInResponse;
+import com.ontracked.dto.common.BatchResponse;
+import com.ontracked.model.CheckIn;
+import com.ontracked.service.CheckInService;
+import com.ontracked.service.ExpansionService;
+import com.ontracked.util.ETags;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of the {@code /checkins} routes, active with
+ * {@code ontracked.checkins.mode=async} in place of {@link CheckInController}.
+ *
+ * <p>Handlers return a {@link CompletableFuture}, so the servlet container
+ * thread is released as soon as the handler returns. Creates and updates
+ * complete when {@link CheckInService} has written the check-in's shard
+ * through an asynchronous file channel; no thread waits on the write. Reads
+ * are served from memory and complete at once. Responses match the servlet
+ * variant, including ETags and {@code expand}, but single check-ins are not
+ * served from the serialized response cache.
+ */
+@RestController
+@RequestMapping("/checkins")
+@ConditionalOnProperty(name = "ontracked.checkins.mode", havingValue = "async")
+public class AsyncCheckInController {
+
+  private static final Logger logger = LoggerFactory.getLogger(AsyncCheckInController.class);
+  private final CheckInService checkInService;
+  private final ExpansionService expansions;
+
+  public AsyncCheckInController(CheckInService checkInService, ExpansionService expansions) {
+    this.checkInService = checkInService;
+    this.expansions = expansions;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  private static CompletableFuture<ResponseEntity<?>> done(ResponseEntity<?> response) {
+    return CompletableFuture.completedFuture(response);
+  }
+
+  /**
+   * Returns a list of all stored check-ins.
+   *
+   * @param expand Optional {@code goal} or {@code goal.owner}.
+   * @return HTTP 200 with the check-ins, 304 if the client's copy is current,
+   *         or 400 on an unknown expand path.
+   */
+  @GetMapping
+  public CompletableFuture<ResponseEntity<?>> getAllCheckIns(@RequestParam(required = false) String expand,
+                                                             HttpServletRequest request) {
+    logRequest(request, "/checkins");
+    Set<String> paths;
+    try {
+      paths = expansions.parse(expand, ExpansionService.CHECK_IN_PATHS);
+    } catch (IllegalArgumentException e) {
+      return done(ResponseEntity.badRequest().body(e.getMessage()));
+    }
+    if (!paths.isEmpty()) {
+      return done(ResponseEntity.ok(expansions.expandCheckIns(List.copyOf(checkInService.getCheckIns()), paths)));
+    }
+    String etag = ETags.collection("checkins", checkInService.storeVersion());
+    if (ETags.notModified(request, etag)) {
+      return done(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+    }
+    List<CheckInResponse> responses = new ArrayList<>();
+    for (CheckIn c : checkInService.getCheckIns()) {
+      responses.add(CheckInResponse.toResponse(c));
+    }
+    return done(ResponseEntity.ok().eTag(etag).body(responses));
+  }
+
+  /**
+   * Returns the details of a specific CheckIn by its ID.
+   *
+   * @param id The check-in id.
+   * @param expand Optional {@code goal} or {@code goal.owner}.
+   * @return HTTP 200 with the check-in, 304 if the client's copy is current,
+   *         400 on an unknown expand path, or 404 if not found.
+   */
+  @GetMapping("/{id}")
+  public CompletableFuture<ResponseEntity<?>> getCheckInById(@PathVariable Long id,
+                                                             @RequestParam(required = false) String expand,
+                                                             HttpServletRequest request) {
+    logRequest(request, "/checkins/" + id);
+    Set<String> paths;
+    try {
+      paths = expansions.parse(expand, ExpansionService.CHECK_IN_PATHS);
+    } catch (IllegalArgumentException e) {
+      return done(ResponseEntity.badRequest().body(e.getMessage()));
+    }
+    CheckIn c = checkInService.getCheckIn(id);
+    if (c == null) {
+      return done(new ResponseEntity<>("CheckIn not found.", HttpStatus.NOT_FOUND));
+    }
+    if (!paths.isEmpty()) {
+      return done(ResponseEntity.ok(expansions.expandCheckIns(List.of(c), paths).get(0)));
+    }
+    String etag = ETags.revision(c.getVersion(), c.getUpdatedAt());
+    if (ETags.notModified(request, etag)) {
+      return done(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+    }
+    return done(ResponseEntity.ok().eTag(etag).body(CheckInResponse.toResponse(c)));
+  }
+
+  /**
+   * Returns many check-ins at once.
+   *
+   * @param ids A JSON array of check-in ids, at most {@link BatchResponse#MAX_IDS}.
+   * @param expand Optional {@code goal} or {@code goal.owner}.
+   * @return HTTP 200 with the check-ins found and the ids that were not, or 400.
+   */
+  @ReadOnlyRoute
+  @PostMapping("/batch")
+  public CompletableFuture<ResponseEntity<?>> getCheckInsByIds(@RequestBody(required = false) List<Long> ids,
+                                                               @RequestParam(required = false) String expand,
+                                                               HttpServletRequest request) {
+    logRequest(request, "/checkins/batch");
+    Set<String> paths;
+    try {
+      paths = expansions.parse(expand, ExpansionService.CHECK_IN_PATHS);
+    } catch (IllegalArgumentException e) {
+      return done(ResponseEntity.badRequest().body(e.getMessage()));
+    }
+    if (ids == null) {
+      return done(ResponseEntity.badRequest().body("Body must be a JSON array of check-in ids."));
+    }
+    if (ids.size() > BatchResponse.MAX_IDS) {
+      return done(ResponseEntity.badRequest().body("At most " + BatchResponse.MAX_IDS + " ids per request."));
+    }
+    Map<Long, CheckIn> found = checkInService.getCheckIns(ids);
+    List<Long> missing = ids.stream().distinct().filter(id -> !found.containsKey(id)).toList();
+    if (!paths.isEmpty()) {
+      return done(ResponseEntity.ok(new BatchResponse<>(
+              expansions.expandCheckIns(List.copyOf(found.values()), paths), missing)));
+    }
+    List<CheckInResponse> responses = new ArrayList<>(found.size());
+    for (CheckIn c : found.values()) {
+      responses.add(CheckInResponse.toResponse(c));
+    }
+    return done(ResponseEntity.ok(new BatchResponse<>(responses, missing)));
+  }
+
+  /**
+   * Creates and stores a new {@code CheckIn}; completes once it is written.
+   *
+   * @param checkInRequest The goalId, checkInDate and notes.
+   * @return HTTP 201 with the created check-in, or 500 if it could not be stored.
+   */
+  @PostMapping
+  public CompletableFuture<ResponseEntity<?>> createCheckIn(@RequestBody CheckInRequest checkInRequest,
+                                                            HttpServletRequest request) {
+    logRequest(request, "/checkins");
+    CompletableFuture<CheckIn> created;
+    try {
+      created = checkInService.addCheckInAsync(CheckInRequest.toEntity(checkInRequest));
+    } catch (Exception e) {
+      created = CompletableFuture.failedFuture(e);
+    }
+    return created.handle((c, e) -> {
+      if (e != null) {
+        logger.error("Error creating check-in", e);
+        return new ResponseEntity<>("Error creating check-in.", HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+      return new ResponseEntity<>(CheckInResponse.toResponse(c), HttpStatus.CREATED);
+    });
+  }
+
+  /**
+   * Updates an existing {@code CheckIn}; completes once it is written.
+   *
+   * @param id The check-in id.
+   * @param checkInRequest The new values.
+   * @return HTTP 200 with the updated check-in, 404 if not found, or 500.
+   */
+  @PatchMapping("/{id}")
+  public CompletableFuture<ResponseEntity<?>> updateCheckIn(@PathVariable Long id,
+                                                            @RequestBody CheckInRequest checkInRequest,
+                                                            HttpServletRequest request) {
+    logRequest(request, "/checkins/" + id);
+    CheckIn existing = checkInService.getCheckIn(id);
+    if (existing == null) {
+      return done(new ResponseEntity<>("CheckIn not found.", HttpStatus.NOT_FOUND));
+    }
+    // Readers may hold the stored check-in; change a copy and let the service swap it in.
+    CheckIn updated = new CheckIn(existing);
+    updated.setGoalId(checkInRequest.getGoalId());
+    updated.setCheckInDate(checkInRequest.getCheckInDate());
+    updated.setNotes(checkInRequest.getNotes());
+    return checkInService.updateCheckInAsync(updated).handle((c, e) -> {
+      if (e != null) {
+        logger.error("Error updating check-in", e);
+        return new ResponseEntity<>("Error updating check-in.", HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+      if (c == null) {
+        return new ResponseEntity<>("CheckIn not found.", HttpStatus.NOT_FOUND);
+      }
+      return new ResponseEntity<>(CheckInResponse.toResponse(c), HttpStatus.OK);
+    });
+  }
+
+  /**
+   * A simple welcome endpoint for testing connectivity.
+   *
+   * @return A message indicating that the CheckIn API is running.
+   */
+  @GetMapping("/index")
+  public String index(HttpServletRequest request) {
+    logRequest(request, "/checkins/index");
+    return "Welcome to the CheckIn API! Use /checkins to view all or POST to create new check-ins.";
+  }
+}
@@ -0,0 +1,101 @@
+package com.ontracked.controller;
+
+import com.ontracked.dto.feed.ChangeEvent;
+import com.ontracked.service.ChangeFeedService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Server-Sent Events endpoint streaming user, goal and check-in changes.
+ *
+ * <p>Clients reconnect with the standard {@code Last-Event-ID} header (or the
+ * {@code lastEventId} query parameter) to resume where they left off. A
+ * {@code resync} event means the client fell behind and must reload via the
+ * regular list endpoints before subscribing again.
+ */
+@RestController
+public class ChangeFeedController {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChangeFeedController.class);
+  private final ChangeFeedService changeFeedService;
+  private final long timeoutMs;
+
+  public ChangeFeedController(ChangeFeedService changeFeedService,
+                              @Value("${ontracked.feed.timeout-ms:1800000}") long timeoutMs) {
+    this.changeFeedService = changeFeedService;
+    this.timeoutMs = timeoutMs;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Opens an event stream of changes.
+   *
+   * @param lastEventHeader offset from the {@code Last-Event-ID} header, if reconnecting
+   * @param lastEventParam  same as the header, for clients that cannot set headers
+   * @return an SSE emitter that stays open until the client disconnects or times out
+   */
+  @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamChanges(
+          @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventHeader,
+          @RequestParam(value = "lastEventId", required = false) Long lastEventParam,
+          HttpServletRequest request) {
+    logRequest(request, "/feed");
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    EmitterSink sink = new EmitterSink(emitter);
+    // Without these, a client that disconnects or times out stays subscribed until a send fails.
+    emitter.onCompletion(() -> changeFeedService.unsubscribe(sink));
+    emitter.onTimeout(() -> changeFeedService.unsubscribe(sink));
+    emitter.onError(e -> changeFeedService.unsubscribe(sink));
+    changeFeedService.subscribe(lastEventHeader != null ? lastEventHeader : lastEventParam, sink);
+    return emitter;
+  }
+
+  /** Adapts an {@link SseEmitter} to the feed's sink interface. */
+  private static final class EmitterSink implements ChangeFeedService.EventSink {
+    private final SseEmitter emitter;
+
+    EmitterSink(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    @Override
+    public void send(ChangeEvent event) throws IOException {
+      emitter.send(SseEmitter.event()
+              .id(String.valueOf(event.offset()))
+              .name(event.name())
+              .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void resync(String reason, long lastOffset) throws IOException {
+      emitter.send(SseEmitter.event()
+              .name("resync")
+              .data(Map.of("reason", reason, "lastEventId", lastOffset), MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void close() {
+      emitter.complete();
+    }
+  }
+}
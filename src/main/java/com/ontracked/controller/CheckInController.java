@@ -1,33 +1,69 @@
 package com.ontracked.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ontracked.config.ReadOnlyRoute;
+import com.ontracked.dto.common.BatchResponse;
 import com.ontracked.model.CheckIn;
 import com.ontracked.dto.checkin.CheckInRequest;
 import com.ontracked.dto.checkin.CheckInResponse;
 import com.ontracked.service.CheckInService;
+import com.ontracked.service.ExpansionService;
+import com.ontracked.service.GoalService;
+import com.ontracked.util.ETags;
+import com.ontracked.util.SerializedResponseCache;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This class defines the CheckInController which handles HTTP endpoint requests related
  * to CheckIn resources. It interacts with the MockCheckInService for data access.
+ * GET responses carry an ETag, and a matching If-None-Match is answered with 304.
+ * Single check-ins are served from a cache of serialized (and gzip) bytes per
+ * check-in version, evicted whenever the check-in is written. GETs accept
+ * {@code expand=goal,goal.owner} to embed related entities, resolved in batches
+ * by the {@link ExpansionService}. This is the default, thread-per-request variant;
+ * {@code ontracked.checkins.mode=async} swaps in {@link AsyncCheckInController}.
  */
 @RestController
 @RequestMapping("/checkins")
+@ConditionalOnProperty(name = "ontracked.checkins.mode", havingValue = "servlet", matchIfMissing = true)
 public class CheckInController {
 
   private static final Logger logger = LoggerFactory.getLogger(CheckInController.class); 
   private final CheckInService mockCheckInService;
+  private final SerializedResponseCache responses;
+  private final ExpansionService expansions;
 
   public CheckInController(CheckInService mockCheckInService) {
+    this(mockCheckInService,
+            Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(),
+            10_000, new ExpansionService(new GoalService(), mockCheckInService));
+  }
+
+  @Autowired
+  public CheckInController(CheckInService mockCheckInService, ObjectMapper mapper,
+                           @Value("${ontracked.response-cache.max-entries:10000}") int maxCachedResponses,
+                           ExpansionService expansions) {
     this.mockCheckInService = mockCheckInService;
+    this.responses = new SerializedResponseCache(mapper, maxCachedResponses);
+    this.expansions = expansions;
+    mockCheckInService.addCheckInListener((type, c) -> responses.evict(String.valueOf(c.getId())));
   }
 
   private void logRequest(HttpServletRequest request, String endpoint) {
@@ -43,18 +79,35 @@ public class CheckInController {
   /**
    * Returns a list of all stored check-ins.
    *
+   * @param expand Optional {@code goal} or {@code goal.owner}, to embed each check-in's goal
+   *               and its owner; expanded responses carry no ETag.
    * @return A {@code ResponseEntity} containing a list of {@code CheckInResponse} objects
-   *         with an HTTP 200 response if successful, or a message with an HTTP 500 if failed.
+   *         with an HTTP 200 response if successful, HTTP 304 if nothing changed since
+   *         the client's copy, a message with HTTP 400 on an unknown expand path, or a
+   *         message with an HTTP 500 if failed.
    */
   @GetMapping
-  public ResponseEntity<?> getAllCheckIns(HttpServletRequest request) {
+  public ResponseEntity<?> getAllCheckIns(@RequestParam(required = false) String expand, HttpServletRequest request) {
     logRequest(request, "/checkins");
+    Set<String> paths;
     try {
+      paths = expansions.parse(expand, ExpansionService.CHECK_IN_PATHS);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    try {
+      if (!paths.isEmpty()) {
+        return ResponseEntity.ok(expansions.expandCheckIns(List.copyOf(mockCheckInService.getCheckIns()), paths));
+      }
+      String etag = ETags.collection("checkins", mockCheckInService.storeVersion());
+      if (ETags.notModified(request, etag)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+      }
       ArrayList<CheckInResponse> responses = new ArrayList<>();
       for (CheckIn c : mockCheckInService.getCheckIns()) {
         responses.add(CheckInResponse.toResponse(c));
       }
-      return new ResponseEntity<>(responses, HttpStatus.OK);
+      return ResponseEntity.ok().eTag(etag).body(responses);
     } catch (Exception e) {
       System.err.println(e);
       return new ResponseEntity<>("Error retrieving check-ins.", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -65,20 +118,77 @@ public class CheckInController {
    * Returns the details of a specific CheckIn by its ID.
    *
    * @param id A {@code Long} representing the unique identifier of the CheckIn to retrieve.
+   * @param expand Optional {@code goal} or {@code goal.owner}; expanded responses are not
+   *               cached and carry no ETag.
    * @return A {@code ResponseEntity} containing either the {@code CheckInResponse} with
-   *         an HTTP 200 if found, or an error message with HTTP 404 if not found.
+   *         an HTTP 200 if found, HTTP 304 if the client's copy is current, a message with
+   *         HTTP 400 on an unknown expand path, or an error message with HTTP 404 if not found.
    */
   @GetMapping("/{id}")
-  public ResponseEntity<?> getCheckInById(@PathVariable Long id, HttpServletRequest request) {
+  public ResponseEntity<?> getCheckInById(@PathVariable Long id, @RequestParam(required = false) String expand,
+                                          HttpServletRequest request) {
     logRequest(request, "/checkins/" + id);
-    for (CheckIn c : mockCheckInService.getCheckIns()) {
-      if (c.getId().equals(id)) {
-        return new ResponseEntity<>(CheckInResponse.toResponse(c), HttpStatus.OK);
+    Set<String> paths;
+    try {
+      paths = expansions.parse(expand, ExpansionService.CHECK_IN_PATHS);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    CheckIn c = mockCheckInService.getCheckIn(id);
+    if (c != null && !paths.isEmpty()) {
+      return ResponseEntity.ok(expansions.expandCheckIns(List.of(c), paths).get(0));
+    }
+    if (c != null) {
+      String etag = ETags.revision(c.getVersion(), c.getUpdatedAt());
+      if (ETags.notModified(request, etag)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
       }
+      return responses.get(String.valueOf(c.getId()), etag, () -> CheckInResponse.toResponse(c))
+              .toResponse(request);
     }
     return new ResponseEntity<>("CheckIn not found.", HttpStatus.NOT_FOUND);
   }
 
+  /**
+   * Returns many check-ins at once, looked up in a single pass over the id index.
+   *
+   * @param ids A JSON array of check-in ids, at most {@link BatchResponse#MAX_IDS}.
+   * @param expand Optional {@code goal} or {@code goal.owner}.
+   * @return A {@code ResponseEntity} with HTTP 200 holding the {@code CheckInResponse}s found,
+   *         in request order, and the ids that were not; or HTTP 400 if the list is missing
+   *         or too long, or an expand path is unknown.
+   */
+  @ReadOnlyRoute
+  @PostMapping("/batch")
+  public ResponseEntity<?> getCheckInsByIds(@RequestBody(required = false) List<Long> ids,
+                                            @RequestParam(required = false) String expand,
+                                            HttpServletRequest request) {
+    logRequest(request, "/checkins/batch");
+    Set<String> paths;
+    try {
+      paths = expansions.parse(expand, ExpansionService.CHECK_IN_PATHS);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    if (ids == null) {
+      return ResponseEntity.badRequest().body("Body must be a JSON array of check-in ids.");
+    }
+    if (ids.size() > BatchResponse.MAX_IDS) {
+      return ResponseEntity.badRequest().body("At most " + BatchResponse.MAX_IDS + " ids per request.");
+    }
+    Map<Long, CheckIn> found = mockCheckInService.getCheckIns(ids);
+    List<Long> missing = ids.stream().distinct().filter(id -> !found.containsKey(id)).toList();
+    if (!paths.isEmpty()) {
+      return ResponseEntity.ok(new BatchResponse<>(
+              expansions.expandCheckIns(List.copyOf(found.values()), paths), missing));
+    }
+    List<CheckInResponse> responses = new ArrayList<>(found.size());
+    for (CheckIn c : found.values()) {
+      responses.add(CheckInResponse.toResponse(c));
+    }
+    return ResponseEntity.ok(new BatchResponse<>(responses, missing));
+  }
+
   /**
    * Creates and stores a new {@code CheckIn}.
    *
@@ -112,14 +222,15 @@ public class CheckInController {
   public ResponseEntity<?> updateCheckIn(@PathVariable Long id, @RequestBody CheckInRequest checkInRequest, HttpServletRequest request) {
     logRequest(request, "/checkins/" + id);
     try {
-      for (CheckIn existing : mockCheckInService.getCheckIns()) {
-        if (existing.getId().equals(id)) {
-          existing.setGoalId(checkInRequest.getGoalId());
-          existing.setCheckInDate(checkInRequest.getCheckInDate());
-          existing.setNotes(checkInRequest.getNotes());
-          mockCheckInService.updateCheckIn(existing);
-          return new ResponseEntity<>(CheckInResponse.toResponse(existing), HttpStatus.OK);
-        }
+      CheckIn existing = mockCheckInService.getCheckIn(id);
+      if (existing != null) {
+        // Readers may hold the stored check-in; change a copy and let the service swap it in.
+        CheckIn updated = new CheckIn(existing);
+        updated.setGoalId(checkInRequest.getGoalId());
+        updated.setCheckInDate(checkInRequest.getCheckInDate());
+        updated.setNotes(checkInRequest.getNotes());
+        mockCheckInService.updateCheckIn(updated);
+        return new ResponseEntity<>(CheckInResponse.toResponse(updated), HttpStatus.OK);
       }
       return new ResponseEntity<>("CheckIn not found.", HttpStatus.NOT_FOUND);
     } catch (Exception e) {
@@ -0,0 +1,105 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.CheckInService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST controller for check-in reports, computed by scanning the columnar
+ * copy kept by {@link CheckInService}.
+ *
+ * <p>Base path: <b>/checkins/report</b>
+ * <ul>
+ *   <li>GET /checkins/report/weekly?goalId=&amp;from=&amp;to= – check-ins per goal per week</li>
+ *   <li>GET /checkins/report/count?goalId=&amp;from=&amp;to= – number of check-ins</li>
+ * </ul>
+ * All parameters are optional; dates are ISO {@code yyyy-MM-dd} and inclusive.
+ */
+@RestController
+@RequestMapping("/checkins/report")
+public class CheckInReportController {
+
+  private static final Logger logger = LoggerFactory.getLogger(CheckInReportController.class);
+  private final CheckInService checkInService;
+
+  public CheckInReportController(CheckInService checkInService) {
+    this.checkInService = checkInService;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Counts check-ins per goal per ISO week (weeks start on Monday).
+   *
+   * @return 200 with {@code [{goalId, weekStart, count}]} ordered by goal and week,
+   *         or 400 if a date is malformed or the range is reversed
+   */
+  @GetMapping("/weekly")
+  public ResponseEntity<?> weekly(@RequestParam(required = false) Long goalId,
+                                  @RequestParam(required = false) String from,
+                                  @RequestParam(required = false) String to,
+                                  HttpServletRequest request) {
+    logRequest(request, "/checkins/report/weekly?goalId=" + goalId + "&from=" + from + "&to=" + to);
+    LocalDate[] range = parseRange(from, to);
+    if (range == null) {
+      return ResponseEntity.badRequest().body("from and to must be ISO dates (yyyy-MM-dd) with from <= to");
+    }
+    return ResponseEntity.ok(checkInService.weeklyCheckIns(goalId, range[0], range[1]));
+  }
+
+  /**
+   * Counts check-ins of one goal, or of all goals, within a date range.
+   *
+   * @return 200 with {@code {goalId, from, to, count}}, or 400 on a bad range
+   */
+  @GetMapping("/count")
+  public ResponseEntity<?> count(@RequestParam(required = false) Long goalId,
+                                 @RequestParam(required = false) String from,
+                                 @RequestParam(required = false) String to,
+                                 HttpServletRequest request) {
+    logRequest(request, "/checkins/report/count?goalId=" + goalId + "&from=" + from + "&to=" + to);
+    LocalDate[] range = parseRange(from, to);
+    if (range == null) {
+      return ResponseEntity.badRequest().body("from and to must be ISO dates (yyyy-MM-dd) with from <= to");
+    }
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("goalId", goalId);
+    body.put("from", range[0]);
+    body.put("to", range[1]);
+    body.put("count", checkInService.countCheckIns(goalId, range[0], range[1]));
+    return ResponseEntity.ok(body);
+  }
+
+  /** Parses optional bounds; null if either is malformed or they are reversed. */
+  private static LocalDate[] parseRange(String from, String to) {
+    try {
+      LocalDate lo = from == null || from.isBlank() ? null : LocalDate.parse(from.trim());
+      LocalDate hi = to == null || to.isBlank() ? null : LocalDate.parse(to.trim());
+      if (lo != null && hi != null && lo.isAfter(hi)) {
+        return null;
+      }
+      return new LocalDate[] {lo, hi};
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+}
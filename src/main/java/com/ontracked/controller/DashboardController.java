@@ -0,0 +1,62 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.DashboardService;
+import com.ontracked.service.DashboardService.Dashboard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * REST controller for the student home screen backed by {@link DashboardService}.
+ *
+ * <ul>
+ *   <li>GET /dashboard/{userId} – the user, their goals, recent check-ins and progress
+ *       series, fetched concurrently; sections that time out are listed in {@code incomplete}</li>
+ * </ul>
+ */
+@RestController
+public class DashboardController {
+
+  private static final Logger logger = LoggerFactory.getLogger(DashboardController.class);
+  private final DashboardService dashboardService;
+
+  public DashboardController(DashboardService dashboardService) {
+    this.dashboardService = dashboardService;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Returns a student's dashboard.
+   *
+   * @param userId the student's user id
+   * @return 200 with the dashboard, partial if some section was slow or failed;
+   *         404 if there is no user with that id
+   */
+  @GetMapping("/dashboard/{userId}")
+  public ResponseEntity<?> getDashboard(@PathVariable int userId, HttpServletRequest request) {
+    logRequest(request, "/dashboard/" + userId);
+    Dashboard dashboard = dashboardService.dashboard(userId);
+    if (dashboard.userMissing()) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+    }
+    if (!dashboard.incomplete().isEmpty()) {
+      logger.warn("Dashboard of user {} is missing {}", userId, dashboard.incomplete());
+    }
+    return ResponseEntity.ok(dashboard);
+  }
+}
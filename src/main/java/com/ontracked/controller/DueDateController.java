@@ -0,0 +1,60 @@
+package com.ontracked.controller;
+
+import com.ontracked.dto.goal.GoalResponse;
+import com.ontracked.model.Goal;
+import com.ontracked.service.DueDateScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller exposing due-date tracking backed by {@link DueDateScheduler}.
+ *
+ * <p>Base path: <b>/goal</b>
+ * <ul>
+ *   <li>GET /goal/overdue – ACTIVE goals whose due date has passed</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/goal")
+public class DueDateController {
+
+  private static final Logger logger = LoggerFactory.getLogger(DueDateController.class);
+  private final DueDateScheduler dueDateScheduler;
+
+  public DueDateController(DueDateScheduler dueDateScheduler) {
+    this.dueDateScheduler = dueDateScheduler;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Lists goals that are currently overdue, oldest due date first.
+   *
+   * @return 200 with the overdue goals
+   */
+  @GetMapping("/overdue")
+  public ResponseEntity<?> getOverdueGoals(HttpServletRequest request) {
+    logRequest(request, "/goal/overdue");
+    List<GoalResponse> responses = new ArrayList<>();
+    for (Goal g : dueDateScheduler.getOverdueGoals()) {
+      responses.add(GoalResponse.from(g));
+    }
+    return ResponseEntity.ok(responses);
+  }
+}
@@ -1,165 +1,297 @@
-//package com.ontracked.controller;
-//
-//import com.ontracked.model.Goal;
-//import com.ontracked.service.GoalService;
-//import org.slf4j.Logger;
-//import org.slf4j.LoggerFactory;
-//import org.springframework.http.HttpStatus;
-//import org.springframework.http.ResponseEntity;
-//import org.springframework.web.bind.annotation.*;
-//
-//import jakarta.servlet.http.HttpServletRequest;
-//import java.util.ArrayList;
-//import java.util.List;
-//
-///**
-// * REST controller exposing endpoints for managing {@link Goal} objects.
-// *
-// * <p>Base path: <b>/goal</b>
-// * <p>Supported operations:
-// * <ul>
-// *   <li>GET /goal/index – simple health check endpoint</li>
-// *   <li>GET /goal/retrieveOneGoal?id=... – fetch a goal by ID</li>
-// *   <li>GET /goal/getAllGoals – fetch all stored goals</li>
-// *   <li>POST /goal/saveOneGoal – persist a single goal</li>
-// *   <li>POST /goal/saveMultipleGoals – persist multiple goals</li>
-// * </ul>
-// */
-//@RestController
-//@RequestMapping("/goal")
-//public class GoalController {
-//
-//  private static final Logger logger = LoggerFactory.getLogger(GoalController.class);
-//  private final GoalService goalService;
-//
-//  public GoalController(GoalService goalService) {
-//    this.goalService = goalService;
-//  }
-//
-//  // ------------------------------------------------------------------------
-//  // Utility
-//  // ------------------------------------------------------------------------
-//
-//  /**
-//   * Logs request metadata for visibility and auditing.
-//   *
-//   * @param request  incoming HTTP request
-//   * @param endpoint path or query string being accessed
-//   */
-//  private void logRequest(HttpServletRequest request, String endpoint) {
-//    logger.info(
-//            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
-//            java.time.Instant.now(),
-//            request.getRemoteAddr(),
-//            request.getMethod(),
-//            endpoint
-//    );
-//  }
-//
-//  // ------------------------------------------------------------------------
-//  // Endpoints
-//  // ------------------------------------------------------------------------
-//
-//  /**
-//   * Simple index endpoint for quick connectivity checks.
-//   * Useful for testing controller reachability.
-//   */
-//  @GetMapping({"/", "/index"})
-//  public String index(HttpServletRequest request) {
-//    logRequest(request, "/index");
-//    return "Goal Controller";
-//  }
-//
-//  /**
-//   * Retrieves a single {@link Goal} by ID.
-//   *
-//   * @param id      the goal's UUID
-//   * @param request the HTTP request
-//   * @return 200 + goal if found, 404 if not
-//   */
-//  @GetMapping("/retrieveOneGoal")
-//  public ResponseEntity<?> retrieveOneGoal(@RequestParam String id, HttpServletRequest request) {
-//    logRequest(request, "/retrieveOneGoal?id=" + id);
-//
-//    if (id == null || id.isBlank()) {
-//      return ResponseEntity.badRequest().body("Missing or blank ID");
-//    }
-//
-//    Goal goal = goalService.retrieveGoal(id);
-//    if (goal == null) {
-//      return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Goal not found");
-//    }
-//    return ResponseEntity.ok(goal);
-//  }
-//
-//  /**
-//   * Returns all goals currently stored.
-//   *
-//   * @return 200 with list of goals, or 500 if load fails
-//   */
-//  @GetMapping("/getAllGoals")
-//  public ResponseEntity<?> getAllGoals(HttpServletRequest request) {
-//    logRequest(request, "/getAllGoals");
-//
-//    try {
-//      List<Goal> goals = goalService.loadGoals();
-//      return ResponseEntity.ok(goals);
-//    } catch (Exception e) {
-//      logger.error("Failed to load goals", e);
-//      return ResponseEntity.internalServerError()
-//              .body("Failed to load goals: " + e.getMessage());
-//    }
-//  }
-//
-//  /**
-//   * Saves a list of {@link Goal} objects to the datastore.
-//   *
-//   * @param goals   list of goals to persist
-//   * @param request HTTP request (for logging)
-//   * @return 200 with the saved goals
-//   */
-//  @PostMapping("/saveMultipleGoals")
-//  public ResponseEntity<?> saveMultipleGoals(@RequestBody List<Goal> goals, HttpServletRequest request) {
-//    logRequest(request, "/saveMultipleGoals");
-//
-//    if (goals == null || goals.isEmpty()) {
-//      return ResponseEntity.badRequest().body("Goal list cannot be empty");
-//    }
-//
-//    try {
-//      goalService.saveGoals(goals);
-//      return ResponseEntity.ok(goals);
-//    } catch (Exception e) {
-//      logger.error("Failed to save multiple goals", e);
-//      return ResponseEntity.internalServerError()
-//              .body("Failed to save multiple goals: " + e.getMessage());
-//    }
-//  }
-//
-//  /**
-//   * Saves a single {@link Goal}.
-//   *
-//   * @param goal    the goal to persist
-//   * @param request HTTP request (for logging)
-//   * @return 200 with the saved goal in a singleton list
-//   */
-//  @PostMapping("/saveOneGoal")
-//  public ResponseEntity<?> saveOneGoal(@RequestBody Goal goal, HttpServletRequest request) {
-//    logRequest(request, "/saveOneGoal");
-//
-//    if (goal == null) {
-//      return ResponseEntity.badRequest().body("Goal cannot be null");
-//    }
-//
-//    try {
-//      List<Goal> goals = new ArrayList<>();
-//      goals.add(goal);
-//      goalService.saveGoals(goals);
-//      return ResponseEntity.ok(goals);
-//    } catch (Exception e) {
-//      logger.error("Failed to save goal", e);
-//      return ResponseEntity.internalServerError()
-//              .body("Failed to save goal: " + e.getMessage());
-//    }
-//  }
-//}
+package com.ontracked.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.config.ReadOnlyRoute;
+import com.ontracked.dto.common.BatchResponse;
+import com.ontracked.dto.goal.UpdateGoalRequest;
+import com.ontracked.model.Goal;
+import com.ontracked.service.ExpansionService;
+import com.ontracked.service.GoalService;
+import com.ontracked.service.GoalVersionConflictException;
+import com.ontracked.util.ETags;
+import com.ontracked.util.SerializedResponseCache;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * REST controller exposing endpoints for managing {@link Goal} objects.
+ *
+ * <p>Base path: <b>/goal</b>
+ * <p>Supported operations:
+ * <ul>
+ *   <li>GET /goal/index – simple health check endpoint</li>
+ *   <li>GET /goal/retrieveOneGoal?id=... – fetch a goal by ID</li>
+ *   <li>POST /goal/retrieveGoals – fetch many goals by ID in one batched lookup</li>
+ *   <li>GET /goal/getAllGoals – fetch all stored goals</li>
+ *   <li>POST /goal/saveOneGoal – persist a single goal</li>
+ *   <li>POST /goal/saveMultipleGoals – persist multiple goals</li>
+ *   <li>PATCH /goal/updateGoal – change some fields of a goal, optionally
+ *       only if it is still at an expected version</li>
+ * </ul>
+ *
+ * <p>GET responses carry an {@code ETag}; a request whose {@code If-None-Match}
+ * still matches gets 304 without the goals being loaded or serialized. Single
+ * goals are served from a {@link SerializedResponseCache} of JSON and gzip
+ * bytes per goal revision, evicted whenever the goal is saved or updated.
+ *
+ * <p>Goal GETs and {@code retrieveGoals} accept {@code expand=owner,checkIns}
+ * to embed each goal's owner and check-ins, resolved in batches by the
+ * {@link ExpansionService}; expanded responses bypass the cache and carry no ETag.
+ */
+@RestController
+@RequestMapping("/goal")
+public class GoalController {
+
+  private static final Logger logger = LoggerFactory.getLogger(GoalController.class);
+  private final GoalService goalService;
+  private final SerializedResponseCache responses;
+  private final ExpansionService expansions;
+
+  public GoalController(GoalService goalService, ObjectMapper mapper,
+                        @Value("${ontracked.response-cache.max-entries:10000}") int maxCachedResponses,
+                        ExpansionService expansions) {
+    this.goalService = goalService;
+    this.responses = new SerializedResponseCache(mapper, maxCachedResponses);
+    this.expansions = expansions;
+    goalService.addGoalListener(g -> responses.evict(g.getId()));
+  }
+
+  // ------------------------------------------------------------------------
+  // Utility
+  // ------------------------------------------------------------------------
+
+  /**
+   * Logs request metadata for visibility and auditing.
+   *
+   * @param request  incoming HTTP request
+   * @param endpoint path or query string being accessed
+   */
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  // ------------------------------------------------------------------------
+  // Endpoints
+  // ------------------------------------------------------------------------
+
+  /**
+   * Simple index endpoint for quick connectivity checks.
+   * Useful for testing controller reachability.
+   */
+  @GetMapping({"/", "/index"})
+  public String index(HttpServletRequest request) {
+    logRequest(request, "/index");
+    return "Goal Controller";
+  }
+
+  /**
+   * Retrieves a single {@link Goal} by ID.
+   *
+   * @param id      the goal's UUID
+   * @param expand  optional {@code owner} and/or {@code checkIns} to embed
+   * @param request the HTTP request
+   * @return 200 + goal if found, 304 if the client's copy is current, 400 on an
+   *         unknown expand path, 404 if not
+   */
+  @GetMapping("/retrieveOneGoal")
+  public ResponseEntity<?> retrieveOneGoal(@RequestParam String id, @RequestParam(required = false) String expand,
+                                           HttpServletRequest request) {
+    logRequest(request, "/retrieveOneGoal?id=" + id);
+
+    if (id == null || id.isBlank()) {
+      return ResponseEntity.badRequest().body("Missing or blank ID");
+    }
+    Set<String> paths;
+    try {
+      paths = expansions.parse(expand, ExpansionService.GOAL_PATHS);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    Goal goal = goalService.retrieveGoal(id);
+    if (goal == null) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Goal not found");
+    }
+    if (!paths.isEmpty()) {
+      return ResponseEntity.ok(expansions.expandGoals(List.of(goal), paths).get(0));
+    }
+    String etag = ETags.revision(goal.getVersionNumber(), goal.getUpdatedAt());
+    if (ETags.notModified(request, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    return responses.get(goal.getId(), etag, () -> goal).toResponse(request);
+  }
+
+  /**
+   * Retrieves many goals at once: all shards are probed for every id in one
+   * parallel pass instead of one request per goal.
+   *
+   * @param ids     goal ids, at most {@link BatchResponse#MAX_IDS}
+   * @param expand  optional {@code owner} and/or {@code checkIns} to embed
+   * @param request the HTTP request
+   * @return 200 with the goals found, in request order, and the ids that were not;
+   *         400 if the list is missing or too long, or an expand path is unknown
+   */
+  @ReadOnlyRoute
+  @PostMapping("/retrieveGoals")
+  public ResponseEntity<?> retrieveGoals(@RequestBody(required = false) List<String> ids,
+                                         @RequestParam(required = false) String expand,
+                                         HttpServletRequest request) {
+    logRequest(request, "/retrieveGoals");
+
+    Set<String> paths;
+    try {
+      paths = expansions.parse(expand, ExpansionService.GOAL_PATHS);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    if (ids == null) {
+      return ResponseEntity.badRequest().body("Body must be a JSON array of goal IDs");
+    }
+    if (ids.size() > BatchResponse.MAX_IDS) {
+      return ResponseEntity.badRequest().body("At most " + BatchResponse.MAX_IDS + " IDs per request");
+    }
+    Map<String, Goal> found = goalService.retrieveGoals(ids);
+    List<String> missing = ids.stream().distinct().filter(id -> !found.containsKey(id)).toList();
+    if (!paths.isEmpty()) {
+      return ResponseEntity.ok(new BatchResponse<>(
+              expansions.expandGoals(List.copyOf(found.values()), paths), missing));
+    }
+    return ResponseEntity.ok(new BatchResponse<>(List.copyOf(found.values()), missing));
+  }
+
+  /**
+   * Returns all goals currently stored.
+   *
+   * @param expand optional {@code owner} and/or {@code checkIns} to embed
+   * @return 200 with list of goals, 304 if no goal changed since the client's
+   *         copy, 400 on an unknown expand path, or 500 if load fails
+   */
+  @GetMapping("/getAllGoals")
+  public ResponseEntity<?> getAllGoals(@RequestParam(required = false) String expand, HttpServletRequest request) {
+    logRequest(request, "/getAllGoals");
+
+    Set<String> paths;
+    try {
+      paths = expansions.parse(expand, ExpansionService.GOAL_PATHS);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    try {
+      if (!paths.isEmpty()) {
+        return ResponseEntity.ok(expansions.expandGoals(goalService.loadGoals(), paths));
+      }
+      // Read the version first so the tag is never newer than the goals sent.
+      String etag = ETags.collection("goals", goalService.storeVersion());
+      if (ETags.notModified(request, etag)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+      }
+      List<Goal> goals = goalService.loadGoals();
+      return ResponseEntity.ok().eTag(etag).body(goals);
+    } catch (Exception e) {
+      logger.error("Failed to load goals", e);
+      return ResponseEntity.internalServerError()
+              .body("Failed to load goals: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Saves a list of {@link Goal} objects to the datastore.
+   *
+   * @param goals   list of goals to persist
+   * @param request HTTP request (for logging)
+   * @return 200 with the saved goals
+   */
+  @PostMapping("/saveMultipleGoals")
+  public ResponseEntity<?> saveMultipleGoals(@RequestBody List<Goal> goals, HttpServletRequest request) {
+    logRequest(request, "/saveMultipleGoals");
+
+    if (goals == null || goals.isEmpty()) {
+      return ResponseEntity.badRequest().body("Goal list cannot be empty");
+    }
+
+    try {
+      goalService.saveGoals(goals);
+      return ResponseEntity.ok(goals);
+    } catch (Exception e) {
+      logger.error("Failed to save multiple goals", e);
+      return ResponseEntity.internalServerError()
+              .body("Failed to save multiple goals: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Saves a single {@link Goal}.
+   *
+   * @param goal    the goal to persist
+   * @param request HTTP request (for logging)
+   * @return 200 with the saved goal in a singleton list
+   */
+  @PostMapping("/saveOneGoal")
+  public ResponseEntity<?> saveOneGoal(@RequestBody Goal goal, HttpServletRequest request) {
+    logRequest(request, "/saveOneGoal");
+
+    if (goal == null) {
+      return ResponseEntity.badRequest().body("Goal cannot be null");
+    }
+
+    try {
+      List<Goal> goals = new ArrayList<>();
+      goals.add(goal);
+      goalService.saveGoals(goals);
+      return ResponseEntity.ok(goals);
+    } catch (Exception e) {
+      logger.error("Failed to save goal", e);
+      return ResponseEntity.internalServerError()
+              .body("Failed to save goal: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Applies a partial update to a {@link Goal}. Fields left out of the body are
+   * unchanged. With {@code expectedVersion} set, the update only succeeds if
+   * the goal is still at that version.
+   *
+   * @param update  the goal id, the fields to change and the optional expected version
+   * @param request HTTP request (for logging)
+   * @return 200 with the updated goal, 400 for invalid input, 404 if no goal has
+   *         the id, or 409 if the goal is no longer at the expected version
+   */
+  @PatchMapping("/updateGoal")
+  public ResponseEntity<?> updateGoal(@Valid @RequestBody UpdateGoalRequest update, HttpServletRequest request) {
+    logRequest(request, "/updateGoal?id=" + update.getId());
+
+    try {
+      Goal goal = goalService.updateGoal(update);
+      if (goal == null) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Goal not found");
+      }
+      return ResponseEntity.ok(goal);
+    } catch (GoalVersionConflictException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (Exception e) {
+      logger.error("Failed to update goal", e);
+      return ResponseEntity.internalServerError()
+              .body("Failed to update goal: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.ontracked.controller;
+
+import com.ontracked.dto.goal.GoalResponse;
+import com.ontracked.model.Goal;
+import com.ontracked.service.GoalHistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * REST controller exposing recorded goal history from {@link GoalHistoryService}.
+ *
+ * <p>Base path: <b>/goal</b>
+ * <ul>
+ *   <li>GET /goal/history?id=... – every recorded change of a goal</li>
+ *   <li>GET /goal/retrieveGoalAsOf?id=...&amp;version=... – the goal at a version</li>
+ *   <li>GET /goal/retrieveGoalAsOf?id=...&amp;timestamp=... – the goal at an instant</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/goal")
+public class GoalHistoryController {
+
+  private static final Logger logger = LoggerFactory.getLogger(GoalHistoryController.class);
+  private final GoalHistoryService goalHistoryService;
+
+  public GoalHistoryController(GoalHistoryService goalHistoryService) {
+    this.goalHistoryService = goalHistoryService;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Returns the recorded change events of a goal, oldest first.
+   *
+   * @return 200 with the events, or 404 if the goal has no history
+   */
+  @GetMapping("/history")
+  public ResponseEntity<?> getHistory(@RequestParam String id, HttpServletRequest request) {
+    logRequest(request, "/history?id=" + id);
+    var events = goalHistoryService.history(id);
+    if (events.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Goal history not found");
+    }
+    return ResponseEntity.ok(events);
+  }
+
+  /**
+   * Rebuilds a goal as of a version or an ISO-8601 instant. Exactly one of
+   * {@code version} or {@code timestamp} must be supplied.
+   *
+   * @return 200 with the goal, 400 on bad parameters, 404 if it did not exist then
+   */
+  @GetMapping("/retrieveGoalAsOf")
+  public ResponseEntity<?> retrieveGoalAsOf(@RequestParam String id,
+                                            @RequestParam(required = false) Integer version,
+                                            @RequestParam(required = false) String timestamp,
+                                            HttpServletRequest request) {
+    logRequest(request, "/retrieveGoalAsOf?id=" + id);
+    if ((version == null) == (timestamp == null)) {
+      return ResponseEntity.badRequest().body("Provide exactly one of version or timestamp");
+    }
+
+    Goal goal;
+    if (version != null) {
+      goal = goalHistoryService.goalAtVersion(id, version);
+    } else {
+      try {
+        goal = goalHistoryService.goalAsOf(id, Instant.parse(timestamp));
+      } catch (DateTimeParseException e) {
+        return ResponseEntity.badRequest().body("timestamp must be an ISO-8601 instant");
+      }
+    }
+    if (goal == null) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Goal version not found");
+    }
+    return ResponseEntity.ok(GoalResponse.from(goal));
+  }
+}
@@ -0,0 +1,90 @@
+package com.ontracked.controller;
+
+import com.ontracked.dto.goal.GoalResponse;
+import com.ontracked.model.Goal;
+import com.ontracked.service.GoalService;
+import com.ontracked.util.ETags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller for shard-aware goal queries backed by {@link GoalService}.
+ *
+ * <p>Base path: <b>/goal</b>
+ * <ul>
+ *   <li>GET /goal/byOwner?ownerId=...&amp;includeArchived=... – goals of one owner, read from
+ *       that owner's shard and optionally the archive</li>
+ *   <li>GET /goal/stats – goal counts by status, merged across all shards</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/goal")
+public class GoalQueryController {
+
+  private static final Logger logger = LoggerFactory.getLogger(GoalQueryController.class);
+  private final GoalService goalService;
+
+  public GoalQueryController(GoalService goalService) {
+    this.goalService = goalService;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Lists the goals of one owner.
+   *
+   * @param ownerId         the owner to look up
+   * @param includeArchived whether to also scan the cold archive
+   * @return 200 with the owner's goals (possibly empty), or 304 if no goal
+   *         changed since the client's copy
+   */
+  @GetMapping("/byOwner")
+  public ResponseEntity<?> getGoalsByOwner(@RequestParam String ownerId,
+                                           @RequestParam(defaultValue = "false") boolean includeArchived,
+                                           HttpServletRequest request) {
+    logRequest(request, "/goal/byOwner?ownerId=" + ownerId + "&includeArchived=" + includeArchived);
+    String etag = ETags.collection("goals", goalService.storeVersion());
+    if (ETags.notModified(request, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    List<GoalResponse> responses = new ArrayList<>();
+    for (Goal g : goalService.loadGoalsForOwner(ownerId)) {
+      responses.add(GoalResponse.from(g));
+    }
+    if (includeArchived) {
+      for (Goal g : goalService.loadArchivedGoalsForOwner(ownerId)) {
+        responses.add(GoalResponse.from(g));
+      }
+    }
+    return ResponseEntity.ok().eTag(etag).body(responses);
+  }
+
+  /**
+   * Reports goal counts by status and per shard.
+   *
+   * @return 200 with {@code total}, {@code byStatus} and {@code shards}
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<?> getGoalStats(HttpServletRequest request) {
+    logRequest(request, "/goal/stats");
+    return ResponseEntity.ok(goalService.goalStats());
+  }
+}
@@ -0,0 +1,63 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.AdmissionService;
+import com.ontracked.service.GoalService;
+import com.ontracked.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST controller exposing runtime counters of the request-handling machinery.
+ *
+ * <ul>
+ *   <li>GET /metrics – per-route admission limits, in-flight and queued requests,
+ *       accepted and rejected totals, and latencies; coalesced CSV reloads</li>
+ * </ul>
+ */
+@RestController
+public class MetricsController {
+
+  private static final Logger logger = LoggerFactory.getLogger(MetricsController.class);
+  private final AdmissionService admissionService;
+  private final GoalService goalService;
+
+  public MetricsController(AdmissionService admissionService, GoalService goalService) {
+    this.admissionService = admissionService;
+    this.goalService = goalService;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Reports current metrics.
+   *
+   * @return 200 with an {@code admission} map keyed by route, and {@code coalescing}
+   *         counters of goal shard and user file reloads
+   */
+  @GetMapping("/metrics")
+  public ResponseEntity<?> getMetrics(HttpServletRequest request) {
+    logRequest(request, "/metrics");
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("admission", admissionService.snapshot());
+    Map<String, Object> coalescing = new LinkedHashMap<>();
+    coalescing.put("goalShards", goalService.shardLoadStats());
+    coalescing.put("users", UserService.reloadStats());
+    metrics.put("coalescing", coalescing);
+    return ResponseEntity.ok(metrics);
+  }
+}
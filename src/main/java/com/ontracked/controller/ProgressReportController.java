@@ -0,0 +1,71 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.ProgressReportService;
+import com.ontracked.service.ProgressReportService.GroupBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * REST controller for class-level progress reports backed by {@link ProgressReportService}.
+ *
+ * <p>Base path: <b>/goal/report</b>
+ * <ul>
+ *   <li>GET /goal/report/progress?groupBy=owner,status&amp;threshold=80 – average, min, max,
+ *       threshold count and histogram of latest percentages, overall and per group</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/goal/report")
+public class ProgressReportController {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProgressReportController.class);
+  private final ProgressReportService reportService;
+
+  public ProgressReportController(ProgressReportService reportService) {
+    this.reportService = reportService;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Reports progress statistics grouped by owner, status, or both.
+   *
+   * @param groupBy   {@code owner}, {@code status} or {@code owner,status}
+   * @param threshold percentage (0-100) counted by {@code atOrAboveThreshold}
+   * @return 200 with the report, or 400 on an unknown grouping or threshold out of range
+   */
+  @GetMapping("/progress")
+  public ResponseEntity<?> progress(@RequestParam(defaultValue = "owner,status") String groupBy,
+                                    @RequestParam(defaultValue = "80") int threshold,
+                                    HttpServletRequest request) {
+    logRequest(request, "/goal/report/progress?groupBy=" + groupBy + "&threshold=" + threshold);
+    GroupBy grouping = switch (groupBy.replace(" ", "").toLowerCase()) {
+      case "owner" -> GroupBy.OWNER;
+      case "status" -> GroupBy.STATUS;
+      case "owner,status", "status,owner" -> GroupBy.OWNER_STATUS;
+      default -> null;
+    };
+    if (grouping == null) {
+      return ResponseEntity.badRequest().body("groupBy must be owner, status or owner,status");
+    }
+    if (threshold < 0 || threshold > 100) {
+      return ResponseEntity.badRequest().body("threshold must be between 0 and 100");
+    }
+    return ResponseEntity.ok(reportService.report(grouping, threshold));
+  }
+}
@@ -0,0 +1,126 @@
+package com.ontracked.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.ontracked.config.BypassAdmission;
+import com.ontracked.dto.progress.ProgressStreamResponse;
+import com.ontracked.dto.progress.ProgressUpdateRequest;
+import com.ontracked.service.ProgressUpdateService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * REST controller for bulk progress ingestion backed by {@link ProgressUpdateService}.
+ *
+ * <ul>
+ *   <li>POST /progress/stream – a long-lived, typically chunked body of
+ *       newline-delimited {@code ProgressUpdateRequest} JSON objects</li>
+ * </ul>
+ *
+ * <p>The body is parsed one line at a time as it arrives, so a stream can run
+ * indefinitely without being held in memory. Each valid update goes straight
+ * into the service's bounded buffer; when it is full, reading pauses. The
+ * route bypasses admission control: a stream can stay open for hours, and
+ * the buffer already limits how fast streams are taken in.
+ */
+@RestController
+public class ProgressStreamController {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProgressStreamController.class);
+  /** How long the end of a stream waits for its updates to be written. */
+  private static final long FLUSH_TIMEOUT_SECONDS = 30;
+
+  private final ProgressUpdateService progressUpdates;
+  private final ObjectReader reader;
+
+  public ProgressStreamController(ProgressUpdateService progressUpdates, ObjectMapper mapper) {
+    this.progressUpdates = progressUpdates;
+    this.reader = mapper.readerFor(ProgressUpdateRequest.class);
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Ingests a stream of progress updates, one JSON object per line.
+   *
+   * @return HTTP 200 with accepted and rejected counts once every accepted update
+   *         is persisted; 503 with the counts so far if the buffer stayed full past
+   *         the put timeout (updates accepted before that are still persisted);
+   *         400 if the stream broke off; or 500 if the updates could not be written.
+   */
+  @BypassAdmission
+  @PostMapping("/progress/stream")
+  public ResponseEntity<?> ingest(HttpServletRequest request) {
+    logRequest(request, "/progress/stream");
+    long accepted = 0;
+    long rejected = 0;
+    List<String> errors = new ArrayList<>();
+    try (BufferedReader lines = new BufferedReader(
+            new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+      long lineNumber = 0;
+      for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+        lineNumber++;
+        if (line.isBlank()) {
+          continue;
+        }
+        try {
+          ProgressUpdateRequest update = reader.readValue(line);
+          if (!progressUpdates.put(update.toEntity())) {
+            logger.warn("Progress buffer full; stopped stream at line {}", lineNumber);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ProgressStreamResponse(accepted, rejected, errors));
+          }
+          accepted++;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+          rejected++;
+          if (errors.size() < ProgressStreamResponse.MAX_ERRORS) {
+            String reason = e instanceof JsonProcessingException j ? j.getOriginalMessage() : e.getMessage();
+            errors.add("line " + lineNumber + ": " + reason);
+          }
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Progress stream broke off after {} updates", accepted, e);
+      return ResponseEntity.badRequest().body(new ProgressStreamResponse(accepted, rejected, errors));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+              .body(new ProgressStreamResponse(accepted, rejected, errors));
+    }
+
+    try {
+      progressUpdates.flush().get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      logger.error("Failed to persist progress stream", e);
+      return new ResponseEntity<>("Error persisting progress updates.", HttpStatus.INTERNAL_SERVER_ERROR);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new ResponseEntity<>("Error persisting progress updates.", HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+    return ResponseEntity.ok(new ProgressStreamResponse(accepted, rejected, errors));
+  }
+}
@@ -0,0 +1,37 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.WarmupService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports whether every data store has finished warming up.
+ */
+@RestController
+public class ReadinessController {
+
+  private final WarmupService warmupService;
+
+  public ReadinessController(WarmupService warmupService) {
+    this.warmupService = warmupService;
+  }
+
+  /**
+   * Returns readiness together with each store's load state and duration.
+   *
+   * @return 200 once all stores are loaded, 503 while loading or after a failure
+   */
+  @GetMapping("/ready")
+  public ResponseEntity<Map<String, Object>> ready() {
+    Map<String, Object> body = new LinkedHashMap<>();
+    boolean ready = warmupService.isReady();
+    body.put("ready", ready);
+    body.put("stores", warmupService.getStatuses());
+    return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(body);
+  }
+}
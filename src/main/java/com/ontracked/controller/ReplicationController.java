@@ -0,0 +1,52 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.ReplicationFollower;
+import com.ontracked.service.ReplicationLeader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports this instance's replication role, offsets and lag.
+ */
+@RestController
+public class ReplicationController {
+
+  private final ObjectProvider<ReplicationLeader> leader;
+  private final ObjectProvider<ReplicationFollower> follower;
+
+  public ReplicationController(ObjectProvider<ReplicationLeader> leader,
+                               ObjectProvider<ReplicationFollower> follower) {
+    this.leader = leader;
+    this.follower = follower;
+  }
+
+  /**
+   * Returns replication status. Followers report applied vs. leader offset and
+   * apply delay; leaders report their latest offset and connected followers.
+   *
+   * @return 200 with a status object
+   */
+  @GetMapping("/replication/status")
+  public ResponseEntity<Map<String, Object>> status() {
+    ReplicationFollower f = follower.getIfAvailable();
+    if (f != null) {
+      return ResponseEntity.ok(f.status());
+    }
+    Map<String, Object> status = new LinkedHashMap<>();
+    ReplicationLeader l = leader.getIfAvailable();
+    if (l == null) {
+      status.put("role", "none");
+    } else {
+      status.put("role", "leader");
+      status.put("latestOffset", l.getLog().latestOffset());
+      status.put("followers", l.getFollowerCount());
+      status.put("port", l.getLocalPort());
+    }
+    return ResponseEntity.ok(status);
+  }
+}
@@ -0,0 +1,50 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.StatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * REST controller serving the incrementally maintained counters of {@link StatsService}.
+ *
+ * <ul>
+ *   <li>GET /stats – users by role, goals by status, average latest percentage,
+ *       check-ins in total and today, and when the counters were last reconciled</li>
+ * </ul>
+ */
+@RestController
+public class StatsController {
+
+  private static final Logger logger = LoggerFactory.getLogger(StatsController.class);
+  private final StatsService statsService;
+
+  public StatsController(StatsService statsService) {
+    this.statsService = statsService;
+  }
+
+  private void logRequest(HttpServletRequest request, String endpoint) {
+    logger.info(
+            "Timestamp: {}, Origin: {}, Method: {}, Endpoint: {}",
+            java.time.Instant.now(),
+            request.getRemoteAddr(),
+            request.getMethod(),
+            endpoint
+    );
+  }
+
+  /**
+   * Reports the current counters. The cost does not depend on how much is stored.
+   *
+   * @return 200 with the counters
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<?> getStats(HttpServletRequest request) {
+    logRequest(request, "/stats");
+    return ResponseEntity.ok(statsService.snapshot());
+  }
+}
@@ -1,5 +1,7 @@
 package com.ontracked.controller;
 
+import com.ontracked.config.ReadOnlyRoute;
+import com.ontracked.dto.common.BatchResponse;
 import com.ontracked.model.User;
 import com.ontracked.dto.user.CreateUserRequest;
 import com.ontracked.service.UserService;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.Map;
 @RestController
 public class UserController {
 
@@ -69,6 +72,35 @@ public class UserController {
         }
     }
 
+    /**
+     * Retrieves many users at once against a single snapshot of the user cache.
+     * 
+     * @param ids JSON array of user ids, at most {@link BatchResponse#MAX_IDS}
+     * @return ResponseEntity containing the users found, in request order, and the ids
+     *         that were not, with HTTP 200 OK status; HTTP 400 BAD REQUEST if the list
+     *         is missing or too long
+     */
+    @ReadOnlyRoute
+    @PostMapping("/users/batch")
+    public ResponseEntity<?> getUsersByIds(@RequestBody(required = false) List<Integer> ids, HttpServletRequest request) {
+        logRequest(request, "/users/batch");
+        if (ids == null) {
+            return ResponseEntity.badRequest().body("Body must be a JSON array of user ids");
+        }
+        if (ids.size() > BatchResponse.MAX_IDS) {
+            return ResponseEntity.badRequest().body("At most " + BatchResponse.MAX_IDS + " ids per request");
+        }
+        try {
+            Map<Integer, User> found = UserService.retrieveUsers(ids);
+            List<Integer> missing = ids.stream().distinct().filter(id -> !found.containsKey(id)).toList();
+            logger.info("Retrieved {} of {} requested users", found.size(), ids.size());
+            return ResponseEntity.ok(new BatchResponse<>(List.copyOf(found.values()), missing));
+        } catch (Exception e) {
+            logger.error("Failed to retrieve users", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Creates a new user with the provided information.
      * Validates that the email is unique before creating the user.
@@ -0,0 +1,17 @@
+package com.ontracked.dto.checkin;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.ontracked.dto.goal.ExpandedGoal;
+
+/**
+ * A check-in with its goal, and possibly the goal's owner, embedded as
+ * requested by an {@code expand} parameter. Serializes as the check-in's own
+ * fields plus {@code goal}.
+ *
+ * @param checkIn the check-in
+ * @param goal    the referenced goal; null when not expanded or no goal has that id
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExpandedCheckIn(@JsonUnwrapped CheckInResponse checkIn, ExpandedGoal goal) {
+}
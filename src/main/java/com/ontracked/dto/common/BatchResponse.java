@@ -0,0 +1,16 @@
+package com.ontracked.dto.common;
+
+import java.util.List;
+
+/**
+ * Answer to a multi-get: the entities found, in request order, and the
+ * requested ids that matched none.
+ *
+ * @param found   the entities found; each requested id appears at most once
+ * @param missing requested ids with no entity, in request order
+ */
+public record BatchResponse<T, K>(List<T> found, List<K> missing) {
+
+  /** Most ids a single multi-get may ask for. */
+  public static final int MAX_IDS = 1000;
+}
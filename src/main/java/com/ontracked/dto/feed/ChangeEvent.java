@@ -0,0 +1,22 @@
+package com.ontracked.dto.feed;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change feed.
+ *
+ * @param offset    monotonically increasing position in the feed; used as the SSE event id
+ * @param entity    entity kind: {@code user}, {@code goal} or {@code checkin}
+ * @param action    what happened: {@code created}, {@code updated} or {@code saved}
+ * @param entityId  id of the changed entity, as a string
+ * @param timestamp when the change was published
+ * @param data      response-shaped snapshot of the entity after the change
+ */
+public record ChangeEvent(long offset, String entity, String action, String entityId,
+                          Instant timestamp, Object data) {
+
+  /** SSE event name, e.g. {@code goal.saved}. */
+  public String name() {
+    return entity + "." + action;
+  }
+}
@@ -0,0 +1,22 @@
+package com.ontracked.dto.goal;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.ontracked.dto.checkin.CheckInResponse;
+import com.ontracked.model.Goal;
+import com.ontracked.model.User;
+
+import java.util.List;
+
+/**
+ * A goal with related entities embedded, as requested by an {@code expand}
+ * parameter. Serializes as the goal's own fields plus the expanded ones, so
+ * clients that ignore unknown fields read it like a plain goal.
+ *
+ * @param goal     the goal
+ * @param owner    the owning user; null when not expanded or the owner is unknown
+ * @param checkIns the goal's check-ins; null when not expanded
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExpandedGoal(@JsonUnwrapped Goal goal, User owner, List<CheckInResponse> checkIns) {
+}
@@ -1,6 +1,6 @@
 package com.ontracked.dto.goal;
 
-import com.ontracked.model.Goal;
+import com.ontracked.model.GoalView;
 import com.ontracked.model.GoalStatus;
 
 import java.time.Instant;
@@ -43,7 +43,7 @@ public class GoalResponse {
   }
 
   /** Convenience mapper from domain model. */
-  public static GoalResponse from(Goal g) {
+  public static GoalResponse from(GoalView g) {
     return new GoalResponse(
             g.getId(), g.getOwnerId(), g.getParentId(), g.getChildrenId(),
             g.getTitle(), g.getDescription(), g.getDueDate(),
@@ -0,0 +1,16 @@
+package com.ontracked.dto.progress;
+
+import java.util.List;
+
+/**
+ * Outcome of one NDJSON progress stream.
+ *
+ * @param accepted updates buffered for persistence
+ * @param rejected lines that were not valid progress updates
+ * @param errors   the first {@link #MAX_ERRORS} rejections, as {@code "line N: reason"}
+ */
+public record ProgressStreamResponse(long accepted, long rejected, List<String> errors) {
+
+  /** Most rejection messages reported per stream. */
+  public static final int MAX_ERRORS = 20;
+}
@@ -0,0 +1,26 @@
+package com.ontracked.dto.replication;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One line of the replication stream shipped from leader to followers.
+ *
+ * @param offset    position in the leader's mutation log; for heartbeats, the leader's latest offset
+ * @param entity    {@code user}, {@code goal}, {@code checkin} or {@code heartbeat}
+ * @param action    {@code created}, {@code updated} or {@code saved}
+ * @param id        id of the changed entity
+ * @param version   the entity's version after the change, or 0 if the entity is not versioned
+ * @param timestamp leader wall-clock time in epoch millis when the record was written
+ * @param payload   full entity state after the change; null for heartbeats
+ */
+public record ReplicationRecord(long offset, String entity, String action, String id,
+                                long version, long timestamp, JsonNode payload) {
+
+  public static final String HEARTBEAT = "heartbeat";
+
+  @JsonIgnore
+  public boolean isHeartbeat() {
+    return HEARTBEAT.equals(entity);
+  }
+}
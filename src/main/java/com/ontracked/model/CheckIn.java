@@ -1,12 +1,27 @@
 package com.ontracked.model;
 
+import com.ontracked.util.TextArena;
+
 import java.time.LocalDateTime;
 
+/**
+ * A progress check-in against a goal.
+ *
+ * <p>Notes start out as an ordinary string. Once a check-in is stored, its
+ * store calls {@link #moveNotesTo} and the notes live off-heap in the store's
+ * {@link TextArena}; the object then holds only a reference, and
+ * {@link #getNotes()} decodes the text on each call (in practice when a
+ * response is serialized or the CSV is written). Request bodies and other
+ * check-ins that are never stored keep their notes on the heap.
+ */
 public class CheckIn {
     private Long id;
     private Long goalId;
     private LocalDateTime checkInDate;
     private String notes;
+    /** Arena holding the notes once the check-in is stored; null until then. */
+    private TextArena notesArena;
+    private long notesRef = TextArena.NULL;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private int version;
@@ -29,7 +44,12 @@ public class CheckIn {
         this.version = version;
     }
 
- 
+    /** Copies another check-in, with its notes on the heap. */
+    public CheckIn(CheckIn other) {
+        this(other.id, other.goalId, other.checkInDate, other.getNotes(),
+                other.createdAt, other.updatedAt, other.version);
+    }
+
 
     public Long getId() {
         return id;
@@ -56,11 +76,29 @@ public class CheckIn {
     }
 
     public String getNotes() {
-        return notes;
+        return notesArena == null ? notes : notesArena.get(notesRef);
     }
 
     public void setNotes(String notes) {
-        this.notes = notes;
+        if (notesArena == null) {
+            this.notes = notes;
+        } else {
+            this.notesRef = notesArena.put(notes);
+        }
+    }
+
+    /**
+     * Moves the notes into a store's arena; later {@link #setNotes} calls write
+     * there too. Called by the store before the check-in becomes visible to
+     * other threads.
+     *
+     * @param arena the arena owned by the store
+     */
+    public void moveNotesTo(TextArena arena) {
+        String text = getNotes();
+        this.notesRef = arena.put(text);
+        this.notesArena = arena;
+        this.notes = null;
     }
 
     public LocalDateTime getCreatedAt() {
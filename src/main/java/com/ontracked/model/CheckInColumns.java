@@ -0,0 +1,188 @@
+package com.ontracked.model;
+
+import com.ontracked.util.LongObjectMap;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Struct-of-arrays copy of the check-in fields that analytical scans touch:
+ * id, goalId and check-in time as epoch seconds, one primitive array each.
+ *
+ * <p>Row {@code i} mirrors element {@code i} of the row store it is kept
+ * alongside, so scans walk three dense {@code long[]}s instead of chasing
+ * {@link CheckIn} and {@link LocalDateTime} pointers. Check-in times are
+ * local date-times and are converted as if they were UTC, which keeps week
+ * boundaries in the same frame as the stored values. A missing goalId or
+ * date is stored as {@link #NONE} and never matches a filter.
+ *
+ * <p>This class is not thread-safe; callers are expected to guard it.
+ */
+public final class CheckInColumns {
+
+  /** Stored for a missing goalId or date; also means "any goal" in queries. */
+  public static final long NONE = Long.MIN_VALUE;
+
+  private static final long SECONDS_PER_DAY = 86_400L;
+
+  /** Check-ins of one goal in the week starting on {@code weekStart} (a Monday). */
+  public record WeeklyCount(long goalId, LocalDate weekStart, int count) { }
+
+  private long[] ids = new long[16];
+  private long[] goalIds = new long[16];
+  private long[] epochSeconds = new long[16];
+  private int size;
+
+  public int size() { return size; }
+
+  /** Inserts the fields of {@code c} at row {@code index}, shifting later rows. */
+  public void add(int index, CheckIn c) {
+    if (size == ids.length) {
+      int capacity = size * 2;
+      ids = Arrays.copyOf(ids, capacity);
+      goalIds = Arrays.copyOf(goalIds, capacity);
+      epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+    }
+    if (index < size) {
+      System.arraycopy(ids, index, ids, index + 1, size - index);
+      System.arraycopy(goalIds, index, goalIds, index + 1, size - index);
+      System.arraycopy(epochSeconds, index, epochSeconds, index + 1, size - index);
+    }
+    size++;
+    set(index, c);
+  }
+
+  /** Overwrites row {@code index} with the current fields of {@code c}. */
+  public void set(int index, CheckIn c) {
+    ids[index] = c.getId() == null ? NONE : c.getId();
+    goalIds[index] = c.getGoalId() == null ? NONE : c.getGoalId();
+    epochSeconds[index] = c.getCheckInDate() == null ? NONE : toEpochSecond(c.getCheckInDate());
+  }
+
+  /** Removes row {@code index}, shifting later rows down. */
+  public void remove(int index) {
+    int tail = size - index - 1;
+    System.arraycopy(ids, index + 1, ids, index, tail);
+    System.arraycopy(goalIds, index + 1, goalIds, index, tail);
+    System.arraycopy(epochSeconds, index + 1, epochSeconds, index, tail);
+    size--;
+  }
+
+  /**
+   * Finds the first row at or after {@code from} holding check-in {@code id}.
+   *
+   * @return the row, or -1
+   */
+  public int indexOfId(long id, int from) {
+    for (int i = from; i < size; i++) {
+      if (ids[i] == id) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Counts check-ins of a goal (or of all goals) within an inclusive date range.
+   *
+   * @param goalId the goal, or {@link #NONE} for every goal
+   * @param from   first day counted, or null for no lower bound
+   * @param to     last day counted, or null for no upper bound
+   */
+  public int count(long goalId, LocalDate from, LocalDate to) {
+    long lo = lowerBound(from);
+    long hi = upperBound(to);
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      long t = epochSeconds[i];
+      if (t != NONE && t >= lo && t < hi && (goalId == NONE || goalIds[i] == goalId)) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Counts check-ins per goal per ISO week (weeks start on Monday) within an
+   * inclusive date range. Only non-empty weeks are returned, ordered by goal
+   * and then by week.
+   *
+   * @param goalId the goal, or {@link #NONE} for every goal
+   * @param from   first day counted, or null to start at the earliest check-in
+   * @param to     last day counted, or null to end at the latest check-in
+   */
+  public List<WeeklyCount> weeklyCounts(long goalId, LocalDate from, LocalDate to) {
+    long lo = lowerBound(from);
+    long hi = upperBound(to);
+    // The range fixes the number of week buckets, so each goal gets one int[].
+    long minDay = Long.MAX_VALUE;
+    long maxDay = Long.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      long t = epochSeconds[i];
+      if (t != NONE && t >= lo && t < hi && (goalId == NONE || goalIds[i] == goalId)) {
+        long day = Math.floorDiv(t, SECONDS_PER_DAY);
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+      }
+    }
+    if (minDay > maxDay) {
+      return List.of();
+    }
+    long firstWeek = weekStart(minDay);
+    int weeks = (int) ((weekStart(maxDay) - firstWeek) / 7) + 1;
+
+    LongObjectMap<int[]> buckets = new LongObjectMap<>();
+    long[] goalOrder = new long[16];
+    int goals = 0;
+    for (int i = 0; i < size; i++) {
+      long t = epochSeconds[i];
+      long g = goalIds[i];
+      if (t == NONE || t < lo || t >= hi || g == NONE || (goalId != NONE && g != goalId)) {
+        continue;
+      }
+      int[] counts = buckets.get(g);
+      if (counts == null) {
+        counts = new int[weeks];
+        buckets.put(g, counts);
+        if (goals == goalOrder.length) {
+          goalOrder = Arrays.copyOf(goalOrder, goals * 2);
+        }
+        goalOrder[goals++] = g;
+      }
+      counts[(int) ((weekStart(Math.floorDiv(t, SECONDS_PER_DAY)) - firstWeek) / 7)]++;
+    }
+
+    Arrays.sort(goalOrder, 0, goals);
+    List<WeeklyCount> result = new ArrayList<>();
+    for (int k = 0; k < goals; k++) {
+      int[] counts = buckets.get(goalOrder[k]);
+      for (int w = 0; w < weeks; w++) {
+        if (counts[w] > 0) {
+          result.add(new WeeklyCount(goalOrder[k], LocalDate.ofEpochDay(firstWeek + 7L * w), counts[w]));
+        }
+      }
+    }
+    return result;
+  }
+
+  private static long toEpochSecond(LocalDateTime t) {
+    return t.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static long lowerBound(LocalDate from) {
+    return from == null ? Long.MIN_VALUE + 1 : from.toEpochDay() * SECONDS_PER_DAY;
+  }
+
+  private static long upperBound(LocalDate to) {
+    return to == null ? Long.MAX_VALUE : (to.toEpochDay() + 1) * SECONDS_PER_DAY;
+  }
+
+  /** Epoch day of the Monday starting the week of {@code epochDay}; 1970-01-01 was a Thursday. */
+  private static long weekStart(long epochDay) {
+    return epochDay - Math.floorMod(epochDay + 3, 7);
+  }
+}
@@ -0,0 +1,555 @@
+package com.ontracked.model;
+
+import com.ontracked.util.TextArena;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Append-only, column-per-field store of goals using primitive arrays.
+ *
+ * <p>Compared with one {@link Goal} object per goal, each row here costs a few
+ * primitive slots instead of a dozen objects:
+ * <ul>
+ *   <li>ids, parent ids and child ids in canonical UUID form are stored as two
+ *       longs; any other id text goes to a shared string table</li>
+ *   <li>owner ids are interned into a dictionary and stored as an int code</li>
+ *   <li>the due date is an epoch-day int and timestamps are epoch-nanosecond longs
+ *       (covering the years 1677 to 2262)</li>
+ *   <li>status and percentage are bytes</li>
+ *   <li>descriptions are UTF-8 bytes in an off-heap {@link TextArena} owned by
+ *       the store, decoded only when read; its first segment is sized to the
+ *       descriptions the store is built with, and later ones double up to 64 KiB</li>
+ *   <li>children of all goals share one packed long array, addressed by offset
+ *       and count per row</li>
+ * </ul>
+ *
+ * <p>Rows are read through a {@link Cursor}, a reusable flyweight implementing
+ * {@link GoalView}, or materialized with {@link #toGoal(int)}.
+ *
+ * <p>One thread appends (callers serialize writes); any number of threads may
+ * read concurrently. A row becomes visible to readers once {@link #size()}
+ * covers it.
+ */
+public final class CompactGoalStore {
+
+  private static final int NO_DATE = Integer.MIN_VALUE;
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+  private static final byte ID_TEXT = 1;
+  private static final byte PARENT_TEXT = 2;
+  private static final byte HAS_PARENT = 4;
+  private static final byte SUPERSEDED = 8;
+  private static final GoalStatus[] STATUSES = GoalStatus.values();
+  private static final int DESCRIPTION_SEGMENT_BYTES = 64 * 1024;
+  private static final int MIN_DESCRIPTION_SEGMENT_BYTES = 1024;
+
+  private volatile int size;
+
+  private long[] idHi;
+  private long[] idLo;
+  private long[] parentHi;
+  private long[] parentLo;
+  private byte[] flags;
+  private int[] ownerCode;
+  private int[] nextOfOwner;
+  private String[] titles;
+  private long[] descriptionRefs;
+  private int[] dueDays;
+  private byte[] statuses;
+  private byte[] percentages;
+  private long[] createdNanos;
+  private long[] updatedNanos;
+  private int[] versions;
+  private int[] childStart;
+  private int[] childCount;
+  /** For the first row of each id, the row holding that id's latest version. */
+  private int[] latestRow;
+
+  /** Packed child ids of all rows: pairs of longs, or a text-table index when flagged. */
+  private long[] children = new long[16];
+  private boolean[] childIsText = new boolean[8];
+  private int childSlots;
+
+  /** Ids, parent ids and child ids that are not canonical UUIDs. */
+  private String[] texts = new String[16];
+  private int textCount;
+
+  private final TextArena descriptionArena;
+
+  private final Map<String, Integer> ownerCodes = new ConcurrentHashMap<>();
+  private String[] owners = new String[16];
+  private int[] ownerHead = new int[16];
+  private int[] ownerTail = new int[16];
+
+  /** Open-addressing id index: row + 1 per slot, 0 when empty. */
+  private int[] idTable = new int[32];
+
+  public CompactGoalStore() {
+    this(16);
+  }
+
+  public CompactGoalStore(int initialCapacity) {
+    this(initialCapacity, 0);
+  }
+
+  /**
+   * @param initialCapacity  rows held before the columns grow
+   * @param descriptionBytes expected UTF-8 bytes of the descriptions to be added
+   */
+  public CompactGoalStore(int initialCapacity, long descriptionBytes) {
+    allocate(Math.max(1, initialCapacity));
+    int first = (int) Math.min(DESCRIPTION_SEGMENT_BYTES, Math.max(MIN_DESCRIPTION_SEGMENT_BYTES, descriptionBytes));
+    descriptionArena = new TextArena(first, DESCRIPTION_SEGMENT_BYTES);
+  }
+
+  /** Number of rows visible to readers. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Appends a row holding a copy of the given goal's fields.
+   *
+   * @param g the goal to copy
+   * @return the new row number
+   */
+  public int add(GoalView g) {
+    int row = size;
+    if (row == idHi.length) {
+      allocate(row * 2);
+    }
+
+    byte f = 0;
+    long[] id = encodeId(g.getId());
+    if (id[2] != 0) {
+      f |= ID_TEXT;
+    }
+    idHi[row] = id[0];
+    idLo[row] = id[1];
+    if (g.getParentId() != null) {
+      long[] parent = encodeId(g.getParentId());
+      f |= HAS_PARENT;
+      if (parent[2] != 0) {
+        f |= PARENT_TEXT;
+      }
+      parentHi[row] = parent[0];
+      parentLo[row] = parent[1];
+    }
+    flags[row] = f;
+
+    int code = ownerCode(g.getOwnerId());
+    ownerCode[row] = code;
+    nextOfOwner[row] = -1;
+    if (ownerTail[code] >= 0) {
+      nextOfOwner[ownerTail[code]] = row;
+    } else {
+      ownerHead[code] = row;
+    }
+    ownerTail[code] = row;
+
+    titles[row] = g.getTitle();
+    descriptionRefs[row] = descriptionArena.put(g.getDescription());
+    dueDays[row] = g.getDueDate() == null ? NO_DATE : (int) LocalDate.parse(g.getDueDate()).toEpochDay();
+    statuses[row] = (byte) g.getStatus().ordinal();
+    percentages[row] = (byte) g.getLatestPercentage();
+    createdNanos[row] = toEpochNanos(g.getCreatedAt());
+    updatedNanos[row] = toEpochNanos(g.getUpdatedAt());
+    versions[row] = g.getVersionNumber();
+
+    List<String> kids = g.getChildrenId();
+    childStart[row] = childSlots;
+    childCount[row] = kids == null ? 0 : kids.size();
+    if (kids != null) {
+      for (String child : kids) {
+        appendChild(encodeId(child));
+      }
+    }
+
+    int first = indexId(row);
+    latestRow[row] = row;
+    size = row + 1;
+    // Flag the previous version only once the new one is visible, so a
+    // concurrent scan of latest rows may briefly see both but never neither.
+    if (first >= 0) {
+      flags[latestRow[first]] |= SUPERSEDED;
+      latestRow[first] = row;
+    }
+    return row;
+  }
+
+  /**
+   * Finds the first row holding a goal id.
+   *
+   * @return the row, or -1 if absent
+   */
+  public int find(String id) {
+    if (id == null) {
+      return -1;
+    }
+    int visible = size;
+    int[] table = idTable;
+    long[] key = encodeIdForLookup(id);
+    int mask = table.length - 1;
+    int start = key[2] != 0 ? mix(id.hashCode()) : mix(key[0] ^ Long.rotateLeft(key[1], 32));
+    for (int slot = start & mask; ; slot = (slot + 1) & mask) {
+      int row = table[slot] - 1;
+      if (row < 0) {
+        return -1;
+      }
+      if (row < visible && idMatches(row, key, id)) {
+        return row;
+      }
+    }
+  }
+
+  /**
+   * Finds the row holding the latest version of a goal id.
+   *
+   * @return the row, or -1 if absent
+   */
+  public int findLatest(String id) {
+    int first = find(id);
+    return first < 0 ? -1 : Math.min(latestRow[first], size - 1);
+  }
+
+  /** Whether no later row holds the same goal id. */
+  public boolean isLatest(int row) {
+    return (flags[row] & SUPERSEDED) == 0;
+  }
+
+  /** Visits the rows of one owner in insertion order. */
+  public void forEachRowOfOwner(String ownerId, IntConsumer action) {
+    int visible = size;
+    Integer code = ownerId == null ? null : ownerCodes.get(ownerId);
+    int[] heads = ownerHead;
+    if (code == null || code >= heads.length) {
+      return;
+    }
+    for (int row = heads[code]; row >= 0 && row < visible; row = nextOfOwner[row]) {
+      action.accept(row);
+    }
+  }
+
+  /** Status of a row without materializing it. */
+  public GoalStatus status(int row) {
+    return STATUSES[statuses[row]];
+  }
+
+  /** Returns a new flyweight; position it on a row with {@link Cursor#at(int)}. */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /** Materializes a row as a standalone, mutable {@link Goal}. */
+  public Goal toGoal(int row) {
+    return cursor().at(row).toGoal();
+  }
+
+  /** Materializes every row, in insertion order. */
+  public List<Goal> toGoals() {
+    int visible = size;
+    Cursor c = cursor();
+    List<Goal> goals = new ArrayList<>(visible);
+    for (int row = 0; row < visible; row++) {
+      goals.add(c.at(row).toGoal());
+    }
+    return goals;
+  }
+
+  /** Off-heap bytes reserved for descriptions. */
+  public long descriptionBytes() {
+    return descriptionArena.capacityBytes();
+  }
+
+  /** Number of distinct interned owner ids. */
+  public int ownerCount() {
+    return ownerCodes.size();
+  }
+
+  // ------------------------------------------------------------------------
+  // Flyweight
+  // ------------------------------------------------------------------------
+
+  /**
+   * Flyweight view of one row. Accessors decode from the store's arrays on each
+   * call; {@link #at(int)} repositions the same object.
+   */
+  public final class Cursor implements GoalView {
+    private int row;
+
+    private Cursor() {
+    }
+
+    public Cursor at(int row) {
+      if (row < 0 || row >= size) {
+        throw new IndexOutOfBoundsException("row " + row + " of " + size);
+      }
+      this.row = row;
+      return this;
+    }
+
+    public int row() {
+      return row;
+    }
+
+    @Override
+    public String getId() {
+      return decodeId(idHi[row], idLo[row], (flags[row] & ID_TEXT) != 0);
+    }
+
+    @Override
+    public String getOwnerId() {
+      return owners[ownerCode[row]];
+    }
+
+    @Override
+    public String getParentId() {
+      byte f = flags[row];
+      return (f & HAS_PARENT) == 0 ? null : decodeId(parentHi[row], parentLo[row], (f & PARENT_TEXT) != 0);
+    }
+
+    @Override
+    public List<String> getChildrenId() {
+      int start = childStart[row];
+      int count = childCount[row];
+      return new AbstractList<>() {
+        @Override
+        public String get(int i) {
+          if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException(i);
+          }
+          int slot = start + i;
+          return decodeId(children[2 * slot], children[2 * slot + 1], childIsText[slot]);
+        }
+
+        @Override
+        public int size() {
+          return count;
+        }
+      };
+    }
+
+    @Override
+    public String getTitle() {
+      return titles[row];
+    }
+
+    @Override
+    public String getDescription() {
+      return descriptionArena.get(descriptionRefs[row]);
+    }
+
+    @Override
+    public String getDueDate() {
+      int day = dueDays[row];
+      return day == NO_DATE ? null : LocalDate.ofEpochDay(day).toString();
+    }
+
+    @Override
+    public GoalStatus getStatus() {
+      return STATUSES[statuses[row]];
+    }
+
+    @Override
+    public int getLatestPercentage() {
+      return percentages[row];
+    }
+
+    @Override
+    public Instant getCreatedAt() {
+      return fromEpochNanos(createdNanos[row]);
+    }
+
+    @Override
+    public Instant getUpdatedAt() {
+      return fromEpochNanos(updatedNanos[row]);
+    }
+
+    @Override
+    public int getVersionNumber() {
+      return versions[row];
+    }
+
+    /** Copies the current row into a new {@link Goal}. */
+    public Goal toGoal() {
+      return new Goal(getId(), getOwnerId(), getParentId(), getChildrenId(), getTitle(), getDescription(),
+              getDueDate(), getStatus(), getLatestPercentage(), getCreatedAt(), getUpdatedAt(),
+              getVersionNumber());
+    }
+  }
+
+  // ------------------------------------------------------------------------
+  // Encoding helpers
+  // ------------------------------------------------------------------------
+
+  /** Returns {hi, lo, isText}; text ids are stored as {0, textIndex, 1}. */
+  private long[] encodeId(String id) {
+    UUID uuid = canonicalUuid(id);
+    if (uuid != null) {
+      return new long[] {uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 0};
+    }
+    if (textCount == texts.length) {
+      texts = Arrays.copyOf(texts, textCount * 2);
+    }
+    texts[textCount] = id;
+    return new long[] {0, textCount++, 1};
+  }
+
+  /** Like {@link #encodeId} but never adds to the text table. */
+  private static long[] encodeIdForLookup(String id) {
+    UUID uuid = canonicalUuid(id);
+    if (uuid != null) {
+      return new long[] {uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 0};
+    }
+    return new long[] {0, 0, 1};
+  }
+
+  private static UUID canonicalUuid(String id) {
+    if (id == null || id.length() != 36) {
+      return null;
+    }
+    try {
+      UUID uuid = UUID.fromString(id);
+      return uuid.toString().equals(id) ? uuid : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private String decodeId(long hi, long lo, boolean text) {
+    return text ? texts[(int) lo] : new UUID(hi, lo).toString();
+  }
+
+  private boolean idMatches(int row, long[] key, String id) {
+    boolean text = (flags[row] & ID_TEXT) != 0;
+    if (key[2] != 0) {
+      return text && texts[(int) idLo[row]].equals(id);
+    }
+    return !text && idHi[row] == key[0] && idLo[row] == key[1];
+  }
+
+  private int hashRow(int row) {
+    if ((flags[row] & ID_TEXT) != 0) {
+      return mix(texts[(int) idLo[row]].hashCode());
+    }
+    return mix(idHi[row] ^ Long.rotateLeft(idLo[row], 32));
+  }
+
+  private static int mix(long h) {
+    h *= 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /** Indexes a new row; returns the first row already holding its id, or -1. */
+  private int indexId(int row) {
+    if ((row + 1) * 2 > idTable.length) {
+      int[] table = new int[idTable.length * 2];
+      for (int r = 0; r < row; r++) {
+        insert(table, r);
+      }
+      idTable = table;
+    }
+    return insert(idTable, row);
+  }
+
+  /** Inserts a row unless an earlier row already holds the same id, returning that row or -1. */
+  private int insert(int[] table, int row) {
+    int mask = table.length - 1;
+    for (int slot = hashRow(row) & mask; ; slot = (slot + 1) & mask) {
+      int existing = table[slot] - 1;
+      if (existing < 0) {
+        table[slot] = row + 1;
+        return -1;
+      }
+      if (sameId(existing, row)) {
+        return existing;
+      }
+    }
+  }
+
+  private boolean sameId(int a, int b) {
+    boolean textA = (flags[a] & ID_TEXT) != 0;
+    boolean textB = (flags[b] & ID_TEXT) != 0;
+    if (textA != textB) {
+      return false;
+    }
+    if (textA) {
+      return texts[(int) idLo[a]].equals(texts[(int) idLo[b]]);
+    }
+    return idHi[a] == idHi[b] && idLo[a] == idLo[b];
+  }
+
+  private int ownerCode(String ownerId) {
+    Integer code = ownerCodes.get(ownerId);
+    if (code != null) {
+      return code;
+    }
+    int c = ownerCodes.size();
+    if (c == owners.length) {
+      owners = Arrays.copyOf(owners, c * 2);
+      ownerHead = Arrays.copyOf(ownerHead, c * 2);
+      ownerTail = Arrays.copyOf(ownerTail, c * 2);
+    }
+    owners[c] = ownerId;
+    ownerHead[c] = -1;
+    ownerTail[c] = -1;
+    ownerCodes.put(ownerId, c);
+    return c;
+  }
+
+  private void appendChild(long[] id) {
+    if (childSlots == childIsText.length) {
+      children = Arrays.copyOf(children, children.length * 2);
+      childIsText = Arrays.copyOf(childIsText, childIsText.length * 2);
+    }
+    children[2 * childSlots] = id[0];
+    children[2 * childSlots + 1] = id[1];
+    childIsText[childSlots] = id[2] != 0;
+    childSlots++;
+  }
+
+  private static long toEpochNanos(Instant t) {
+    return Math.addExact(Math.multiplyExact(t.getEpochSecond(), NANOS_PER_SECOND), t.getNano());
+  }
+
+  private static Instant fromEpochNanos(long nanos) {
+    return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND));
+  }
+
+  private void allocate(int capacity) {
+    idHi = grow(idHi, capacity);
+    idLo = grow(idLo, capacity);
+    parentHi = grow(parentHi, capacity);
+    parentLo = grow(parentLo, capacity);
+    flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+    ownerCode = grow(ownerCode, capacity);
+    nextOfOwner = grow(nextOfOwner, capacity);
+    titles = titles == null ? new String[capacity] : Arrays.copyOf(titles, capacity);
+    descriptionRefs = grow(descriptionRefs, capacity);
+    dueDays = grow(dueDays, capacity);
+    statuses = statuses == null ? new byte[capacity] : Arrays.copyOf(statuses, capacity);
+    percentages = percentages == null ? new byte[capacity] : Arrays.copyOf(percentages, capacity);
+    createdNanos = grow(createdNanos, capacity);
+    updatedNanos = grow(updatedNanos, capacity);
+    versions = grow(versions, capacity);
+    childStart = grow(childStart, capacity);
+    childCount = grow(childCount, capacity);
+    latestRow = grow(latestRow, capacity);
+  }
+
+  private static long[] grow(long[] a, int capacity) {
+    return a == null ? new long[capacity] : Arrays.copyOf(a, capacity);
+  }
+
+  private static int[] grow(int[] a, int capacity) {
+    return a == null ? new int[capacity] : Arrays.copyOf(a, capacity);
+  }
+}
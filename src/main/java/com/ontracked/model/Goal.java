@@ -28,7 +28,7 @@ import java.util.UUID;
  * - childrenId is kept duplicate- and null-free via defensive copies.
  * - setters validate inputs and bump updatedAt/versionNumber.
  */
-public final class Goal {
+public final class Goal implements GoalView {
 
   private String id;
   private String ownerId;
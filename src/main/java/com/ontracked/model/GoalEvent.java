@@ -0,0 +1,17 @@
+package com.ontracked.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One recorded mutation of a goal: the fields that changed and their new values.
+ *
+ * @param sequence  global position in the goal event log
+ * @param goalId    the goal that changed
+ * @param version   goal version produced by this change
+ * @param timestamp when the change was recorded
+ * @param changes   changed fields mapped to their new string value (null = cleared)
+ */
+public record GoalEvent(long sequence, String goalId, int version, Instant timestamp,
+                        Map<String, String> changes) {
+}
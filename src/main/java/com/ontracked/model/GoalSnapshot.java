@@ -0,0 +1,15 @@
+package com.ontracked.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Full state of a goal at a given version, used as a replay starting point.
+ *
+ * @param goalId    the goal
+ * @param version   goal version captured
+ * @param timestamp when the captured version was recorded
+ * @param state     every goal field mapped to its string value
+ */
+public record GoalSnapshot(String goalId, int version, Instant timestamp, Map<String, String> state) {
+}
@@ -0,0 +1,36 @@
+package com.ontracked.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Read-only accessors shared by {@link Goal} and the flyweight rows of a
+ * {@link CompactGoalStore}, so code that only reads a goal can take either.
+ */
+public interface GoalView {
+
+  String getId();
+
+  String getOwnerId();
+
+  String getParentId();
+
+  List<String> getChildrenId();
+
+  String getTitle();
+
+  String getDescription();
+
+  /** Due date as ISO yyyy-MM-dd, or null. */
+  String getDueDate();
+
+  GoalStatus getStatus();
+
+  int getLatestPercentage();
+
+  Instant getCreatedAt();
+
+  Instant getUpdatedAt();
+
+  int getVersionNumber();
+}
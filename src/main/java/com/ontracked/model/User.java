@@ -41,6 +41,28 @@ public class User {
         this.createdAt = LocalDate.now();
     }
 
+    /**
+     * Constructor for a user whose id is already known, e.g. when loading from
+     * storage or applying a replicated change. Keeps the automatic id counter
+     * ahead of every id seen so new users never collide with existing ones.
+     * 
+     * @param id       existing unique id of user
+     * @param fullName full name of user
+     * @param email    email address of user
+     * @param role     role of user as string
+     * @throws IllegalArgumentException if role string is not valid
+     */
+    public User(int id, String fullName, String email, String role) {
+        this.id = id;
+        this.fullName = fullName;
+        this.email = email;
+        this.role = Role.valueOf(role);
+        this.createdAt = LocalDate.now();
+        synchronized (User.class) {
+            uniqueId = Math.max(uniqueId, id + 1);
+        }
+    }
+
     /**
      * Getters and setters.
      */
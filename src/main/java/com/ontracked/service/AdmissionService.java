@@ -0,0 +1,67 @@
+package com.ontracked.service;
+
+import com.ontracked.util.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for write routes: one {@link AdaptiveConcurrencyLimiter}
+ * per route (method plus path pattern, e.g. {@code POST /checkins}), created
+ * on first use with the configured settings.
+ *
+ * <p>Write handlers rewrite whole CSV files, so a burst of them queues on disk
+ * and slows every request down. Capping the writes in flight per route keeps
+ * their latency near the no-load level and rejects the excess early; reads
+ * are never routed through here.
+ */
+@Service
+public class AdmissionService {
+
+  private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final int queueSize;
+  private final long maxWaitMs;
+  private final double tolerance;
+
+  @Autowired
+  public AdmissionService(@Value("${ontracked.admission.initial-limit:4}") int initialLimit,
+                          @Value("${ontracked.admission.min-limit:1}") int minLimit,
+                          @Value("${ontracked.admission.max-limit:32}") int maxLimit,
+                          @Value("${ontracked.admission.queue-size:16}") int queueSize,
+                          @Value("${ontracked.admission.max-wait-ms:500}") long maxWaitMs,
+                          @Value("${ontracked.admission.latency-tolerance:2.0}") double tolerance) {
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.queueSize = queueSize;
+    this.maxWaitMs = maxWaitMs;
+    this.tolerance = tolerance;
+    // Fail at startup rather than on the first write if the settings are invalid.
+    newLimiter();
+  }
+
+  /** The limiter guarding one route. */
+  public AdaptiveConcurrencyLimiter limiter(String route) {
+    return limiters.computeIfAbsent(route, r -> newLimiter());
+  }
+
+  /** Snapshot of every route's limiter, ordered by route. */
+  public Map<String, AdaptiveConcurrencyLimiter.Snapshot> snapshot() {
+    Map<String, AdaptiveConcurrencyLimiter.Snapshot> result = new TreeMap<>();
+    limiters.forEach((route, limiter) -> result.put(route, limiter.snapshot()));
+    return result;
+  }
+
+  private AdaptiveConcurrencyLimiter newLimiter() {
+    return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, queueSize,
+            maxWaitMs, TimeUnit.MILLISECONDS, tolerance);
+  }
+}
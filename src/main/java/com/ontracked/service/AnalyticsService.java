@@ -0,0 +1,671 @@
+package com.ontracked.service;
+
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.User;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Ad-hoc analytics over goals, check-ins and users: a conjunction of filters,
+ * then either a group-by with aggregates or a projection of matching rows.
+ *
+ * <p>A query first takes a snapshot of the dataset it reads, joining in the
+ * owner and role fields from the other stores, then scans it as a fork-join
+ * task: the rows are split into about four leaves per core, each leaf filters
+ * and aggregates its range into partial groups, and partials are merged up
+ * the tree. Leaves check the query's deadline as they go, so a query that
+ * runs past its timeout stops scanning instead of holding the pool.
+ *
+ * <p>Check-ins refer to goals by a numeric {@code goalId}; they are joined to
+ * the goal whose id is that number, and their owner fields are null when no
+ * goal matches.
+ */
+@Service
+public class AnalyticsService {
+
+  public static final long DEFAULT_TIMEOUT_MS = 2_000;
+  public static final long MAX_TIMEOUT_MS = 30_000;
+  public static final int DEFAULT_LIMIT = 1_000;
+  /** Leaves never scan fewer rows than this; smaller inputs are not split. */
+  static final int MIN_LEAF_ROWS = 1_024;
+  /** How often, in rows, a leaf checks the deadline. */
+  private static final int DEADLINE_STRIDE = 1_024;
+
+  /** Field types; they decide how filter values are parsed and compared. */
+  public enum Type { TEXT, NUMBER, DATE }
+
+  /** The datasets a query can read, with their fields in row order. */
+  public enum Dataset {
+    GOALS(new String[] {"id", "ownerId", "ownerRole", "status", "latestPercentage", "dueDate", "updatedAt"},
+            new Type[] {Type.TEXT, Type.TEXT, Type.TEXT, Type.TEXT, Type.NUMBER, Type.DATE, Type.DATE}),
+    CHECKINS(new String[] {"id", "goalId", "ownerId", "ownerRole", "checkInDate"},
+            new Type[] {Type.NUMBER, Type.NUMBER, Type.TEXT, Type.TEXT, Type.DATE}),
+    USERS(new String[] {"userId", "role", "goals", "checkIns", "lastCheckIn"},
+            new Type[] {Type.NUMBER, Type.TEXT, Type.NUMBER, Type.NUMBER, Type.DATE});
+
+    private final String[] fields;
+    private final Type[] types;
+
+    Dataset(String[] fields, Type[] types) {
+      this.fields = fields;
+      this.types = types;
+    }
+
+    public List<String> fields() {
+      return List.of(fields);
+    }
+
+    String field(int index) {
+      return fields[index];
+    }
+
+    Type type(int index) {
+      return types[index];
+    }
+
+    int index(String field) {
+      for (int i = 0; i < fields.length; i++) {
+        if (fields[i].equalsIgnoreCase(field)) {
+          return i;
+        }
+      }
+      throw new IllegalArgumentException("Unknown field '" + field + "' in " + label()
+              + "; fields are " + String.join(", ", fields));
+    }
+
+    String label() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  public enum Op { EQ, NE, LT, LTE, GT, GTE }
+
+  /** One {@code field op value} condition; {@code value} is typed like the field, or null. */
+  public record Filter(int field, Type type, Op op, Object value) {
+
+    boolean test(Object[] row) {
+      int c = compare(row[field], value, type);
+      return switch (op) {
+        case EQ -> c == 0;
+        case NE -> c != 0;
+        case LT -> c < 0;
+        case LTE -> c <= 0;
+        case GT -> c > 0;
+        case GTE -> c >= 0;
+      };
+    }
+  }
+
+  public enum Function { COUNT, SUM, AVG, MIN, MAX }
+
+  /** An aggregate over one field; {@code field} is -1 for a plain row count. */
+  public record Aggregate(Function function, int field, String label) { }
+
+  /**
+   * A parsed query. With {@code select} set it returns matching rows;
+   * otherwise one entry per distinct {@code groupBy} key (a single entry
+   * when there is no grouping) with each aggregate.
+   */
+  public record Query(Dataset from, List<Filter> where, int[] groupBy, List<Aggregate> aggregates,
+                      int[] select, int limit, long timeoutMs) { }
+
+  /**
+   * A query's answer.
+   *
+   * @param scanned   rows in the dataset snapshot
+   * @param matched   rows passing every filter
+   * @param groups    one map per group: the group-by fields, then each aggregate by label;
+   *                  null for a row query
+   * @param rows      the selected fields of matching rows, in store order; null for a group query
+   * @param truncated whether more rows matched than {@code limit}
+   * @param leaves    fork-join leaves the scan was split into
+   */
+  public record Result(String from, long scanned, long matched, List<Map<String, Object>> groups,
+                       List<Map<String, Object>> rows, boolean truncated, int leaves, long elapsedMs) { }
+
+  private final GoalService goalService;
+  private final CheckInService checkInService;
+  private final Supplier<List<User>> users;
+  private final Clock clock;
+  private final ForkJoinPool pool;
+
+  @Autowired
+  public AnalyticsService(GoalService goalService, CheckInService checkInService,
+                          @Value("${ontracked.analytics.parallelism:0}") int parallelism) {
+    this(goalService, checkInService, UserService::loadUsers, Clock.systemDefaultZone(), parallelism);
+  }
+
+  /**
+   * @param users       supplies the current users
+   * @param clock       resolves {@code today} and {@code weekStart} in filters
+   * @param parallelism worker threads; 0 or less means one per available core
+   */
+  public AnalyticsService(GoalService goalService, CheckInService checkInService, Supplier<List<User>> users,
+                          Clock clock, int parallelism) {
+    this.goalService = goalService;
+    this.checkInService = checkInService;
+    this.users = users;
+    this.clock = clock;
+    this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Parses query parameters.
+   *
+   * <ul>
+   *   <li>{@code where}: conditions {@code field:op:value}, all of which must hold; {@code op}
+   *       is one of eq, ne, lt, lte, gt, gte. Dates are {@code yyyy-MM-dd}, {@code today} or
+   *       {@code weekStart} (this week's Monday), optionally followed by {@code -N} or {@code +N}
+   *       days. {@code null} matches a missing value, and a missing value sorts before any other,
+   *       so {@code lastCheckIn:lt:weekStart} includes users who never checked in.</li>
+   *   <li>{@code groupBy}: fields to group by</li>
+   *   <li>{@code agg}: {@code count}, or {@code sum|avg|min|max:field}; defaults to count</li>
+   *   <li>{@code select}: fields of matching rows to return, instead of grouping</li>
+   * </ul>
+   *
+   * @throws IllegalArgumentException on an unknown dataset, field, operator or function,
+   *         a value that does not fit its field, or select combined with groupBy or agg
+   */
+  public Query parse(String from, List<String> where, List<String> groupBy, List<String> agg,
+                     List<String> select, Integer limit, Long timeoutMs) {
+    Dataset dataset;
+    try {
+      dataset = Dataset.valueOf(String.valueOf(from).trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("from must be goals, checkins or users");
+    }
+    List<Filter> filters = new ArrayList<>();
+    for (String clause : nonBlank(where)) {
+      String[] parts = clause.split(":", 3);
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("where clause '" + clause + "' must be field:op:value");
+      }
+      int field = dataset.index(parts[0].trim());
+      Op op;
+      try {
+        op = Op.valueOf(parts[1].trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown operator '" + parts[1] + "'; use eq, ne, lt, lte, gt or gte");
+      }
+      Type type = dataset.type(field);
+      filters.add(new Filter(field, type, op, parseValue(parts[2].trim(), type)));
+    }
+
+    List<String> groupFields = nonBlank(groupBy);
+    List<String> aggSpecs = nonBlank(agg);
+    List<String> selectFields = nonBlank(select);
+    if (!selectFields.isEmpty() && (!groupFields.isEmpty() || !aggSpecs.isEmpty())) {
+      throw new IllegalArgumentException("select cannot be combined with groupBy or agg");
+    }
+    int[] groups = groupFields.stream().mapToInt(dataset::index).toArray();
+    int[] selected = selectFields.stream().mapToInt(dataset::index).toArray();
+
+    List<Aggregate> aggregates = new ArrayList<>();
+    if (aggSpecs.isEmpty() && selected.length == 0) {
+      aggSpecs = List.of("count");
+    }
+    for (String spec : aggSpecs) {
+      String[] parts = spec.split(":", 2);
+      Function function;
+      try {
+        function = Function.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown aggregate '" + spec + "'; use count, sum, avg, min or max");
+      }
+      if (function == Function.COUNT) {
+        aggregates.add(new Aggregate(function, -1, "count"));
+        continue;
+      }
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Aggregate '" + spec + "' needs a field, e.g. avg:latestPercentage");
+      }
+      int field = dataset.index(parts[1].trim());
+      Type type = dataset.type(field);
+      if (type == Type.TEXT || (type == Type.DATE && (function == Function.SUM || function == Function.AVG))) {
+        throw new IllegalArgumentException("Cannot " + parts[0] + " " + type.name().toLowerCase(Locale.ROOT)
+                + " field " + dataset.field(field));
+      }
+      aggregates.add(new Aggregate(function, field,
+              function.name().toLowerCase(Locale.ROOT) + "(" + dataset.field(field) + ")"));
+    }
+
+    int rows = limit == null ? DEFAULT_LIMIT : limit;
+    if (rows < 1) {
+      throw new IllegalArgumentException("limit must be at least 1");
+    }
+    long timeout = timeoutMs == null ? DEFAULT_TIMEOUT_MS : timeoutMs;
+    if (timeout < 1 || timeout > MAX_TIMEOUT_MS) {
+      throw new IllegalArgumentException("timeoutMs must be between 1 and " + MAX_TIMEOUT_MS);
+    }
+    return new Query(dataset, filters, groups, aggregates, selected, rows, timeout);
+  }
+
+  /**
+   * Runs a query against a fresh snapshot of its dataset.
+   *
+   * @throws TimeoutException if the query did not finish within its timeout
+   */
+  public Result execute(Query query) throws TimeoutException {
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(query.timeoutMs());
+    RowSource source = snapshot(query.from());
+    if (System.nanoTime() > deadline) {
+      throw new TimeoutException("Query exceeded " + query.timeoutMs() + " ms");
+    }
+    int n = source.size();
+    int leafRows = Math.max(MIN_LEAF_ROWS, -Math.floorDiv(-n, pool.getParallelism() * 4));
+    int leaves = Math.max(1, -Math.floorDiv(-n, leafRows));
+
+    ForkJoinTask<Partial> task = pool.submit(new ScanTask(query, source, 0, n, leafRows, deadline));
+    Partial partial;
+    try {
+      partial = task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException | CancellationException e) {
+      task.cancel(true);
+      throw new TimeoutException("Query exceeded " + query.timeoutMs() + " ms");
+    } catch (InterruptedException e) {
+      task.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while running query", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof CancellationException) {
+        throw new TimeoutException("Query exceeded " + query.timeoutMs() + " ms");
+      }
+      throw new RuntimeException("Failed to run query", e.getCause());
+    }
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    String from = query.from().label();
+    if (query.select().length > 0) {
+      List<Map<String, Object>> rows = new ArrayList<>(partial.rows.size());
+      for (Object[] row : partial.rows) {
+        rows.add(project(query.from(), query.select(), row));
+      }
+      return new Result(from, n, partial.matched, null, rows, partial.matched > rows.size(), leaves, elapsedMs);
+    }
+    return new Result(from, n, partial.matched, groups(query, partial), null, false, leaves, elapsedMs);
+  }
+
+  // ------------------------------------------------------------------------
+  // Snapshots
+  // ------------------------------------------------------------------------
+
+  /** Random access to the rows of one dataset; {@link #row(int)} must be safe to call from any thread. */
+  private interface RowSource {
+    int size();
+
+    Object[] row(int index);
+  }
+
+  private RowSource snapshot(Dataset dataset) {
+    Map<String, String> roleByUser = new HashMap<>();
+    List<User> users = this.users.get();
+    for (User u : users) {
+      roleByUser.put(String.valueOf(u.getUserId()), u.getRole() == null ? null : u.getRole().name());
+    }
+    List<Object[]> goals = new ArrayList<>();
+    Map<String, String> ownerByGoal = new HashMap<>();
+    goalService.forEachLatestGoal(g -> {
+      ownerByGoal.put(g.getId(), g.getOwnerId());
+      if (dataset == Dataset.GOALS) {
+        goals.add(new Object[] {g.getId(), g.getOwnerId(), roleByUser.get(g.getOwnerId()), g.getStatus() == null ? null : g.getStatus().name(), (long) g.getLatestPercentage(), toDate(g.getDueDate()),
+                toDate(g.getUpdatedAt())});
+      }
+    });
+    if (dataset == Dataset.GOALS) {
+      return rows(goals.toArray(new Object[0][]));
+    }
+
+    Object[] checkIns = checkInService.getCheckIns().toArray();
+    if (dataset == Dataset.CHECKINS) {
+      return new RowSource() {
+        public int size() {
+          return checkIns.length;
+        }
+
+        public Object[] row(int index) {
+          CheckIn c = (CheckIn) checkIns[index];
+          String owner = c.getGoalId() == null ? null : ownerByGoal.get(String.valueOf(c.getGoalId()));
+          return new Object[] {c.getId(), c.getGoalId(), owner, owner == null ? null : roleByUser.get(owner),
+                  c.getCheckInDate() == null ? null : c.getCheckInDate().toLocalDate()};
+        }
+      };
+    }
+
+    Map<String, long[]> goalCounts = new HashMap<>();
+    for (String owner : ownerByGoal.values()) {
+      goalCounts.computeIfAbsent(owner, k -> new long[1])[0]++;
+    }
+    Map<String, long[]> checkInCounts = new HashMap<>();
+    Map<String, LocalDate> lastCheckIn = new HashMap<>();
+    for (Object o : checkIns) {
+      CheckIn c = (CheckIn) o;
+      String owner = c.getGoalId() == null ? null : ownerByGoal.get(String.valueOf(c.getGoalId()));
+      if (owner == null) {
+        continue;
+      }
+      checkInCounts.computeIfAbsent(owner, k -> new long[1])[0]++;
+      if (c.getCheckInDate() != null) {
+        lastCheckIn.merge(owner, c.getCheckInDate().toLocalDate(), (a, b) -> a.isAfter(b) ? a : b);
+      }
+    }
+    Object[][] rows = new Object[users.size()][];
+    for (int i = 0; i < rows.length; i++) {
+      User u = users.get(i);
+      String id = String.valueOf(u.getUserId());
+      rows[i] = new Object[] {(long) u.getUserId(), roleByUser.get(id),
+              goalCounts.getOrDefault(id, new long[1])[0], checkInCounts.getOrDefault(id, new long[1])[0],
+              lastCheckIn.get(id)};
+    }
+    return rows(rows);
+  }
+
+  private static RowSource rows(Object[][] rows) {
+    return new RowSource() {
+      public int size() {
+        return rows.length;
+      }
+
+      public Object[] row(int index) {
+        return rows[index];
+      }
+    };
+  }
+
+  private static LocalDate toDate(String isoDate) {
+    try {
+      return isoDate == null || isoDate.isBlank() ? null : LocalDate.parse(isoDate.trim());
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  private static LocalDate toDate(Instant instant) {
+    return instant == null ? null : instant.atZone(ZoneOffset.UTC).toLocalDate();
+  }
+
+  // ------------------------------------------------------------------------
+  // Fork-join scan
+  // ------------------------------------------------------------------------
+
+  /** Aggregate state of one group. */
+  private static final class Accumulator {
+    long count;
+    final double[] sums;
+    final long[] counts;
+    final Object[] extremes;
+
+    Accumulator(int aggregates) {
+      sums = new double[aggregates];
+      counts = new long[aggregates];
+      extremes = new Object[aggregates];
+    }
+  }
+
+  /** What one subtree of the scan found. */
+  private static final class Partial {
+    long matched;
+    final Map<List<Object>, Accumulator> groups = new HashMap<>();
+    final List<Object[]> rows = new ArrayList<>();
+  }
+
+  private static final class ScanTask extends RecursiveTask<Partial> {
+
+    private final Query query;
+    private final RowSource source;
+    private final int from;
+    private final int to;
+    private final int leafRows;
+    private final long deadline;
+
+    ScanTask(Query query, RowSource source, int from, int to, int leafRows, long deadline) {
+      this.query = query;
+      this.source = source;
+      this.from = from;
+      this.to = to;
+      this.leafRows = leafRows;
+      this.deadline = deadline;
+    }
+
+    @Override
+    protected Partial compute() {
+      if (to - from <= leafRows) {
+        return scan();
+      }
+      int mid = (from + to) >>> 1;
+      ScanTask left = new ScanTask(query, source, from, mid, leafRows, deadline);
+      left.fork();
+      Partial right = new ScanTask(query, source, mid, to, leafRows, deadline).compute();
+      return merge(query, left.join(), right);
+    }
+
+    private Partial scan() {
+      Partial p = new Partial();
+      boolean selecting = query.select().length > 0;
+      List<Aggregate> aggregates = query.aggregates();
+      for (int i = from; i < to; i++) {
+        if ((i - from) % DEADLINE_STRIDE == 0 && (isCancelled() || System.nanoTime() > deadline)) {
+          throw new CancellationException("Query deadline passed");
+        }
+        Object[] row = source.row(i);
+        if (!matches(row)) {
+          continue;
+        }
+        p.matched++;
+        if (selecting) {
+          if (p.rows.size() < query.limit()) {
+            p.rows.add(row);
+          }
+          continue;
+        }
+        Object[] key = new Object[query.groupBy().length];
+        for (int k = 0; k < key.length; k++) {
+          key[k] = row[query.groupBy()[k]];
+        }
+        Accumulator acc = p.groups.computeIfAbsent(Arrays.asList(key), k -> new Accumulator(aggregates.size()));
+        acc.count++;
+        for (int a = 0; a < aggregates.size(); a++) {
+          Aggregate agg = aggregates.get(a);
+          Object v = agg.field() < 0 ? null : row[agg.field()];
+          if (v != null) {
+            accumulate(acc, a, agg, query.from().type(agg.field()), v);
+          }
+        }
+      }
+      return p;
+    }
+
+    private boolean matches(Object[] row) {
+      for (Filter f : query.where()) {
+        if (!f.test(row)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static void accumulate(Accumulator acc, int a, Aggregate agg, Type type, Object v) {
+    acc.counts[a]++;
+    switch (agg.function()) {
+      case SUM, AVG -> acc.sums[a] += ((Number) v).doubleValue();
+      case MIN -> {
+        if (acc.extremes[a] == null || compare(v, acc.extremes[a], type) < 0) {
+          acc.extremes[a] = v;
+        }
+      }
+      case MAX -> {
+        if (acc.extremes[a] == null || compare(v, acc.extremes[a], type) > 0) {
+          acc.extremes[a] = v;
+        }
+      }
+      default -> { }
+    }
+  }
+
+  /** Folds {@code right} into {@code left}, keeping rows in store order. */
+  private static Partial merge(Query query, Partial left, Partial right) {
+    left.matched += right.matched;
+    for (Object[] row : right.rows) {
+      if (left.rows.size() == query.limit()) {
+        break;
+      }
+      left.rows.add(row);
+    }
+    List<Aggregate> aggregates = query.aggregates();
+    right.groups.forEach((key, r) -> {
+      Accumulator l = left.groups.get(key);
+      if (l == null) {
+        left.groups.put(key, r);
+        return;
+      }
+      l.count += r.count;
+      for (int a = 0; a < aggregates.size(); a++) {
+        l.sums[a] += r.sums[a];
+        l.counts[a] += r.counts[a];
+        if (r.extremes[a] != null) {
+          Type type = query.from().type(aggregates.get(a).field());
+          int c = l.extremes[a] == null ? 0 : compare(r.extremes[a], l.extremes[a], type);
+          boolean min = aggregates.get(a).function() == Function.MIN;
+          if (l.extremes[a] == null || (min ? c < 0 : c > 0)) {
+            l.extremes[a] = r.extremes[a];
+          }
+        }
+      }
+    });
+    return left;
+  }
+
+  // ------------------------------------------------------------------------
+  // Output
+  // ------------------------------------------------------------------------
+
+  private static List<Map<String, Object>> groups(Query query, Partial partial) {
+    Dataset dataset = query.from();
+    int[] groupBy = query.groupBy();
+    List<Map.Entry<List<Object>, Accumulator>> entries = new ArrayList<>(partial.groups.entrySet());
+    entries.sort((x, y) -> {
+      for (int k = 0; k < groupBy.length; k++) {
+        int c = compare(x.getKey().get(k), y.getKey().get(k), dataset.type(groupBy[k]));
+        if (c != 0) {
+          return c;
+        }
+      }
+      return 0;
+    });
+    List<Map<String, Object>> result = new ArrayList<>(entries.size());
+    for (Map.Entry<List<Object>, Accumulator> e : entries) {
+      Map<String, Object> group = new LinkedHashMap<>();
+      for (int k = 0; k < groupBy.length; k++) {
+        group.put(dataset.field(groupBy[k]), e.getKey().get(k));
+      }
+      Accumulator acc = e.getValue();
+      for (int a = 0; a < query.aggregates().size(); a++) {
+        Aggregate agg = query.aggregates().get(a);
+        group.put(agg.label(), switch (agg.function()) {
+          case COUNT -> acc.count;
+          case SUM -> acc.sums[a];
+          case AVG -> acc.counts[a] == 0 ? null : acc.sums[a] / acc.counts[a];
+          case MIN, MAX -> acc.extremes[a];
+        });
+      }
+      result.add(group);
+    }
+    if (groupBy.length == 0 && result.isEmpty()) {
+      // An ungrouped query always answers with one entry, even over no rows.
+      Partial empty = new Partial();
+      empty.groups.put(List.of(), new Accumulator(query.aggregates().size()));
+      return groups(query, empty);
+    }
+    return result;
+  }
+
+  private static Map<String, Object> project(Dataset dataset, int[] select, Object[] row) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    for (int field : select) {
+      result.put(dataset.field(field), row[field]);
+    }
+    return result;
+  }
+
+  // ------------------------------------------------------------------------
+  // Values
+  // ------------------------------------------------------------------------
+
+  /** Orders values of one type; a missing value sorts before any other. */
+  static int compare(Object a, Object b, Type type) {
+    if (a == null || b == null) {
+      return a == null ? (b == null ? 0 : -1) : 1;
+    }
+    return switch (type) {
+      case NUMBER -> Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+      case DATE -> ((LocalDate) a).compareTo((LocalDate) b);
+      case TEXT -> ((String) a).compareToIgnoreCase((String) b);
+    };
+  }
+
+  private Object parseValue(String text, Type type) {
+    if (text.equalsIgnoreCase("null")) {
+      return null;
+    }
+    try {
+      return switch (type) {
+        case TEXT -> text;
+        case NUMBER -> Double.parseDouble(text);
+        case DATE -> parseDate(text);
+      };
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new IllegalArgumentException("'" + text + "' is not a valid " + type.name().toLowerCase(Locale.ROOT));
+    }
+  }
+
+  /** Parses {@code yyyy-MM-dd}, {@code today} or {@code weekStart}, each optionally {@code ±N} days. */
+  private LocalDate parseDate(String text) {
+    String lower = text.toLowerCase(Locale.ROOT);
+    LocalDate today = LocalDate.now(clock);
+    for (Map.Entry<String, LocalDate> anchor : Map.of(
+            "today", today,
+            "weekstart", today.with(DayOfWeek.MONDAY)).entrySet()) {
+      if (lower.startsWith(anchor.getKey())) {
+        String offset = lower.substring(anchor.getKey().length());
+        return offset.isEmpty() ? anchor.getValue() : anchor.getValue().plusDays(Long.parseLong(offset));
+      }
+    }
+    return LocalDate.parse(text);
+  }
+
+  private static List<String> nonBlank(List<String> values) {
+    if (values == null) {
+      return List.of();
+    }
+    return values.stream().map(String::trim).filter(s -> !s.isEmpty()).toList();
+  }
+}
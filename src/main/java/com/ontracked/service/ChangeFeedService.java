@@ -0,0 +1,237 @@
+package com.ontracked.service;
+
+import com.ontracked.dto.checkin.CheckInResponse;
+import com.ontracked.dto.feed.ChangeEvent;
+import com.ontracked.dto.goal.GoalResponse;
+import com.ontracked.model.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory change feed of user, goal and check-in writes.
+ *
+ * <p>Every write reported by {@link UserService}, {@link GoalService} and
+ * {@link CheckInService} is appended to a bounded ring of recent events with a
+ * monotonically increasing offset. Subscribers resume from an offset
+ * ({@code Last-Event-ID}); if that offset has already been evicted from the ring,
+ * or is beyond the latest offset because the feed restarted since, they receive
+ * a {@code resync} event and must re-fetch full state.
+ *
+ * <p>Each subscriber owns a bounded queue drained on a shared dispatcher pool.
+ * Publishing only offers into those queues, so writers never wait on a client.
+ * A subscriber whose queue overflows is sent {@code resync} and disconnected.
+ */
+@Service
+public class ChangeFeedService {
+
+  /** Destination of a subscriber's events, typically an SSE connection. */
+  public interface EventSink {
+    void send(ChangeEvent event) throws IOException;
+
+    /** Tells the client it missed events and must reload; the feed closes the sink afterwards. */
+    void resync(String reason, long lastOffset) throws IOException;
+
+    void close();
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+  private final ChangeEvent[] ring;
+  private long nextOffset = 1;
+  private final int subscriberBuffer;
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+  private final ExecutorService dispatcher = Executors.newCachedThreadPool(r -> {
+    Thread t = new Thread(r, "change-feed-dispatch");
+    t.setDaemon(true);
+    return t;
+  });
+  private final BiConsumer<ChangeType, User> userListener = (type, u) ->
+          publish("user", type, String.valueOf(u.getUserId()), u);
+
+  @Autowired
+  public ChangeFeedService(GoalService goalService, CheckInService checkInService,
+                           @Value("${ontracked.feed.retained-events:1024}") int retainedEvents,
+                           @Value("${ontracked.feed.subscriber-buffer:256}") int subscriberBuffer) {
+    this(retainedEvents, subscriberBuffer);
+    goalService.addGoalListener(g -> publish("goal", "saved", g.getId(), GoalResponse.from(g)));
+    checkInService.addCheckInListener((type, c) ->
+            publish("checkin", type, String.valueOf(c.getId()), CheckInResponse.toResponse(c)));
+    UserService.addUserListener(userListener);
+  }
+
+  /** Creates a feed without wiring it to any service; events are published explicitly. */
+  public ChangeFeedService(int retainedEvents, int subscriberBuffer) {
+    this.ring = new ChangeEvent[Math.max(1, retainedEvents)];
+    this.subscriberBuffer = Math.max(1, subscriberBuffer);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    UserService.removeUserListener(userListener);
+    for (Subscriber s : subscribers) {
+      s.sink.close();
+    }
+    subscribers.clear();
+    dispatcher.shutdownNow();
+  }
+
+  public void publish(String entity, ChangeType type, String entityId, Object data) {
+    publish(entity, type.name().toLowerCase(Locale.ROOT), entityId, data);
+  }
+
+  /**
+   * Appends an event to the feed and hands it to every live subscriber.
+   * Never blocks on subscribers.
+   */
+  public void publish(String entity, String action, String entityId, Object data) {
+    List<Subscriber> toDrain = new ArrayList<>();
+    synchronized (this) {
+      ChangeEvent event = new ChangeEvent(nextOffset, entity, action, entityId, Instant.now(), data);
+      ring[(int) (nextOffset % ring.length)] = event;
+      nextOffset++;
+      for (Subscriber s : subscribers) {
+        s.offer(event);
+        toDrain.add(s);
+      }
+    }
+    toDrain.forEach(this::scheduleDrain);
+  }
+
+  /**
+   * Subscribes a sink, replaying retained events after {@code lastEventId}.
+   *
+   * @param lastEventId offset of the last event the client saw, or null for live-only
+   * @param sink        where events are delivered
+   */
+  public void subscribe(Long lastEventId, EventSink sink) {
+    Subscriber subscriber = new Subscriber(sink, subscriberBuffer);
+    synchronized (this) {
+      long latest = nextOffset - 1;
+      subscriber.lastSent = lastEventId != null ? lastEventId : latest;
+      if (lastEventId != null && lastEventId > latest) {
+        // Offsets restart with the process, so the client saw a previous feed.
+        subscriber.lastSent = latest;
+        subscriber.needsResync("event " + lastEventId + " is newer than the latest event " + latest);
+      } else if (lastEventId != null && lastEventId < latest) {
+        long oldestRetained = Math.max(1, nextOffset - ring.length);
+        long from = Math.max(0, lastEventId) + 1;
+        if (from < oldestRetained || latest - from + 1 > subscriberBuffer) {
+          subscriber.needsResync("events after " + lastEventId + " are no longer retained");
+        } else {
+          for (long o = from; o <= latest; o++) {
+            subscriber.offer(ring[(int) (o % ring.length)]);
+          }
+        }
+      }
+      subscribers.add(subscriber);
+    }
+    scheduleDrain(subscriber);
+  }
+
+  /**
+   * Stops delivering to a sink, for example once its connection has completed,
+   * timed out or failed. The sink is not closed again.
+   *
+   * @param sink a sink passed to {@link #subscribe}; unknown sinks are ignored
+   */
+  public void unsubscribe(EventSink sink) {
+    for (Subscriber s : subscribers) {
+      if (s.sink == sink) {
+        subscribers.remove(s);
+        s.queue.clear();
+      }
+    }
+  }
+
+  /** Offset of the most recently published event (0 if none). */
+  public synchronized long latestOffset() {
+    return nextOffset - 1;
+  }
+
+  public int subscriberCount() {
+    return subscribers.size();
+  }
+
+  // ------------------------------------------------------------------------
+  // Delivery
+  // ------------------------------------------------------------------------
+
+  private void scheduleDrain(Subscriber s) {
+    if (s.draining.compareAndSet(false, true)) {
+      dispatcher.execute(() -> drain(s));
+    }
+  }
+
+  private void drain(Subscriber s) {
+    try {
+      while (true) {
+        if (s.resyncReason != null) {
+          s.sink.resync(s.resyncReason, s.lastSent);
+          drop(s);
+          return;
+        }
+        ChangeEvent event = s.queue.poll();
+        if (event == null) {
+          s.draining.set(false);
+          // Re-check: an event may have arrived after poll() but before the flag reset.
+          if ((s.queue.isEmpty() && s.resyncReason == null) || !s.draining.compareAndSet(false, true)) {
+            return;
+          }
+          continue;
+        }
+        s.sink.send(event);
+        s.lastSent = event.offset();
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Dropping change-feed subscriber: {}", e.getMessage());
+      drop(s);
+    }
+  }
+
+  private void drop(Subscriber s) {
+    subscribers.remove(s);
+    s.queue.clear();
+    s.sink.close();
+  }
+
+  private static final class Subscriber {
+    final EventSink sink;
+    final Queue<ChangeEvent> queue;
+    final AtomicBoolean draining = new AtomicBoolean();
+    volatile String resyncReason;
+    volatile long lastSent;
+
+    Subscriber(EventSink sink, int capacity) {
+      this.sink = sink;
+      this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    void offer(ChangeEvent event) {
+      if (resyncReason == null && !queue.offer(event)) {
+        needsResync("subscriber buffer overflow");
+      }
+    }
+
+    void needsResync(String reason) {
+      resyncReason = reason;
+      queue.clear();
+    }
+  }
+}
@@ -0,0 +1,6 @@
+package com.ontracked.service;
+
+// This enum defines the kinds of changes services report to their listeners
+public enum ChangeType {
+  CREATED, UPDATED
+}
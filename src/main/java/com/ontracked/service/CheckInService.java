@@ -1,49 +1,277 @@
 package com.ontracked.service;
 
 import com.ontracked.model.CheckIn;
+import com.ontracked.model.CheckInColumns;
+import com.ontracked.util.LongListMap;
+import com.ontracked.util.LongObjectMap;
+import com.ontracked.util.TextArena;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 
 /**
  *  This class defines the Mock API Service mimicking CLIO's database for CheckIns.
  *  It provides useful methods for accessing or modifying check-ins,
  *  loading and saving its data from a CSV file.
+ *
+ *  With {@code ontracked.shards} above 1, check-ins are persisted to one file per
+ *  shard ({@code localGoalDB-i.csv} next to {@code localGoalDB.csv}), routed by
+ *  goalId so all check-ins of a goal share a shard. A write rewrites only the
+ *  shard it touched.
+ *
+ *  Shard files are written through an {@link AsynchronousFileChannel}. Writes of
+ *  one shard are chained so they never overlap, and a save requested while an
+ *  earlier one is still queued joins it instead of queueing another rewrite. The
+ *  blocking methods wait for the write; the {@code *Async} variants return a
+ *  future that completes when it is on disk, without holding a thread.
+ *
+ *  Check-ins are indexed by id and by goalId in primitive long maps, which the
+ *  list returned by {@link #getCheckIns()} keeps up to date as it is modified.
+ *  The same list also maintains a {@link CheckInColumns} copy of ids, goalIds
+ *  and check-in times, which the reporting queries scan.
+ *
+ *  Notes of stored check-ins are held off-heap in a {@link TextArena} owned by
+ *  this service. The arena is append-only, so replaced notes leave garbage
+ *  behind; once it has doubled since it was last compacted, every stored
+ *  check-in is swapped for a copy with its notes in a fresh arena and the old
+ *  one is left to the garbage collector.
  */
 
 @Service
 public class CheckInService {
 
   private final String CSV_FILE_PATH = "localGoalDB.csv"; // resource filename
-  private List<CheckIn> checkIns;
+  private static final int NOTES_SEGMENT_BYTES = 256 * 1024;
+  /** Arena usage below which the notes are never compacted. */
+  private static final long MIN_NOTES_COMPACT_BYTES = 1 << 20;
+  private final IndexedCheckIns checkIns = new IndexedCheckIns();
+  private final List<BiConsumer<ChangeType, CheckIn>> checkInListeners = new CopyOnWriteArrayList<>();
+  private final ShardRouter router;
+  private final ReentrantLock[] shardLocks;
+  /** Per shard, the last write scheduled; the next one starts after it. */
+  private final CompletableFuture<?>[] shardWrites;
+  /** Per shard, a write scheduled but not yet rendered, which new saves can join. */
+  private final CompletableFuture<?>[] pendingWrites;
+  /**
+   * Makes id assignment and insertion of a new check-in one step, and likewise
+   * version assignment and replacement of a stored one, so versions of a
+   * check-in are unique and grow in the order its updates are stored.
+   */
+  private final ReentrantLock insertLock = new ReentrantLock();
+  /** Notes of the stored check-ins; replaced under {@link #insertLock} when compacted. */
+  private TextArena notesArena = new TextArena(NOTES_SEGMENT_BYTES);
+  /** Arena usage right after the last compaction. */
+  private long notesBytesAfterCompaction;
+  /** Shards written to since the last save; when empty, a save rewrites every shard. */
+  private final BitSet dirtyShards = new BitSet();
+  private volatile boolean loaded;
+  /** Held while the CSV is read; a lock rather than the monitor so a loading virtual thread is not pinned. */
+  private final ReentrantLock loadLock = new ReentrantLock();
 
 
   public CheckInService() {
-    checkIns = new ArrayList<>();
-    loadFromCsv();
+    this(1);
+  }
+
+  public CheckInService(int shardCount) {
+    this(shardCount, false);
+  }
+
+  /**
+   * @param shardCount     number of goal-hash shards
+   * @param virtualThreads whether cross-shard work runs on virtual threads
+   */
+  @Autowired
+  public CheckInService(@Value("${ontracked.shards:1}") int shardCount,
+                        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    router = new ShardRouter(shardCount, virtualThreads);
+    shardLocks = new ReentrantLock[router.shardCount()];
+    shardWrites = new CompletableFuture<?>[router.shardCount()];
+    pendingWrites = new CompletableFuture<?>[router.shardCount()];
+    for (int i = 0; i < shardLocks.length; i++) {
+      shardLocks[i] = new ReentrantLock();
+      shardWrites[i] = CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * Loads the check-in CSV if that has not happened yet. Called during startup
+   * warm-up so the Spring context does not wait on it; any access before then
+   * loads on demand.
+   * @return The number of check-ins loaded.
+   */
+  public int warm() {
+    ensureLoaded();
+    return checkIns.size();
+  }
+
+  private void ensureLoaded() {
+    if (!loaded) {
+      loadLock.lock();
+      try {
+        if (!loaded) {
+          loadFromCsv();
+          loaded = true;
+        }
+      } finally {
+        loadLock.unlock();
+      }
+    }
+  }
+
+  public int getShardCount() {
+    return router.shardCount();
+  }
+
+  /** Shard a check-in is persisted in, chosen by its goalId. */
+  public int shardOf(CheckIn checkIn) {
+    return router.shardFor(checkIn.getGoalId() == null ? null : String.valueOf(checkIn.getGoalId()));
   }
 
   
+  /**
+   * Registers a callback invoked after a check-in is added or updated.
+   * @param listener receives the change type and the stored CheckIn.
+   */
+  public void addCheckInListener(BiConsumer<ChangeType, CheckIn> listener) {
+    checkInListeners.add(listener);
+  }
+
   /**
    * Get all stored check-ins.
    * @return A list of all CheckIn objects.
    */
   public List<CheckIn> getCheckIns() {
+    ensureLoaded();
     return checkIns;
   }
 
+  /**
+   * Version of the check-in store as a whole. It grows with every stored
+   * change, so a caller reading it before the check-ins gets a version no
+   * newer than what it reads.
+   * @return A counter that changes whenever any check-in changes.
+   */
+  public long storeVersion() {
+    ensureLoaded();
+    return checkIns.version();
+  }
+
+  /**
+   * Looks up a check-in through the id index.
+   * @param id The check-in id.
+   * @return The CheckIn, or null if there is none with that id.
+   */
+  public CheckIn getCheckIn(Long id) {
+    ensureLoaded();
+    return id == null ? null : checkIns.byId(id);
+  }
+
+  /**
+   * Looks up several check-ins through the id index in one locked pass, so
+   * the result is consistent with a single moment of the store.
+   * @param ids The check-in ids; nulls and repeats are ignored.
+   * @return The CheckIns found, keyed by id in request order.
+   */
+  public Map<Long, CheckIn> getCheckIns(Collection<Long> ids) {
+    ensureLoaded();
+    return checkIns.byIds(ids);
+  }
+
+  /**
+   * Get the check-ins recorded against one goal, in insertion order.
+   * @param goalId The goal id.
+   * @return The goal's check-ins; empty if there are none.
+   */
+  public List<CheckIn> getCheckInsForGoal(Long goalId) {
+    ensureLoaded();
+    return goalId == null ? List.of() : checkIns.byGoal(goalId);
+  }
+
+  /**
+   * Get the check-ins of several goals in one locked pass over the goal index.
+   * @param goalIds The goal ids; nulls and repeats are ignored.
+   * @return Each requested goal's check-ins in insertion order, keyed by goal id in request
+   *         order; goals without check-ins map to an empty list.
+   */
+  public Map<Long, List<CheckIn>> getCheckInsForGoals(Collection<Long> goalIds) {
+    ensureLoaded();
+    return checkIns.byGoals(goalIds);
+  }
+
+  /**
+   * Counts check-ins within an inclusive date range by scanning the columnar copy.
+   * @param goalId The goal to count, or null for all goals.
+   * @param from First day counted, or null for no lower bound.
+   * @param to Last day counted, or null for no upper bound.
+   * @return The number of matching check-ins.
+   */
+  public int countCheckIns(Long goalId, LocalDate from, LocalDate to) {
+    ensureLoaded();
+    return checkIns.count(goalId == null ? CheckInColumns.NONE : goalId, from, to);
+  }
+
+  /**
+   * Counts check-ins per goal per week by scanning the columnar copy.
+   * @param goalId The goal to report, or null for all goals.
+   * @param from First day counted, or null to start at the earliest check-in.
+   * @param to Last day counted, or null to end at the latest check-in.
+   * @return Non-empty weeks ordered by goal, then week.
+   */
+  public List<CheckInColumns.WeeklyCount> weeklyCheckIns(Long goalId, LocalDate from, LocalDate to) {
+    ensureLoaded();
+    return checkIns.weeklyCounts(goalId == null ? CheckInColumns.NONE : goalId, from, to);
+  }
+
   /**
    * Add a new CheckIn to the storage.
    * @param newCheckIn The CheckIn object to add.
    */
   public void addCheckIn(CheckIn newCheckIn) {
-    if (newCheckIn.getId() == null) {
-      newCheckIn.setId(generateNextId());
-    }
+    insert(newCheckIn);
+    saveToCsv();
+    notifyListeners(ChangeType.CREATED, newCheckIn);
+  }
+
+  /**
+   * Add a new CheckIn without blocking on the file write.
+   * @param newCheckIn The CheckIn object to add.
+   * @return A future completing with the stored check-in once its shard is written.
+   */
+  public CompletableFuture<CheckIn> addCheckInAsync(CheckIn newCheckIn) {
+    insert(newCheckIn);
+    return saveToCsvAsync().thenApply(v -> {
+      notifyListeners(ChangeType.CREATED, newCheckIn);
+      return newCheckIn;
+    });
+  }
+
+  private void insert(CheckIn newCheckIn) {
+    ensureLoaded();
     if (newCheckIn.getCheckInDate() == null) {
       newCheckIn.setCheckInDate(LocalDateTime.now());
     }
@@ -51,8 +279,18 @@ public class CheckInService {
     newCheckIn.setUpdatedAt(LocalDateTime.now());
     newCheckIn.setVersion(1);
 
-    checkIns.add(newCheckIn);
-    saveToCsv();
+    insertLock.lock();
+    try {
+      if (newCheckIn.getId() == null) {
+        newCheckIn.setId(generateNextId());
+      }
+      newCheckIn.moveNotesTo(notesArena);
+      checkIns.add(newCheckIn);
+      compactNotesIfNeeded();
+    } finally {
+      insertLock.unlock();
+    }
+    markDirty(newCheckIn);
   }
 
   /**
@@ -60,23 +298,123 @@ public class CheckInService {
    * @param updatedCheckIn The CheckIn object with updated data.
    */
 public void updateCheckIn(CheckIn updatedCheckIn) {
-    for (int i = 0; i < checkIns.size(); i++) {
-        CheckIn c = checkIns.get(i);
-        if (c.getId().equals(updatedCheckIn.getId())) {
-            updatedCheckIn.setUpdatedAt(LocalDateTime.now());
-            checkIns.set(i, updatedCheckIn);
-            saveToCsv();
-            return;
-        }
+    if (!replace(updatedCheckIn)) {
+        return;
     }
-    System.err.println("No CheckIn found with ID " + updatedCheckIn.getId());
+    saveToCsv();
+    notifyListeners(ChangeType.UPDATED, updatedCheckIn);
 }
 
-  
+  /**
+   * Update an existing CheckIn without blocking on the file write.
+   * @param updatedCheckIn The CheckIn object with updated data.
+   * @return A future completing with the check-in once its shard is written, or with
+   *         null if there is no check-in with that id.
+   */
+  public CompletableFuture<CheckIn> updateCheckInAsync(CheckIn updatedCheckIn) {
+    if (!replace(updatedCheckIn)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return saveToCsvAsync().thenApply(v -> {
+      notifyListeners(ChangeType.UPDATED, updatedCheckIn);
+      return updatedCheckIn;
+    });
+  }
+
+  private boolean replace(CheckIn updatedCheckIn) {
+    ensureLoaded();
+    CheckIn c;
+    insertLock.lock();
+    try {
+      c = getCheckIn(updatedCheckIn.getId());
+      if (c == null) {
+        System.err.println("No CheckIn found with ID " + updatedCheckIn.getId());
+        return false;
+      }
+      updatedCheckIn.setUpdatedAt(LocalDateTime.now());
+      updatedCheckIn.setVersion(c.getVersion() + 1);
+      updatedCheckIn.moveNotesTo(notesArena);
+      checkIns.replace(c, updatedCheckIn);
+      compactNotesIfNeeded();
+    } finally {
+      insertLock.unlock();
+    }
+    markDirty(c);
+    markDirty(updatedCheckIn);
+    return true;
+  }
+
+  /**
+   * Insert or replace a CheckIn by id, keeping all of its fields as given.
+   * Used to apply check-ins replicated from another instance.
+   * @param checkIn The CheckIn state to store.
+   */
+  public void upsertCheckIn(CheckIn checkIn) {
+    ensureLoaded();
+    CheckIn existing;
+    insertLock.lock();
+    try {
+      existing = getCheckIn(checkIn.getId());
+      checkIn.moveNotesTo(notesArena);
+      if (existing != null) {
+        checkIns.replace(existing, checkIn);
+      } else {
+        checkIns.add(checkIn);
+      }
+      compactNotesIfNeeded();
+    } finally {
+      insertLock.unlock();
+    }
+    if (existing != null) {
+      markDirty(existing);
+    }
+    markDirty(checkIn);
+    saveToCsv();
+    notifyListeners(existing != null ? ChangeType.UPDATED : ChangeType.CREATED, checkIn);
+  }
+
+  /** Off-heap bytes reserved for the notes of stored check-ins. */
+  public long notesCapacityBytes() {
+    insertLock.lock();
+    try {
+      return notesArena.capacityBytes();
+    } finally {
+      insertLock.unlock();
+    }
+  }
+
+  /**
+   * Moves every stored note into a fresh arena once the current one has
+   * doubled since the last compaction; caller holds {@link #insertLock}.
+   */
+  private void compactNotesIfNeeded() {
+    long used = notesArena.bytesUsed();
+    if (used < MIN_NOTES_COMPACT_BYTES || used < 2 * notesBytesAfterCompaction) {
+      return;
+    }
+    TextArena arena = new TextArena(NOTES_SEGMENT_BYTES);
+    checkIns.moveNotesTo(arena);
+    notesArena = arena;
+    notesBytesAfterCompaction = arena.bytesUsed();
+  }
+
   public void printCheckIns() {
+    ensureLoaded();
     checkIns.forEach(System.out::println);
   }
 
+  private void markDirty(CheckIn checkIn) {
+    synchronized (dirtyShards) {
+      dirtyShards.set(shardOf(checkIn));
+    }
+  }
+
+  private void notifyListeners(ChangeType type, CheckIn checkIn) {
+    for (BiConsumer<ChangeType, CheckIn> listener : checkInListeners) {
+      listener.accept(type, checkIn);
+    }
+  }
+
   // Helper methods for CSV loading
   protected void loadFromCsv() {
     try {
@@ -87,63 +425,369 @@ public void updateCheckIn(CheckIn updatedCheckIn) {
       }
 
       File file = new File(resourceUrl.toURI());
-      try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-        String line;
-        boolean isHeader = true;
-
-        while ((line = reader.readLine()) != null) {
-          if (isHeader) {
-            isHeader = false;
-            continue;
-          }
+      List<File> shardFiles = existingShardFiles(file);
+      for (File source : shardFiles.isEmpty() ? List.of(file) : shardFiles) {
+        readCsv(source);
+      }
+      if (router.shardCount() > 1 && shardFiles.isEmpty() && !checkIns.isEmpty()) {
+        // First start with sharding enabled: nothing is dirty yet, so this spreads
+        // the unsharded file over every shard.
+        saveToCsv();
+      }
+      System.out.println("Successfully loaded check-ins from " + CSV_FILE_PATH);
+    } catch (Exception e) {
+      System.err.println("Failed to load check-ins: " + e.getMessage());
+    }
+  }
 
-          String[] parts = line.split(",", -1);
-          if (parts.length < 4) {
-            continue;
-          }
+  private void readCsv(File file) throws IOException {
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      boolean isHeader = true;
 
-          CheckIn checkIn = new CheckIn();
-          checkIn.setId(parseLong(parts[0]));
-          checkIn.setGoalId(parseLong(parts[1]));
-          checkIn.setCheckInDate(parseDate(parts[2]));
-          checkIn.setNotes(parts[3]);
-          checkIn.setCreatedAt(LocalDateTime.now());
-          checkIn.setUpdatedAt(LocalDateTime.now());
-          checkIn.setVersion(1);
+      while ((line = reader.readLine()) != null) {
+        if (isHeader) {
+          isHeader = false;
+          continue;
+        }
 
-          checkIns.add(checkIn);
+        String[] parts = line.split(",", -1);
+        if (parts.length < 4) {
+          continue;
         }
 
-        System.out.println("Successfully loaded check-ins from " + CSV_FILE_PATH);
+        CheckIn checkIn = new CheckIn();
+        checkIn.setId(parseLong(parts[0]));
+        checkIn.setGoalId(parseLong(parts[1]));
+        checkIn.setCheckInDate(parseDate(parts[2]));
+        checkIn.setNotes(parts[3]);
+        checkIn.setCreatedAt(LocalDateTime.now());
+        checkIn.setUpdatedAt(LocalDateTime.now());
+        checkIn.setVersion(1);
+        checkIn.moveNotesTo(notesArena);
+
+        checkIns.add(checkIn);
       }
-    } catch (Exception e) {
-      System.err.println("Failed to load check-ins: " + e.getMessage());
     }
   }
+
+  /** Shard files that exist next to {@code base}; empty when running unsharded. */
+  private List<File> existingShardFiles(File base) {
+    List<File> files = new ArrayList<>();
+    if (router.shardCount() > 1) {
+      for (int i = 0; i < router.shardCount(); i++) {
+        File f = shardFile(base, i);
+        if (f.exists()) {
+          files.add(f);
+        }
+      }
+    }
+    return files;
+  }
+
+  private File shardFile(File base, int shard) {
+    if (router.shardCount() == 1) {
+      return base;
+    }
+    String name = base.getName();
+    int dot = name.lastIndexOf('.');
+    return new File(base.getParentFile(), name.substring(0, dot) + "-" + shard + name.substring(dot));
+  }
   // Helper methods for CSV saving
   protected void saveToCsv() {
+    try {
+      saveToCsvAsync().join();
+    } catch (Exception e) {
+      System.err.println("Failed to save check-ins: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Rewrites every dirty shard, or all shards if none is marked dirty.
+   * @return A future completing once the files are written; it completes normally
+   *         even if a write fails, which is logged like in {@link #saveToCsv()}.
+   */
+  protected CompletableFuture<Void> saveToCsvAsync() {
     try {
       URL resourceUrl = Thread.currentThread().getContextClassLoader().getResource(CSV_FILE_PATH);
       if (resourceUrl == null) {
         System.err.println("Cannot find " + CSV_FILE_PATH + " to save updates.");
-        return;
+        return CompletableFuture.completedFuture(null);
       }
 
       File file = new File(resourceUrl.toURI());
-      try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-        writer.write("id,goalId,checkInDate,notes\n");
-        for (CheckIn c : checkIns) {
-          writer.write(String.format("%d,%d,%s,%s\n",
-              c.getId(),
-              c.getGoalId(),
-              c.getCheckInDate() != null ? c.getCheckInDate().toString() : "",
-              c.getNotes() != null ? c.getNotes().replace(",", " ") : ""));
-        }
+      BitSet shards;
+      synchronized (dirtyShards) {
+        shards = dirtyShards.isEmpty() ? allShards() : (BitSet) dirtyShards.clone();
+        dirtyShards.clear();
       }
-
-      System.out.println("Successfully saved check-ins to " + CSV_FILE_PATH);
+      List<CompletableFuture<?>> writes = new ArrayList<>();
+      for (int shard = shards.nextSetBit(0); shard >= 0; shard = shards.nextSetBit(shard + 1)) {
+        writes.add(writeShard(shardFile(file, shard).toPath(), shard));
+      }
+      return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).handle((v, e) -> {
+        if (e != null) {
+          System.err.println("Failed to save check-ins: " + e.getMessage());
+        } else {
+          System.out.println("Successfully saved check-ins to " + CSV_FILE_PATH);
+        }
+        return null;
+      });
     } catch (Exception e) {
       System.err.println("Failed to save check-ins: " + e.getMessage());
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  private BitSet allShards() {
+    BitSet all = new BitSet();
+    all.set(0, router.shardCount());
+    return all;
+  }
+
+  /**
+   * Schedules a rewrite of one shard's file with the check-ins routed to it. The
+   * contents are rendered when the write starts, so joining a queued write
+   * still persists every change made before this call.
+   */
+  private CompletableFuture<?> writeShard(Path file, int shard) {
+    shardLocks[shard].lock();
+    try {
+      if (pendingWrites[shard] != null) {
+        return pendingWrites[shard];
+      }
+      CompletableFuture<?> write = shardWrites[shard]
+          .handle((v, e) -> null)
+          .thenCompose(v -> {
+            shardLocks[shard].lock();
+            try {
+              pendingWrites[shard] = null;
+            } finally {
+              shardLocks[shard].unlock();
+            }
+            return writeFile(file, renderShard(shard));
+          });
+      pendingWrites[shard] = write;
+      shardWrites[shard] = write;
+      return write;
+    } finally {
+      shardLocks[shard].unlock();
+    }
+  }
+
+  private ByteBuffer renderShard(int shard) {
+    StringBuilder csv = new StringBuilder("id,goalId,checkInDate,notes\n");
+    for (CheckIn c : new ArrayList<>(checkIns)) {
+      if (router.shardCount() > 1 && shardOf(c) != shard) {
+        continue;
+      }
+      csv.append(String.format("%d,%d,%s,%s\n",
+          c.getId(),
+          c.getGoalId(),
+          c.getCheckInDate() != null ? c.getCheckInDate().toString() : "",
+          c.getNotes() != null ? c.getNotes().replace(",", " ") : ""));
+    }
+    return StandardCharsets.UTF_8.encode(CharBuffer.wrap(csv));
+  }
+
+  /** Replaces a file's contents, completing when the last byte is written. */
+  private static CompletableFuture<Void> writeFile(Path file, ByteBuffer contents) {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    AsynchronousFileChannel channel;
+    try {
+      channel = AsynchronousFileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      done.completeExceptionally(e);
+      return done;
+    }
+    channel.write(contents, 0, 0L, new CompletionHandler<Integer, Long>() {
+      @Override
+      public void completed(Integer written, Long position) {
+        long next = position + written;
+        if (contents.hasRemaining()) {
+          channel.write(contents, next, next, this);
+          return;
+        }
+        close(channel, done);
+      }
+
+      @Override
+      public void failed(Throwable e, Long position) {
+        done.completeExceptionally(e);
+        close(channel, done);
+      }
+    });
+    return done;
+  }
+
+  private static void close(AsynchronousFileChannel channel, CompletableFuture<Void> done) {
+    try {
+      channel.close();
+      done.complete(null);
+    } catch (IOException e) {
+      done.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * The stored check-ins, with id and goalId indexes and a columnar copy
+   * maintained on every add, set and remove. Ids are indexed when a check-in is stored; if a
+   * stored check-in's goalId is changed in place, {@link #replace} re-files
+   * it, and lookups by goal skip entries whose goalId no longer matches.
+   */
+  private static final class IndexedCheckIns extends AbstractList<CheckIn> implements RandomAccess {
+    private final List<CheckIn> rows = new ArrayList<>();
+    private final LongObjectMap<CheckIn> byId = new LongObjectMap<>();
+    private final LongListMap idsByGoal = new LongListMap();
+    private final CheckInColumns columns = new CheckInColumns();
+    /** Bumped by every add, set and remove, unlike modCount which skips set. */
+    private long version;
+
+    @Override
+    public synchronized CheckIn get(int index) {
+      return rows.get(index);
+    }
+
+    @Override
+    public synchronized int size() {
+      return rows.size();
+    }
+
+    @Override
+    public synchronized void add(int index, CheckIn c) {
+      rows.add(index, c);
+      columns.add(index, c);
+      index(c);
+      modCount++;
+      version++;
+    }
+
+    @Override
+    public synchronized CheckIn set(int index, CheckIn c) {
+      CheckIn old = rows.set(index, c);
+      columns.set(index, c);
+      unindex(old);
+      index(c);
+      version++;
+      return old;
+    }
+
+    @Override
+    public synchronized CheckIn remove(int index) {
+      CheckIn old = rows.remove(index);
+      columns.remove(index);
+      unindex(old);
+      modCount++;
+      version++;
+      return old;
+    }
+
+    @Override
+    public synchronized Object[] toArray() {
+      return rows.toArray();
+    }
+
+    /** Swaps a stored check-in for its new state, re-filing it under its current goalId. */
+    synchronized void replace(CheckIn old, CheckIn c) {
+      // Scanning the id column is much cheaper than walking the row objects.
+      if (old.getId() != null) {
+        for (int i = columns.indexOfId(old.getId(), 0); i >= 0; i = columns.indexOfId(old.getId(), i + 1)) {
+          if (rows.get(i) == old) {
+            set(i, c);
+            return;
+          }
+        }
+      }
+      index(c);
+      version++;
+    }
+
+    /**
+     * Swaps every row for a copy whose notes are in {@code arena}. Ids, goalIds
+     * and dates are unchanged, so the indexes, columns and version stay valid.
+     */
+    synchronized void moveNotesTo(TextArena arena) {
+      for (int i = 0; i < rows.size(); i++) {
+        CheckIn old = rows.get(i);
+        CheckIn copy = new CheckIn(old);
+        copy.moveNotesTo(arena);
+        rows.set(i, copy);
+        if (old.getId() != null && byId.get(old.getId()) == old) {
+          byId.put(old.getId(), copy);
+        }
+      }
+    }
+
+    synchronized int count(long goalId, LocalDate from, LocalDate to) {
+      return columns.count(goalId, from, to);
+    }
+
+    synchronized List<CheckInColumns.WeeklyCount> weeklyCounts(long goalId, LocalDate from, LocalDate to) {
+      return columns.weeklyCounts(goalId, from, to);
+    }
+
+    synchronized long version() {
+      return version;
+    }
+
+    synchronized CheckIn byId(long id) {
+      return byId.get(id);
+    }
+
+    synchronized Map<Long, CheckIn> byIds(Collection<Long> ids) {
+      Map<Long, CheckIn> found = new LinkedHashMap<>();
+      for (Long id : ids) {
+        if (id != null && !found.containsKey(id)) {
+          CheckIn c = byId.get(id);
+          if (c != null) {
+            found.put(id, c);
+          }
+        }
+      }
+      return found;
+    }
+
+    synchronized Map<Long, List<CheckIn>> byGoals(Collection<Long> goalIds) {
+      Map<Long, List<CheckIn>> found = new LinkedHashMap<>();
+      for (Long goalId : goalIds) {
+        if (goalId != null && !found.containsKey(goalId)) {
+          found.put(goalId, byGoal(goalId));
+        }
+      }
+      return found;
+    }
+
+    synchronized List<CheckIn> byGoal(long goalId) {
+      List<CheckIn> result = new ArrayList<>(idsByGoal.count(goalId));
+      idsByGoal.forEach(goalId, id -> {
+        CheckIn c = byId.get(id);
+        if (c != null && c.getGoalId() != null && c.getGoalId() == goalId) {
+          result.add(c);
+        }
+      });
+      return result;
+    }
+
+    private void index(CheckIn c) {
+      if (c == null || c.getId() == null) {
+        return;
+      }
+      // The first stored check-in with an id wins, as the old linear scans did.
+      byId.putIfAbsent(c.getId(), c);
+      if (c.getGoalId() != null) {
+        idsByGoal.addIfAbsent(c.getGoalId(), c.getId());
+      }
+    }
+
+    private void unindex(CheckIn c) {
+      if (c == null || c.getId() == null || byId.get(c.getId()) != c) {
+        return;
+      }
+      byId.remove(c.getId());
+      if (c.getGoalId() != null) {
+        idsByGoal.remove(c.getGoalId(), c.getId());
+      }
     }
   }
 
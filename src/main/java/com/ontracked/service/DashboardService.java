@@ -0,0 +1,215 @@
+package com.ontracked.service;
+
+import com.ontracked.dto.checkin.CheckInResponse;
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalEvent;
+import com.ontracked.model.User;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+
+/**
+ * Assembles a student's home screen: the user, their goals, recent check-ins
+ * and each goal's progress series, fetched concurrently on virtual threads.
+ *
+ * <p>Every request opens a scope of four subtasks, one per section. The user
+ * and goal lookups start at once; the check-in and progress lookups need the
+ * goal ids, so they wait on the goal subtask inside their own threads rather
+ * than holding up the others. Each subtask has its own deadline, measured from
+ * the start of the request. A section that misses its deadline or fails is
+ * left out and reported in {@code incomplete}, its subtask is cancelled, and
+ * the rest of the dashboard is still returned. No subtask outlives the call,
+ * so latency is bounded by the slowest section, and at worst by the deadline.
+ */
+@Service
+public class DashboardService {
+
+  /** Sections of the dashboard, each fetched by one subtask. */
+  public enum Section { USER, GOALS, RECENT_CHECK_INS, PROGRESS }
+
+  /** Why a section is missing. */
+  public enum Outcome { TIMED_OUT, FAILED }
+
+  /** One recorded value of a goal's latest percentage. */
+  public record ProgressPoint(int version, Instant timestamp, int percentage) { }
+
+  /**
+   * A student's dashboard; sections named in {@code incomplete} are null.
+   *
+   * @param recentCheckIns check-ins on the student's goals within the recent window, newest first
+   * @param progress       per goal id, the goal's percentage each time it changed, oldest first
+   * @param incomplete     sections that timed out or failed
+   */
+  public record Dashboard(int userId, User user, List<Goal> goals, List<CheckInResponse> recentCheckIns,
+                          Map<String, List<ProgressPoint>> progress, Map<Section, Outcome> incomplete,
+                          long elapsedMs) {
+
+    /** Whether the user lookup finished and found no such user. */
+    public boolean userMissing() {
+      return user == null && !incomplete.containsKey(Section.USER);
+    }
+  }
+
+  private final IntFunction<User> users;
+  private final GoalService goalService;
+  private final CheckInService checkInService;
+  private final GoalHistoryService historyService;
+  private final Clock clock;
+  private final Duration subtaskTimeout;
+  private final int recentDays;
+  private final int recentLimit;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @Autowired
+  public DashboardService(GoalService goalService, CheckInService checkInService, GoalHistoryService historyService,
+                          @Value("${ontracked.dashboard.subtask-timeout-ms:1000}") long subtaskTimeoutMs,
+                          @Value("${ontracked.dashboard.recent-days:14}") int recentDays,
+                          @Value("${ontracked.dashboard.recent-limit:20}") int recentLimit) {
+    this(UserService::retrieveUser, goalService, checkInService, historyService, Clock.systemDefaultZone(),
+            Duration.ofMillis(subtaskTimeoutMs), recentDays, recentLimit);
+  }
+
+  /**
+   * @param users          looks up a user by id
+   * @param subtaskTimeout how long each section may take, from the start of the request
+   * @param recentDays     how many days back, including today, check-ins count as recent
+   * @param recentLimit    most recent check-ins returned
+   */
+  public DashboardService(IntFunction<User> users, GoalService goalService, CheckInService checkInService,
+                          GoalHistoryService historyService, Clock clock, Duration subtaskTimeout,
+                          int recentDays, int recentLimit) {
+    this.users = users;
+    this.goalService = goalService;
+    this.checkInService = checkInService;
+    this.historyService = historyService;
+    this.clock = clock;
+    this.subtaskTimeout = subtaskTimeout;
+    this.recentDays = Math.max(1, recentDays);
+    this.recentLimit = Math.max(0, recentLimit);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Builds the dashboard of one student. Returns once every section has
+   * finished or passed its deadline.
+   *
+   * @param userId the student's user id
+   * @return the dashboard, possibly with incomplete sections
+   */
+  public Dashboard dashboard(int userId) {
+    long start = System.nanoTime();
+    long deadline = start + subtaskTimeout.toNanos();
+    String ownerId = String.valueOf(userId);
+
+    Future<User> user = executor.submit(() -> users.apply(userId));
+    Future<List<Goal>> goals = executor.submit(() -> latestGoalsOf(ownerId));
+    Future<List<CheckInResponse>> recent = executor.submit(() -> recentCheckIns(goals.get()));
+    Future<Map<String, List<ProgressPoint>>> progress = executor.submit(() -> progressSeries(goals.get()));
+
+    Map<Section, Outcome> incomplete = new EnumMap<>(Section.class);
+    User u = join(Section.USER, user, deadline, incomplete);
+    List<Goal> g = join(Section.GOALS, goals, deadline, incomplete);
+    List<CheckInResponse> r = join(Section.RECENT_CHECK_INS, recent, deadline, incomplete);
+    Map<String, List<ProgressPoint>> p = join(Section.PROGRESS, progress, deadline, incomplete);
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    return new Dashboard(userId, u, g, r, p, incomplete, elapsedMs);
+  }
+
+  /** Waits for one subtask until the deadline; on timeout or failure cancels it and records why. */
+  private static <T> T join(Section section, Future<T> subtask, long deadline, Map<Section, Outcome> incomplete) {
+    try {
+      return subtask.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      subtask.cancel(true);
+      incomplete.put(section, Outcome.TIMED_OUT);
+    } catch (ExecutionException e) {
+      // A section waiting on a cancelled goal lookup timed out with it; anything else is a failure.
+      incomplete.put(section, e.getCause() instanceof CancellationException ? Outcome.TIMED_OUT : Outcome.FAILED);
+    } catch (InterruptedException e) {
+      subtask.cancel(true);
+      Thread.currentThread().interrupt();
+      incomplete.put(section, Outcome.TIMED_OUT);
+    }
+    return null;
+  }
+
+  /** The owner's goals, one per id at its highest stored version. */
+  private List<Goal> latestGoalsOf(String ownerId) {
+    Map<String, Goal> latest = new LinkedHashMap<>();
+    for (Goal g : goalService.loadGoalsForOwner(ownerId)) {
+      latest.merge(g.getId(), g, (a, b) -> b.getVersionNumber() >= a.getVersionNumber() ? b : a);
+    }
+    return List.copyOf(latest.values());
+  }
+
+  private List<CheckInResponse> recentCheckIns(List<Goal> goals) {
+    Set<Long> goalIds = new LinkedHashSet<>();
+    for (Goal g : goals) {
+      try {
+        goalIds.add(Long.valueOf(g.getId()));
+      } catch (NumberFormatException e) {
+        // Check-ins reference goals by number; a UUID goal cannot have any.
+      }
+    }
+    if (goalIds.isEmpty()) {
+      return List.of();
+    }
+    LocalDate since = LocalDate.now(clock).minusDays(recentDays - 1L);
+    List<CheckIn> recent = new ArrayList<>();
+    for (List<CheckIn> checkIns : checkInService.getCheckInsForGoals(goalIds).values()) {
+      for (CheckIn c : checkIns) {
+        if (c.getCheckInDate() != null && !c.getCheckInDate().toLocalDate().isBefore(since)) {
+          recent.add(c);
+        }
+      }
+    }
+    recent.sort(Comparator.comparing(CheckIn::getCheckInDate).reversed());
+    List<CheckInResponse> result = new ArrayList<>(Math.min(recent.size(), recentLimit));
+    for (CheckIn c : recent.subList(0, Math.min(recent.size(), recentLimit))) {
+      result.add(CheckInResponse.toResponse(c));
+    }
+    return result;
+  }
+
+  private Map<String, List<ProgressPoint>> progressSeries(List<Goal> goals) {
+    Map<String, List<ProgressPoint>> series = new LinkedHashMap<>();
+    for (Goal g : goals) {
+      List<ProgressPoint> points = new ArrayList<>();
+      for (GoalEvent e : historyService.history(g.getId())) {
+        String percentage = e.changes().get("latestPercentage");
+        if (percentage != null) {
+          points.add(new ProgressPoint(e.version(), e.timestamp(), Integer.parseInt(percentage)));
+        }
+      }
+      series.put(g.getId(), points);
+    }
+    return series;
+  }
+}
@@ -0,0 +1,183 @@
+package com.ontracked.service;
+
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import com.ontracked.util.HierarchicalTimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks goal due dates and raises due-soon / overdue events without scanning.
+ *
+ * <p>Every ACTIVE goal with a due date gets two timers in a
+ * {@link HierarchicalTimingWheel} ticking in epoch days: one firing
+ * {@code dueSoonDays} before the due date and one firing the day after it.
+ * Goals are re-registered whenever {@link GoalService} saves them, so changes
+ * to {@code dueDate} or {@code status} replace (or cancel) the pending timers.
+ * A save that changes neither leaves the timers alone, and an event that
+ * already fired for a due date does not fire again for that same date, so
+ * each event is raised once, when the goal becomes due.
+ *
+ * <p>Fired overdue events feed an in-memory set that backs {@code GET /goal/overdue}.
+ */
+@Service
+public class DueDateScheduler {
+
+  /** Kinds of events raised by the scheduler. */
+  public enum DueEvent { DUE_SOON, OVERDUE }
+
+  /** Callback invoked whenever a goal becomes due soon or overdue. */
+  @FunctionalInterface
+  public interface DueDateListener {
+    void onDueEvent(DueEvent event, Goal goal);
+  }
+
+  private record TimerKey(String goalId, DueEvent event) { }
+
+  /** The fields a goal's timers were last scheduled from. */
+  private record Registration(String dueDate, GoalStatus status) { }
+
+  private static final Logger logger = LoggerFactory.getLogger(DueDateScheduler.class);
+
+  private final GoalService goalService;
+  private final Clock clock;
+  private final int dueSoonDays;
+  private final HierarchicalTimingWheel<TimerKey, Goal> wheel;
+  private final Map<String, Goal> overdue = new LinkedHashMap<>();
+  private final Map<String, Registration> registered = new HashMap<>();
+  /** Due date each fired timer was scheduled for. */
+  private final Map<TimerKey, String> firedFor = new HashMap<>();
+  private final List<DueDateListener> listeners = new CopyOnWriteArrayList<>();
+
+  @Autowired
+  public DueDateScheduler(GoalService goalService,
+                          @Value("${ontracked.due-soon.days:3}") int dueSoonDays) {
+    this(goalService, Clock.systemDefaultZone(), dueSoonDays);
+  }
+
+  public DueDateScheduler(GoalService goalService, Clock clock, int dueSoonDays) {
+    this.goalService = goalService;
+    this.clock = clock;
+    this.dueSoonDays = Math.max(0, dueSoonDays);
+    this.wheel = new HierarchicalTimingWheel<>(today());
+    goalService.addGoalListener(this::register);
+  }
+
+  /** Registers every goal already persisted once the application is up. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void registerExisting() {
+    registerAll(goalService.loadGoals());
+  }
+
+  /** Advances the wheel to the current day; fires any timers that came due. */
+  @Scheduled(fixedDelayString = "${ontracked.due-scheduler.tick-ms:60000}")
+  public synchronized void tick() {
+    wheel.advanceTo(today(), this::fire);
+  }
+
+  public void addListener(DueDateListener listener) {
+    listeners.add(listener);
+  }
+
+  public void registerAll(List<Goal> goals) {
+    for (Goal g : goals) {
+      register(g);
+    }
+  }
+
+  /**
+   * Registers (or re-registers) a goal's due-date timers. Goals that are not ACTIVE
+   * or have no due date simply have their timers cancelled. If neither the due
+   * date nor the status changed since the last registration, nothing is
+   * rescheduled.
+   *
+   * @param goal the latest state of the goal
+   */
+  public synchronized void register(Goal goal) {
+    long today = today();
+    wheel.advanceTo(today, this::fire);
+
+    String id = goal.getId();
+    Registration registration = new Registration(goal.getDueDate(), goal.getStatus());
+    if (registration.equals(registered.put(id, registration))) {
+      overdue.computeIfPresent(id, (k, old) -> goal);
+      return;
+    }
+    wheel.cancel(new TimerKey(id, DueEvent.DUE_SOON));
+    wheel.cancel(new TimerKey(id, DueEvent.OVERDUE));
+    overdue.remove(id);
+
+    if (goal.getStatus() != GoalStatus.ACTIVE || goal.getDueDate() == null) {
+      return;
+    }
+
+    long dueDay = LocalDate.parse(goal.getDueDate()).toEpochDay();
+    long overdueDay = dueDay + 1;
+    if (overdueDay > today) {
+      schedule(new TimerKey(id, DueEvent.DUE_SOON), goal, dueDay - dueSoonDays, today);
+    }
+    schedule(new TimerKey(id, DueEvent.OVERDUE), goal, overdueDay, today);
+    wheel.advanceTo(today, this::fire);
+  }
+
+  /**
+   * Schedules a timer unless its day has passed and it already fired for this
+   * due date; an overdue goal in that case is listed again without a new event.
+   */
+  private void schedule(TimerKey key, Goal goal, long day, long today) {
+    if (day <= today && goal.getDueDate().equals(firedFor.get(key))) {
+      if (key.event() == DueEvent.OVERDUE) {
+        overdue.put(key.goalId(), goal);
+      }
+      return;
+    }
+    wheel.schedule(key, goal, day);
+  }
+
+  /**
+   * Returns the goals that are currently ACTIVE and past their due date,
+   * oldest due date first.
+   */
+  public synchronized List<Goal> getOverdueGoals() {
+    wheel.advanceTo(today(), this::fire);
+    List<Goal> result = new ArrayList<>(overdue.values());
+    result.sort(Comparator.comparing(Goal::getDueDate));
+    return result;
+  }
+
+  /** Number of pending due-soon and overdue timers. */
+  public synchronized int pendingTimers() {
+    return wheel.size();
+  }
+
+  private void fire(TimerKey key, Goal goal) {
+    firedFor.put(key, goal.getDueDate());
+    if (key.event() == DueEvent.OVERDUE) {
+      overdue.put(key.goalId(), goal);
+    }
+    logger.info("Goal {} is {} (due {})", key.goalId(), key.event(), goal.getDueDate());
+    for (DueDateListener l : listeners) {
+      l.onDueEvent(key.event(), goal);
+    }
+  }
+
+  private long today() {
+    return LocalDate.now(clock).toEpochDay();
+  }
+}
@@ -0,0 +1,185 @@
+package com.ontracked.service;
+
+import com.ontracked.dto.checkin.CheckInResponse;
+import com.ontracked.dto.checkin.ExpandedCheckIn;
+import com.ontracked.dto.goal.ExpandedGoal;
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves the {@code expand} parameter of the check-in and goal endpoints:
+ * embeds each check-in's goal ({@code goal}) and that goal's owner
+ * ({@code goal.owner}), or each goal's owner ({@code owner}) and check-ins
+ * ({@code checkIns}), so a client gets the joined graph in one request.
+ *
+ * <p>Related entities are collected first and deduplicated, then fetched
+ * with one batched lookup per kind: however many check-ins point at the same
+ * goal, that goal is resolved once.
+ *
+ * <p>Check-ins refer to goals by a numeric {@code goalId}, matched against
+ * the goal whose id is that number; goals refer to users by a string
+ * {@code ownerId}, matched against the numeric user id it spells.
+ */
+@Service
+public class ExpansionService {
+
+  /** Paths accepted by the check-in endpoints. */
+  public static final Set<String> CHECK_IN_PATHS = Set.of("goal", "goal.owner");
+  /** Paths accepted by the goal endpoints. */
+  public static final Set<String> GOAL_PATHS = Set.of("owner", "checkIns");
+
+  private final GoalService goalService;
+  private final CheckInService checkInService;
+  private final Function<Collection<Integer>, Map<Integer, User>> users;
+
+  @Autowired
+  public ExpansionService(GoalService goalService, CheckInService checkInService) {
+    this(goalService, checkInService, UserService::retrieveUsers);
+  }
+
+  /**
+   * @param users looks up users by id in one batch
+   */
+  public ExpansionService(GoalService goalService, CheckInService checkInService,
+                          Function<Collection<Integer>, Map<Integer, User>> users) {
+    this.goalService = goalService;
+    this.checkInService = checkInService;
+    this.users = users;
+  }
+
+  /**
+   * Parses a comma-separated {@code expand} value. A nested path implies its
+   * parents, so {@code goal.owner} also expands {@code goal}.
+   *
+   * @param expand  the parameter value, or null
+   * @param allowed the paths the endpoint supports
+   * @return the paths to expand; empty if {@code expand} is null or blank
+   * @throws IllegalArgumentException if a path is not in {@code allowed}
+   */
+  public Set<String> parse(String expand, Set<String> allowed) {
+    Set<String> paths = new LinkedHashSet<>();
+    if (expand == null) {
+      return paths;
+    }
+    for (String part : expand.split(",")) {
+      String path = part.trim();
+      if (path.isEmpty()) {
+        continue;
+      }
+      if (!allowed.contains(path)) {
+        throw new IllegalArgumentException("Cannot expand '" + path + "'; use "
+                + String.join(", ", allowed.stream().sorted().toList()));
+      }
+      for (int dot = path.indexOf('.'); dot >= 0; dot = path.indexOf('.', dot + 1)) {
+        paths.add(path.substring(0, dot));
+      }
+      paths.add(path);
+    }
+    return paths;
+  }
+
+  /**
+   * Embeds the requested related entities in each check-in.
+   *
+   * @param checkIns the check-ins, in response order
+   * @param paths    paths from {@link #parse} with {@link #CHECK_IN_PATHS}
+   * @return one entry per check-in, in the same order
+   */
+  public List<ExpandedCheckIn> expandCheckIns(List<CheckIn> checkIns, Set<String> paths) {
+    Map<String, ExpandedGoal> goals = new HashMap<>();
+    if (paths.contains("goal")) {
+      Set<String> goalIds = new LinkedHashSet<>();
+      for (CheckIn c : checkIns) {
+        if (c.getGoalId() != null) {
+          goalIds.add(String.valueOf(c.getGoalId()));
+        }
+      }
+      Set<String> goalPaths = paths.contains("goal.owner") ? Set.of("owner") : Set.of();
+      List<Goal> found = List.copyOf(goalService.retrieveGoals(goalIds).values());
+      for (ExpandedGoal g : expandGoals(found, goalPaths)) {
+        goals.put(g.goal().getId(), g);
+      }
+    }
+    List<ExpandedCheckIn> result = new ArrayList<>(checkIns.size());
+    for (CheckIn c : checkIns) {
+      ExpandedGoal goal = c.getGoalId() == null ? null : goals.get(String.valueOf(c.getGoalId()));
+      result.add(new ExpandedCheckIn(CheckInResponse.toResponse(c), goal));
+    }
+    return result;
+  }
+
+  /**
+   * Embeds the requested related entities in each goal.
+   *
+   * @param goals the goals, in response order
+   * @param paths paths from {@link #parse} with {@link #GOAL_PATHS}
+   * @return one entry per goal, in the same order
+   */
+  public List<ExpandedGoal> expandGoals(List<Goal> goals, Set<String> paths) {
+    Map<Integer, User> owners = Map.of();
+    if (paths.contains("owner")) {
+      Set<Integer> ownerIds = new LinkedHashSet<>();
+      for (Goal g : goals) {
+        Integer id = parseInt(g.getOwnerId());
+        if (id != null) {
+          ownerIds.add(id);
+        }
+      }
+      owners = ownerIds.isEmpty() ? Map.of() : users.apply(ownerIds);
+    }
+    Map<Long, List<CheckIn>> checkIns = Map.of();
+    if (paths.contains("checkIns")) {
+      Set<Long> goalIds = new LinkedHashSet<>();
+      for (Goal g : goals) {
+        Long id = parseLong(g.getId());
+        if (id != null) {
+          goalIds.add(id);
+        }
+      }
+      checkIns = goalIds.isEmpty() ? Map.of() : checkInService.getCheckInsForGoals(goalIds);
+    }
+    List<ExpandedGoal> result = new ArrayList<>(goals.size());
+    for (Goal g : goals) {
+      Integer ownerId = parseInt(g.getOwnerId());
+      User owner = ownerId == null ? null : owners.get(ownerId);
+      List<CheckInResponse> goalCheckIns = null;
+      if (paths.contains("checkIns")) {
+        Long goalId = parseLong(g.getId());
+        goalCheckIns = new ArrayList<>();
+        for (CheckIn c : goalId == null ? List.<CheckIn>of() : checkIns.getOrDefault(goalId, List.of())) {
+          goalCheckIns.add(CheckInResponse.toResponse(c));
+        }
+      }
+      result.add(new ExpandedGoal(g, owner, goalCheckIns));
+    }
+    return result;
+  }
+
+  private static Integer parseInt(String s) {
+    try {
+      return s == null ? null : Integer.valueOf(s.trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Long parseLong(String s) {
+    try {
+      return s == null ? null : Long.valueOf(s.trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,639 @@
+package com.ontracked.service;
+
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold, column-oriented storage for goals in a terminal status.
+ *
+ * <p>Goals are written in immutable segment files of at most {@code segmentRows}
+ * rows. Inside a segment every field is stored as its own Deflate-compressed
+ * column: owner ids are dictionary-encoded, status is one byte per row, due dates
+ * are epoch days and timestamps are seconds plus nanos. A lookup or scan reads and
+ * inflates only the columns it touches, and only while it runs.
+ *
+ * <p>The only per-goal state kept on the heap is an id index (goal id to segment
+ * and row) and one live bit per row. A row stops being live when a newer segment
+ * holds the same goal or when the goal is {@linkplain #remove removed}, e.g.
+ * because it was reopened and is back in the hot store. Removals are recorded in
+ * a tombstone file so they survive restarts.
+ *
+ * <p>The index and live bits are guarded by a {@link ReentrantLock}, not the
+ * monitor, because appends and removals write files while holding it.
+ */
+public class GoalArchive {
+
+  /** Columns stored in each segment, in file order. */
+  public enum Column {
+    ID, OWNER_ID, PARENT_ID, TITLE, DESCRIPTION, DUE_DATE, STATUS,
+    LATEST_PERCENTAGE, CREATED_AT, UPDATED_AT, VERSION
+  }
+
+  private static final int MAGIC = 0x4F544353; // "OTCS"
+  private static final int FORMAT_VERSION = 1;
+  private static final int NO_DATE = Integer.MIN_VALUE;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".ocs";
+  private static final String TOMBSTONES = "tombstones.txt";
+  private static final Column[] COLUMNS = Column.values();
+
+  private final Path dir;
+  private final int segmentRows;
+  private final List<SegmentFile> segments = new ArrayList<>();
+  private final Map<Integer, SegmentFile> segmentsByNumber = new HashMap<>();
+  /** Goal id to {@code segmentNumber << 32 | row} of its live row. */
+  private final Map<String, Long> index = new HashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private int nextSegment = 1;
+
+  /** Location and live rows of one segment file; column data stays on disk. */
+  private record SegmentFile(int number, Path path, int rows, long[] offsets, int[] lengths, BitSet live) { }
+
+  /**
+   * Opens the archive in {@code dir}, indexing existing segments by reading only
+   * their id columns. The directory is created on the first write.
+   *
+   * @param dir         directory holding segment files
+   * @param segmentRows maximum rows per segment
+   * @throws RuntimeException if an existing segment cannot be read
+   */
+  public GoalArchive(Path dir, int segmentRows) {
+    this.dir = dir;
+    this.segmentRows = Math.max(1, segmentRows);
+    open();
+  }
+
+  /** Number of live archived goals. */
+  public int size() {
+    lock.lock();
+    try {
+      return index.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int segmentCount() {
+    lock.lock();
+    try {
+      return segments.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean contains(String id) {
+    lock.lock();
+    try {
+      return index.containsKey(id);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes goals to new segments. A goal already in the archive is superseded
+   * by the row written here.
+   *
+   * @param goals goals to archive; later entries win for duplicate ids
+   * @throws RuntimeException if a segment cannot be written
+   */
+  public void append(List<Goal> goals) {
+    lock.lock();
+    try {
+      Map<String, Goal> unique = new LinkedHashMap<>();
+      for (Goal g : goals) {
+        unique.put(g.getId(), g);
+      }
+      List<Goal> rows = new ArrayList<>(unique.values());
+      for (int from = 0; from < rows.size(); from += segmentRows) {
+        List<Goal> chunk = rows.subList(from, Math.min(rows.size(), from + segmentRows));
+        SegmentFile segment = writeSegment(nextSegment++, chunk);
+        register(segment);
+        for (int row = 0; row < chunk.size(); row++) {
+          indexRow(chunk.get(row).getId(), segment, row);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reads one archived goal.
+   *
+   * @return the goal, or null if it is not archived
+   */
+  public Goal get(String id) {
+    SegmentFile segment;
+    int row;
+    lock.lock();
+    try {
+      Long location = index.get(id);
+      if (location == null) {
+        return null;
+      }
+      segment = segmentsByNumber.get((int) (location >>> 32));
+      row = (int) (long) location;
+    } finally {
+      lock.unlock();
+    }
+    return new Segment(segment).goal(row);
+  }
+
+  /**
+   * Drops a goal from the archive, e.g. because it was saved to the hot store again.
+   *
+   * @return whether the goal was archived
+   * @throws RuntimeException if the tombstone cannot be written
+   */
+  public boolean remove(String id) {
+    lock.lock();
+    try {
+      Long location = index.remove(id);
+      if (location == null) {
+        return false;
+      }
+      int number = (int) (location >>> 32);
+      segmentsByNumber.get(number).live().clear((int) (long) location);
+      try {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve(TOMBSTONES), id + "," + number + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to write archive tombstone", e);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Visits every segment, oldest first. Each {@link Segment} reads columns on
+   * first access and is meant to be discarded once the visitor returns.
+   */
+  public void forEachSegment(Consumer<Segment> visitor) {
+    List<SegmentFile> snapshot;
+    lock.lock();
+    try {
+      snapshot = new ArrayList<>(segments);
+    } finally {
+      lock.unlock();
+    }
+    for (SegmentFile s : snapshot) {
+      visitor.accept(new Segment(s));
+    }
+  }
+
+  /** Materializes every live archived goal, one segment at a time. */
+  public void forEachGoal(Consumer<Goal> visitor) {
+    forEachSegment(s -> {
+      for (int row = 0; row < s.rowCount(); row++) {
+        if (s.isLive(row)) {
+          visitor.accept(s.goal(row));
+        }
+      }
+    });
+  }
+
+  /** Live archived goals per status, read from the status column only. */
+  public Map<GoalStatus, Integer> countByStatus() {
+    Map<GoalStatus, Integer> counts = new EnumMap<>(GoalStatus.class);
+    forEachSegment(s -> {
+      for (int row = 0; row < s.rowCount(); row++) {
+        if (s.isLive(row)) {
+          counts.merge(s.status(row), 1, Integer::sum);
+        }
+      }
+    });
+    return counts;
+  }
+
+  /** Live archived goals of one owner, found via the dictionary-encoded owner column. */
+  public List<Goal> findByOwner(String ownerId) {
+    List<Goal> result = new ArrayList<>();
+    forEachSegment(s -> {
+      for (int row = 0; row < s.rowCount(); row++) {
+        if (s.isLive(row) && ownerId.equals(s.string(Column.OWNER_ID, row))) {
+          result.add(s.goal(row));
+        }
+      }
+    });
+    return result;
+  }
+
+  /** Total compressed bytes of all segment files. */
+  public long diskBytes() {
+    lock.lock();
+    try {
+      long total = 0;
+      for (SegmentFile s : segments) {
+        try {
+          total += Files.size(s.path());
+        } catch (IOException e) {
+          // segment vanished; report what is left
+        }
+      }
+      return total;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // ------------------------------------------------------------------------
+  // Reading
+  // ------------------------------------------------------------------------
+
+  /**
+   * Read-only view of one segment. Columns are inflated on first access and held
+   * only by this view.
+   */
+  public final class Segment {
+    private final SegmentFile file;
+    private final Object[] decoded = new Object[COLUMNS.length];
+
+    private Segment(SegmentFile file) {
+      this.file = file;
+    }
+
+    public int number() {
+      return file.number();
+    }
+
+    public int rowCount() {
+      return file.rows();
+    }
+
+    public boolean isLive(int row) {
+      lock.lock();
+      try {
+        return file.live().get(row);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** Value of a string column; due dates are returned as ISO dates. */
+    public String string(Column column, int row) {
+      if (column == Column.DUE_DATE) {
+        int day = ((int[]) column(column))[row];
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day).toString();
+      }
+      return ((String[]) column(column))[row];
+    }
+
+    public GoalStatus status(int row) {
+      return GoalStatus.values()[((byte[]) column(Column.STATUS))[row]];
+    }
+
+    public int latestPercentage(int row) {
+      return ((int[]) column(Column.LATEST_PERCENTAGE))[row];
+    }
+
+    public int version(int row) {
+      return ((int[]) column(Column.VERSION))[row];
+    }
+
+    public Instant instant(Column column, int row) {
+      long[] v = (long[]) column(column);
+      return Instant.ofEpochSecond(v[2 * row], v[2 * row + 1]);
+    }
+
+    public Goal goal(int row) {
+      return new Goal(
+              string(Column.ID, row),
+              string(Column.OWNER_ID, row),
+              string(Column.PARENT_ID, row),
+              null,
+              string(Column.TITLE, row),
+              string(Column.DESCRIPTION, row),
+              string(Column.DUE_DATE, row),
+              status(row),
+              latestPercentage(row),
+              instant(Column.CREATED_AT, row),
+              instant(Column.UPDATED_AT, row),
+              version(row));
+    }
+
+    private Object column(Column column) {
+      Object values = decoded[column.ordinal()];
+      if (values == null) {
+        values = readColumn(file, column);
+        decoded[column.ordinal()] = values;
+      }
+      return values;
+    }
+  }
+
+  private static Object readColumn(SegmentFile file, Column column) {
+    int i = column.ordinal();
+    byte[] compressed = new byte[file.lengths()[i]];
+    try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+      ByteBuffer buf = ByteBuffer.wrap(compressed);
+      long pos = file.offsets()[i];
+      while (buf.hasRemaining()) {
+        int n = channel.read(buf, pos);
+        if (n < 0) {
+          throw new IOException("Truncated archive segment " + file.path());
+        }
+        pos += n;
+      }
+      try (DataInputStream in = new DataInputStream(
+              new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+        return decode(column, in, file.rows());
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read archive segment " + file.path(), e);
+    }
+  }
+
+  private static Object decode(Column column, DataInputStream in, int rows) throws IOException {
+    switch (column) {
+      case OWNER_ID -> {
+        String[] dictionary = new String[in.readInt()];
+        for (int d = 0; d < dictionary.length; d++) {
+          dictionary[d] = readString(in);
+        }
+        String[] values = new String[rows];
+        for (int r = 0; r < rows; r++) {
+          values[r] = dictionary[in.readInt()];
+        }
+        return values;
+      }
+      case STATUS -> {
+        byte[] values = new byte[rows];
+        in.readFully(values);
+        return values;
+      }
+      case DUE_DATE, LATEST_PERCENTAGE, VERSION -> {
+        int[] values = new int[rows];
+        for (int r = 0; r < rows; r++) {
+          values[r] = in.readInt();
+        }
+        return values;
+      }
+      case CREATED_AT, UPDATED_AT -> {
+        long[] values = new long[2 * rows];
+        for (int r = 0; r < rows; r++) {
+          values[2 * r] = in.readLong();
+          values[2 * r + 1] = in.readInt();
+        }
+        return values;
+      }
+      default -> {
+        String[] values = new String[rows];
+        for (int r = 0; r < rows; r++) {
+          values[r] = readString(in);
+        }
+        return values;
+      }
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  // ------------------------------------------------------------------------
+  // Writing
+  // ------------------------------------------------------------------------
+
+  private SegmentFile writeSegment(int number, List<Goal> goals) {
+    byte[][] blobs = new byte[COLUMNS.length][];
+    for (Column c : COLUMNS) {
+      blobs[c.ordinal()] = encode(c, goals);
+    }
+    Path path = dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    Path tmp = dir.resolve(path.getFileName() + ".tmp");
+    long[] offsets = new long[COLUMNS.length];
+    int[] lengths = new int[COLUMNS.length];
+    try {
+      Files.createDirectories(dir);
+      try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(goals.size());
+        out.writeInt(COLUMNS.length);
+        long offset = 16L + 4L * COLUMNS.length;
+        for (int i = 0; i < COLUMNS.length; i++) {
+          out.writeInt(blobs[i].length);
+          offsets[i] = offset;
+          lengths[i] = blobs[i].length;
+          offset += blobs[i].length;
+        }
+        for (byte[] blob : blobs) {
+          out.write(blob);
+        }
+      }
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write archive segment", e);
+    }
+    BitSet live = new BitSet(goals.size());
+    live.set(0, goals.size());
+    return new SegmentFile(number, path, goals.size(), offsets, lengths, live);
+  }
+
+  private static byte[] encode(Column column, List<Goal> goals) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+      switch (column) {
+        case OWNER_ID -> {
+          Map<String, Integer> dictionary = new LinkedHashMap<>();
+          for (Goal g : goals) {
+            dictionary.putIfAbsent(g.getOwnerId(), dictionary.size());
+          }
+          out.writeInt(dictionary.size());
+          for (String owner : dictionary.keySet()) {
+            writeString(out, owner);
+          }
+          for (Goal g : goals) {
+            out.writeInt(dictionary.get(g.getOwnerId()));
+          }
+        }
+        case STATUS -> {
+          for (Goal g : goals) {
+            out.writeByte(g.getStatus().ordinal());
+          }
+        }
+        case DUE_DATE -> {
+          for (Goal g : goals) {
+            out.writeInt(g.getDueDate() == null ? NO_DATE : (int) LocalDate.parse(g.getDueDate()).toEpochDay());
+          }
+        }
+        case LATEST_PERCENTAGE -> {
+          for (Goal g : goals) {
+            out.writeInt(g.getLatestPercentage());
+          }
+        }
+        case VERSION -> {
+          for (Goal g : goals) {
+            out.writeInt(g.getVersionNumber());
+          }
+        }
+        case CREATED_AT, UPDATED_AT -> {
+          for (Goal g : goals) {
+            Instant t = column == Column.CREATED_AT ? g.getCreatedAt() : g.getUpdatedAt();
+            out.writeLong(t.getEpochSecond());
+            out.writeInt(t.getNano());
+          }
+        }
+        case ID -> goals.forEach(g -> writeStringUnchecked(out, g.getId()));
+        case PARENT_ID -> goals.forEach(g -> writeStringUnchecked(out, g.getParentId()));
+        case TITLE -> goals.forEach(g -> writeStringUnchecked(out, g.getTitle()));
+        case DESCRIPTION -> goals.forEach(g -> writeStringUnchecked(out, g.getDescription()));
+        default -> throw new IllegalStateException("Unknown column " + column);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to encode archive column " + column, e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeStringUnchecked(DataOutputStream out, String s) {
+    try {
+      writeString(out, s);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to encode archive column", e);
+    }
+  }
+
+  // ------------------------------------------------------------------------
+  // Opening
+  // ------------------------------------------------------------------------
+
+  private void open() {
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    List<Path> files;
+    try (Stream<Path> list = Files.list(dir)) {
+      files = list.filter(p -> {
+        String name = p.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+      }).sorted().toList();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to list archive segments", e);
+    }
+    for (Path path : files) {
+      SegmentFile segment = readHeader(path);
+      register(segment);
+      String[] ids = (String[]) readColumn(segment, Column.ID);
+      for (int row = 0; row < ids.length; row++) {
+        indexRow(ids[row], segment, row);
+      }
+      nextSegment = Math.max(nextSegment, segment.number() + 1);
+    }
+    applyTombstones();
+  }
+
+  private SegmentFile readHeader(Path path) {
+    String name = path.getFileName().toString();
+    int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    try (InputStream raw = Files.newInputStream(path); DataInputStream in = new DataInputStream(raw)) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("Not an archive segment: " + path);
+      }
+      int rows = in.readInt();
+      int columns = in.readInt();
+      if (columns != COLUMNS.length) {
+        throw new IOException("Unexpected column count " + columns + " in " + path);
+      }
+      long[] offsets = new long[columns];
+      int[] lengths = new int[columns];
+      long offset = 16L + 4L * columns;
+      for (int i = 0; i < columns; i++) {
+        lengths[i] = in.readInt();
+        offsets[i] = offset;
+        offset += lengths[i];
+      }
+      BitSet live = new BitSet(rows);
+      live.set(0, rows);
+      return new SegmentFile(number, path, rows, offsets, lengths, live);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read archive segment " + path, e);
+    }
+  }
+
+  private void register(SegmentFile segment) {
+    segments.add(segment);
+    segmentsByNumber.put(segment.number(), segment);
+  }
+
+  private void indexRow(String id, SegmentFile segment, int row) {
+    Long previous = index.put(id, ((long) segment.number() << 32) | row);
+    if (previous != null) {
+      segmentsByNumber.get((int) (previous >>> 32)).live().clear((int) (long) previous);
+    }
+  }
+
+  /** Replays removals; each names the segment it applied to, so later re-archives survive. */
+  private void applyTombstones() {
+    Path file = dir.resolve(TOMBSTONES);
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        int comma = line.lastIndexOf(',');
+        if (comma < 0) {
+          continue;
+        }
+        String id = line.substring(0, comma);
+        int number = Integer.parseInt(line.substring(comma + 1).trim());
+        Long location = index.get(id);
+        if (location != null && (int) (location >>> 32) == number) {
+          index.remove(id);
+          segmentsByNumber.get(number).live().clear((int) (long) location);
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      throw new RuntimeException("Failed to read archive tombstones", e);
+    }
+  }
+}
@@ -0,0 +1,329 @@
+package com.ontracked.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalEvent;
+import com.ontracked.model.GoalSnapshot;
+import com.ontracked.model.GoalStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Event-sourced history of goal mutations.
+ *
+ * <p>Every goal row written by {@link GoalService} is diffed against its previous
+ * recorded state and the changed fields are appended as a {@link GoalEvent} to an
+ * append-only JSON-lines log. Every {@code snapshotInterval} events a full
+ * {@link GoalSnapshot} of that goal is appended to a second log.
+ *
+ * <p>Rows are recorded through {@link GoalService#addWriteListener}, inside the
+ * write and under the goal's shard lock. Events therefore follow the order of
+ * the goal's writes and carry the version stored in each row, so
+ * {@link #goalAtVersion} returns what the goal file held at that version.
+ * Saves do not check versions, so a client may write a row at or below a
+ * version already recorded; such a row is skipped, which keeps each goal's
+ * events strictly ordered by version as the rebuild lookups require.
+ *
+ * <p>Reading a goal as of a version starts from the nearest snapshot at or below
+ * that version and replays at most {@code snapshotInterval} events, so rebuild
+ * cost is bounded regardless of how long the goal's history is.
+ *
+ * <p>State is guarded by a {@link ReentrantLock} rather than the monitor, since
+ * {@link #record} appends to the logs while holding it.
+ */
+@Service
+public class GoalHistoryService {
+
+  private static final Logger logger = LoggerFactory.getLogger(GoalHistoryService.class);
+  private static final String SEPARATOR = ";";
+
+  private final Path eventsFile;
+  private final Path snapshotsFile;
+  private final int snapshotInterval;
+  private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+  private final Map<String, GoalLog> logs = new HashMap<>();
+  private long nextSequence = 1;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** Per-goal events ordered by version, plus snapshots keyed by version. */
+  private static final class GoalLog {
+    final List<GoalEvent> events = new ArrayList<>();
+    final TreeMap<Integer, GoalSnapshot> snapshots = new TreeMap<>();
+    Map<String, String> current;
+    int eventsSinceSnapshot;
+
+    int lastVersion() {
+      return events.isEmpty() ? 0 : events.get(events.size() - 1).version();
+    }
+  }
+
+  @Autowired
+  public GoalHistoryService(GoalService goalService,
+                            @Value("${ontracked.history.events-file:goal_events.jsonl}") String eventsFile,
+                            @Value("${ontracked.history.snapshots-file:goal_snapshots.jsonl}") String snapshotsFile,
+                            @Value("${ontracked.history.snapshot-interval:10}") int snapshotInterval) {
+    this(Path.of(eventsFile), Path.of(snapshotsFile), snapshotInterval);
+    goalService.addWriteListener(this::record);
+  }
+
+  public GoalHistoryService(Path eventsFile, Path snapshotsFile, int snapshotInterval) {
+    this.eventsFile = eventsFile;
+    this.snapshotsFile = snapshotsFile;
+    this.snapshotInterval = Math.max(1, snapshotInterval);
+    loadLogs();
+  }
+
+  /**
+   * Records the current state of a goal as a new event, at the goal's own
+   * version, if anything changed since the last recorded state.
+   *
+   * @param goal the goal just written
+   * @return the appended event, or null if the goal is unchanged or its
+   *         version is not above the last recorded one
+   * @throws RuntimeException if the log cannot be written
+   */
+  public GoalEvent record(Goal goal) {
+    lock.lock();
+    try {
+      GoalLog log = logs.computeIfAbsent(goal.getId(), k -> new GoalLog());
+      int version = goal.getVersionNumber();
+      if (!log.events.isEmpty() && version <= log.lastVersion()) {
+        logger.warn("Goal {} written at version {}, not above recorded version {}; not recorded",
+                goal.getId(), version, log.lastVersion());
+        return null;
+      }
+      Map<String, String> state = toState(goal);
+
+      Map<String, String> changes = new LinkedHashMap<>();
+      for (Map.Entry<String, String> e : state.entrySet()) {
+        if (log.current == null || !Objects.equals(log.current.get(e.getKey()), e.getValue())) {
+          changes.put(e.getKey(), e.getValue());
+        }
+      }
+      if (changes.isEmpty()) {
+        return null;
+      }
+
+      GoalEvent event = new GoalEvent(nextSequence++, goal.getId(), version, Instant.now(), changes);
+      append(eventsFile, event);
+      log.events.add(event);
+      log.current = state;
+      log.eventsSinceSnapshot++;
+
+      if (log.snapshots.isEmpty() || log.eventsSinceSnapshot >= snapshotInterval) {
+        GoalSnapshot snapshot = new GoalSnapshot(goal.getId(), version, event.timestamp(),
+                new LinkedHashMap<>(state));
+        append(snapshotsFile, snapshot);
+        log.snapshots.put(version, snapshot);
+        log.eventsSinceSnapshot = 0;
+      }
+      return event;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Rebuilds a goal as it was at the given version (or the latest version below it).
+   *
+   * @return the goal, or null if the goal is unknown or the version predates it
+   */
+  public Goal goalAtVersion(String id, int version) {
+    lock.lock();
+    try {
+      GoalLog log = logs.get(id);
+      if (log == null || log.events.isEmpty() || version < log.events.get(0).version()) {
+        return null;
+      }
+      Map.Entry<Integer, GoalSnapshot> base = log.snapshots.floorEntry(version);
+      Map<String, String> state = new LinkedHashMap<>();
+      int baseVersion = Integer.MIN_VALUE;
+      if (base != null) {
+        state.putAll(base.getValue().state());
+        baseVersion = base.getKey();
+      }
+      for (int i = firstEventAfter(log.events, baseVersion); i < log.events.size(); i++) {
+        GoalEvent event = log.events.get(i);
+        if (event.version() > version) {
+          break;
+        }
+        state.putAll(event.changes());
+      }
+      return fromState(id, state);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Rebuilds a goal as it was at the given instant.
+   *
+   * @return the goal, or null if the goal did not exist yet
+   */
+  public Goal goalAsOf(String id, Instant asOf) {
+    lock.lock();
+    try {
+      GoalLog log = logs.get(id);
+      if (log == null) {
+        return null;
+      }
+      int lo = 0;
+      int hi = log.events.size() - 1;
+      int found = -1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        if (!log.events.get(mid).timestamp().isAfter(asOf)) {
+          found = mid;
+          lo = mid + 1;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      return found < 0 ? null : goalAtVersion(id, log.events.get(found).version());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** All recorded events of a goal, oldest first; empty if unknown. */
+  public List<GoalEvent> history(String id) {
+    lock.lock();
+    try {
+      GoalLog log = logs.get(id);
+      return log == null ? List.of() : Collections.unmodifiableList(new ArrayList<>(log.events));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // ------------------------------------------------------------------------
+  // Helpers
+  // ------------------------------------------------------------------------
+
+  private static int firstEventAfter(List<GoalEvent> events, int version) {
+    int lo = 0;
+    int hi = events.size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (events.get(mid).version() <= version) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private static Map<String, String> toState(Goal g) {
+    Map<String, String> state = new LinkedHashMap<>();
+    state.put("ownerId", g.getOwnerId());
+    state.put("parentId", g.getParentId());
+    state.put("childrenId", String.join(SEPARATOR, g.getChildrenId()));
+    state.put("title", g.getTitle());
+    state.put("description", g.getDescription());
+    state.put("dueDate", g.getDueDate());
+    state.put("status", g.getStatus().name());
+    state.put("latestPercentage", String.valueOf(g.getLatestPercentage()));
+    state.put("createdAt", g.getCreatedAt().toString());
+    state.put("updatedAt", g.getUpdatedAt().toString());
+    state.put("versionNumber", String.valueOf(g.getVersionNumber()));
+    return state;
+  }
+
+  private static Goal fromState(String id, Map<String, String> s) {
+    String children = s.get("childrenId");
+    return new Goal(
+            id,
+            s.get("ownerId"),
+            s.get("parentId"),
+            children == null || children.isEmpty() ? null : Arrays.asList(children.split(SEPARATOR)),
+            s.get("title"),
+            s.get("description"),
+            s.get("dueDate"),
+            GoalStatus.valueOf(s.get("status")),
+            Integer.parseInt(s.get("latestPercentage")),
+            Instant.parse(s.get("createdAt")),
+            Instant.parse(s.get("updatedAt")),
+            Integer.parseInt(s.get("versionNumber")));
+  }
+
+  private void append(Path file, Object record) {
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      writer.write(mapper.writeValueAsString(record));
+      writer.newLine();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to write goal history", e);
+    }
+  }
+
+  /** Replays both logs from disk; missing files mean an empty history. */
+  private void loadLogs() {
+    try {
+      if (Files.exists(eventsFile)) {
+        try (BufferedReader reader = Files.newBufferedReader(eventsFile, StandardCharsets.UTF_8)) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+              continue;
+            }
+            GoalEvent event = mapper.readValue(line, GoalEvent.class);
+            GoalLog log = logs.computeIfAbsent(event.goalId(), k -> new GoalLog());
+            if (log.current == null) {
+              log.current = new LinkedHashMap<>();
+            }
+            log.current.putAll(event.changes());
+            log.events.add(event);
+            log.eventsSinceSnapshot++;
+            nextSequence = Math.max(nextSequence, event.sequence() + 1);
+          }
+        }
+      }
+      if (Files.exists(snapshotsFile)) {
+        try (BufferedReader reader = Files.newBufferedReader(snapshotsFile, StandardCharsets.UTF_8)) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+              continue;
+            }
+            GoalSnapshot snapshot = mapper.readValue(line, GoalSnapshot.class);
+            GoalLog log = logs.get(snapshot.goalId());
+            if (log != null) {
+              log.snapshots.put(snapshot.version(), snapshot);
+            }
+          }
+        }
+      }
+      for (GoalLog log : logs.values()) {
+        Integer last = log.snapshots.isEmpty() ? null : log.snapshots.lastKey();
+        log.eventsSinceSnapshot = last == null
+                ? log.events.size()
+                : log.events.size() - firstEventAfter(log.events, last);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read goal history", e);
+    }
+  }
+}
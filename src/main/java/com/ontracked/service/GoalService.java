@@ -1,11 +1,30 @@
 package com.ontracked.service;
 
+import com.ontracked.dto.goal.UpdateGoalRequest;
+import com.ontracked.model.CompactGoalStore;
 import com.ontracked.model.Goal;
 import com.ontracked.model.GoalStatus;
+import com.ontracked.model.GoalView;
+import com.ontracked.util.FileStamp;
+import com.ontracked.util.SingleFlight;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Service layer for managing {@link Goal} persistence and retrieval.
@@ -18,6 +37,23 @@ import java.util.*;
  *   <li>Save one or more goals back to the CSV</li>
  * </ul>
  *
+ * <p>Goals are partitioned by a hash of {@code ownerId} into
+ * {@code ontracked.shards} shards, each with its own CSV file and write lock.
+ * With one shard (the default) the file is {@code goals.csv}; otherwise shard
+ * {@code i} lives in {@code goals-i.csv}. Per-owner reads touch a single shard;
+ * reads across all goals fan out to every shard in parallel and merge.
+ *
+ * <p>Each shard's rows are kept in memory in a {@link CompactGoalStore}, which
+ * also indexes them by id and owner; a shard file is re-parsed only when it
+ * changed on disk behind the service's back. The load methods return freshly
+ * materialized {@link Goal} objects that callers may modify freely.
+ *
+ * <p>Goals saved as COMPLETED or ARCHIVED are migrated out of the hot shard files
+ * into a compressed, column-oriented {@link GoalArchive} once
+ * {@code ontracked.archive.segment-rows} of them are pending, and on a schedule.
+ * {@link #loadGoals()} and {@link #loadGoalsForOwner(String)} return hot goals only;
+ * {@link #retrieveGoal(String)} and {@link #goalStats()} also cover the archive.
+ *
  * <p>In a production setup, this would typically be replaced
  * with a database-backed repository or ORM integration.
  */
@@ -26,6 +62,168 @@ public class GoalService {
 
   /** Local file path used for storing serialized goal data. */
   private static final String FILE_PATH = "goals.csv";
+  private static final String HEADER =
+          "id,ownerId,parentId,title,description,dueDate,status,latestPercentage,createdAt,updatedAt,versionNumber";
+
+  private final ShardRouter router;
+  private final File[] shardFiles;
+  private final ReentrantLock[] shardLocks;
+  private final AtomicReferenceArray<ShardCache> shardCaches;
+  private final GoalArchive archive;
+  private final int archiveBatchRows;
+  /** Terminal goals saved to the hot store since the last migration. */
+  private final AtomicInteger pendingArchive = new AtomicInteger();
+  /** Bumped after every change to the stored goals, hot or archived. */
+  private final AtomicLong storeVersion = new AtomicLong();
+  /** Coalesces concurrent re-parses of the same shard file. */
+  private final SingleFlight<Integer, ShardCache> shardLoads = new SingleFlight<>();
+
+  /** Parsed rows of one shard file, valid while the file still matches {@code stamp}. */
+  private record ShardCache(FileStamp stamp, CompactGoalStore store) {
+
+    static ShardCache of(FileStamp stamp, List<Goal> goals) {
+      // Rewrites rebuild the store, so reserve only what these descriptions need.
+      long descriptionBytes = 0;
+      for (Goal g : goals) {
+        if (g.getDescription() != null) {
+          descriptionBytes += g.getDescription().length();
+        }
+      }
+      CompactGoalStore store = new CompactGoalStore(Math.max(16, goals.size()), descriptionBytes);
+      for (Goal g : goals) {
+        store.add(g);
+      }
+      return new ShardCache(stamp, store);
+    }
+  }
+
+  /** Callbacks notified with each goal after it has been persisted. */
+  private final List<Consumer<Goal>> goalListeners = new CopyOnWriteArrayList<>();
+  /** Callbacks run with each written row while its shard lock is still held. */
+  private final List<Consumer<Goal>> writeListeners = new CopyOnWriteArrayList<>();
+
+  /** Creates an unsharded service backed by {@code goals.csv}. */
+  public GoalService() {
+    this(1);
+  }
+
+  /** Creates a sharded service archiving to {@code goal-archive/}. */
+  public GoalService(int shardCount) {
+    this(shardCount, new GoalArchive(Path.of("goal-archive"), 1024), 1024);
+  }
+
+  @Autowired
+  public GoalService(@Value("${ontracked.shards:1}") int shardCount,
+                     @Value("${ontracked.archive.dir:goal-archive}") String archiveDir,
+                     @Value("${ontracked.archive.segment-rows:1024}") int segmentRows,
+                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this(shardCount, new GoalArchive(Path.of(archiveDir), segmentRows), segmentRows, virtualThreads);
+  }
+
+  /**
+   * Creates a service partitioning goals across {@code shardCount} files. If the
+   * store was previously unsharded, {@code goals.csv} is split into the shard
+   * files on first start and renamed to {@code goals.csv.unsharded}.
+   *
+   * @param shardCount       number of owner-hash shards; values below 1 mean 1
+   * @param archive          cold store for terminal goals
+   * @param archiveBatchRows pending terminal goals that trigger a migration
+   */
+  public GoalService(int shardCount, GoalArchive archive, int archiveBatchRows) {
+    this(shardCount, archive, archiveBatchRows, false);
+  }
+
+  /**
+   * As {@link #GoalService(int, GoalArchive, int)}, optionally running
+   * cross-shard reads on virtual threads.
+   */
+  public GoalService(int shardCount, GoalArchive archive, int archiveBatchRows, boolean virtualThreads) {
+    this.archive = archive;
+    this.archiveBatchRows = Math.max(1, archiveBatchRows);
+    this.router = new ShardRouter(shardCount, virtualThreads);
+    int n = router.shardCount();
+    this.shardFiles = new File[n];
+    this.shardLocks = new ReentrantLock[n];
+    this.shardCaches = new AtomicReferenceArray<>(n);
+    for (int i = 0; i < n; i++) {
+      shardFiles[i] = new File(n == 1 ? FILE_PATH : "goals-" + i + ".csv");
+      shardLocks[i] = new ReentrantLock();
+    }
+    if (n > 1) {
+      splitUnshardedFile();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    router.shutdown();
+  }
+
+  public int getShardCount() {
+    return router.shardCount();
+  }
+
+  public GoalArchive getArchive() {
+    return archive;
+  }
+
+  /**
+   * Version of the goal store as a whole, first picking up any shard file that
+   * changed on disk. It grows after every change to the stored goals, so a
+   * caller that reads it before loading goals gets a version no newer than the
+   * goals it loads.
+   *
+   * @return a counter that changes whenever any goal changes
+   */
+  public long storeVersion() {
+    for (int shard = 0; shard < shardFiles.length; shard++) {
+      shard(shard);
+    }
+    return storeVersion.get();
+  }
+
+  /** How many shard re-parses ran, and how many readers shared one already running. */
+  public SingleFlight.Stats shardLoadStats() {
+    return shardLoads.stats();
+  }
+
+  /**
+   * Loads every shard into memory and builds its indexes, in parallel across
+   * shards. Called during startup warm-up; later calls only re-read shards
+   * whose file changed.
+   *
+   * @return number of goal rows loaded
+   */
+  public int warm() {
+    int total = 0;
+    for (ShardCache cache : router.fanOut(this::shard)) {
+      total += cache.store().size();
+    }
+    return total;
+  }
+
+  /**
+   * Registers a callback invoked with every goal written by {@link #saveGoals(List)}
+   * or {@link #updateGoal(UpdateGoalRequest)}.
+   *
+   * @param listener receives the saved goal
+   */
+  public void addGoalListener(Consumer<Goal> listener) {
+    goalListeners.add(listener);
+  }
+
+  /**
+   * Registers a callback invoked with each goal row as it is written, before
+   * the goal's shard lock is released. Calls for one goal therefore arrive in
+   * the order its rows were written, each with the version stored in its row.
+   * The callback runs inside the write, so it should be quick and must not
+   * write goals itself.
+   *
+   * @param listener receives a copy of the row as it was written
+   */
+  public void addWriteListener(Consumer<Goal> listener) {
+    writeListeners.add(listener);
+  }
 
   /**
    * Loads all goals currently stored in the CSV file.
@@ -33,48 +231,560 @@ public class GoalService {
    * @return list of all {@link Goal} objects; empty list if file not found or unreadable
    */
   public List<Goal> loadGoals() {
-    return loadGoalsFromCsv();
+    List<Goal> goals = new ArrayList<>();
+    for (List<Goal> shard : router.fanOut(this::loadShard)) {
+      goals.addAll(shard);
+    }
+    return goals;
   }
 
   /**
-   * Retrieves a specific goal by its unique identifier.
+   * Visits the latest stored version of every hot goal, shard by shard, through
+   * a reused flyweight. Nothing is materialized, so the view must not be kept
+   * past the call that received it.
+   *
+   * @param action receives each goal's latest row
+   */
+  public void forEachLatestGoal(Consumer<? super GoalView> action) {
+    for (int shard = 0; shard < shardFiles.length; shard++) {
+      CompactGoalStore store = shard(shard).store();
+      CompactGoalStore.Cursor cursor = store.cursor();
+      for (int row = 0, n = store.size(); row < n; row++) {
+        if (store.isLatest(row)) {
+          action.accept(cursor.at(row));
+        }
+      }
+    }
+  }
+
+  /**
+   * Loads the goals of one owner, reading only the shard that owner hashes to.
+   *
+   * @param ownerId the owner whose goals to return
+   * @return that owner's goals; empty list if none
+   */
+  public List<Goal> loadGoalsForOwner(String ownerId) {
+    CompactGoalStore store = shard(router.shardFor(ownerId)).store();
+    List<Goal> goals = new ArrayList<>();
+    store.forEachRowOfOwner(ownerId, row -> goals.add(store.toGoal(row)));
+    return goals;
+  }
+
+  /**
+   * Counts stored goals by their latest status, computed on every shard in
+   * parallel and merged with the archive's counts (read from its status column
+   * only). Rows superseded by a later save of the same goal are not counted.
+   *
+   * @return {@code total}, {@code byStatus}, per-shard hot goal counts ({@code shards})
+   *         and archived goal count ({@code archived})
+   */
+  public Map<String, Object> goalStats() {
+    List<Map<GoalStatus, Integer>> perShard = router.fanOut(shard -> {
+      Map<GoalStatus, Integer> counts = new EnumMap<>(GoalStatus.class);
+      CompactGoalStore store = shard(shard).store();
+      for (int row = 0, n = store.size(); row < n; row++) {
+        if (store.isLatest(row)) {
+          counts.merge(store.status(row), 1, Integer::sum);
+        }
+      }
+      return counts;
+    });
+
+    Map<GoalStatus, Integer> byStatus = new EnumMap<>(GoalStatus.class);
+    for (GoalStatus status : GoalStatus.values()) {
+      byStatus.put(status, 0);
+    }
+    List<Integer> shardTotals = new ArrayList<>();
+    int total = 0;
+    for (Map<GoalStatus, Integer> counts : perShard) {
+      int shardTotal = 0;
+      for (Map.Entry<GoalStatus, Integer> e : counts.entrySet()) {
+        byStatus.merge(e.getKey(), e.getValue(), Integer::sum);
+        shardTotal += e.getValue();
+      }
+      shardTotals.add(shardTotal);
+      total += shardTotal;
+    }
+    int archived = 0;
+    for (Map.Entry<GoalStatus, Integer> e : archive.countByStatus().entrySet()) {
+      byStatus.merge(e.getKey(), e.getValue(), Integer::sum);
+      archived += e.getValue();
+    }
+
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("total", total + archived);
+    stats.put("byStatus", byStatus);
+    stats.put("shards", shardTotals);
+    stats.put("archived", archived);
+    return stats;
+  }
+
+  /**
+   * Retrieves a specific goal by its unique identifier, falling back to the
+   * archive when it is not in the hot store.
+   *
+   * <p>Shards are keyed by owner, so each shard's id index is probed in turn;
+   * only the row holding the goal's latest version is materialized.
    *
    * @param id the goal's UUID string
    * @return the matching {@link Goal}, or {@code null} if not found
    */
   public Goal retrieveGoal(String id) {
-    List<Goal> allGoals = loadGoals();
-    for (Goal g : allGoals) {
-      if (g.getId().equals(id)) {
-        return g;
+    for (int shard = 0; shard < shardFiles.length; shard++) {
+      CompactGoalStore store = shard(shard).store();
+      int row = store.findLatest(id);
+      if (row >= 0) {
+        return store.toGoal(row);
+      }
+    }
+    return archive.get(id);
+  }
+
+  /**
+   * Retrieves several goals in one batched pass. Each shard's id index is
+   * probed for all requested ids, the shards in parallel; ids no shard holds
+   * are then looked up in the archive.
+   *
+   * @param ids goal ids; nulls and repeats are ignored
+   * @return the goals found, keyed by id in request order
+   */
+  public Map<String, Goal> retrieveGoals(Collection<String> ids) {
+    Set<String> wanted = new LinkedHashSet<>();
+    for (String id : ids) {
+      if (id != null) {
+        wanted.add(id);
       }
     }
-    return null;
+    Map<String, Goal> hot = new HashMap<>();
+    if (!wanted.isEmpty()) {
+      for (Map<String, Goal> found : router.fanOut(shard -> findInShard(shard, wanted))) {
+        hot.putAll(found);
+      }
+    }
+    Map<String, Goal> result = new LinkedHashMap<>();
+    for (String id : wanted) {
+      Goal goal = hot.get(id);
+      if (goal == null) {
+        goal = archive.get(id);
+      }
+      if (goal != null) {
+        result.put(id, goal);
+      }
+    }
+    return result;
+  }
+
+  private Map<String, Goal> findInShard(int shard, Set<String> ids) {
+    CompactGoalStore store = shard(shard).store();
+    Map<String, Goal> found = new HashMap<>();
+    for (String id : ids) {
+      int row = store.findLatest(id);
+      if (row >= 0) {
+        found.put(id, store.toGoal(row));
+      }
+    }
+    return found;
   }
 
   /**
-   * Persists one or more goals to the CSV file.
+   * Applies a partial update to a goal: only the fields set in {@code request}
+   * change, and the version goes up by one. If {@code expectedVersion} is set
+   * it must equal the stored version, checked under the shard lock, so two
+   * concurrent updates from the same version cannot both succeed.
+   *
+   * <p>The goal's row is replaced rather than appended to: the shard file is
+   * rewritten with one row for the goal, so repeated updates do not grow the
+   * file or the in-memory store. A goal found only in the archive is moved
+   * back to the hot store, as {@link #saveGoals(List)} would.
+   *
+   * @param request the goal id and the fields to change
+   * @return the updated goal, or {@code null} if no goal has that id
+   * @throws GoalVersionConflictException if the stored version is not the expected one
+   * @throws IllegalArgumentException     if a field value is invalid
+   */
+  public Goal updateGoal(UpdateGoalRequest request) {
+    String id = request.getId();
+    ShardUpdate update = null;
+    for (int shard = 0; shard < shardFiles.length && update == null; shard++) {
+      if (shard(shard).store().find(id) >= 0) {
+        update = updateInShard(shard, request);
+      }
+    }
+    if (update == null) {
+      Goal archived = archive.get(id);
+      if (archived == null) {
+        return null;
+      }
+      update = updateInShard(router.shardFor(archived.getOwnerId()), request);
+      if (update == null) {
+        return null;
+      }
+    }
+    Goal updated = update.goal();
+    if (!update.changed()) {
+      // Nothing was written, so there is nothing to tell listeners.
+      return updated;
+    }
+    for (Consumer<Goal> listener : goalListeners) {
+      listener.accept(updated);
+    }
+    if (isTerminal(updated) && pendingArchive.incrementAndGet() >= archiveBatchRows) {
+      archiveTerminalGoals();
+    }
+    return updated;
+  }
+
+  /** Outcome of {@link #updateInShard}: the goal after the update, and whether it was written. */
+  private record ShardUpdate(Goal goal, boolean changed) { }
+
+  /**
+   * Updates the latest row of a goal in one shard while holding its lock. A
+   * goal the shard does not hold is looked up in the archive under the same
+   * lock and, if changed, appended back to the shard, so archived goals get
+   * the same compare-and-set as hot ones.
+   *
+   * @return the goal and whether the request changed it, or {@code null} if
+   *         neither the shard nor the archive holds it
+   */
+  private ShardUpdate updateInShard(int shard, UpdateGoalRequest request) {
+    ReentrantLock lock = shardLocks[shard];
+    lock.lock();
+    try {
+      CompactGoalStore store = shard(shard).store();
+      int latest = store.findLatest(request.getId());
+      if (latest < 0) {
+        Goal archived = archive.get(request.getId());
+        if (archived == null) {
+          return null;
+        }
+        if (!applyUpdate(archived, request)) {
+          return new ShardUpdate(archived, false);
+        }
+        saveShard(shard, List.of(archived));
+        // The hot row now supersedes the archived copy until the goal is migrated again.
+        archive.remove(archived.getId());
+        return new ShardUpdate(archived, true);
+      }
+      Goal goal = store.toGoal(latest);
+      if (!applyUpdate(goal, request)) {
+        return new ShardUpdate(goal, false);
+      }
+      // The updated row takes the place of the goal's first row; older
+      // duplicates appended by earlier saves are dropped.
+      Goal written = persistedCopy(goal);
+      List<Goal> rows = new ArrayList<>(store.size());
+      boolean placed = false;
+      for (Goal g : store.toGoals()) {
+        if (!g.getId().equals(goal.getId())) {
+          rows.add(g);
+        } else if (!placed) {
+          rows.add(written);
+          placed = true;
+        }
+      }
+      rewriteShard(shard, rows);
+      notifyWritten(written);
+      return new ShardUpdate(goal, true);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Checks the expected version and copies the set fields of {@code request}
+   * onto {@code goal}, bumping its version once.
+   *
+   * @return whether any field was set
+   */
+  private static boolean applyUpdate(Goal goal, UpdateGoalRequest request) {
+    int version = goal.getVersionNumber();
+    Integer expected = request.getExpectedVersion();
+    if (expected != null && expected != version) {
+      throw new GoalVersionConflictException(goal.getId(), expected, version);
+    }
+    boolean changed = false;
+    if (request.getParentId() != null) {
+      goal.setParentId(request.getParentId());
+      changed = true;
+    }
+    if (request.getTitle() != null) {
+      goal.setTitle(request.getTitle());
+      changed = true;
+    }
+    if (request.getDescription() != null) {
+      goal.setDescription(request.getDescription());
+      changed = true;
+    }
+    if (request.getDueDate() != null) {
+      goal.setDueDate(request.getDueDate());
+      changed = true;
+    }
+    if (request.getStatus() != null) {
+      goal.setStatus(request.getStatus());
+      changed = true;
+    }
+    if (request.getLatestPercentage() != null) {
+      goal.setLatestPercentage(request.getLatestPercentage());
+      changed = true;
+    }
+    if (changed) {
+      // Each setter bumped the version; a single update counts once.
+      goal.setVersionNumber(version + 1);
+    }
+    return changed;
+  }
+
+  /**
+   * Loads one owner's archived goals by scanning the archive's owner column.
+   *
+   * @param ownerId the owner whose archived goals to return
+   * @return that owner's archived goals; empty list if none
+   */
+  public List<Goal> loadArchivedGoalsForOwner(String ownerId) {
+    return archive.findByOwner(ownerId);
+  }
+
+  /**
+   * Moves goals whose latest row is COMPLETED or ARCHIVED from every hot shard
+   * into a new archive segment, then rewrites each affected shard file without
+   * them. The segment is written before the hot rows are dropped, so a crash in
+   * between leaves the goal in both tiers rather than in neither.
+   *
+   * @return number of goals archived
+   * @throws RuntimeException if the archive or a shard file cannot be written
+   */
+  @Scheduled(initialDelayString = "${ontracked.archive.interval-ms:300000}",
+             fixedDelayString = "${ontracked.archive.interval-ms:300000}")
+  public int archiveTerminalGoals() {
+    pendingArchive.set(0);
+    int archived = 0;
+    for (int moved : router.fanOut(this::archiveShard)) {
+      archived += moved;
+    }
+    return archived;
+  }
+
+  private int archiveShard(int shard) {
+    ReentrantLock lock = shardLocks[shard];
+    lock.lock();
+    try {
+      List<Goal> rows = loadShard(shard);
+      Map<String, Goal> latest = new LinkedHashMap<>();
+      for (Goal g : rows) {
+        latest.put(g.getId(), g);
+      }
+      List<Goal> terminal = new ArrayList<>();
+      for (Goal g : latest.values()) {
+        if (isTerminal(g)) {
+          terminal.add(g);
+        }
+      }
+      if (terminal.isEmpty()) {
+        return 0;
+      }
+      archive.append(terminal);
+
+      Set<String> moved = new HashSet<>();
+      for (Goal g : terminal) {
+        moved.add(g.getId());
+      }
+      List<Goal> remaining = new ArrayList<>();
+      for (Goal g : rows) {
+        if (!moved.contains(g.getId())) {
+          remaining.add(g);
+        }
+      }
+      rewriteShard(shard, remaining);
+      return terminal.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Replaces a shard file with exactly {@code rows}; caller holds the shard lock. */
+  private void rewriteShard(int shard, List<Goal> rows) {
+    File file = shardFiles[shard];
+    File tmp = new File(file.getPath() + ".tmp");
+    if (tmp.exists() && !tmp.delete()) {
+      throw new RuntimeException("Failed to clear " + tmp);
+    }
+    saveGoalsToCsv(tmp, rows);
+    try {
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to replace " + file, e);
+    }
+    shardCaches.set(shard, ShardCache.of(FileStamp.of(file.toPath()), new ArrayList<>(rows)));
+    storeVersion.incrementAndGet();
+  }
+
+  private static boolean isTerminal(Goal g) {
+    return g.getStatus() == GoalStatus.COMPLETED || g.getStatus() == GoalStatus.ARCHIVED;
+  }
+
+  /**
+   * Persists one or more goals, each to the CSV file of its owner's shard.
    * Appends new rows to the existing file if it already exists.
    *
    * @param goals list of goals to save
    * @throws RuntimeException if file write fails
    */
   public void saveGoals(List<Goal> goals) {
-    saveGoalsToCsv(goals);
+    Map<Integer, List<Goal>> byShard = new TreeMap<>();
+    for (Goal g : goals) {
+      byShard.computeIfAbsent(router.shardFor(g.getOwnerId()), k -> new ArrayList<>()).add(g);
+    }
+    if (byShard.isEmpty()) {
+      byShard.put(0, List.of());
+    }
+    for (Map.Entry<Integer, List<Goal>> e : byShard.entrySet()) {
+      saveShard(e.getKey(), e.getValue());
+    }
+    int terminal = 0;
+    for (Goal g : goals) {
+      // The hot row now supersedes any archived copy until the goal is migrated again.
+      archive.remove(g.getId());
+      if (isTerminal(g)) {
+        terminal++;
+      }
+    }
+    storeVersion.incrementAndGet();
+    for (Goal g : goals) {
+      for (Consumer<Goal> listener : goalListeners) {
+        listener.accept(g);
+      }
+    }
+    if (terminal > 0 && pendingArchive.addAndGet(terminal) >= archiveBatchRows) {
+      archiveTerminalGoals();
+    }
+  }
+
+  /**
+   * Appends goals to one shard's file while holding that shard's lock, then
+   * extends the shard's cache with the rows as they were written.
+   */
+  private void saveShard(int shard, List<Goal> goals) {
+    ReentrantLock lock = shardLocks[shard];
+    lock.lock();
+    try {
+      CompactGoalStore store = shard(shard).store();
+      saveGoalsToCsv(shardFiles[shard], goals);
+      List<Goal> written = new ArrayList<>(goals.size());
+      for (Goal g : goals) {
+        Goal copy = persistedCopy(g);
+        store.add(copy);
+        written.add(copy);
+      }
+      shardCaches.set(shard, new ShardCache(FileStamp.of(shardFiles[shard].toPath()), store));
+      storeVersion.incrementAndGet();
+      for (Goal g : written) {
+        notifyWritten(g);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Hands a written row to the write listeners; caller holds the row's shard lock. */
+  private void notifyWritten(Goal written) {
+    for (Consumer<Goal> listener : writeListeners) {
+      listener.accept(written);
+    }
+  }
+
+  /** Rows of one shard, materialized from its cache. */
+  private List<Goal> loadShard(int shard) {
+    return shard(shard).store().toGoals();
+  }
+
+  /**
+   * Returns a shard's cache, re-parsing the file if it changed. Readers that
+   * find the same shard stale at once share a single re-parse.
+   */
+  private ShardCache shard(int shard) {
+    File file = shardFiles[shard];
+    ShardCache cache = shardCaches.get(shard);
+    if (cache != null && cache.stamp().equals(FileStamp.of(file.toPath()))) {
+      return cache;
+    }
+    if (shardLocks[shard].isHeldByCurrentThread()) {
+      // A writer of this shard must not wait on a reload that needs its lock.
+      return reloadShard(shard);
+    }
+    return shardLoads.execute(shard, () -> reloadShard(shard));
+  }
+
+  /** Re-parses a shard file under the shard lock unless another thread just did. */
+  private ShardCache reloadShard(int shard) {
+    File file = shardFiles[shard];
+    ShardCache cache;
+    ReentrantLock lock = shardLocks[shard];
+    lock.lock();
+    try {
+      FileStamp stamp = FileStamp.of(file.toPath());
+      cache = shardCaches.get(shard);
+      if (cache == null || !cache.stamp().equals(stamp)) {
+        cache = ShardCache.of(stamp, new ArrayList<>(loadGoalsFromCsv(file)));
+        shardCaches.set(shard, cache);
+        storeVersion.incrementAndGet();
+      }
+      return cache;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Copy of a goal holding only what its CSV row stores, so the cache matches a
+   * re-read of the file and is unaffected by later changes to the caller's object.
+   */
+  private static Goal persistedCopy(Goal g) {
+    return new Goal(
+            nullToEmpty(g.getId()),
+            nullToEmpty(g.getOwnerId()),
+            nullToEmpty(g.getParentId()),
+            null,
+            g.getTitle(),
+            g.getDescription(),
+            g.getDueDate(),
+            g.getStatus(),
+            g.getLatestPercentage(),
+            g.getCreatedAt(),
+            g.getUpdatedAt(),
+            g.getVersionNumber());
+  }
+
+  /**
+   * Moves rows of a pre-existing unsharded {@code goals.csv} into the shard files,
+   * unless shard files already exist.
+   */
+  private void splitUnshardedFile() {
+    File unsharded = new File(FILE_PATH);
+    if (!unsharded.exists()) {
+      return;
+    }
+    for (File f : shardFiles) {
+      if (f.exists()) {
+        return;
+      }
+    }
+    saveGoals(loadGoalsFromCsv(unsharded));
+    if (!unsharded.renameTo(new File(FILE_PATH + ".unsharded"))) {
+      throw new RuntimeException("Failed to rename " + FILE_PATH + " after splitting it into shards");
+    }
   }
 
   /**
    * Writes goals to a local CSV file. If the file exists and is non-empty,
    * new entries are appended; otherwise, a header row is written first.
    */
-  private void saveGoalsToCsv(List<Goal> goals) {
-    File file = new File(FILE_PATH);
+  private void saveGoalsToCsv(File file, List<Goal> goals) {
     boolean append = file.exists() && file.length() > 0;
 
     try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
       // Write header only once
       if (!append) {
-        writer.println("id,ownerId,parentId,title,description,dueDate,status,latestPercentage,createdAt,updatedAt,versionNumber");
+        writer.println(HEADER);
       }
 
       // Serialize each Goal into a CSV line
@@ -98,14 +808,14 @@ public class GoalService {
   }
 
   /**
-   * Reads and parses the goals stored in {@code goals.csv}.
+   * Reads and parses the goals stored in one CSV file.
    * Lines are split using custom CSV parsing to support quoted fields with commas.
    *
    * @return list of loaded {@link Goal} objects; empty list if I/O fails
    */
-  private List<Goal> loadGoalsFromCsv() {
+  private List<Goal> loadGoalsFromCsv(File file) {
     List<Goal> goals = new ArrayList<>();
-    try (BufferedReader reader = new BufferedReader(new FileReader(FILE_PATH))) {
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
       reader.readLine(); // skip header row
       String line;
 
@@ -115,15 +825,20 @@ public class GoalService {
           continue;
         } // ignore malformed rows
 
-        // Reconstruct Goal from CSV columns
-        Goal g = new Goal(parts[1]);  // ownerId
-        g.setId(parts[0]);
-        g.setParentId(emptyToNull(parts[2]));
-        g.setTitle(emptyToNull(parts[3]));
-        g.setDescription(emptyToNull(parts[4]));
-        g.setDueDate(emptyToNull(parts[5]));
-        g.setStatus(GoalStatus.valueOf(parts[6]));
-        g.setLatestPercentage(Integer.parseInt(parts[7]));
+        // Reconstruct Goal from CSV columns, keeping its persisted timestamps and version
+        Goal g = new Goal(
+                parts[0],
+                parts[1],
+                emptyToNull(parts[2]),
+                null,
+                emptyToNull(parts[3]),
+                emptyToNull(parts[4]),
+                emptyToNull(parts[5]),
+                GoalStatus.valueOf(parts[6]),
+                Integer.parseInt(parts[7]),
+                Instant.parse(parts[8]),
+                Instant.parse(parts[9]),
+                Integer.parseInt(parts[10]));
         goals.add(g);
       }
     } catch (IOException e) {
@@ -0,0 +1,31 @@
+package com.ontracked.service;
+
+/**
+ * Thrown when an update names an expected goal version that is no longer the
+ * stored one, i.e. someone else changed the goal since the caller read it.
+ */
+public class GoalVersionConflictException extends RuntimeException {
+
+  private final String goalId;
+  private final int expectedVersion;
+  private final int currentVersion;
+
+  public GoalVersionConflictException(String goalId, int expectedVersion, int currentVersion) {
+    super("Goal " + goalId + " is at version " + currentVersion + ", not " + expectedVersion);
+    this.goalId = goalId;
+    this.expectedVersion = expectedVersion;
+    this.currentVersion = currentVersion;
+  }
+
+  public String getGoalId() {
+    return goalId;
+  }
+
+  public int getExpectedVersion() {
+    return expectedVersion;
+  }
+
+  public int getCurrentVersion() {
+    return currentVersion;
+  }
+}
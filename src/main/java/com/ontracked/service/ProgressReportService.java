@@ -0,0 +1,153 @@
+package com.ontracked.service;
+
+import com.ontracked.model.GoalStatus;
+import com.ontracked.util.IntKernels;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class-level progress reports over the latest percentage of every hot goal.
+ *
+ * <p>A report copies owner, status and percentage out of the goal store into
+ * int columns, counting-sorts the percentages so each group is one contiguous
+ * slice, and runs the {@link IntKernels} (SIMD when available) over each slice
+ * and over the whole column.
+ */
+@Service
+public class ProgressReportService {
+
+  /** Histogram buckets of {@value} points; the last one also holds 100. */
+  public static final int BUCKET_WIDTH = 10;
+  private static final int BUCKETS = 10;
+  private static final GoalStatus[] STATUSES = GoalStatus.values();
+
+  /** How goals are grouped in a report. */
+  public enum GroupBy { OWNER, STATUS, OWNER_STATUS }
+
+  /**
+   * Aggregates of one group. {@code ownerId} or {@code status} is null when the
+   * report is not grouped by it (and both are null for the overall summary).
+   */
+  public record Summary(String ownerId, GoalStatus status, int count, double average, int min, int max,
+                        int atOrAboveThreshold, int[] histogram) { }
+
+  /** A full report: the kernels used, the overall summary, and one summary per group. */
+  public record Report(String kernel, GroupBy groupBy, int threshold, int bucketWidth,
+                       Summary overall, List<Summary> groups) { }
+
+  private final GoalService goalService;
+  private final IntKernels kernels;
+
+  @Autowired
+  public ProgressReportService(GoalService goalService) {
+    this(goalService, IntKernels.best());
+  }
+
+  public ProgressReportService(GoalService goalService, IntKernels kernels) {
+    this.goalService = goalService;
+    this.kernels = kernels;
+  }
+
+  /**
+   * Builds a progress report.
+   *
+   * @param groupBy   grouping of the per-group summaries
+   * @param threshold percentage counted by {@code atOrAboveThreshold}
+   * @return the report; groups are ordered by owner id, then status
+   */
+  public Report report(GroupBy groupBy, int threshold) {
+    Map<String, Integer> ownerCodes = new HashMap<>();
+    List<String> owners = new ArrayList<>();
+    int[][] columns = {new int[256], new int[256]};
+    int[] size = {0};
+    goalService.forEachLatestGoal(g -> {
+      int n = size[0];
+      if (n == columns[0].length) {
+        columns[0] = Arrays.copyOf(columns[0], n * 2);
+        columns[1] = Arrays.copyOf(columns[1], n * 2);
+      }
+      int owner = 0;
+      if (groupBy != GroupBy.STATUS) {
+        owner = ownerCodes.computeIfAbsent(g.getOwnerId(), k -> {
+          owners.add(k);
+          return owners.size() - 1;
+        });
+      }
+      int status = g.getStatus().ordinal();
+      columns[0][n] = switch (groupBy) {
+        case OWNER -> owner;
+        case STATUS -> status;
+        case OWNER_STATUS -> owner * STATUSES.length + status;
+      };
+      columns[1][n] = g.getLatestPercentage();
+      size[0] = n + 1;
+    });
+    int n = size[0];
+    int[] group = columns[0];
+    int[] percent = columns[1];
+
+    // Counting sort by group so every group's percentages form one slice.
+    int groupCount = switch (groupBy) {
+      case OWNER -> owners.size();
+      case STATUS -> STATUSES.length;
+      case OWNER_STATUS -> owners.size() * STATUSES.length;
+    };
+    int[] start = new int[groupCount + 1];
+    for (int i = 0; i < n; i++) {
+      start[group[i] + 1]++;
+    }
+    for (int k = 0; k < groupCount; k++) {
+      start[k + 1] += start[k];
+    }
+    int[] sorted = new int[n];
+    int[] next = Arrays.copyOf(start, groupCount);
+    for (int i = 0; i < n; i++) {
+      sorted[next[group[i]]++] = percent[i];
+    }
+
+    List<Summary> groups = new ArrayList<>();
+    for (int k = 0; k < groupCount; k++) {
+      if (start[k] == start[k + 1]) {
+        continue;
+      }
+      String ownerId = switch (groupBy) {
+        case OWNER -> owners.get(k);
+        case STATUS -> null;
+        case OWNER_STATUS -> owners.get(k / STATUSES.length);
+      };
+      GoalStatus status = switch (groupBy) {
+        case OWNER -> null;
+        case STATUS -> STATUSES[k];
+        case OWNER_STATUS -> STATUSES[k % STATUSES.length];
+      };
+      groups.add(summarize(sorted, start[k], start[k + 1], threshold, ownerId, status));
+    }
+    groups.sort(Comparator.comparing(Summary::ownerId, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Summary::status, Comparator.nullsFirst(Comparator.<GoalStatus>naturalOrder())));
+
+    return new Report(kernels.name(), groupBy, threshold, BUCKET_WIDTH,
+            summarize(percent, 0, n, threshold, null, null), groups);
+  }
+
+  private Summary summarize(int[] values, int from, int to, int threshold, String ownerId, GoalStatus status) {
+    int count = to - from;
+    int[] histogram = new int[BUCKETS];
+    if (count == 0) {
+      return new Summary(ownerId, status, 0, 0.0, 0, 0, 0, histogram);
+    }
+    kernels.histogram(values, from, to, BUCKET_WIDTH, histogram);
+    return new Summary(ownerId, status, count,
+            (double) kernels.sum(values, from, to) / count,
+            kernels.min(values, from, to),
+            kernels.max(values, from, to),
+            kernels.countAtLeast(values, from, to, threshold),
+            histogram);
+  }
+}
@@ -0,0 +1,253 @@
+package com.ontracked.service;
+
+import com.ontracked.model.ProgressUpdate;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers progress updates from streaming clients and persists them in batches.
+ *
+ * <p>Producers put updates into a bounded ring buffer (an array-backed
+ * {@link ArrayBlockingQueue}). A single writer thread drains up to
+ * {@code maxBatch} updates at a time and appends them to a CSV log with one
+ * write and flush per batch. When the buffer is full, {@link #put} blocks the
+ * producer until the writer catches up or {@code putTimeout} passes. A stream
+ * that blocks stops reading its request body, so the client is slowed down by
+ * TCP flow control rather than by unbounded buffering on the server.
+ *
+ * <p>{@link #flush} enqueues a marker behind a producer's updates. Its future
+ * completes once every update put before it is on disk.
+ */
+@Service
+public class ProgressUpdateService {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProgressUpdateService.class);
+  private static final String HEADER = "id,goalId,percentComplete,timestamp,note";
+
+  /** A buffered update, or a flush marker when {@code update} is null. */
+  private record Entry(ProgressUpdate update, CompletableFuture<Void> flushed) { }
+
+  private final Path file;
+  private final BlockingQueue<Entry> buffer;
+  private final int maxBatch;
+  private final Duration putTimeout;
+  private final AtomicLong nextId;
+  private final AtomicLong persisted = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+  private final Thread writer;
+  private volatile boolean running = true;
+
+  @Autowired
+  public ProgressUpdateService(@Value("${ontracked.progress.file:progress_updates.csv}") String file,
+                               @Value("${ontracked.progress.buffer:65536}") int capacity,
+                               @Value("${ontracked.progress.max-batch:4096}") int maxBatch,
+                               @Value("${ontracked.progress.put-timeout-ms:5000}") long putTimeoutMs) {
+    this(Path.of(file), capacity, maxBatch, Duration.ofMillis(putTimeoutMs));
+  }
+
+  /**
+   * @param file       CSV log the updates are appended to
+   * @param capacity   updates the ring buffer holds before producers block
+   * @param maxBatch   most updates written per batch
+   * @param putTimeout how long a producer waits for room before giving up
+   */
+  public ProgressUpdateService(Path file, int capacity, int maxBatch, Duration putTimeout) {
+    this.file = file;
+    this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    this.maxBatch = Math.max(1, maxBatch);
+    this.putTimeout = putTimeout;
+    this.nextId = new AtomicLong(lastId(file) + 1);
+    this.writer = new Thread(this::writeLoop, "progress-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Buffers one update, waiting for room if the buffer is full.
+   *
+   * @param update the validated update; its id is assigned here
+   * @return false if there was no room within the put timeout, or the service is closed
+   * @throws InterruptedException if interrupted while waiting for room
+   */
+  public boolean put(ProgressUpdate update) throws InterruptedException {
+    if (!running) {
+      return false;
+    }
+    update.setId(nextId.getAndIncrement());
+    return buffer.offer(new Entry(update, null), putTimeout.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns a future that completes once every update this thread put so far
+   * is persisted.
+   *
+   * @return the future; it fails if a batch could not be written or the
+   *         marker found no room within the put timeout
+   * @throws InterruptedException if interrupted while waiting for room
+   */
+  public CompletableFuture<Void> flush() throws InterruptedException {
+    CompletableFuture<Void> flushed = new CompletableFuture<>();
+    if (!running) {
+      flushed.completeExceptionally(new IllegalStateException("Progress updates are not being persisted"));
+    } else if (!buffer.offer(new Entry(null, flushed), putTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+      flushed.completeExceptionally(new IllegalStateException("Progress buffer is full"));
+    }
+    return flushed;
+  }
+
+  /** Updates waiting in the buffer. */
+  public int buffered() {
+    return buffer.size();
+  }
+
+  /** Updates written to the log since startup. */
+  public long persisted() {
+    return persisted.get();
+  }
+
+  /** Batches written since startup. */
+  public long batches() {
+    return batches.get();
+  }
+
+  /** Stops accepting updates and waits for the buffer to be written out and the log closed. */
+  @PreDestroy
+  public void close() {
+    running = false;
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void writeLoop() {
+    List<Entry> batch = new ArrayList<>(maxBatch);
+    BufferedWriter out = null;
+    try {
+      while (running || !buffer.isEmpty()) {
+        Entry first = buffer.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        buffer.drainTo(batch, maxBatch - 1);
+        if (out == null) {
+          out = open();
+        }
+        write(out, batch);
+        batch.clear();
+      }
+      if (out != null) {
+        out.close();
+      }
+    } catch (IOException e) {
+      logger.error("Progress update log {} is unavailable; updates are no longer persisted", file, e);
+      running = false;
+      failPending(batch, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(BufferedWriter out, List<Entry> batch) throws IOException {
+    int written = 0;
+    for (Entry e : batch) {
+      ProgressUpdate u = e.update();
+      if (u == null) {
+        continue;
+      }
+      out.write(String.valueOf(u.getId()));
+      out.write(',');
+      out.write(String.valueOf(u.getGoalId()));
+      out.write(',');
+      out.write(String.valueOf(u.getPercentComplete()));
+      out.write(',');
+      out.write(u.getTimestamp().toString());
+      out.write(',');
+      out.write(u.getNote() == null ? "" : u.getNote().replace(',', ' ').replace('\n', ' ').replace('\r', ' '));
+      out.newLine();
+      written++;
+    }
+    out.flush();
+    persisted.addAndGet(written);
+    batches.incrementAndGet();
+    for (Entry e : batch) {
+      if (e.flushed() != null) {
+        e.flushed().complete(null);
+      }
+    }
+  }
+
+  /** Fails the markers of a batch that was not written, and of everything still buffered. */
+  private void failPending(List<Entry> batch, IOException cause) {
+    RuntimeException failure = new RuntimeException("Failed to write progress updates", cause);
+    List<Entry> pending = new ArrayList<>(batch);
+    buffer.drainTo(pending);
+    for (Entry e : pending) {
+      if (e.flushed() != null) {
+        e.flushed().completeExceptionally(failure);
+      }
+    }
+  }
+
+  private BufferedWriter open() throws IOException {
+    boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+    BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    if (fresh) {
+      out.write(HEADER);
+      out.newLine();
+      out.flush();
+    }
+    return out;
+  }
+
+  /** Id of the last update in the log, read from its tail; 0 if there is none. */
+  private static long lastId(Path file) {
+    if (!Files.exists(file)) {
+      return 0;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+      long length = raf.length();
+      int tail = (int) Math.min(length, 4096);
+      byte[] bytes = new byte[tail];
+      raf.seek(length - tail);
+      raf.readFully(bytes);
+      String[] lines = new String(bytes, StandardCharsets.UTF_8).split("\n");
+      for (int i = lines.length - 1; i >= 0; i--) {
+        int comma = lines[i].indexOf(',');
+        if (comma > 0) {
+          try {
+            return Long.parseLong(lines[i].substring(0, comma).trim());
+          } catch (NumberFormatException e) {
+            // header or partial line; keep looking
+          }
+        }
+      }
+      return 0;
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read progress update log", e);
+    }
+  }
+}
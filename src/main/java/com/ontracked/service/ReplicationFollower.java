@@ -0,0 +1,249 @@
+package com.ontracked.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.dto.goal.GoalResponse;
+import com.ontracked.dto.replication.ReplicationRecord;
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Follower side of log-shipping replication.
+ *
+ * <p>Connects to the leader's loopback socket, asks for every record after the
+ * last offset it applied, and applies them in order to the local stores. The
+ * applied offset is persisted so a restarted follower resumes instead of
+ * re-applying. The connection is re-established automatically if it drops.
+ *
+ * <p>A record stamped with a version lower than one already applied for the
+ * same entity arrived out of order, and is skipped rather than rolling the
+ * entity back. Applied versions are only compared within one connection:
+ * check-in versions restart when the leader reloads its CSV, so they are
+ * forgotten whenever the follower reconnects.
+ *
+ * <p>While this bean is active the instance only serves reads; see
+ * {@code ReplicationWebConfig}.
+ */
+@Service
+@ConditionalOnProperty(name = "ontracked.replication.role", havingValue = "follower")
+public class ReplicationFollower {
+
+  /** Applies one replicated record to local state. */
+  @FunctionalInterface
+  public interface RecordApplier {
+    void apply(ReplicationRecord record) throws Exception;
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicationFollower.class);
+  private static final long RECONNECT_DELAY_MS = 1000;
+
+  private final String host;
+  private final int port;
+  private final Path offsetFile;
+  private final ObjectMapper mapper;
+  private final RecordApplier applier;
+  /** Highest version applied per entity on the current connection; used by the replication thread only. */
+  private final Map<String, Long> appliedVersions = new HashMap<>();
+
+  private volatile boolean running;
+  private volatile boolean connected;
+  private volatile Socket socket;
+  private volatile long appliedOffset;
+  private volatile long leaderOffset;
+  private volatile long lastApplyDelayMs;
+  private volatile long lastContactMillis;
+  private volatile long staleRecords;
+
+  @Autowired
+  public ReplicationFollower(GoalService goalService, CheckInService checkInService, ObjectMapper mapper,
+                             @Value("${ontracked.replication.leader-host:127.0.0.1}") String host,
+                             @Value("${ontracked.replication.port:9090}") int port,
+                             @Value("${ontracked.replication.offset-file:replication.offset}") String offsetFile) {
+    this(host, port, Path.of(offsetFile), mapper, serviceApplier(goalService, checkInService, mapper));
+  }
+
+  public ReplicationFollower(String host, int port, Path offsetFile, ObjectMapper mapper, RecordApplier applier) {
+    this.host = host;
+    this.port = port;
+    this.offsetFile = offsetFile;
+    this.mapper = mapper;
+    this.applier = applier;
+    this.appliedOffset = readOffset();
+    this.leaderOffset = appliedOffset;
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    Thread t = new Thread(this::runLoop, "replication-follower");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    Socket s = socket;
+    if (s != null) {
+      try {
+        s.close();
+      } catch (IOException ignored) {
+        // closing anyway
+      }
+    }
+  }
+
+  public long getAppliedOffset() { return appliedOffset; }
+  public long getLeaderOffset() { return leaderOffset; }
+  public boolean isConnected() { return connected; }
+  public long getStaleRecords() { return staleRecords; }
+
+  /** Replication status as reported by {@code GET /replication/status}. */
+  public Map<String, Object> status() {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("role", "follower");
+    status.put("leader", host + ":" + port);
+    status.put("connected", connected);
+    status.put("appliedOffset", appliedOffset);
+    status.put("leaderOffset", leaderOffset);
+    status.put("lagRecords", Math.max(0, leaderOffset - appliedOffset));
+    status.put("lastApplyDelayMs", lastApplyDelayMs);
+    status.put("staleRecordsSkipped", staleRecords);
+    status.put("msSinceLeaderContact", lastContactMillis == 0 ? -1 : System.currentTimeMillis() - lastContactMillis);
+    return status;
+  }
+
+  // ------------------------------------------------------------------------
+  // Replication loop
+  // ------------------------------------------------------------------------
+
+  private void runLoop() {
+    while (running) {
+      try (Socket s = new Socket()) {
+        socket = s;
+        s.connect(new InetSocketAddress(host, port), 5000);
+        OutputStream out = s.getOutputStream();
+        out.write(("FROM " + appliedOffset + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        connected = true;
+        appliedVersions.clear();
+        logger.info("Connected to replication leader {}:{} from offset {}", host, port, appliedOffset);
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while (running && (line = in.readLine()) != null) {
+          handle(mapper.readValue(line, ReplicationRecord.class));
+        }
+      } catch (Exception e) {
+        if (running) {
+          logger.warn("Replication from {}:{} interrupted: {}", host, port, e.getMessage());
+        }
+      } finally {
+        connected = false;
+      }
+      sleepBeforeReconnect();
+    }
+  }
+
+  private void handle(ReplicationRecord record) throws Exception {
+    lastContactMillis = System.currentTimeMillis();
+    if (record.isHeartbeat()) {
+      leaderOffset = Math.max(leaderOffset, record.offset());
+      return;
+    }
+    if (record.offset() <= appliedOffset) {
+      return;
+    }
+    String entity = record.entity() + ':' + record.id();
+    Long applied = appliedVersions.get(entity);
+    if (record.version() > 0 && applied != null && record.version() < applied) {
+      staleRecords++;
+    } else {
+      applier.apply(record);
+      if (record.version() > 0) {
+        appliedVersions.put(entity, record.version());
+      }
+    }
+    appliedOffset = record.offset();
+    leaderOffset = Math.max(leaderOffset, record.offset());
+    lastApplyDelayMs = Math.max(0, System.currentTimeMillis() - record.timestamp());
+    writeOffset();
+  }
+
+  private void sleepBeforeReconnect() {
+    if (!running) {
+      return;
+    }
+    try {
+      Thread.sleep(RECONNECT_DELAY_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  private long readOffset() {
+    try {
+      return Files.exists(offsetFile) ? Long.parseLong(Files.readString(offsetFile).trim()) : 0;
+    } catch (IOException | NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private void writeOffset() throws IOException {
+    Files.writeString(offsetFile, Long.toString(appliedOffset));
+  }
+
+  /** Applies records to the local user, goal and check-in stores. */
+  static RecordApplier serviceApplier(GoalService goalService, CheckInService checkInService,
+                                      ObjectMapper mapper) {
+    return record -> {
+      JsonNode p = record.payload();
+      switch (record.entity()) {
+        case "user" -> {
+          User u = new User(p.get("userId").asInt(), p.get("fullName").asText(),
+                  p.get("email").asText(), p.get("role").asText());
+          u.setUserCreatedAt(dateOrNull(p.get("userCreatedAt")));
+          u.setUserUpdatedAt(dateOrNull(p.get("userUpdatedAt")));
+          UserService.upsertUser(u);
+        }
+        case "goal" -> {
+          GoalResponse r = mapper.treeToValue(p, GoalResponse.class);
+          goalService.saveGoals(List.of(new Goal(r.getId(), r.getOwnerId(), r.getParentId(),
+                  r.getChildrenIds(), r.getTitle(), r.getDescription(), r.getDueDate(), r.getStatus(),
+                  r.getLatestPercentage(), r.getCreatedAt(), r.getUpdatedAt(), r.getVersionNumber())));
+        }
+        case "checkin" -> checkInService.upsertCheckIn(mapper.treeToValue(p, CheckIn.class));
+        default -> logger.warn("Ignoring replicated record of unknown entity {}", record.entity());
+      }
+    };
+  }
+
+  private static LocalDate dateOrNull(JsonNode node) {
+    return node == null || node.isNull() ? null : LocalDate.parse(node.asText());
+  }
+}
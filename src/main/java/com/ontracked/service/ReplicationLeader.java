@@ -0,0 +1,210 @@
+package com.ontracked.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.dto.goal.GoalResponse;
+import com.ontracked.dto.replication.ReplicationRecord;
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Leader side of log-shipping replication.
+ *
+ * <p>Every user, goal and check-in write is appended to a {@link ReplicationLog}.
+ * Followers connect over a loopback socket, send {@code FROM <offset>} with the
+ * last offset they applied, and receive every later record as a JSON line,
+ * followed by live records as they are written. When there is nothing to ship
+ * the leader sends a heartbeat carrying its latest offset so followers can
+ * report lag while idle.
+ *
+ * <p>If the log is empty when the leader starts, the current contents of all
+ * three stores are written to it first so a fresh follower receives a full copy.
+ *
+ * <p>Listeners append after a write has been persisted and its lock released,
+ * so two writes of one entity can reach the log in the opposite order to the
+ * one they were persisted in. Goal and check-in records are therefore stamped
+ * with the entity's version; see {@link ReplicationFollower}.
+ */
+@Service
+@ConditionalOnProperty(name = "ontracked.replication.role", havingValue = "leader")
+public class ReplicationLeader {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicationLeader.class);
+  private static final int BATCH_SIZE = 256;
+
+  private final ReplicationLog log;
+  private final ObjectMapper mapper;
+  private final int port;
+  private final long heartbeatMs;
+  private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+  private final BiConsumer<ChangeType, User> userListener = (type, u) ->
+          append("user", type, String.valueOf(u.getUserId()), u);
+  private volatile ServerSocket serverSocket;
+  private volatile boolean running;
+
+  @Autowired
+  public ReplicationLeader(GoalService goalService, CheckInService checkInService, ObjectMapper mapper,
+                           @Value("${ontracked.replication.port:9090}") int port,
+                           @Value("${ontracked.replication.log-file:replication.jsonl}") String logFile,
+                           @Value("${ontracked.replication.heartbeat-ms:1000}") long heartbeatMs,
+                           @Value("${ontracked.replication.compact-after:10000}") int compactAfter) {
+    this(new ReplicationLog(Path.of(logFile), mapper, compactAfter), mapper, port, heartbeatMs);
+    if (log.latestOffset() == 0) {
+      for (User u : UserService.loadUsers()) {
+        append("user", ChangeType.CREATED, String.valueOf(u.getUserId()), u);
+      }
+      for (Goal g : goalService.loadGoals()) {
+        appendGoal(g);
+      }
+      goalService.getArchive().forEachGoal(this::appendGoal);
+      for (CheckIn c : checkInService.getCheckIns()) {
+        append("checkin", ChangeType.CREATED, String.valueOf(c.getId()), c.getVersion(), c);
+      }
+    }
+    goalService.addGoalListener(this::appendGoal);
+    checkInService.addCheckInListener((type, c) ->
+            append("checkin", type, String.valueOf(c.getId()), c.getVersion(), c));
+    UserService.addUserListener(userListener);
+  }
+
+  public ReplicationLeader(ReplicationLog log, ObjectMapper mapper, int port, long heartbeatMs) {
+    this.log = log;
+    this.mapper = mapper;
+    this.port = port;
+    this.heartbeatMs = heartbeatMs;
+  }
+
+  /** Binds the loopback replication socket and starts accepting followers. */
+  @PostConstruct
+  public void start() throws IOException {
+    serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    running = true;
+    Thread acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    logger.info("Replication leader listening on {}", serverSocket.getLocalSocketAddress());
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    UserService.removeUserListener(userListener);
+    try {
+      if (serverSocket != null) {
+        serverSocket.close();
+      }
+    } catch (IOException ignored) {
+      // closing anyway
+    }
+    for (Socket s : followers) {
+      closeQuietly(s);
+    }
+  }
+
+  public ReplicationLog getLog() { return log; }
+  public int getLocalPort() { return serverSocket == null ? -1 : serverSocket.getLocalPort(); }
+  public int getFollowerCount() { return followers.size(); }
+
+  /** Appends a change to an entity that carries no version. */
+  public void append(String entity, ChangeType type, String id, Object payload) {
+    append(entity, type, id, 0, payload);
+  }
+
+  /**
+   * Appends a change stamped with the entity's version after it, so a follower
+   * can skip a record that reached the log after a newer one for the same entity.
+   */
+  public void append(String entity, ChangeType type, String id, long version, Object payload) {
+    log.append(entity, type.name().toLowerCase(Locale.ROOT), id, version, payload);
+  }
+
+  private void appendGoal(Goal g) {
+    log.append("goal", "saved", g.getId(), g.getVersionNumber(), GoalResponse.from(g));
+  }
+
+  // ------------------------------------------------------------------------
+  // Shipping
+  // ------------------------------------------------------------------------
+
+  private void acceptLoop() {
+    while (running) {
+      try {
+        Socket socket = serverSocket.accept();
+        followers.add(socket);
+        Thread shipper = new Thread(() -> ship(socket), "replication-shipper");
+        shipper.setDaemon(true);
+        shipper.start();
+      } catch (IOException e) {
+        if (running) {
+          logger.warn("Replication accept failed: {}", e.getMessage());
+        }
+      }
+    }
+  }
+
+  private void ship(Socket socket) {
+    try (socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+         BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+      String hello = in.readLine();
+      if (hello == null || !hello.startsWith("FROM ")) {
+        return;
+      }
+      long sent = Long.parseLong(hello.substring(5).trim());
+      logger.info("Follower {} connected from offset {}", socket.getRemoteSocketAddress(), sent);
+
+      while (running) {
+        List<ReplicationRecord> batch = log.readAfter(sent, BATCH_SIZE, heartbeatMs);
+        if (batch.isEmpty()) {
+          out.write(mapper.writeValueAsString(new ReplicationRecord(log.latestOffset(),
+                  ReplicationRecord.HEARTBEAT, null, null, 0, System.currentTimeMillis(), null)));
+          out.newLine();
+        }
+        for (ReplicationRecord record : batch) {
+          out.write(mapper.writeValueAsString(record));
+          out.newLine();
+          sent = record.offset();
+        }
+        out.flush();
+      }
+    } catch (IOException | NumberFormatException e) {
+      logger.info("Follower {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      followers.remove(socket);
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException ignored) {
+      // already closing
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.ontracked.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.dto.replication.ReplicationRecord;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only, offset-addressed log of mutations on the leader.
+ *
+ * <p>Records are kept in memory for shipping and appended to a JSON-lines file so a
+ * restarted leader can keep serving followers from their last applied offset.
+ * Offsets start at 1 and only grow.
+ *
+ * <p>Every record carries the full state of its entity, so once an entity has a
+ * later record the earlier ones are redundant. When the log holds at least
+ * {@code compactAfter} records and more than twice as many records as
+ * entities, it is compacted: only the latest record of each entity is kept, at
+ * its original offset, and the file is rewritten. A follower reading from any
+ * offset still ends with the same state, but may see gaps between offsets.
+ * The log therefore grows with the number of entities, not with the number of
+ * writes.
+ *
+ * <p>Guarded by a {@link ReentrantLock} rather than the object monitor: appends
+ * write the file and shippers long-poll inside the lock, and on a virtual
+ * thread either would pin its carrier under {@code synchronized}.
+ */
+public class ReplicationLog {
+
+  /** Records kept before compaction is considered, unless configured otherwise. */
+  public static final int DEFAULT_COMPACT_AFTER = 10_000;
+
+  private final Path file;
+  private final ObjectMapper mapper;
+  private final int compactAfter;
+  private final List<ReplicationRecord> records = new ArrayList<>();
+  /** Offset of the latest record of each entity, keyed by entity and id. */
+  private final Map<String, Long> latest = new HashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+  private long lastOffset;
+  private long compactions;
+
+  public ReplicationLog(Path file, ObjectMapper mapper) {
+    this(file, mapper, DEFAULT_COMPACT_AFTER);
+  }
+
+  /**
+   * @param compactAfter records held before the log is compacted
+   */
+  public ReplicationLog(Path file, ObjectMapper mapper, int compactAfter) {
+    this.file = file;
+    this.mapper = mapper;
+    this.compactAfter = Math.max(1, compactAfter);
+    load();
+  }
+
+  /**
+   * Appends a mutation and wakes any shipper waiting for new records.
+   *
+   * @param version the entity's version after the change, or 0 if it has none
+   * @return the appended record
+   * @throws RuntimeException if the log file cannot be written
+   */
+  public ReplicationRecord append(String entity, String action, String id, long version, Object payload) {
+    JsonNode node = mapper.valueToTree(payload);
+    lock.lock();
+    try {
+      ReplicationRecord record = new ReplicationRecord(lastOffset + 1, entity, action, id, version,
+              System.currentTimeMillis(), node);
+      try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+        writer.write(mapper.writeValueAsString(record));
+        writer.newLine();
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to write replication log", e);
+      }
+      add(record);
+      if (records.size() >= compactAfter && records.size() > 2 * latest.size()) {
+        compact();
+      }
+      appended.signalAll();
+      return record;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long latestOffset() {
+    lock.lock();
+    try {
+      return lastOffset;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Records currently retained. */
+  public int size() {
+    lock.lock();
+    try {
+      return records.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Times the log has been compacted since it was opened. */
+  public long compactions() {
+    lock.lock();
+    try {
+      return compactions;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns up to {@code max} records after {@code offset}, waiting up to
+   * {@code timeoutMs} for one to arrive if none are available yet.
+   */
+  public List<ReplicationRecord> readAfter(long offset, int max, long timeoutMs)
+          throws InterruptedException {
+    long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    lock.lock();
+    try {
+      while (lastOffset <= offset && remaining > 0) {
+        remaining = appended.awaitNanos(remaining);
+      }
+      int from = indexAfter(offset);
+      int to = Math.min(records.size(), from + max);
+      return from >= to ? List.of() : new ArrayList<>(records.subList(from, to));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Index of the first record with an offset above {@code offset}; caller holds the lock. */
+  private int indexAfter(long offset) {
+    int low = 0;
+    int high = records.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (records.get(mid).offset() <= offset) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private void add(ReplicationRecord record) {
+    records.add(record);
+    latest.put(record.entity() + ':' + record.id(), record.offset());
+    lastOffset = record.offset();
+  }
+
+  /** Drops every record superseded by a later one for the same entity; caller holds the lock. */
+  private void compact() {
+    List<ReplicationRecord> kept = new ArrayList<>(latest.size());
+    for (ReplicationRecord r : records) {
+      if (latest.get(r.entity() + ':' + r.id()) == r.offset()) {
+        kept.add(r);
+      }
+    }
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        for (ReplicationRecord r : kept) {
+          writer.write(mapper.writeValueAsString(r));
+          writer.newLine();
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to compact replication log", e);
+    }
+    records.clear();
+    records.addAll(kept);
+    compactions++;
+  }
+
+  private void load() {
+    if (!Files.exists(file)) {
+      return;
+    }
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank()) {
+          add(mapper.readValue(line, ReplicationRecord.class));
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read replication log", e);
+    }
+  }
+}
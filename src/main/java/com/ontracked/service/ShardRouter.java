@@ -0,0 +1,97 @@
+package com.ontracked.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Routes records to one of N shards by hashing a partition key, and runs
+ * cross-shard work on every shard in parallel.
+ *
+ * <p>With a single shard everything runs on the calling thread and no pool is
+ * created, so the default configuration behaves exactly like an unsharded store.
+ * Shard tasks block on file reads, so with virtual threads enabled they each get
+ * a virtual thread instead of a slot in a fixed platform pool.
+ */
+public class ShardRouter {
+
+  private final int shardCount;
+  private final ExecutorService pool;
+
+  public ShardRouter(int shardCount) {
+    this(shardCount, false);
+  }
+
+  /**
+   * @param shardCount     number of shards; values below 1 mean 1
+   * @param virtualThreads run shard tasks on virtual threads rather than a platform pool
+   */
+  public ShardRouter(int shardCount, boolean virtualThreads) {
+    this.shardCount = Math.max(1, shardCount);
+    if (this.shardCount == 1) {
+      this.pool = null;
+    } else if (virtualThreads) {
+      this.pool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("shard-fanout-", 0).factory());
+    } else {
+      this.pool = Executors.newFixedThreadPool(this.shardCount, r -> {
+        Thread t = new Thread(r, "shard-fanout");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+  }
+
+  public int shardCount() {
+    return shardCount;
+  }
+
+  /**
+   * Returns the shard owning the given partition key. Null keys go to shard 0.
+   *
+   * @param key partition key, e.g. a goal's ownerId
+   * @return shard index in {@code [0, shardCount)}
+   */
+  public int shardFor(String key) {
+    return key == null ? 0 : Math.floorMod(key.hashCode(), shardCount);
+  }
+
+  /**
+   * Runs {@code task} once per shard, in parallel when there is more than one
+   * shard, and returns the results in shard order.
+   *
+   * @throws RuntimeException if any shard's task fails
+   */
+  public <T> List<T> fanOut(IntFunction<T> task) {
+    List<T> results = new ArrayList<>(shardCount);
+    if (pool == null) {
+      results.add(task.apply(0));
+      return results;
+    }
+    List<Future<T>> futures = new ArrayList<>(shardCount);
+    for (int i = 0; i < shardCount; i++) {
+      int shard = i;
+      futures.add(pool.submit(() -> task.apply(shard)));
+    }
+    try {
+      for (Future<T> f : futures) {
+        results.add(f.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while querying shards", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to query shard", e.getCause());
+    }
+    return results;
+  }
+
+  public void shutdown() {
+    if (pool != null) {
+      pool.shutdownNow();
+    }
+  }
+}
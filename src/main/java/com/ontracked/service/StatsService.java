@@ -0,0 +1,276 @@
+package com.ontracked.service;
+
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import com.ontracked.model.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * System-wide counters kept up to date on every write, so reading them costs
+ * the same however many users, goals and check-ins are stored: users by role,
+ * goals by status with the running sum of their latest percentages, and
+ * check-ins by day.
+ *
+ * <p>The service listens to {@link UserService}, {@link GoalService} and
+ * {@link CheckInService}. For each entity it remembers the state last counted,
+ * so an update moves the entity from its old role, status or day to the new
+ * one instead of counting it again. A periodic {@link #reconcile()} recounts
+ * everything with a full scan and replaces the counters, correcting any drift
+ * from writes that bypassed the services (such as edits to the CSV files).
+ * Writes wait while a reconciliation scans, so the two never interleave.
+ */
+@Service
+public class StatsService {
+
+  private static final Logger log = LoggerFactory.getLogger(StatsService.class);
+  /** Stands in for a missing check-in date; map values cannot be null. */
+  private static final LocalDate NO_DATE = LocalDate.MIN;
+
+  /**
+   * The counters at one moment.
+   *
+   * @param averagePercentage mean latest percentage over all goals, or null if there are none
+   * @param reconciledAt      when the last full recount finished, or null before the first
+   * @param lastDrift         entities whose counted state the last recount had to correct
+   */
+  public record Snapshot(long users, Map<User.Role, Long> usersByRole, long goals,
+                         Map<GoalStatus, Long> goalsByStatus, Double averagePercentage,
+                         long checkIns, long checkInsToday, Instant reconciledAt,
+                         long reconciliations, long lastDrift) { }
+
+  private record GoalState(GoalStatus status, int percentage) { }
+
+  /** The counters, plus each entity's last counted state so updates can be applied as deltas. */
+  private static final class Counters {
+    final Map<Integer, User.Role> userRoles = new ConcurrentHashMap<>();
+    final AtomicLongArray byRole = new AtomicLongArray(User.Role.values().length);
+    final Map<String, GoalState> goals = new ConcurrentHashMap<>();
+    final AtomicLongArray byStatus = new AtomicLongArray(GoalStatus.values().length);
+    final AtomicLong percentageSum = new AtomicLong();
+    final Map<Long, LocalDate> checkInDates = new ConcurrentHashMap<>();
+    final Map<LocalDate, AtomicLong> checkInsByDate = new ConcurrentHashMap<>();
+
+    void user(int id, User.Role role) {
+      if (role == null) {
+        return;
+      }
+      userRoles.compute(id, (k, prev) -> {
+        if (prev != null) {
+          byRole.decrementAndGet(prev.ordinal());
+        }
+        byRole.incrementAndGet(role.ordinal());
+        return role;
+      });
+    }
+
+    void goal(String id, GoalStatus status, int percentage) {
+      GoalState next = new GoalState(status, percentage);
+      goals.compute(id, (k, prev) -> {
+        if (prev != null) {
+          count(prev.status(), -1);
+          percentageSum.addAndGet(-prev.percentage());
+        }
+        count(status, 1);
+        percentageSum.addAndGet(percentage);
+        return next;
+      });
+    }
+
+    private void count(GoalStatus status, int delta) {
+      if (status != null) {
+        byStatus.addAndGet(status.ordinal(), delta);
+      }
+    }
+
+    void checkIn(CheckIn c) {
+      if (c.getId() == null) {
+        return;
+      }
+      LocalDate date = c.getCheckInDate() == null ? NO_DATE : c.getCheckInDate().toLocalDate();
+      checkInDates.compute(c.getId(), (k, prev) -> {
+        if (prev != null) {
+          checkInsByDate.get(prev).decrementAndGet();
+        }
+        checkInsByDate.computeIfAbsent(date, d -> new AtomicLong()).incrementAndGet();
+        return date;
+      });
+    }
+  }
+
+  private final GoalService goalService;
+  private final CheckInService checkInService;
+  private final Supplier<List<User>> users;
+  private final Clock clock;
+  private final BiConsumer<ChangeType, User> userListener = (type, u) -> onUser(u);
+  /** Listeners share the read lock; a reconciliation takes the write lock. */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private volatile Counters counters = new Counters();
+  private volatile Instant reconciledAt;
+  private final AtomicLong reconciliations = new AtomicLong();
+  private volatile long lastDrift;
+
+  @Autowired
+  public StatsService(GoalService goalService, CheckInService checkInService) {
+    this(goalService, checkInService, UserService::loadUsers, Clock.systemDefaultZone());
+  }
+
+  /**
+   * @param users supplies all users for a reconciliation
+   * @param clock decides which day is today
+   */
+  public StatsService(GoalService goalService, CheckInService checkInService,
+                      Supplier<List<User>> users, Clock clock) {
+    this.goalService = goalService;
+    this.checkInService = checkInService;
+    this.users = users;
+    this.clock = clock;
+    goalService.addGoalListener(this::onGoal);
+    checkInService.addCheckInListener((type, c) -> onCheckIn(c));
+    UserService.addUserListener(userListener);
+  }
+
+  @PreDestroy
+  public void close() {
+    UserService.removeUserListener(userListener);
+  }
+
+  /** Counts everything already stored once the application is up. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    reconcile();
+  }
+
+  void onUser(User user) {
+    lock.readLock().lock();
+    try {
+      counters.user(user.getUserId(), user.getRole());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void onGoal(Goal goal) {
+    lock.readLock().lock();
+    try {
+      counters.goal(goal.getId(), goal.getStatus(), goal.getLatestPercentage());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void onCheckIn(CheckIn checkIn) {
+    lock.readLock().lock();
+    try {
+      counters.checkIn(checkIn);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Reads the counters. Takes no lock and visits no entity.
+   *
+   * @return the current counts
+   */
+  public Snapshot snapshot() {
+    Counters c = counters;
+    Map<User.Role, Long> byRole = new EnumMap<>(User.Role.class);
+    for (User.Role role : User.Role.values()) {
+      byRole.put(role, c.byRole.get(role.ordinal()));
+    }
+    Map<GoalStatus, Long> byStatus = new EnumMap<>(GoalStatus.class);
+    for (GoalStatus status : GoalStatus.values()) {
+      byStatus.put(status, c.byStatus.get(status.ordinal()));
+    }
+    long goals = c.goals.size();
+    AtomicLong today = c.checkInsByDate.get(LocalDate.now(clock));
+    return new Snapshot(c.userRoles.size(), byRole, goals, byStatus,
+            goals == 0 ? null : c.percentageSum.get() / (double) goals,
+            c.checkInDates.size(), today == null ? 0 : today.get(),
+            reconciledAt, reconciliations.get(), lastDrift);
+  }
+
+  /**
+   * Recounts users, goals (hot and archived) and check-ins from the stores and
+   * replaces the counters. Writes to any of the three services wait until it
+   * finishes.
+   *
+   * @return entities whose counted state was wrong or missing
+   */
+  @Scheduled(initialDelayString = "${ontracked.stats.reconcile-ms:300000}",
+             fixedDelayString = "${ontracked.stats.reconcile-ms:300000}")
+  public long reconcile() {
+    lock.writeLock().lock();
+    try {
+      Counters fresh = new Counters();
+      for (User u : users.get()) {
+        fresh.user(u.getUserId(), u.getRole());
+      }
+      Set<String> hot = new HashSet<>();
+      goalService.forEachLatestGoal(g -> {
+        hot.add(g.getId());
+        fresh.goal(g.getId(), g.getStatus(), g.getLatestPercentage());
+      });
+      goalService.getArchive().forEachGoal(g -> {
+        if (!hot.contains(g.getId())) {
+          fresh.goal(g.getId(), g.getStatus(), g.getLatestPercentage());
+        }
+      });
+      for (Object c : checkInService.getCheckIns().toArray()) {
+        fresh.checkIn((CheckIn) c);
+      }
+      Counters old = counters;
+      long drift = mismatches(old.userRoles, fresh.userRoles) + mismatches(old.goals, fresh.goals)
+              + mismatches(old.checkInDates, fresh.checkInDates);
+      counters = fresh;
+      lastDrift = drift;
+      reconciledAt = clock.instant();
+      // The first recount fills the empty counters, which is not drift.
+      if (reconciliations.getAndIncrement() > 0 && drift > 0) {
+        log.warn("Stats reconciliation corrected {} entities", drift);
+      }
+      return drift;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static <K, V> long mismatches(Map<K, V> counted, Map<K, V> actual) {
+    long n = 0;
+    for (Map.Entry<K, V> e : actual.entrySet()) {
+      if (!Objects.equals(counted.get(e.getKey()), e.getValue())) {
+        n++;
+      }
+    }
+    for (K key : counted.keySet()) {
+      if (!actual.containsKey(key)) {
+        n++;
+      }
+    }
+    return n;
+  }
+}
@@ -1,9 +1,17 @@
 package com.ontracked.service;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import com.ontracked.model.User;
+import com.ontracked.util.FileStamp;
+import com.ontracked.util.LongObjectMap;
+import com.ontracked.util.SingleFlight;
 import org.springframework.stereotype.Service;
 
 
@@ -11,11 +19,25 @@ import org.springframework.stereotype.Service;
  * User Service class. 
  * Provides useful methods for getting, creating and updating 
  * user information.
+ *
+ * Users are kept in memory together with an id index and reloaded from
+ * users.csv only when the file changes on disk. Reads of a current copy take
+ * no lock, and concurrent readers that find the copy stale share one reload.
  */
 @Service
 public class UserService {
     private static final String FILE_PATH = "users.csv";
     private ArrayList<User> users;
+    private static final List<BiConsumer<ChangeType, User>> userListeners = new CopyOnWriteArrayList<>();
+
+    /** Parsed contents of users.csv with their id index, valid while the file still matches stamp. */
+    private record UserCache(List<User> users, LongObjectMap<User> byId, FileStamp stamp) {
+    }
+
+    private static volatile UserCache cache = new UserCache(List.of(), new LongObjectMap<>(), null);
+    private static final SingleFlight<String, UserCache> reloads = new SingleFlight<>();
+    /** Serializes reloads of users.csv; a lock rather than the class monitor so a reading virtual thread is not pinned. */
+    private static final ReentrantLock reloadLock = new ReentrantLock();
 
     /**
      * Basic constructor.
@@ -23,6 +45,24 @@ public class UserService {
     public UserService() {
     }
 
+    /**
+     * Registers a callback invoked after a user is created or updated.
+     * 
+     * @param listener receives the change type and the saved user
+     */
+    public static void addUserListener(BiConsumer<ChangeType, User> listener) {
+        userListeners.add(listener);
+    }
+
+    /**
+     * Removes a callback previously registered with {@link #addUserListener}.
+     * 
+     * @param listener the callback to remove
+     */
+    public static void removeUserListener(BiConsumer<ChangeType, User> listener) {
+        userListeners.remove(listener);
+    }
+
     /**
      * Saves a list of users to persistent storage.
      * 
@@ -38,7 +78,17 @@ public class UserService {
      * @return list of all users, empty list if no users exist
      */
     public static List<User> loadUsers() {
-        return loadUsersFromCsv();
+        return new ArrayList<>(currentUsers());
+    }
+
+    /**
+     * Loads users.csv into memory and builds the id index unless the
+     * in-memory copy is already current. Called during startup warm-up.
+     * 
+     * @return number of users loaded
+     */
+    public static int warm() {
+        return currentUsers().size();
     }
 
     /**
@@ -48,13 +98,87 @@ public class UserService {
      * @return the user if found, null otherwise
      */
     public static User retrieveUser(int id) {
-        List<User> allUsers = loadUsers();
-        for (User u : allUsers) {
-            if (u.getUserId() == id) {
-                return u;
+        return currentCache().byId().get(id);
+    }
+
+    /**
+     * Retrieves several users against a single snapshot of the cache, so
+     * users.csv is checked for changes once rather than once per id.
+     *
+     * @param ids the unique identifiers of the users; nulls and repeats are ignored
+     * @return the users found, keyed by id in request order
+     */
+    public static Map<Integer, User> retrieveUsers(Collection<Integer> ids) {
+        LongObjectMap<User> byId = currentCache().byId();
+        Map<Integer, User> found = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            if (id != null && !found.containsKey(id)) {
+                User user = byId.get(id);
+                if (user != null) {
+                    found.put(id, user);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Reports how many reloads of users.csv ran and how many readers shared a
+     * reload that was already running.
+     * 
+     * @return the reload counters
+     */
+    public static SingleFlight.Stats reloadStats() {
+        return reloads.stats();
+    }
+
+    /**
+     * Helper function that returns the cached users, reloading them first if
+     * users.csv changed since they were read.
+     * 
+     * @return the current users; shared, so callers must copy before modifying
+     */
+    private static List<User> currentUsers() {
+        return currentCache().users();
+    }
+
+    /**
+     * Helper function that returns the cache, first reloading users.csv if it
+     * changed. Concurrent callers that find it stale wait for a single reload.
+     * 
+     * @return a cache matching users.csv as of this call
+     */
+    private static UserCache currentCache() {
+        UserCache current = cache;
+        if (FileStamp.of(Path.of(FILE_PATH)).equals(current.stamp())) {
+            return current;
+        }
+        return reloads.execute(FILE_PATH, () -> {
+            reloadLock.lock();
+            try {
+                FileStamp stamp = FileStamp.of(Path.of(FILE_PATH));
+                if (!stamp.equals(cache.stamp())) {
+                    cacheUsers(loadUsersFromCsv(), stamp);
+                }
+                return cache;
+            } finally {
+                reloadLock.unlock();
             }
+        });
+    }
+
+    /**
+     * Helper function that replaces the cached users and rebuilds the id index.
+     * 
+     * @param users the users now stored in users.csv
+     * @param stamp the stamp of users.csv matching those users
+     */
+    private static synchronized void cacheUsers(List<User> users, FileStamp stamp) {
+        LongObjectMap<User> index = new LongObjectMap<>(users.size());
+        for (User u : users) {
+            index.putIfAbsent(u.getUserId(), u);
         }
-        return null;
+        cache = new UserCache(Collections.unmodifiableList(new ArrayList<>(users)), index, stamp);
     }
     
     /**
@@ -79,6 +203,7 @@ public class UserService {
         User newUser = new User(fullName, email, role);
         existingUsers.add(newUser);
         saveUsers(existingUsers);
+        notifyListeners(ChangeType.CREATED, newUser);
         return newUser;
     }
 
@@ -130,9 +255,41 @@ public class UserService {
         userToUpdate.setUserUpdatedAt(LocalDate.now());
         
         saveUsers(existingUsers);
+        notifyListeners(ChangeType.UPDATED, userToUpdate);
         return userToUpdate;
     }
 
+    private static void notifyListeners(ChangeType type, User user) {
+        for (BiConsumer<ChangeType, User> listener : userListeners) {
+            listener.accept(type, user);
+        }
+    }
+
+    /**
+     * Inserts or replaces a user by id, keeping the given id. Used to apply
+     * changes replicated from another instance.
+     * 
+     * @param user the user state to store
+     * @return the stored user
+     */
+    public static User upsertUser(User user) {
+        List<User> existingUsers = loadUsers();
+        ChangeType type = ChangeType.CREATED;
+        for (int i = 0; i < existingUsers.size(); i++) {
+            if (existingUsers.get(i).getUserId() == user.getUserId()) {
+                existingUsers.set(i, user);
+                type = ChangeType.UPDATED;
+                break;
+            }
+        }
+        if (type == ChangeType.CREATED) {
+            existingUsers.add(user);
+        }
+        saveUsers(existingUsers);
+        notifyListeners(type, user);
+        return user;
+    }
+
     /**
      * Saves a list of users to a CSV file.
      * Overwrites the existing file with the provided user data.
@@ -158,6 +315,7 @@ public class UserService {
         } catch (IOException e) {
             throw new RuntimeException("Failed to write users CSV", e);
         }
+        cacheUsers(users, FileStamp.of(file.toPath()));
     }
 
     /**
@@ -184,7 +342,9 @@ public class UserService {
                   continue;
                 }
 
-                User u = new User(parts[1], parts[2], parts[3]);
+                User u = new User(Integer.parseInt(parts[0].trim()), parts[1], parts[2], parts[3]);
+                u.setUserCreatedAt(parseDate(parts[4]));
+                u.setUserUpdatedAt(parseDate(parts[5]));
                 users.add(u);
             }
         } catch (IOException e) {
@@ -195,6 +355,23 @@ public class UserService {
         return users;
     }
 
+    /**
+     * Helper function that parses an ISO date column, treating blanks as missing.
+     * 
+     * @param s the column value
+     * @return the parsed date, or null if empty
+     */
+    private static LocalDate parseDate(String s) {
+        if (s == null || s.isBlank() || s.equals("null")) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(s.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     /**
      * Helper function that escapes special characters in CSV field values.
      * Wraps values in quotes and escapes existing quotes by doubling them.
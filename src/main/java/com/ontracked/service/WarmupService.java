@@ -0,0 +1,175 @@
+package com.ontracked.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Warms the user, goal and check-in stores in parallel at startup.
+ *
+ * <p>Each store's loader (which also builds that store's indexes) runs on a
+ * small bounded pool started while the Spring context is still being created,
+ * so neither context startup nor the first request waits on CSV parsing. The
+ * instance reports ready only once every store has loaded successfully; a
+ * failed store keeps it unready and is reported with its error.
+ */
+@Service
+public class WarmupService {
+
+  /** Lifecycle of one store's warm-up. */
+  public enum StoreState { PENDING, LOADING, READY, FAILED }
+
+  /**
+   * Warm-up outcome of one store.
+   *
+   * @param store      store name
+   * @param state      current state
+   * @param durationMs load time so far (final once READY or FAILED)
+   * @param records    number of records loaded, -1 until READY
+   * @param error      failure message, null unless FAILED
+   */
+  public record StoreStatus(String store, StoreState state, long durationMs, int records, String error) { }
+
+  private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+  private final Map<String, Callable<Integer>> loaders;
+  private final Map<String, StoreStatus> statuses = new LinkedHashMap<>();
+  private final Map<String, Long> startedAt = new LinkedHashMap<>();
+  private final ThreadPoolExecutor executor;
+  private volatile boolean ready;
+  private volatile CompletableFuture<Void> completion;
+
+  @Autowired
+  public WarmupService(GoalService goalService, CheckInService checkInService,
+                       @Value("${ontracked.warmup.threads:3}") int threads) {
+    this(storeLoaders(goalService, checkInService), threads);
+  }
+
+  /**
+   * @param loaders store name to loader returning the number of records loaded
+   * @param threads maximum number of stores loading at once
+   */
+  public WarmupService(Map<String, Callable<Integer>> loaders, int threads) {
+    this.loaders = new LinkedHashMap<>(loaders);
+    int poolSize = Math.max(1, threads);
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, loaders.size())), r -> {
+              Thread t = new Thread(r, "store-warmup");
+              t.setDaemon(true);
+              return t;
+            });
+    for (String store : this.loaders.keySet()) {
+      statuses.put(store, new StoreStatus(store, StoreState.PENDING, 0, -1, null));
+    }
+  }
+
+  private static Map<String, Callable<Integer>> storeLoaders(GoalService goalService,
+                                                             CheckInService checkInService) {
+    Map<String, Callable<Integer>> loaders = new LinkedHashMap<>();
+    loaders.put("users", UserService::warm);
+    loaders.put("goals", goalService::warm);
+    loaders.put("checkins", checkInService::warm);
+    return loaders;
+  }
+
+  /** Submits every store's loader; returns without waiting for them. */
+  @PostConstruct
+  public synchronized void start() {
+    if (completion != null) {
+      return;
+    }
+    long started = System.nanoTime();
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (Map.Entry<String, Callable<Integer>> e : loaders.entrySet()) {
+      futures.add(CompletableFuture.runAsync(() -> load(e.getKey(), e.getValue()), executor));
+    }
+    completion = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .whenComplete((v, t) -> finish(started));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Waits for warm-up to finish, successfully or not.
+   *
+   * @return whether every store is ready
+   */
+  public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+    CompletableFuture<Void> c = completion;
+    if (c == null) {
+      return false;
+    }
+    try {
+      c.get(timeout, unit);
+    } catch (ExecutionException | TimeoutException e) {
+      // status is reported per store; only readiness matters here
+    }
+    return ready;
+  }
+
+  /** Per-store status, in registration order; running loads report elapsed time. */
+  public synchronized List<StoreStatus> getStatuses() {
+    List<StoreStatus> result = new ArrayList<>();
+    for (StoreStatus s : statuses.values()) {
+      if (s.state() == StoreState.LOADING) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt.get(s.store()));
+        s = new StoreStatus(s.store(), s.state(), elapsed, s.records(), null);
+      }
+      result.add(s);
+    }
+    return result;
+  }
+
+  private void load(String store, Callable<Integer> loader) {
+    long start = System.nanoTime();
+    synchronized (this) {
+      startedAt.put(store, start);
+      statuses.put(store, new StoreStatus(store, StoreState.LOADING, 0, -1, null));
+    }
+    StoreStatus result;
+    try {
+      int records = loader.call();
+      result = new StoreStatus(store, StoreState.READY, elapsedMs(start), records, null);
+      logger.info("Warmed {} store: {} records in {} ms", store, records, result.durationMs());
+    } catch (Exception e) {
+      result = new StoreStatus(store, StoreState.FAILED, elapsedMs(start), -1, String.valueOf(e.getMessage()));
+      logger.error("Failed to warm {} store", store, e);
+    }
+    synchronized (this) {
+      statuses.put(store, result);
+    }
+  }
+
+  private synchronized void finish(long started) {
+    ready = statuses.values().stream().allMatch(s -> s.state() == StoreState.READY);
+    logger.info("Store warm-up finished in {} ms; ready={}", elapsedMs(started), ready);
+    executor.shutdown();
+  }
+
+  private static long elapsedMs(long startNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+}
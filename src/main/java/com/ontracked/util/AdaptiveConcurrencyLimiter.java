@@ -0,0 +1,186 @@
+package com.ontracked.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limiter with a bounded wait queue and a limit that adapts to
+ * observed latency (additive increase, multiplicative decrease).
+ *
+ * <p>Up to {@link #limit()} callers hold a permit at once. Further callers
+ * wait, at most {@code queueSize} of them and each for at most
+ * {@code maxWaitNanos}; anyone beyond that is rejected at once so it can be
+ * told to retry later instead of piling up.
+ *
+ * <p>Each released permit reports how long the work took. The limiter keeps
+ * the lowest latency seen in the current window as its no-load baseline and a
+ * smoothed average of recent samples. When the average exceeds the baseline by
+ * more than {@code tolerance}, work is queueing inside the protected resource,
+ * so the limit is cut by {@link #BACKOFF}. When the limiter was full and
+ * latency is healthy, the limit grows by one. The limit stays within
+ * {@code [minLimit, maxLimit]}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  /** Factor applied to the limit when latency degrades. */
+  static final double BACKOFF = 0.9;
+  /** Weight of a new sample in the smoothed latency. */
+  private static final double SMOOTHING = 0.2;
+  /** Samples after which the baseline is re-measured, so it can follow a slower or faster system. */
+  private static final int BASELINE_WINDOW = 500;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final int queueSize;
+  private final long maxWaitNanos;
+  private final double tolerance;
+
+  private final ReentrantLock lock = new ReentrantLock(true);
+  private final Condition permitFreed = lock.newCondition();
+  private double limit;
+  private int inFlight;
+  private int waiting;
+  private long baselineNanos = Long.MAX_VALUE;
+  private long windowMinNanos = Long.MAX_VALUE;
+  private int windowSamples;
+  private double smoothedNanos;
+  private long accepted;
+  private long rejected;
+
+  /**
+   * @param initialLimit starting concurrency limit
+   * @param minLimit     lowest limit latency can push it to
+   * @param maxLimit     highest limit it can grow to
+   * @param queueSize    callers allowed to wait for a permit
+   * @param maxWait      longest a caller waits before being rejected
+   * @param unit         unit of {@code maxWait}
+   * @param tolerance    how many times the baseline latency is still healthy, above 1
+   */
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int queueSize,
+                                    long maxWait, TimeUnit unit, double tolerance) {
+    if (minLimit < 1 || maxLimit < minLimit || queueSize < 0 || tolerance <= 1.0) {
+      throw new IllegalArgumentException("Invalid limiter settings");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    this.queueSize = queueSize;
+    this.maxWaitNanos = unit.toNanos(maxWait);
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * Takes a permit, waiting in the queue if the limiter is full and the queue
+   * has room.
+   *
+   * @return whether a permit was granted; if so, {@link #release} must follow
+   */
+  public boolean tryAcquire() {
+    lock.lock();
+    try {
+      if (inFlight < (int) limit) {
+        inFlight++;
+        accepted++;
+        return true;
+      }
+      if (waiting >= queueSize) {
+        rejected++;
+        return false;
+      }
+      waiting++;
+      try {
+        long remaining = maxWaitNanos;
+        while (inFlight >= (int) limit) {
+          if (remaining <= 0) {
+            rejected++;
+            return false;
+          }
+          remaining = permitFreed.awaitNanos(remaining);
+        }
+        inFlight++;
+        accepted++;
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        rejected++;
+        return false;
+      } finally {
+        waiting--;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns a permit and feeds the time the work took into the limit.
+   *
+   * @param latencyNanos how long the permit was held
+   */
+  public void release(long latencyNanos) {
+    lock.lock();
+    try {
+      boolean saturated = inFlight >= (int) limit;
+      inFlight--;
+      sample(Math.max(1, latencyNanos), saturated);
+      permitFreed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void sample(long nanos, boolean saturated) {
+    smoothedNanos = smoothedNanos == 0 ? nanos : smoothedNanos + SMOOTHING * (nanos - smoothedNanos);
+    windowMinNanos = Math.min(windowMinNanos, nanos);
+    baselineNanos = Math.min(baselineNanos, nanos);
+    if (++windowSamples >= BASELINE_WINDOW) {
+      baselineNanos = windowMinNanos;
+      windowMinNanos = Long.MAX_VALUE;
+      windowSamples = 0;
+    }
+    if (smoothedNanos > baselineNanos * tolerance) {
+      limit = Math.max(minLimit, limit * BACKOFF);
+    } else if (saturated) {
+      limit = Math.min(maxLimit, limit + 1);
+    }
+  }
+
+  /**
+   * Suggested wait before retrying after a rejection: the time for the current
+   * queue and in-flight work to drain at the smoothed latency, at least one second.
+   */
+  public long retryAfterSeconds() {
+    lock.lock();
+    try {
+      double drainNanos = smoothedNanos * (waiting + inFlight + 1) / Math.max(1, (int) limit);
+      return Math.max(1, (long) Math.ceil(drainNanos / 1e9));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int limit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Current state and totals, for metrics. */
+  public Snapshot snapshot() {
+    lock.lock();
+    try {
+      return new Snapshot((int) limit, inFlight, waiting, accepted, rejected,
+              smoothedNanos / 1e6, baselineNanos == Long.MAX_VALUE ? 0 : baselineNanos / 1e6);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Point-in-time view of a limiter; latencies in milliseconds. */
+  public record Snapshot(int limit, int inFlight, int waiting, long accepted, long rejected,
+                         double smoothedLatencyMs, double baselineLatencyMs) { }
+}
@@ -0,0 +1,73 @@
+package com.ontracked.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Enumeration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds entity tags from versions the stores already keep, so a response's
+ * tag is known, and {@code If-None-Match} can be answered with 304, before
+ * anything is loaded or serialized.
+ *
+ * <p>An entity's tag combines its version number with its update time, which
+ * survives restarts. A collection's tag is a store-level version counter that
+ * starts again at 0 on every start, so it is prefixed with a random per-process
+ * epoch to keep tags from one run from matching data of another.
+ */
+public final class ETags {
+
+  private static final String EPOCH = Long.toHexString(ThreadLocalRandom.current().nextLong() >>> 16);
+
+  private ETags() {
+  }
+
+  /**
+   * Strong tag for one revision of an entity.
+   *
+   * @param version   the entity's version number
+   * @param updatedAt the entity's last update time, or null
+   * @return a quoted tag such as {@code "7.1c9f02"}
+   */
+  public static String revision(long version, Object updatedAt) {
+    return "\"" + version + "." + Integer.toHexString(Objects.hashCode(updatedAt)) + "\"";
+  }
+
+  /**
+   * Strong tag for a collection read from a store at {@code storeVersion}.
+   *
+   * @param name         distinguishes collections sharing a store version
+   * @param storeVersion the store's modification counter
+   * @return a quoted tag such as {@code "goals-3f1a2b-42"}
+   */
+  public static String collection(String name, long storeVersion) {
+    return "\"" + name + "-" + EPOCH + "-" + storeVersion + "\"";
+  }
+
+  /**
+   * Whether the request's {@code If-None-Match} header lists {@code etag} or
+   * is {@code *}. Comparison is weak, as RFC 9110 prescribes for this header.
+   */
+  public static boolean notModified(HttpServletRequest request, String etag) {
+    Enumeration<String> headers = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+    if (headers == null) {
+      return false;
+    }
+    String opaque = opaque(etag);
+    while (headers.hasMoreElements()) {
+      for (String candidate : headers.nextElement().split(",")) {
+        String tag = candidate.trim();
+        if (tag.equals("*") || opaque(tag).equals(opaque)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static String opaque(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+}
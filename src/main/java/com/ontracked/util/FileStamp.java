@@ -0,0 +1,34 @@
+package com.ontracked.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Size and modification time of a file, used to tell whether an in-memory copy
+ * of the file is still current without re-reading it.
+ *
+ * @param size     file size in bytes, or -1 if the file does not exist
+ * @param modified last modification time, or null if the file does not exist
+ */
+public record FileStamp(long size, FileTime modified) {
+
+  /** Stamp of a file that does not exist. */
+  public static final FileStamp MISSING = new FileStamp(-1, null);
+
+  /**
+   * Reads the current stamp of {@code path}.
+   *
+   * @return the stamp, or {@link #MISSING} if the file does not exist or cannot be read
+   */
+  public static FileStamp of(Path path) {
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+      return new FileStamp(attrs.size(), attrs.lastModifiedTime());
+    } catch (IOException e) {
+      return MISSING;
+    }
+  }
+}
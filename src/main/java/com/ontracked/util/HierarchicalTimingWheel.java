@@ -0,0 +1,201 @@
+package com.ontracked.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Hierarchical timing wheel keyed by an arbitrary key.
+ *
+ * <p>Time is measured in abstract integer ticks (the caller decides what a tick is).
+ * Each level has {@value #SLOTS} slots; level {@code n} slots span {@code SLOTS^n} ticks.
+ * A timer is placed on the lowest level whose current window contains its deadline and
+ * cascades down one level each time the wheel crosses that level's boundary, so every
+ * timer is touched at most {@value #LEVELS} times before it fires (O(1) amortized).
+ *
+ * <p>Scheduling and cancelling are O(1): each key maps to an intrusive list node.
+ * This class is not thread-safe; callers are expected to guard it.
+ *
+ * @param <K> timer key (re-scheduling a key replaces its previous timer)
+ * @param <V> payload handed back when the timer fires
+ */
+public class HierarchicalTimingWheel<K, V> {
+
+  private static final int BITS = 6;
+  private static final int SLOTS = 1 << BITS;
+  private static final int MASK = SLOTS - 1;
+  private static final int LEVELS = 4;
+
+  private final Node<K, V>[][] wheel;
+  private final Map<K, Node<K, V>> timers = new HashMap<>();
+  private final List<Node<K, V>> expired = new ArrayList<>();
+  private long currentTick;
+
+  /**
+   * Creates a wheel whose clock starts at {@code startTick}.
+   *
+   * @param startTick the current time in ticks
+   */
+  @SuppressWarnings("unchecked")
+  public HierarchicalTimingWheel(long startTick) {
+    this.wheel = (Node<K, V>[][]) new Node[LEVELS][SLOTS];
+    this.currentTick = startTick;
+  }
+
+  public long getCurrentTick() { return currentTick; }
+  public int size() { return timers.size(); }
+  public boolean contains(K key) { return timers.containsKey(key); }
+
+  /**
+   * Schedules (or re-schedules) a timer. Deadlines at or before the current tick
+   * fire on the next call to {@link #advanceTo}.
+   *
+   * @param key      timer key
+   * @param value    payload returned on expiry
+   * @param deadline tick at which the timer fires
+   */
+  public void schedule(K key, V value, long deadline) {
+    cancel(key);
+    Node<K, V> node = new Node<>(key, value, deadline);
+    timers.put(key, node);
+    place(node);
+  }
+
+  /**
+   * Cancels the timer registered under {@code key}, if any.
+   *
+   * @return true if a timer was removed
+   */
+  public boolean cancel(K key) {
+    Node<K, V> node = timers.remove(key);
+    if (node == null) {
+      return false;
+    }
+    if (node.level < 0) {
+      expired.remove(node);
+    } else {
+      unlink(node);
+    }
+    return true;
+  }
+
+  /**
+   * Moves the clock forward to {@code targetTick}, firing every timer whose deadline
+   * has been reached. Timers fire in deadline order across ticks.
+   *
+   * @param targetTick new current tick; ignored if not ahead of the clock
+   * @param onExpire   receives the key and payload of each fired timer
+   */
+  public void advanceTo(long targetTick, BiConsumer<K, V> onExpire) {
+    fireExpired(onExpire);
+    while (currentTick < targetTick) {
+      if (timers.isEmpty()) {
+        currentTick = targetTick;
+        return;
+      }
+      currentTick++;
+      for (int level = LEVELS - 1; level > 0; level--) {
+        if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+          cascade(level, (int) ((currentTick >>> (BITS * level)) & MASK));
+        }
+      }
+      int slot = (int) (currentTick & MASK);
+      Node<K, V> node = wheel[0][slot];
+      wheel[0][slot] = null;
+      while (node != null) {
+        Node<K, V> next = node.next;
+        node.prev = null;
+        node.next = null;
+        if (node.deadline <= currentTick) {
+          node.level = -1;
+          expired.add(node);
+        } else {
+          place(node);
+        }
+        node = next;
+      }
+      fireExpired(onExpire);
+    }
+  }
+
+  // ------------------------------------------------------------------------
+  // Internals
+  // ------------------------------------------------------------------------
+
+  private void fireExpired(BiConsumer<K, V> onExpire) {
+    if (expired.isEmpty()) {
+      return;
+    }
+    List<Node<K, V>> batch = new ArrayList<>(expired);
+    expired.clear();
+    for (Node<K, V> node : batch) {
+      timers.remove(node.key, node);
+      onExpire.accept(node.key, node.value);
+    }
+  }
+
+  private void cascade(int level, int slot) {
+    Node<K, V> node = wheel[level][slot];
+    wheel[level][slot] = null;
+    while (node != null) {
+      Node<K, V> next = node.next;
+      node.prev = null;
+      node.next = null;
+      place(node);
+      node = next;
+    }
+  }
+
+  private void place(Node<K, V> node) {
+    if (node.deadline <= currentTick) {
+      node.level = -1;
+      expired.add(node);
+      return;
+    }
+    int level = 0;
+    while (level < LEVELS - 1
+            && (node.deadline >>> (BITS * (level + 1))) != (currentTick >>> (BITS * (level + 1)))) {
+      level++;
+    }
+    int slot = (int) ((node.deadline >>> (BITS * level)) & MASK);
+    node.level = level;
+    node.slot = slot;
+    Node<K, V> head = wheel[level][slot];
+    node.next = head;
+    if (head != null) {
+      head.prev = node;
+    }
+    wheel[level][slot] = node;
+  }
+
+  private void unlink(Node<K, V> node) {
+    if (node.prev != null) {
+      node.prev.next = node.next;
+    } else {
+      wheel[node.level][node.slot] = node.next;
+    }
+    if (node.next != null) {
+      node.next.prev = node.prev;
+    }
+    node.prev = null;
+    node.next = null;
+  }
+
+  private static final class Node<K, V> {
+    final K key;
+    final V value;
+    final long deadline;
+    int level;
+    int slot;
+    Node<K, V> prev;
+    Node<K, V> next;
+
+    Node(K key, V value, long deadline) {
+      this.key = key;
+      this.value = value;
+      this.deadline = deadline;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.ontracked.util;
+
+/**
+ * Aggregation kernels over a slice {@code [from, to)} of a primitive int column,
+ * such as goal progress percentages.
+ *
+ * <p>{@link #best()} returns the SIMD implementation built on
+ * {@code jdk.incubator.vector} when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and the scalar one otherwise.
+ * Both give identical results for columns of small values such as
+ * percentages; {@link #sum} assumes every value lies within ±2^16.
+ */
+public interface IntKernels {
+
+  /** Name of the implementation, for reports: {@code vector} or {@code scalar}. */
+  String name();
+
+  /** Sum of the slice. */
+  long sum(int[] a, int from, int to);
+
+  /** Smallest value of the slice, or {@link Integer#MAX_VALUE} if it is empty. */
+  int min(int[] a, int from, int to);
+
+  /** Largest value of the slice, or {@link Integer#MIN_VALUE} if it is empty. */
+  int max(int[] a, int from, int to);
+
+  /** Number of values in the slice that are at least {@code threshold}. */
+  int countAtLeast(int[] a, int from, int to, int threshold);
+
+  /**
+   * Adds a histogram of the slice to {@code counts}. Bucket {@code b} covers
+   * {@code [b * width, (b + 1) * width)}; the last bucket also takes everything
+   * above, and the first everything below.
+   */
+  void histogram(int[] a, int from, int to, int width, int[] counts);
+
+  /** The fastest implementation available in this JVM. */
+  static IntKernels best() {
+    return Holder.BEST;
+  }
+
+  /** The portable implementation. */
+  static IntKernels scalar() {
+    return ScalarIntKernels.INSTANCE;
+  }
+
+  /** Resolves {@link #best()} once, loading the vector class only if its module is present. */
+  final class Holder {
+    static final IntKernels BEST = load();
+
+    private Holder() {
+    }
+
+    private static IntKernels load() {
+      if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+        return ScalarIntKernels.INSTANCE;
+      }
+      try {
+        return (IntKernels) Class.forName("com.ontracked.util.VectorIntKernels")
+                .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+        return ScalarIntKernels.INSTANCE;
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package com.ontracked.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing multimap from a primitive {@code long} key to a list of
+ * {@code long} values, e.g. a goal id to the ids of its check-ins.
+ *
+ * <p>Each key owns a growable {@code long[]} plus a count held in parallel
+ * arrays, so adding a value neither boxes nor allocates except when that key's
+ * array doubles. Probing and removal follow {@link LongObjectMap}; a key is
+ * dropped once its last value is removed.
+ *
+ * <p>This class is not thread-safe; callers are expected to guard it.
+ */
+public class LongListMap {
+
+  private static final float LOAD_FACTOR = 0.6f;
+  private static final long[] EMPTY = new long[0];
+
+  private long[] keys;
+  private long[][] lists;
+  private int[] counts;
+  private int size;
+  private int resizeAt;
+
+  public LongListMap() {
+    allocate(16);
+  }
+
+  /** Number of keys with at least one value. */
+  public int size() { return size; }
+
+  /** Appends {@code value} to the list of {@code key}. */
+  public void add(long key, long value) {
+    int mask = keys.length - 1;
+    int slot = LongObjectMap.slotOf(key, mask);
+    for (; lists[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        append(slot, value);
+        return;
+      }
+    }
+    keys[slot] = key;
+    lists[slot] = new long[2];
+    counts[slot] = 0;
+    append(slot, value);
+    if (++size >= resizeAt) {
+      rehash(keys.length << 1);
+    }
+  }
+
+  /**
+   * Appends {@code value} to the list of {@code key} unless it is already there.
+   *
+   * @return whether the value was added
+   */
+  public boolean addIfAbsent(long key, long value) {
+    if (contains(key, value)) {
+      return false;
+    }
+    add(key, value);
+    return true;
+  }
+
+  /** Whether the list of {@code key} holds {@code value}. */
+  public boolean contains(long key, long value) {
+    int slot = find(key);
+    if (slot < 0) {
+      return false;
+    }
+    long[] list = lists[slot];
+    for (int i = 0, n = counts[slot]; i < n; i++) {
+      if (list[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Number of values held for {@code key}. */
+  public int count(long key) {
+    int slot = find(key);
+    return slot < 0 ? 0 : counts[slot];
+  }
+
+  /** Visits the values of {@code key} in insertion order. */
+  public void forEach(long key, LongConsumer action) {
+    int slot = find(key);
+    if (slot < 0) {
+      return;
+    }
+    long[] list = lists[slot];
+    for (int i = 0, n = counts[slot]; i < n; i++) {
+      action.accept(list[i]);
+    }
+  }
+
+  /** Copy of the values of {@code key}; empty if there are none. */
+  public long[] get(long key) {
+    int slot = find(key);
+    return slot < 0 ? EMPTY : Arrays.copyOf(lists[slot], counts[slot]);
+  }
+
+  /**
+   * Removes the first occurrence of {@code value} from the list of {@code key},
+   * keeping the order of the rest.
+   *
+   * @return whether a value was removed
+   */
+  public boolean remove(long key, long value) {
+    int slot = find(key);
+    if (slot < 0) {
+      return false;
+    }
+    long[] list = lists[slot];
+    int n = counts[slot];
+    for (int i = 0; i < n; i++) {
+      if (list[i] == value) {
+        System.arraycopy(list, i + 1, list, i, n - i - 1);
+        if (--counts[slot] == 0) {
+          removeSlot(slot);
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void clear() {
+    Arrays.fill(lists, null);
+    size = 0;
+  }
+
+  private int find(long key) {
+    int mask = keys.length - 1;
+    for (int slot = LongObjectMap.slotOf(key, mask); lists[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private void append(int slot, long value) {
+    long[] list = lists[slot];
+    int n = counts[slot];
+    if (n == list.length) {
+      list = Arrays.copyOf(list, n << 1);
+      lists[slot] = list;
+    }
+    list[n] = value;
+    counts[slot] = n + 1;
+  }
+
+  private void removeSlot(int slot) {
+    int mask = keys.length - 1;
+    int hole = slot;
+    for (int next = (hole + 1) & mask; lists[next] != null; next = (next + 1) & mask) {
+      int home = LongObjectMap.slotOf(keys[next], mask);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        lists[hole] = lists[next];
+        counts[hole] = counts[next];
+        hole = next;
+      }
+    }
+    lists[hole] = null;
+    size--;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    long[][] oldLists = lists;
+    int[] oldCounts = counts;
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldLists.length; i++) {
+      if (oldLists[i] != null) {
+        int slot = LongObjectMap.slotOf(oldKeys[i], mask);
+        while (lists[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        lists[slot] = oldLists[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    lists = new long[capacity][];
+    counts = new int[capacity];
+    resizeAt = (int) (capacity * LOAD_FACTOR);
+  }
+}
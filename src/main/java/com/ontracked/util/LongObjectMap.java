@@ -0,0 +1,177 @@
+package com.ontracked.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to object values.
+ *
+ * <p>Keys live in a {@code long[]} and values in a parallel {@code Object[]}, so
+ * neither {@link #get} nor {@link #put} boxes the key or allocates an entry.
+ * Collisions are resolved by linear probing and removal shifts the following
+ * run back, so there are no tombstones. A slot is occupied when its value is
+ * non-null, which is why null values are rejected.
+ *
+ * <p>This class is not thread-safe; callers are expected to guard it.
+ *
+ * @param <V> value type
+ */
+public class LongObjectMap<V> {
+
+  private static final float LOAD_FACTOR = 0.6f;
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+  private int resizeAt;
+
+  public LongObjectMap() {
+    this(16);
+  }
+
+  /**
+   * Creates a map sized to hold {@code expected} entries without resizing.
+   *
+   * @param expected expected number of entries
+   */
+  public LongObjectMap(int expected) {
+    int capacity = Integer.highestOneBit(Math.max(4, (int) (expected / LOAD_FACTOR)) - 1) << 1;
+    allocate(capacity);
+  }
+
+  public int size() { return size; }
+  public boolean isEmpty() { return size == 0; }
+
+  /**
+   * Returns the value mapped to {@code key}, or {@code null} if there is none.
+   */
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    int mask = keys.length - 1;
+    for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+      Object v = values[slot];
+      if (v == null) {
+        return null;
+      }
+      if (keys[slot] == key) {
+        return (V) v;
+      }
+    }
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Maps {@code key} to {@code value}.
+   *
+   * @return the previous value, or {@code null}
+   * @throws IllegalArgumentException if {@code value} is null
+   */
+  @SuppressWarnings("unchecked")
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("value must not be null");
+    }
+    int mask = keys.length - 1;
+    int slot = slotOf(key, mask);
+    for (; values[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+      }
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size >= resizeAt) {
+      rehash(keys.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * Maps {@code key} to {@code value} unless it is already mapped.
+   *
+   * @return the existing value, or {@code null} if {@code value} was stored
+   */
+  public V putIfAbsent(long key, V value) {
+    V existing = get(key);
+    return existing != null ? existing : put(key, value);
+  }
+
+  /**
+   * Removes the mapping for {@code key}.
+   *
+   * @return the removed value, or {@code null} if there was none
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    int mask = keys.length - 1;
+    int slot = slotOf(key, mask);
+    while (values[slot] != null && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    if (values[slot] == null) {
+      return null;
+    }
+    V removed = (V) values[slot];
+    // Shift later members of the probe run back into the hole.
+    int hole = slot;
+    for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+      int home = slotOf(keys[next], mask);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        keys[hole] = keys[next];
+        values[hole] = values[next];
+        hole = next;
+      }
+    }
+    values[hole] = null;
+    size--;
+    return removed;
+  }
+
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  /** Visits every value, in no particular order. */
+  @SuppressWarnings("unchecked")
+  public void forEachValue(Consumer<? super V> action) {
+    for (Object v : values) {
+      if (v != null) {
+        action.accept((V) v);
+      }
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = slotOf(oldKeys[i], mask);
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    resizeAt = (int) (capacity * LOAD_FACTOR);
+  }
+
+  /** Fibonacci hashing: spreads sequential ids across the table. */
+  static int slotOf(long key, int mask) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+  }
+}
@@ -0,0 +1,59 @@
+package com.ontracked.util;
+
+/** Plain-loop {@link IntKernels}, used when the Vector API is unavailable. */
+final class ScalarIntKernels implements IntKernels {
+
+  static final ScalarIntKernels INSTANCE = new ScalarIntKernels();
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+
+  @Override
+  public long sum(int[] a, int from, int to) {
+    long sum = 0;
+    for (int i = from; i < to; i++) {
+      sum += a[i];
+    }
+    return sum;
+  }
+
+  @Override
+  public int min(int[] a, int from, int to) {
+    int min = Integer.MAX_VALUE;
+    for (int i = from; i < to; i++) {
+      min = Math.min(min, a[i]);
+    }
+    return min;
+  }
+
+  @Override
+  public int max(int[] a, int from, int to) {
+    int max = Integer.MIN_VALUE;
+    for (int i = from; i < to; i++) {
+      max = Math.max(max, a[i]);
+    }
+    return max;
+  }
+
+  @Override
+  public int countAtLeast(int[] a, int from, int to, int threshold) {
+    int n = 0;
+    for (int i = from; i < to; i++) {
+      if (a[i] >= threshold) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  @Override
+  public void histogram(int[] a, int from, int to, int width, int[] counts) {
+    int last = counts.length - 1;
+    for (int i = from; i < to; i++) {
+      int b = a[i] < 0 ? 0 : a[i] / width;
+      counts[Math.min(b, last)]++;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.ontracked.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of JSON response bodies, already serialized and, when worthwhile,
+ * gzip-compressed, keyed by entity id and revision tag. A hit skips building
+ * the response object, Jackson and compression; the bytes are handed to the
+ * response as they are.
+ *
+ * <p>An entry is only served for the exact revision it was built from, so a
+ * stale entry can never be returned even if an eviction is missed;
+ * {@link #evict(String)} on writes just frees the memory sooner. The least
+ * recently used entries are dropped beyond {@code maxEntries}.
+ */
+public final class SerializedResponseCache {
+
+  /** Bodies shorter than this are not compressed; gzip's framing would eat the gain. */
+  static final int GZIP_MIN_BYTES = 256;
+
+  /**
+   * One cached body.
+   *
+   * @param etag revision tag the body was built from
+   * @param json the serialized body
+   * @param gzip the gzip-compressed body, or null if compression did not pay off
+   */
+  public record Entry(String etag, byte[] json, byte[] gzip) {
+
+    /**
+     * Builds a 200 response carrying these bytes, compressed if the request
+     * accepts gzip and a compressed copy exists.
+     */
+    public ResponseEntity<byte[]> toResponse(HttpServletRequest request) {
+      ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+              .contentType(MediaType.APPLICATION_JSON)
+              .eTag(etag)
+              .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+      if (gzip != null && acceptsGzip(request)) {
+        return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+      }
+      return builder.body(json);
+    }
+  }
+
+  /**
+   * Counters since creation.
+   *
+   * @param hits    lookups served from the cache
+   * @param misses  lookups that serialized the body
+   * @param entries bodies currently cached
+   */
+  public record Stats(long hits, long misses, int entries) {
+  }
+
+  private final ObjectMapper mapper;
+  private final Map<String, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public SerializedResponseCache(ObjectMapper mapper, int maxEntries) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries must not be negative");
+    }
+    this.mapper = mapper;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached body of {@code id} at revision {@code etag}, or
+   * serializes the object from {@code body} and caches it.
+   *
+   * @param id   entity id, unique within this cache
+   * @param etag the entity's current revision tag
+   * @param body builds the response object; called only on a miss
+   * @throws RuntimeException if serialization fails
+   */
+  public Entry get(String id, String etag, Supplier<?> body) {
+    synchronized (entries) {
+      Entry cached = entries.get(id);
+      if (cached != null && cached.etag().equals(etag)) {
+        hits.increment();
+        return cached;
+      }
+    }
+    misses.increment();
+    // Serialize outside the lock; two concurrent misses just build the same bytes twice.
+    Entry entry = build(etag, body.get());
+    synchronized (entries) {
+      entries.put(id, entry);
+    }
+    return entry;
+  }
+
+  /** Drops the cached body of one entity, if any. */
+  public void evict(String id) {
+    synchronized (entries) {
+      entries.remove(id);
+    }
+  }
+
+  public Stats stats() {
+    synchronized (entries) {
+      return new Stats(hits.sum(), misses.sum(), entries.size());
+    }
+  }
+
+  private Entry build(String etag, Object body) {
+    byte[] json;
+    try {
+      json = mapper.writeValueAsBytes(body);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Failed to serialize response", e);
+    }
+    byte[] gzip = json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+    return new Entry(etag, json, gzip != null && gzip.length < json.length ? gzip : null);
+  }
+
+  private static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(bytes);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to compress response", e);
+    }
+    return out.toByteArray();
+  }
+
+  private static boolean acceptsGzip(HttpServletRequest request) {
+    Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+    if (headers == null) {
+      return false;
+    }
+    while (headers.hasMoreElements()) {
+      for (String coding : headers.nextElement().split(",")) {
+        String[] parts = coding.replace(" ", "").toLowerCase().split(";q=", 2);
+        if (parts[0].equals("gzip") && (parts.length == 1 || quality(parts[1]) > 0)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static double quality(String q) {
+    try {
+      return Double.parseDouble(q);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.ontracked.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller for a key runs
+ * the loader, and callers arriving while it is still running wait for and
+ * share its result (or its exception) instead of loading again.
+ *
+ * <p>Nothing is cached. The key is released before the result is handed out,
+ * so a caller arriving after a load finished always starts a new one and
+ * never sees a result older than its own call.
+ *
+ * @param <K> key type
+ * @param <V> result type; shared between callers, so it should be immutable
+ */
+public final class SingleFlight<K, V> {
+
+  /**
+   * Counters since creation.
+   *
+   * @param loads  calls that ran the loader
+   * @param shared calls that joined a load already in flight
+   */
+  public record Stats(long loads, long shared) {
+  }
+
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder shared = new LongAdder();
+
+  /**
+   * Returns the result of {@code loader}, run by this call or by a concurrent
+   * call for the same key.
+   *
+   * @throws RuntimeException the loader's exception, rethrown to every caller that shared it
+   */
+  public V execute(K key, Supplier<? extends V> loader) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      shared.increment();
+      try {
+        return running.join();
+      } catch (CompletionException e) {
+        throw rethrow(e.getCause());
+      }
+    }
+    loads.increment();
+    try {
+      V value = loader.get();
+      inFlight.remove(key, mine);
+      mine.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      inFlight.remove(key, mine);
+      mine.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  public Stats stats() {
+    return new Stats(loads.sum(), shared.sum());
+  }
+
+  private static RuntimeException rethrow(Throwable cause) {
+    if (cause instanceof RuntimeException e) {
+      return e;
+    }
+    if (cause instanceof Error e) {
+      throw e;
+    }
+    return new CompletionException(cause);
+  }
+}
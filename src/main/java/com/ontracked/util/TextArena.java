@@ -0,0 +1,148 @@
+package com.ontracked.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only arena of UTF-8 text held in direct (off-heap) byte buffers.
+ *
+ * <p>{@link #put} copies a string's bytes into the current segment and returns
+ * a {@code long} reference packing the segment number, the offset inside it
+ * and the byte length; {@link #get} decodes a reference back into a string.
+ * A holder therefore keeps eight bytes on the heap per text instead of a
+ * {@code String} and its backing array. Texts are never moved or freed
+ * individually: replacing a text leaves its old bytes in place, and the
+ * memory is released only when the whole arena becomes unreachable.
+ *
+ * <p>Reference layout: segment (20 bits) | offset (20 bits) | length (24 bits).
+ * Segments are at most 1 MiB; a text longer than the segment size gets a
+ * segment of its own. {@link #NULL} stands for a null text.
+ *
+ * <p>No segment is allocated until the first non-empty text is put. An arena
+ * may start with a small segment and double each new one up to a maximum, so
+ * holders with little text reserve little off-heap memory.
+ *
+ * <p>Appends are serialized; reads are lock-free and may run concurrently with
+ * appends, provided the reference was handed over safely.
+ */
+public final class TextArena {
+
+  /** Reference of a null text. */
+  public static final long NULL = -1L;
+  public static final int MAX_SEGMENT_BYTES = 1 << 20;
+  public static final int MAX_TEXT_BYTES = (1 << 24) - 1;
+
+  private static final int OFFSET_BITS = 20;
+  private static final int LENGTH_BITS = 24;
+  private static final int MAX_SEGMENTS = 1 << 20;
+
+  private final int maxSegmentBytes;
+  private int nextSegmentBytes;
+  private volatile ByteBuffer[] segments = new ByteBuffer[0];
+  private int position;
+  private long bytesUsed;
+
+  /**
+   * @param segmentBytes size of each regular segment, at most {@link #MAX_SEGMENT_BYTES}
+   */
+  public TextArena(int segmentBytes) {
+    this(segmentBytes, segmentBytes);
+  }
+
+  /**
+   * @param firstSegmentBytes size of the first segment
+   * @param maxSegmentBytes   size each later segment doubles up to, at most {@link #MAX_SEGMENT_BYTES}
+   */
+  public TextArena(int firstSegmentBytes, int maxSegmentBytes) {
+    if (maxSegmentBytes <= 0 || maxSegmentBytes > MAX_SEGMENT_BYTES) {
+      throw new IllegalArgumentException("segmentBytes must be in 1.." + MAX_SEGMENT_BYTES);
+    }
+    if (firstSegmentBytes <= 0 || firstSegmentBytes > maxSegmentBytes) {
+      throw new IllegalArgumentException("firstSegmentBytes must be in 1.." + maxSegmentBytes);
+    }
+    this.maxSegmentBytes = maxSegmentBytes;
+    this.nextSegmentBytes = firstSegmentBytes;
+  }
+
+  /**
+   * Copies a text into the arena.
+   *
+   * @param text the text, possibly null
+   * @return a reference for {@link #get}, or {@link #NULL} for a null text
+   * @throws IllegalArgumentException if the text is longer than {@link #MAX_TEXT_BYTES} in UTF-8
+   */
+  public long put(String text) {
+    if (text == null) {
+      return NULL;
+    }
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_TEXT_BYTES) {
+      throw new IllegalArgumentException("text of " + bytes.length + " bytes exceeds " + MAX_TEXT_BYTES);
+    }
+    if (bytes.length == 0) {
+      return 0L;
+    }
+    synchronized (this) {
+      ByteBuffer[] current = segments;
+      int segment = current.length - 1;
+      if (segment < 0 || current[segment].capacity() - position < bytes.length) {
+        segment = current.length;
+        if (segment == MAX_SEGMENTS) {
+          throw new IllegalStateException("text arena is full");
+        }
+        current = Arrays.copyOf(current, segment + 1);
+        // An oversized text gets a segment of exactly its size, which it fills.
+        current[segment] = ByteBuffer.allocateDirect(Math.max(nextSegmentBytes, bytes.length));
+        nextSegmentBytes = Math.min(maxSegmentBytes, nextSegmentBytes * 2);
+        position = 0;
+      }
+      int offset = position;
+      current[segment].put(offset, bytes);
+      position = offset + bytes.length;
+      bytesUsed += bytes.length;
+      segments = current;
+      return ((long) segment << (OFFSET_BITS + LENGTH_BITS)) | ((long) offset << LENGTH_BITS) | bytes.length;
+    }
+  }
+
+  /**
+   * Decodes a text written by {@link #put}.
+   *
+   * @param ref a reference from this arena, or {@link #NULL}
+   * @return the text, or null for {@link #NULL}
+   */
+  public String get(long ref) {
+    if (ref == NULL) {
+      return null;
+    }
+    int length = length(ref);
+    if (length == 0) {
+      return "";
+    }
+    int segment = (int) (ref >>> (OFFSET_BITS + LENGTH_BITS));
+    int offset = (int) (ref >>> LENGTH_BITS) & ((1 << OFFSET_BITS) - 1);
+    byte[] bytes = new byte[length];
+    segments[segment].get(offset, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** UTF-8 length in bytes of a referenced text; 0 for {@link #NULL}. */
+  public static int length(long ref) {
+    return ref == NULL ? 0 : (int) (ref & MAX_TEXT_BYTES);
+  }
+
+  /** Bytes of text appended so far, including texts that have since been replaced. */
+  public synchronized long bytesUsed() {
+    return bytesUsed;
+  }
+
+  /** Off-heap bytes reserved by the arena's segments. */
+  public long capacityBytes() {
+    long total = 0;
+    for (ByteBuffer b : segments) {
+      total += b.capacity();
+    }
+    return total;
+  }
+}
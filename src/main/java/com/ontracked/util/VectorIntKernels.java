@@ -0,0 +1,100 @@
+package com.ontracked.util;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD {@link IntKernels} on the incubating Vector API, using the platform's
+ * preferred lane count. Each kernel runs whole vectors over the slice and
+ * finishes the remainder with the scalar loop.
+ *
+ * <p>Only loaded through {@link IntKernels#best()}, after checking that
+ * {@code jdk.incubator.vector} is in the boot layer.
+ */
+final class VectorIntKernels implements IntKernels {
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+  /** Vectors summed in int lanes before widening, so lanes cannot overflow for values up to 2^16. */
+  private static final int SUM_BLOCK = 1 << 14;
+
+  private final ScalarIntKernels tail = ScalarIntKernels.INSTANCE;
+
+  @Override
+  public String name() {
+    return "vector";
+  }
+
+  @Override
+  public long sum(int[] a, int from, int to) {
+    int bound = from + SPECIES.loopBound(to - from);
+    long sum = 0;
+    int i = from;
+    while (i < bound) {
+      int blockEnd = Math.min(bound, i + SUM_BLOCK * SPECIES.length());
+      IntVector acc = IntVector.zero(SPECIES);
+      for (; i < blockEnd; i += SPECIES.length()) {
+        acc = acc.add(IntVector.fromArray(SPECIES, a, i));
+      }
+      sum += acc.reduceLanesToLong(VectorOperators.ADD);
+    }
+    return sum + tail.sum(a, bound, to);
+  }
+
+  @Override
+  public int min(int[] a, int from, int to) {
+    int bound = from + SPECIES.loopBound(to - from);
+    IntVector acc = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+    for (int i = from; i < bound; i += SPECIES.length()) {
+      acc = acc.min(IntVector.fromArray(SPECIES, a, i));
+    }
+    return Math.min(acc.reduceLanes(VectorOperators.MIN), tail.min(a, bound, to));
+  }
+
+  @Override
+  public int max(int[] a, int from, int to) {
+    int bound = from + SPECIES.loopBound(to - from);
+    IntVector acc = IntVector.broadcast(SPECIES, Integer.MIN_VALUE);
+    for (int i = from; i < bound; i += SPECIES.length()) {
+      acc = acc.max(IntVector.fromArray(SPECIES, a, i));
+    }
+    return Math.max(acc.reduceLanes(VectorOperators.MAX), tail.max(a, bound, to));
+  }
+
+  @Override
+  public int countAtLeast(int[] a, int from, int to, int threshold) {
+    int bound = from + SPECIES.loopBound(to - from);
+    int n = 0;
+    for (int i = from; i < bound; i += SPECIES.length()) {
+      n += IntVector.fromArray(SPECIES, a, i).compare(VectorOperators.GE, threshold).trueCount();
+    }
+    return n + tail.countAtLeast(a, bound, to, threshold);
+  }
+
+  /**
+   * Counts, per vector, the lanes at or above each bucket's lower edge; a
+   * bucket's count is the difference between neighbouring edges. This needs
+   * one compare per bucket and no scattered increments. Falls back to the
+   * scalar loop for many buckets.
+   */
+  @Override
+  public void histogram(int[] a, int from, int to, int width, int[] counts) {
+    int last = counts.length - 1;
+    if (last >= 16) {
+      tail.histogram(a, from, to, width, counts);
+      return;
+    }
+    int bound = from + SPECIES.loopBound(to - from);
+    for (int i = from; i < bound; i += SPECIES.length()) {
+      IntVector v = IntVector.fromArray(SPECIES, a, i);
+      int below = SPECIES.length();
+      for (int k = 1; k <= last; k++) {
+        int atOrAbove = v.compare(VectorOperators.GE, k * width).trueCount();
+        counts[k - 1] += below - atOrAbove;
+        below = atOrAbove;
+      }
+      counts[last] += below;
+    }
+    tail.histogram(a, bound, to, width, counts);
+  }
+}
@@ -0,0 +1,196 @@
+package com.ontracked;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares request throughput of the running application on Tomcat's platform
+ * thread pool against the {@code virtual} profile.
+ *
+ * <p>The application is started twice on a random port, once with the default
+ * settings and once with {@code spring.profiles.active=virtual}. Each time,
+ * {@value #CLIENTS} HTTP clients, more than Tomcat's 200 platform workers,
+ * send {@value #REQUESTS} requests over real sockets. Of every ten requests,
+ * four are {@code GET /goal/retrieveOneGoal}, four are {@code GET /checkins/{id}},
+ * one is {@code POST /goal/saveOneGoal} and one is {@code POST /checkins}, so
+ * the request log, the goal and check-in CSVs and the goal history are all
+ * written as in production. Admission control is switched off, so both runs are
+ * limited by threads rather than by write permits.
+ *
+ * <p>Goal files go to the working directory and the check-in CSV to the test
+ * classpath, as in the application; both are removed after each run.
+ *
+ * <p>Tagged {@code benchmark}; run with {@code mvn -Pbench test}.
+ */
+@Tag("benchmark")
+class VirtualThreadsBenchmarkTest {
+
+  private static final int CLIENTS = 400;
+  private static final int REQUESTS = 10_000;
+  private static final int WARMUP_REQUESTS = 2_000;
+  private static final int SEED_GOALS = 200;
+  private static final int SEED_CHECK_INS = 200;
+  private static final Pattern CHECK_IN_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+  @TempDir
+  Path dir;
+
+  private Path checkInCsv;
+
+  private record Result(double requestsPerSecond, double p50Ms, double p99Ms) { }
+
+  @BeforeEach
+  void locateCheckInCsv() throws Exception {
+    checkInCsv = Path.of(getClass().getClassLoader().getResource("").toURI()).resolve("localGoalDB.csv");
+    deleteDataFiles();
+  }
+
+  @AfterEach
+  void deleteDataFiles() throws Exception {
+    Files.deleteIfExists(checkInCsv);
+    Files.deleteIfExists(Path.of("goals.csv"));
+    Files.deleteIfExists(Path.of("goals.csv.tmp"));
+  }
+
+  private ConfigurableApplicationContext start(String name, boolean virtual) throws Exception {
+    deleteDataFiles();
+    Files.writeString(checkInCsv, "id,goalId,checkInDate,notes\n");
+    SpringApplicationBuilder app = new SpringApplicationBuilder(OnTrackEDApplication.class).properties(
+            "server.port=0",
+            "ontracked.admission.enabled=false",
+            "ontracked.archive.dir=" + dir.resolve(name + "-archive"),
+            "ontracked.history.events-file=" + dir.resolve(name + "-events.jsonl"),
+            "ontracked.history.snapshots-file=" + dir.resolve(name + "-snapshots.jsonl"),
+            "ontracked.progress.file=" + dir.resolve(name + "-progress.csv"));
+    if (virtual) {
+      app.profiles("virtual");
+    }
+    return app.run();
+  }
+
+  private static String goalJson(int n) {
+    return "{\"ownerId\":\"owner-" + (n % 20) + "\",\"id\":\"goal-" + (n % SEED_GOALS)
+            + "\",\"title\":\"Goal " + n + "\",\"latestPercentage\":" + (n % 101) + "}";
+  }
+
+  private static String checkInJson(int n) {
+    return "{\"goalId\":" + (n % SEED_GOALS) + ",\"checkInDate\":\"2025-01-01T10:00:00\",\"notes\":\"bench " + n + "\"}";
+  }
+
+  private static HttpRequest post(String base, String path, String json) {
+    return HttpRequest.newBuilder(URI.create(base + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+  }
+
+  private static HttpRequest get(String base, String path) {
+    return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+  }
+
+  /** Request {@code n} of the mix. */
+  private static HttpRequest request(String base, int n, List<Long> checkInIds) {
+    return switch (n % 10) {
+      case 4 -> post(base, "/goal/saveOneGoal", goalJson(n));
+      case 9 -> post(base, "/checkins", checkInJson(n));
+      case 0, 1, 2, 3 -> get(base, "/goal/retrieveOneGoal?id=goal-" + (n % SEED_GOALS));
+      default -> get(base, "/checkins/" + checkInIds.get(n % checkInIds.size()));
+    };
+  }
+
+  /** Sends {@code total} requests of the mix from {@link #CLIENTS} concurrent clients. */
+  private static Result load(HttpClient client, String base, List<Long> checkInIds, int total) throws Exception {
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger failures = new AtomicInteger();
+    long[] latencies = new long[total];
+    long start = System.nanoTime();
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<?>> running = new ArrayList<>(CLIENTS);
+      for (int c = 0; c < CLIENTS; c++) {
+        running.add(clients.submit(() -> {
+          for (int n = next.getAndIncrement(); n < total; n = next.getAndIncrement()) {
+            long sent = System.nanoTime();
+            HttpResponse<Void> response = client.send(request(base, n, checkInIds),
+                    HttpResponse.BodyHandlers.discarding());
+            latencies[n] = System.nanoTime() - sent;
+            if (response.statusCode() >= 400) {
+              failures.incrementAndGet();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> f : running) {
+        f.get();
+      }
+    }
+    double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    assertEquals(0, failures.get(), "every request should succeed");
+    Arrays.sort(latencies);
+    return new Result(total / seconds, latencies[total / 2] / 1e6, latencies[total * 99 / 100] / 1e6);
+  }
+
+  private Result run(String name, boolean virtual) throws Exception {
+    try (ConfigurableApplicationContext context = start(name, virtual);
+         HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+      int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+      String base = "http://localhost:" + port;
+
+      StringBuilder goals = new StringBuilder("[");
+      for (int i = 0; i < SEED_GOALS; i++) {
+        goals.append(i == 0 ? "" : ",").append(goalJson(i));
+      }
+      assertEquals(200, client.send(post(base, "/goal/saveMultipleGoals", goals.append(']').toString()),
+              HttpResponse.BodyHandlers.discarding()).statusCode());
+      List<Long> checkInIds = new ArrayList<>();
+      for (int i = 0; i < SEED_CHECK_INS; i++) {
+        HttpResponse<String> created = client.send(post(base, "/checkins", checkInJson(i)),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, created.statusCode());
+        Matcher id = CHECK_IN_ID.matcher(created.body());
+        assertTrue(id.find());
+        checkInIds.add(Long.parseLong(id.group(1)));
+      }
+
+      load(client, base, checkInIds, WARMUP_REQUESTS);
+      return load(client, base, checkInIds, REQUESTS);
+    }
+  }
+
+  @Test
+  void throughput_platformThreadsVersusVirtualProfile() throws Exception {
+    Result platform = run("platform", false);
+    Result virtual = run("virtual", true);
+
+    System.out.printf("requests=%d clients=%d platform=%.0f req/s (p50 %.1f ms, p99 %.1f ms)"
+                    + " virtual=%.0f req/s (p50 %.1f ms, p99 %.1f ms) ratio=%.2fx%n",
+            REQUESTS, CLIENTS, platform.requestsPerSecond(), platform.p50Ms(), platform.p99Ms(),
+            virtual.requestsPerSecond(), virtual.p50Ms(), virtual.p99Ms(),
+            virtual.requestsPerSecond() / platform.requestsPerSecond());
+  }
+}
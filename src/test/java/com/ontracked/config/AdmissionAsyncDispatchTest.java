@@ -0,0 +1,49 @@
+package com.ontracked.config;
+
+import com.ontracked.service.AdmissionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Sends async check-in writes through the real dispatcher, where the admission
+ * interceptor runs on both the initial and the ASYNC dispatch.
+ */
+@SpringBootTest(properties = {
+        "ontracked.checkins.mode=async",
+        "ontracked.admission.initial-limit=2",
+        "ontracked.admission.max-limit=2",
+        "ontracked.admission.queue-size=0"
+})
+@AutoConfigureMockMvc
+class AdmissionAsyncDispatchTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private AdmissionService admissionService;
+
+  /** Each write returns its one permit, so sequential writes never run out. */
+  @Test
+  void sequentialAsyncWrites_neverExhaustPermits() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      MvcResult started = mockMvc.perform(post("/checkins")
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content("{\"goalId\":" + (700 + i) + ",\"checkInDate\":\"2025-01-01T10:00:00\",\"notes\":\"n\"}"))
+              .andExpect(request().asyncStarted())
+              .andReturn();
+      mockMvc.perform(asyncDispatch(started)).andExpect(status().isCreated());
+    }
+    assertEquals(0, admissionService.snapshot().get("POST /checkins").inFlight());
+    assertEquals(0, admissionService.snapshot().get("POST /checkins").rejected());
+  }
+}
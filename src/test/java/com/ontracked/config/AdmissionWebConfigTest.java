@@ -0,0 +1,59 @@
+package com.ontracked.config;
+
+import com.ontracked.service.AdmissionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionWebConfigTest {
+
+  private static MockHttpServletRequest request(String method, String path) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, path);
+    return request;
+  }
+
+  /** With one permit and no queue, a second concurrent write gets 429 while reads pass. */
+  @Test
+  void writesOverCapacity_get429WithRetryAfter_readsPass() throws Exception {
+    AdmissionService admission = new AdmissionService(1, 1, 1, 0, 0, 2.0);
+    AdmissionWebConfig.AdmissionInterceptor interceptor = new AdmissionWebConfig.AdmissionInterceptor(admission);
+
+    MockHttpServletRequest first = request("POST", "/checkins");
+    assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+
+    MockHttpServletResponse rejected = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request("POST", "/checkins"), rejected, null));
+    assertEquals(429, rejected.getStatus());
+    assertNotNull(rejected.getHeader("Retry-After"));
+
+    // Other routes and reads are not affected.
+    assertTrue(interceptor.preHandle(request("POST", "/createUser"), new MockHttpServletResponse(), null));
+    assertTrue(interceptor.preHandle(request("GET", "/checkins"), new MockHttpServletResponse(), null));
+
+    interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+    assertTrue(interceptor.preHandle(request("POST", "/checkins"), new MockHttpServletResponse(), null));
+    assertEquals(1, admission.snapshot().get("POST /checkins").rejected());
+  }
+
+  @ReadOnlyRoute
+  void batchLookup() {
+  }
+
+  /** A read-only POST route takes no permit, so it is never rejected. */
+  @Test
+  void readOnlyRoutes_bypassAdmission() throws Exception {
+    AdmissionService admission = new AdmissionService(1, 1, 1, 0, 0, 2.0);
+    AdmissionWebConfig.AdmissionInterceptor interceptor = new AdmissionWebConfig.AdmissionInterceptor(admission);
+    HandlerMethod handler = new HandlerMethod(this, getClass().getDeclaredMethod("batchLookup"));
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(interceptor.preHandle(request("POST", "/checkins/batch"), new MockHttpServletResponse(), handler));
+    }
+    assertNull(admission.snapshot().get("POST /checkins/batch"));
+  }
+}
@@ -0,0 +1,48 @@
+package com.ontracked.config;
+
+import com.ontracked.controller.AsyncCheckInController;
+import com.ontracked.service.CheckInService;
+import com.ontracked.service.ExpansionService;
+import com.ontracked.service.GoalService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/** The async check-in batch lookup is served on a follower too. */
+@WebMvcTest(controllers = AsyncCheckInController.class,
+        properties = {"ontracked.replication.role=follower", "ontracked.checkins.mode=async"})
+@Import(ExpansionService.class)
+class AsyncReplicationWebConfigTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @MockBean private GoalService goalService;
+  @MockBean private CheckInService checkInService;
+
+  @Test
+  void checkInBatch_servedOnFollower() throws Exception {
+    MvcResult started = mockMvc.perform(post("/checkins/batch")
+                    .contentType(MediaType.APPLICATION_JSON).content("[7]"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.missing[0]").value(7));
+  }
+
+  @Test
+  void checkInCreate_rejectedOnFollower() throws Exception {
+    mockMvc.perform(post("/checkins").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"goalId\":1,\"checkInDate\":\"2025-01-01T10:00:00\",\"notes\":\"n\"}"))
+            .andExpect(status().isForbidden());
+  }
+}
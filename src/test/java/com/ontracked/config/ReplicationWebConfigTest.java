@@ -0,0 +1,82 @@
+package com.ontracked.config;
+
+import com.ontracked.controller.CheckInController;
+import com.ontracked.controller.GoalController;
+import com.ontracked.controller.UserController;
+import com.ontracked.service.CheckInService;
+import com.ontracked.service.ExpansionService;
+import com.ontracked.service.GoalService;
+import com.ontracked.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/** A follower rejects writes but still serves the batch lookups mapped to POST. */
+@WebMvcTest(controllers = {UserController.class, GoalController.class, CheckInController.class},
+        properties = "ontracked.replication.role=follower")
+@Import(ExpansionService.class)
+class ReplicationWebConfigTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @MockBean private GoalService goalService;
+  @MockBean private CheckInService checkInService;
+
+  private MockedStatic<UserService> userService;
+
+  @BeforeEach
+  void setUp() {
+    userService = Mockito.mockStatic(UserService.class);
+    userService.when(() -> UserService.retrieveUsers(any())).thenReturn(Map.of());
+  }
+
+  @AfterEach
+  void tearDown() {
+    userService.close();
+  }
+
+  @Test
+  void userBatch_servedOnFollower() throws Exception {
+    mockMvc.perform(post("/users/batch").contentType(MediaType.APPLICATION_JSON).content("[1,2]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.missing.length()").value(2));
+  }
+
+  @Test
+  void goalBatch_servedOnFollower() throws Exception {
+    mockMvc.perform(post("/goal/retrieveGoals").contentType(MediaType.APPLICATION_JSON).content("[\"a\"]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.missing[0]").value("a"));
+  }
+
+  @Test
+  void checkInBatch_servedOnFollower() throws Exception {
+    mockMvc.perform(post("/checkins/batch").contentType(MediaType.APPLICATION_JSON).content("[7]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.missing[0]").value(7));
+  }
+
+  @Test
+  void writes_rejectedOnFollower() throws Exception {
+    mockMvc.perform(post("/checkins").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"goalId\":1,\"checkInDate\":\"2025-01-01T10:00:00\",\"notes\":\"n\"}"))
+            .andExpect(status().isForbidden());
+    mockMvc.perform(post("/createUser").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"fullName\":\"A\",\"email\":\"a@b.c\",\"role\":\"STUDENT\"}"))
+            .andExpect(status().isForbidden());
+  }
+}
@@ -0,0 +1,77 @@
+package com.ontracked.controller;
+
+import com.ontracked.dto.checkin.CheckInRequest;
+import com.ontracked.dto.checkin.CheckInResponse;
+import com.ontracked.model.CheckIn;
+import com.ontracked.service.CheckInService;
+import com.ontracked.service.ExpansionService;
+import com.ontracked.service.GoalService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncCheckInControllerTest {
+
+  private CheckInService service;
+  private AsyncCheckInController controller;
+  private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+  @BeforeEach
+  void setup() {
+    service = new CheckInService();
+    controller = new AsyncCheckInController(service, new ExpansionService(new GoalService(), service));
+  }
+
+  @Test
+  void createThenPatch_completeOnceStored() {
+    ResponseEntity<?> created = controller.createCheckIn(
+            new CheckInRequest(501L, LocalDateTime.now(), "async note"), request).join();
+    assertEquals(201, created.getStatusCode().value());
+    Long id = ((CheckInResponse) created.getBody()).getId();
+    CheckIn before = service.getCheckIn(id);
+
+    ResponseEntity<?> patched = controller.updateCheckIn(id,
+            new CheckInRequest(502L, LocalDateTime.now(), "patched"), request).join();
+    assertEquals(200, patched.getStatusCode().value());
+    assertEquals(502L, service.getCheckIn(id).getGoalId());
+    assertEquals(501L, before.getGoalId(), "A reader's check-in is swapped out, never changed in place");
+    assertEquals("async note", before.getNotes());
+    assertEquals(200, controller.getCheckInById(id, null, request).join().getStatusCode().value());
+  }
+
+  @Test
+  void missingCheckIn_is404_andNullBody_is500() {
+    assertEquals(404, controller.getCheckInById(99_999L, null, request).join().getStatusCode().value());
+    assertEquals(404, controller.updateCheckIn(99_999L,
+            new CheckInRequest(1L, LocalDateTime.now(), ""), request).join().getStatusCode().value());
+    assertEquals(500, controller.createCheckIn(null, request).join().getStatusCode().value());
+  }
+
+  @Test
+  void concurrentCreates_getDistinctIds() {
+    List<CompletableFuture<ResponseEntity<?>>> responses = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      int n = i;
+      responses.add(CompletableFuture.supplyAsync(() -> controller.createCheckIn(
+              new CheckInRequest(600L + n, LocalDateTime.now(), "burst " + n), request))
+              .thenCompose(f -> f));
+    }
+    Set<Long> ids = new HashSet<>();
+    for (CompletableFuture<ResponseEntity<?>> r : responses) {
+      ResponseEntity<?> response = r.join();
+      assertEquals(201, response.getStatusCode().value());
+      ids.add(((CheckInResponse) response.getBody()).getId());
+    }
+    assertEquals(50, ids.size());
+  }
+}
@@ -8,12 +8,15 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
 import jakarta.servlet.http.HttpServletRequest;
 import com.ontracked.service.CheckInService;
 import com.ontracked.controller.CheckInController;
 import com.ontracked.dto.checkin.CheckInRequest;
 import com.ontracked.dto.checkin.CheckInResponse;
+import com.ontracked.dto.common.BatchResponse;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -75,7 +78,7 @@ public class CheckInAPITests {
     CheckInRequest request = new CheckInRequest(301L, LocalDateTime.now(), "Daily update");
     controller.createCheckIn(request, mockRequest);
     CheckIn first = service.getCheckIns().get(0);
-    ResponseEntity<?> response = controller.getCheckInById(first.getId(), mockRequest);
+    ResponseEntity<?> response = controller.getCheckInById(first.getId(), null, mockRequest);
     assertEquals(200, response.getStatusCode().value());
   }
 
@@ -86,7 +89,7 @@ public class CheckInAPITests {
   @Test
   @DisplayName("API: getCheckInById atypical valid input (nonexistent but numeric ID)")
   public void testGetCheckInByIdAtypical() {
-    ResponseEntity<?> response = controller.getCheckInById(9999L, mockRequest);
+    ResponseEntity<?> response = controller.getCheckInById(9999L, null, mockRequest);
     assertEquals(404, response.getStatusCode().value());
   }
 
@@ -96,7 +99,7 @@ public class CheckInAPITests {
   @Test
   @DisplayName("API: getCheckInById invalid input (null ID)")
   public void testGetCheckInByIdInvalid() {
-    ResponseEntity<?> response = controller.getCheckInById(999L, mockRequest);
+    ResponseEntity<?> response = controller.getCheckInById(999L, null, mockRequest);
 
     assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     assertEquals("CheckIn not found.", response.getBody());
@@ -140,5 +143,54 @@ public class CheckInAPITests {
     ResponseEntity<?> response = controller.updateCheckIn(9999L, updateRequest, mockRequest);
     assertEquals(404, response.getStatusCode().value());
   }
-}
 
+  /**
+   * API test for conditional GETs: a matching If-None-Match gets 304 until the check-in changes
+   */
+  @Test
+  @DisplayName("API: getCheckInById honours If-None-Match until the check-in changes")
+  public void testGetCheckInByIdConditional() {
+    CheckInRequest request = new CheckInRequest(401L, LocalDateTime.now(), "First");
+    CheckInResponse created = (CheckInResponse) controller.createCheckIn(request, mockRequest).getBody();
+    ResponseEntity<?> first = controller.getCheckInById(created.getId(), null, new MockHttpServletRequest());
+    String etag = first.getHeaders().getETag();
+    assertNotNull(etag);
+
+    MockHttpServletRequest conditional = new MockHttpServletRequest();
+    conditional.addHeader("If-None-Match", etag);
+    ResponseEntity<?> unchanged = controller.getCheckInById(created.getId(), null, conditional);
+    assertEquals(304, unchanged.getStatusCode().value());
+    assertNull(unchanged.getBody());
+
+    controller.updateCheckIn(created.getId(), new CheckInRequest(401L, LocalDateTime.now(), "Second"), mockRequest);
+    ResponseEntity<?> changed = controller.getCheckInById(created.getId(), null, conditional);
+    assertEquals(200, changed.getStatusCode().value());
+    assertNotEquals(etag, changed.getHeaders().getETag());
+
+    MockHttpServletRequest all = new MockHttpServletRequest();
+    all.addHeader("If-None-Match", controller.getAllCheckIns(null, new MockHttpServletRequest()).getHeaders().getETag());
+    assertEquals(304, controller.getAllCheckIns(null, all).getStatusCode().value());
+  }
+
+  /**
+   * API test for the multi-get: found check-ins in request order, unknown ids listed as missing
+   */
+  @Test
+  @DisplayName("API: getCheckInsByIds returns found check-ins and missing ids")
+  public void testGetCheckInsByIds() {
+    CheckInResponse a = (CheckInResponse) controller.createCheckIn(
+            new CheckInRequest(501L, LocalDateTime.now(), "a"), mockRequest).getBody();
+    CheckInResponse b = (CheckInResponse) controller.createCheckIn(
+            new CheckInRequest(502L, LocalDateTime.now(), "b"), mockRequest).getBody();
+
+    ResponseEntity<?> response = controller.getCheckInsByIds(
+            List.of(b.getId(), -1L, a.getId(), b.getId()), null, mockRequest);
+
+    assertEquals(200, response.getStatusCode().value());
+    BatchResponse<?, ?> body = (BatchResponse<?, ?>) response.getBody();
+    assertEquals(List.of(b.getId(), a.getId()),
+            body.found().stream().map(r -> ((CheckInResponse) r).getId()).toList());
+    assertEquals(List.of(-1L), body.missing());
+    assertEquals(400, controller.getCheckInsByIds(null, null, mockRequest).getStatusCode().value());
+  }
+}
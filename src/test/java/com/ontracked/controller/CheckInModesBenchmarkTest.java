@@ -0,0 +1,130 @@
+package com.ontracked.controller;
+
+import com.ontracked.dto.checkin.CheckInRequest;
+import com.ontracked.service.CheckInService;
+import com.ontracked.service.ExpansionService;
+import com.ontracked.service.GoalService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the same check-in load through {@link CheckInController} and
+ * {@link AsyncCheckInController} and compares throughput and how many
+ * container threads were busy at peak.
+ *
+ * <p>{@value #CLIENTS} clients keep requests in flight, one create per
+ * {@value #READS_PER_WRITE} reads, against a Tomcat-sized pool of
+ * {@value #CONTAINER_THREADS} threads. A servlet request holds its thread until
+ * the CSV write returns; an async request hands it back once the write is queued.
+ * The check-in CSV is created on the test classpath for the run and removed after.
+ *
+ * <p>Tagged {@code benchmark}; run with {@code mvn -Pbench test}.
+ */
+@Tag("benchmark")
+class CheckInModesBenchmarkTest {
+
+  private static final int REQUESTS = 20_000;
+  private static final int READS_PER_WRITE = 9;
+  private static final int CLIENTS = 1_000;
+  private static final int CONTAINER_THREADS = 200;
+  private static final String HEADER = "id,goalId,checkInDate,notes\n";
+
+  private Path csv;
+
+  @BeforeEach
+  void createCsv() throws Exception {
+    csv = Path.of(getClass().getClassLoader().getResource("").toURI()).resolve("localGoalDB.csv");
+    Files.writeString(csv, HEADER);
+  }
+
+  @AfterEach
+  void deleteCsv() throws Exception {
+    Files.deleteIfExists(csv);
+  }
+
+  private record Result(double requestsPerSecond, int peakBusyThreads) { }
+
+  /** Issues the load; {@code handle} runs on a container thread and returns when the response is done. */
+  private static Result run(IntFunction<CompletableFuture<ResponseEntity<?>>> handle) throws Exception {
+    ExecutorService container = Executors.newFixedThreadPool(CONTAINER_THREADS);
+    Semaphore inFlight = new Semaphore(CLIENTS);
+    AtomicInteger busy = new AtomicInteger();
+    AtomicInteger peak = new AtomicInteger();
+    AtomicInteger failures = new AtomicInteger();
+    long start = System.nanoTime();
+    for (int i = 0; i < REQUESTS; i++) {
+      inFlight.acquire();
+      int n = i;
+      container.execute(() -> {
+        peak.accumulateAndGet(busy.incrementAndGet(), Math::max);
+        try {
+          handle.apply(n).whenComplete((r, e) -> {
+            if (e != null || r.getStatusCode().isError()) {
+              failures.incrementAndGet();
+            }
+            inFlight.release();
+          });
+        } finally {
+          busy.decrementAndGet();
+        }
+      });
+    }
+    inFlight.acquire(CLIENTS);
+    double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    container.shutdown();
+    assertEquals(0, failures.get());
+    return new Result(REQUESTS / seconds, peak.get());
+  }
+
+  private static CheckInRequest create(int n) {
+    return new CheckInRequest(1_000L + n % 50, LocalDateTime.now(), "bench " + n);
+  }
+
+  @Test
+  void throughput_servletVersusAsync() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+
+    CheckInService servletService = new CheckInService();
+    CheckInController servlet = new CheckInController(servletService);
+    servlet.createCheckIn(create(0), request);
+    Long servletId = servletService.getCheckIns().get(0).getId();
+    Result blocking = run(n -> CompletableFuture.completedFuture(n % (READS_PER_WRITE + 1) == 0
+            ? servlet.createCheckIn(create(n), request)
+            : servlet.getCheckInById(servletId, null, request)));
+
+    Files.writeString(csv, HEADER);
+    CheckInService asyncService = new CheckInService();
+    AsyncCheckInController async = new AsyncCheckInController(asyncService,
+            new ExpansionService(new GoalService(), asyncService));
+    async.createCheckIn(create(0), request).join();
+    Long asyncId = asyncService.getCheckIns().get(0).getId();
+    Result nonBlocking = run(n -> n % (READS_PER_WRITE + 1) == 0
+            ? async.createCheckIn(create(n), request)
+            : async.getCheckInById(asyncId, null, request));
+
+    System.out.printf("requests=%d clients=%d container-threads=%d servlet=%.0f req/s (peak %d busy)"
+                    + " async=%.0f req/s (peak %d busy)%n",
+            REQUESTS, CLIENTS, CONTAINER_THREADS, blocking.requestsPerSecond(), blocking.peakBusyThreads(),
+            nonBlocking.requestsPerSecond(), nonBlocking.peakBusyThreads());
+    assertEquals(REQUESTS / (READS_PER_WRITE + 1) + 1, asyncService.getCheckIns().size());
+    assertTrue(nonBlocking.requestsPerSecond() > blocking.requestsPerSecond(),
+            "requests should not wait on threads held by CSV writes");
+  }
+}
@@ -1,125 +1,237 @@
-//package com.ontracked.controller;
-//
-//import com.fasterxml.jackson.databind.ObjectMapper;
-//import com.ontracked.model.Goal;
-//import com.ontracked.model.GoalStatus;
-//import com.ontracked.service.GoalService;
-//import org.junit.jupiter.api.DisplayName;
-//import org.junit.jupiter.api.Test;
-//import org.mockito.ArgumentMatchers;
-//import org.springframework.beans.factory.annotation.Autowired;
-//import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-//import org.springframework.boot.test.mock.mockito.MockBean;
-//import org.springframework.http.MediaType;
-//import org.springframework.test.web.servlet.MockMvc;
-//
-//import java.util.List;
-//import java.util.UUID;
-//
-//import static org.mockito.Mockito.doNothing;
-//import static org.mockito.Mockito.when;
-//import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-//import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-//import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
-//
-//@WebMvcTest(controllers = GoalController.class)
-//class GoalControllerTest {
-//
-//  @Autowired private MockMvc mockMvc;
-//  @Autowired private ObjectMapper objectMapper;
-//
-//  @MockBean private GoalService goalService;
-//
-//  private Goal sampleGoal() {
-//    Goal g = new Goal("owner-1");
-//    g.setId(UUID.randomUUID().toString());
-//    g.setTitle("Title");
-//    g.setDescription("Desc");
-//    g.setStatus(GoalStatus.ACTIVE);
-//    g.setLatestPercentage(30);
-//    return g;
-//  }
-//
-//  @Test
-//  @DisplayName("GET /goal/index returns plain text")
-//  void index() throws Exception {
-//    mockMvc.perform(get("/goal/index"))
-//            .andExpect(status().isOk())
-//            .andExpect(content().string("Goal Controller"));
-//  }
-//
-//  @Test
-//  @DisplayName("GET /goal/getAllGoals returns list")
-//  void getAllGoals_ok() throws Exception {
-//    List<Goal> goals = List.of(sampleGoal(), sampleGoal());
-//    when(goalService.loadGoals()).thenReturn(goals);
-//
-//    mockMvc.perform(get("/goal/getAllGoals"))
-//            .andExpect(status().isOk())
-//            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-//            .andExpect(jsonPath("$.length()").value(2));
-//  }
-//
-//  @Test
-//  @DisplayName("GET /goal/getAllGoals handles service error")
-//  void getAllGoals_error() throws Exception {
-//    when(goalService.loadGoals()).thenThrow(new RuntimeException("boom"));
-//
-//    mockMvc.perform(get("/goal/getAllGoals"))
-//            .andExpect(status().isInternalServerError())
-//            .andExpect(content().string(org.hamcrest.Matchers.containsString("Failed to load goals")));
-//  }
-//
-//  @Test
-//  @DisplayName("GET /goal/retrieveOneGoal returns 200 when found")
-//  void retrieveOneGoal_found() throws Exception {
-//    Goal g = sampleGoal();
-//    when(goalService.retrieveGoal(g.getId())).thenReturn(g);
-//
-//    mockMvc.perform(get("/goal/retrieveOneGoal").param("id", g.getId()))
-//            .andExpect(status().isOk())
-//            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-//            .andExpect(jsonPath("$.id").value(g.getId()))
-//            .andExpect(jsonPath("$.ownerId").value("owner-1"));
-//  }
-//
-//  @Test
-//  @DisplayName("GET /goal/retrieveOneGoal returns 404 when missing")
-//  void retrieveOneGoal_missing() throws Exception {
-//    when(goalService.retrieveGoal("nope")).thenReturn(null);
-//
-//    mockMvc.perform(get("/goal/retrieveOneGoal").param("id", "nope"))
-//            .andExpect(status().isNotFound());
-//  }
-//
-//  @Test
-//  @DisplayName("POST /goal/saveOneGoal accepts a Goal and echoes list")
-//  void saveOneGoal_ok() throws Exception {
-//    Goal g = sampleGoal();
-//    doNothing().when(goalService).saveGoals(ArgumentMatchers.anyList());
-//
-//    mockMvc.perform(
-//                    post("/goal/saveOneGoal")
-//                            .contentType(MediaType.APPLICATION_JSON)
-//                            .content(objectMapper.writeValueAsString(g)))
-//            .andExpect(status().isOk())
-//            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-//            .andExpect(jsonPath("$.length()").value(1))
-//            .andExpect(jsonPath("$[0].ownerId").value("owner-1"));
-//  }
-//
-//  @Test
-//  @DisplayName("POST /goal/saveMultipleGoals accepts list and echoes it")
-//  void saveMultipleGoals_ok() throws Exception {
-//    List<Goal> goals = List.of(sampleGoal(), sampleGoal());
-//    doNothing().when(goalService).saveGoals(ArgumentMatchers.anyList());
-//
-//    mockMvc.perform(
-//                    post("/goal/saveMultipleGoals")
-//                            .contentType(MediaType.APPLICATION_JSON)
-//                            .content(objectMapper.writeValueAsString(goals)))
-//            .andExpect(status().isOk())
-//            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-//            .andExpect(jsonPath("$.length()").value(2));
-//  }
-//}
+package com.ontracked.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.dto.goal.UpdateGoalRequest;
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import com.ontracked.service.CheckInService;
+import com.ontracked.service.ExpansionService;
+import com.ontracked.service.GoalService;
+import com.ontracked.service.GoalVersionConflictException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = GoalController.class)
+@Import(ExpansionService.class)
+class GoalControllerTest {
+
+  @Autowired private MockMvc mockMvc;
+  @Autowired private ObjectMapper objectMapper;
+
+  @MockBean private GoalService goalService;
+  @MockBean private CheckInService checkInService;
+
+  private Goal sampleGoal() {
+    Goal g = new Goal("owner-1");
+    g.setId(UUID.randomUUID().toString());
+    g.setTitle("Title");
+    g.setDescription("Desc");
+    g.setStatus(GoalStatus.ACTIVE);
+    g.setLatestPercentage(30);
+    return g;
+  }
+
+  @Test
+  @DisplayName("GET /goal/index returns plain text")
+  void index() throws Exception {
+    mockMvc.perform(get("/goal/index"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("Goal Controller"));
+  }
+
+  @Test
+  @DisplayName("GET /goal/getAllGoals returns list")
+  void getAllGoals_ok() throws Exception {
+    List<Goal> goals = List.of(sampleGoal(), sampleGoal());
+    when(goalService.loadGoals()).thenReturn(goals);
+
+    mockMvc.perform(get("/goal/getAllGoals"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.length()").value(2));
+  }
+
+  @Test
+  @DisplayName("GET /goal/getAllGoals handles service error")
+  void getAllGoals_error() throws Exception {
+    when(goalService.loadGoals()).thenThrow(new RuntimeException("boom"));
+
+    mockMvc.perform(get("/goal/getAllGoals"))
+            .andExpect(status().isInternalServerError())
+            .andExpect(content().string(org.hamcrest.Matchers.containsString("Failed to load goals")));
+  }
+
+  @Test
+  @DisplayName("GET /goal/retrieveOneGoal returns 200 when found")
+  void retrieveOneGoal_found() throws Exception {
+    Goal g = sampleGoal();
+    when(goalService.retrieveGoal(g.getId())).thenReturn(g);
+
+    mockMvc.perform(get("/goal/retrieveOneGoal").param("id", g.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.id").value(g.getId()))
+            .andExpect(jsonPath("$.ownerId").value("owner-1"));
+  }
+
+  @Test
+  @DisplayName("GET /goal/retrieveOneGoal returns 404 when missing")
+  void retrieveOneGoal_missing() throws Exception {
+    when(goalService.retrieveGoal("nope")).thenReturn(null);
+
+    mockMvc.perform(get("/goal/retrieveOneGoal").param("id", "nope"))
+            .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("POST /goal/saveOneGoal accepts a Goal and echoes list")
+  void saveOneGoal_ok() throws Exception {
+    Goal g = sampleGoal();
+    doNothing().when(goalService).saveGoals(ArgumentMatchers.anyList());
+
+    mockMvc.perform(
+                    post("/goal/saveOneGoal")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(g)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].ownerId").value("owner-1"));
+  }
+
+  @Test
+  @DisplayName("POST /goal/saveMultipleGoals accepts list and echoes it")
+  void saveMultipleGoals_ok() throws Exception {
+    List<Goal> goals = List.of(sampleGoal(), sampleGoal());
+    doNothing().when(goalService).saveGoals(ArgumentMatchers.anyList());
+
+    mockMvc.perform(
+                    post("/goal/saveMultipleGoals")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(goals)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.length()").value(2));
+  }
+
+  @Test
+  @DisplayName("PATCH /goal/updateGoal returns the updated goal")
+  void updateGoal_ok() throws Exception {
+    Goal g = sampleGoal();
+    g.setLatestPercentage(50);
+    when(goalService.updateGoal(ArgumentMatchers.any(UpdateGoalRequest.class))).thenReturn(g);
+
+    mockMvc.perform(
+                    patch("/goal/updateGoal")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"id\":\"" + g.getId() + "\",\"latestPercentage\":50,\"expectedVersion\":1}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.latestPercentage").value(50));
+  }
+
+  @Test
+  @DisplayName("PATCH /goal/updateGoal returns 409 on a version conflict and 404 when missing")
+  void updateGoal_conflictAndMissing() throws Exception {
+    when(goalService.updateGoal(ArgumentMatchers.argThat(r -> r != null && "g-1".equals(r.getId()))))
+            .thenThrow(new GoalVersionConflictException("g-1", 1, 2));
+
+    mockMvc.perform(
+                    patch("/goal/updateGoal")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"id\":\"g-1\",\"title\":\"New\",\"expectedVersion\":1}"))
+            .andExpect(status().isConflict());
+
+    mockMvc.perform(
+                    patch("/goal/updateGoal")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"id\":\"nope\",\"title\":\"New\"}"))
+            .andExpect(status().isNotFound());
+
+    mockMvc.perform(
+                    patch("/goal/updateGoal")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"title\":\"New\"}"))
+            .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("GET /goal/retrieveOneGoal returns 304 while the client's ETag is current")
+  void retrieveOneGoal_notModified() throws Exception {
+    Goal g = sampleGoal();
+    when(goalService.retrieveGoal(g.getId())).thenReturn(g);
+
+    String etag = mockMvc.perform(get("/goal/retrieveOneGoal").param("id", g.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andReturn().getResponse().getHeader("ETag");
+
+    mockMvc.perform(get("/goal/retrieveOneGoal").param("id", g.getId()).header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+    g.setLatestPercentage(90);
+    mockMvc.perform(get("/goal/retrieveOneGoal").param("id", g.getId()).header("If-None-Match", etag))
+            .andExpect(status().isOk());
+  }
+
+  @Test
+  @DisplayName("POST /goal/retrieveGoals returns found goals and missing ids")
+  void retrieveGoals_foundAndMissing() throws Exception {
+    Goal a = sampleGoal();
+    Goal b = sampleGoal();
+    when(goalService.retrieveGoals(List.of(b.getId(), "nope", a.getId())))
+            .thenReturn(new LinkedHashMap<>(Map.of(b.getId(), b, a.getId(), a)));
+
+    mockMvc.perform(
+                    post("/goal/retrieveGoals")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(List.of(b.getId(), "nope", a.getId()))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.found.length()").value(2))
+            .andExpect(jsonPath("$.missing[0]").value("nope"));
+
+    mockMvc.perform(post("/goal/retrieveGoals").contentType(MediaType.APPLICATION_JSON).content("{}"))
+            .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("GET /goal/retrieveOneGoal?expand=checkIns embeds the goal's check-ins")
+  void retrieveOneGoal_expandCheckIns() throws Exception {
+    Goal g = sampleGoal();
+    g.setId("42");
+    when(goalService.retrieveGoal("42")).thenReturn(g);
+    when(checkInService.getCheckInsForGoals(ArgumentMatchers.anyCollection()))
+            .thenReturn(Map.of(42L, List.of(new CheckIn(7L, 42L, null, "n", null, null, 1))));
+
+    mockMvc.perform(get("/goal/retrieveOneGoal").param("id", "42").param("expand", "checkIns"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("ETag"))
+            .andExpect(jsonPath("$.id").value("42"))
+            .andExpect(jsonPath("$.title").value("Title"))
+            .andExpect(jsonPath("$.checkIns[0].id").value(7))
+            .andExpect(jsonPath("$.owner").doesNotExist());
+
+    mockMvc.perform(get("/goal/retrieveOneGoal").param("id", "42").param("expand", "parent"))
+            .andExpect(status().isBadRequest());
+  }
+}
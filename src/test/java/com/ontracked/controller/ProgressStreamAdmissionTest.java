@@ -0,0 +1,105 @@
+package com.ontracked.controller;
+
+import com.ontracked.service.ProgressUpdateService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Holds more progress streams open at once than the admission limit allows
+ * writes, against a running server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ontracked.admission.initial-limit=4",
+        "ontracked.admission.max-limit=4",
+        "ontracked.admission.queue-size=0",
+        "ontracked.progress.file=" + ProgressStreamAdmissionTest.FILE
+})
+class ProgressStreamAdmissionTest {
+
+  static final String FILE = "target/progress-stream-admission.csv";
+  private static final int STREAMS = 6;
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private ProgressUpdateService progressUpdates;
+
+  @AfterAll
+  static void deleteLog() throws IOException {
+    Files.deleteIfExists(Path.of(FILE));
+  }
+
+  /** Opens a chunked POST /progress/stream and leaves the body open. */
+  private Socket openStream() throws IOException {
+    Socket socket = new Socket("localhost", port);
+    socket.setSoTimeout(10_000);
+    OutputStream out = socket.getOutputStream();
+    out.write(("POST /progress/stream HTTP/1.1\r\nHost: localhost\r\n"
+            + "Content-Type: application/x-ndjson\r\nTransfer-Encoding: chunked\r\n"
+            + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+    return socket;
+  }
+
+  private static void sendChunk(Socket socket, String text) throws IOException {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    OutputStream out = socket.getOutputStream();
+    out.write((Integer.toHexString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    out.write(bytes);
+    out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    out.flush();
+  }
+
+  @Test
+  void streamsBeyondTheWriteLimit_areAllAdmitted() throws Exception {
+    long before = progressUpdates.persisted();
+    List<Socket> streams = new ArrayList<>();
+    try {
+      for (int i = 0; i < STREAMS; i++) {
+        Socket socket = openStream();
+        streams.add(socket);
+        sendChunk(socket, "{\"goalId\": " + i + ", \"percentComplete\": 10}\n");
+      }
+
+      // Each stream's first update is persisted while every stream is still open.
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (progressUpdates.persisted() < before + STREAMS) {
+        assertTrue(System.nanoTime() < deadline,
+                "only " + (progressUpdates.persisted() - before) + " streams were admitted");
+        Thread.sleep(10);
+      }
+
+      for (Socket socket : streams) {
+        socket.getOutputStream().write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+      }
+      for (Socket socket : streams) {
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        assertTrue(in.readLine().startsWith("HTTP/1.1 200"));
+      }
+    } finally {
+      for (Socket socket : streams) {
+        socket.close();
+      }
+    }
+  }
+}
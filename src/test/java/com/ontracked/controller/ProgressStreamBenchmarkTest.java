@@ -0,0 +1,58 @@
+package com.ontracked.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.dto.progress.ProgressStreamResponse;
+import com.ontracked.service.ProgressUpdateService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures end-to-end ingestion rate of one NDJSON progress stream: parsing,
+ * buffering and batched writes, up to the final flush.
+ *
+ * <p>Tagged {@code benchmark}; run with {@code mvn -Pbench test}.
+ */
+@Tag("benchmark")
+class ProgressStreamBenchmarkTest {
+
+  private static final int UPDATES = 500_000;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void updatesPerSecond_singleStream() {
+    StringBuilder body = new StringBuilder(UPDATES * 64);
+    for (int i = 0; i < UPDATES; i++) {
+      body.append("{\"goalId\":").append(i % 1_000).append(",\"percentComplete\":").append(i % 101)
+              .append(",\"note\":\"lesson ").append(i % 37).append("\"}\n");
+    }
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/progress/stream");
+    request.setContent(body.toString().getBytes(StandardCharsets.UTF_8));
+
+    ProgressUpdateService service = new ProgressUpdateService(dir.resolve("progress.csv"), 65_536, 4_096,
+            Duration.ofSeconds(5));
+    ProgressStreamController controller = new ProgressStreamController(service, new ObjectMapper());
+    long start = System.nanoTime();
+    ResponseEntity<?> response = controller.ingest(request);
+    double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    service.close();
+
+    double rate = UPDATES / seconds;
+    System.out.printf("updates=%d %.0f updates/s batches=%d (%.0f updates/batch)%n",
+            UPDATES, rate, service.batches(), (double) service.persisted() / service.batches());
+    assertEquals(UPDATES, ((ProgressStreamResponse) response.getBody()).accepted());
+    assertEquals(UPDATES, service.persisted());
+    assertTrue(rate > 20_000, "expected tens of thousands of updates per second, got " + (long) rate);
+  }
+}
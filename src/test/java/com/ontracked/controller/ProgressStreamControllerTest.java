@@ -0,0 +1,74 @@
+package com.ontracked.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.dto.progress.ProgressStreamResponse;
+import com.ontracked.service.ProgressUpdateService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressStreamControllerTest {
+
+  @TempDir
+  Path dir;
+
+  private ProgressUpdateService service;
+  private ProgressStreamController controller;
+
+  @BeforeEach
+  void setup() {
+    service = new ProgressUpdateService(dir.resolve("progress.csv"), 16, 8, Duration.ofSeconds(5));
+    controller = new ProgressStreamController(service, new ObjectMapper());
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.close();
+  }
+
+  private static MockHttpServletRequest stream(String body) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/progress/stream");
+    request.setContentType("application/x-ndjson");
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    return request;
+  }
+
+  @Test
+  void ingest_persistsValidLines_andReportsRejectedOnes() throws Exception {
+    String body = """
+            {"goalId": 1, "percentComplete": 10}
+            {"goalId": 1, "percentComplete": 20, "note": "halfway"}
+
+            {"goalId": 2, "percentComplete": 101}
+            not json
+            {"goalId": 3, "percentComplete": 100}
+            """;
+
+    ResponseEntity<?> response = controller.ingest(stream(body));
+
+    assertEquals(200, response.getStatusCode().value());
+    ProgressStreamResponse result = (ProgressStreamResponse) response.getBody();
+    assertEquals(3, result.accepted());
+    assertEquals(2, result.rejected());
+    assertTrue(result.errors().get(0).startsWith("line 4: percentComplete"));
+    assertTrue(result.errors().get(1).startsWith("line 5: "));
+    assertEquals(4, Files.readAllLines(dir.resolve("progress.csv")).size(), "header plus three updates");
+  }
+
+  @Test
+  void ingest_ofEmptyStream_acceptsNothing() {
+    ResponseEntity<?> response = controller.ingest(stream(""));
+    assertEquals(200, response.getStatusCode().value());
+    assertEquals(0, ((ProgressStreamResponse) response.getBody()).accepted());
+  }
+}
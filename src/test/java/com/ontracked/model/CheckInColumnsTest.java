@@ -0,0 +1,59 @@
+package com.ontracked.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckInColumnsTest {
+
+  private static CheckIn checkIn(long id, Long goalId, String date) {
+    return new CheckIn(id, goalId, date == null ? null : LocalDateTime.parse(date), null, null, null, 1);
+  }
+
+  /** 2025-03-03 is a Monday; Sunday 2025-03-09 still belongs to that week. */
+  @Test
+  void weeklyCounts_bucketByMondayWeeks_perGoal() {
+    CheckInColumns columns = new CheckInColumns();
+    columns.add(0, checkIn(1, 7L, "2025-03-03T00:00:00"));
+    columns.add(1, checkIn(2, 7L, "2025-03-09T23:59:59"));
+    columns.add(2, checkIn(3, 7L, "2025-03-10T08:00:00"));
+    columns.add(3, checkIn(4, 3L, "2025-02-20T12:00:00"));
+    columns.add(4, checkIn(5, 3L, null));
+    columns.add(5, checkIn(6, null, "2025-03-04T12:00:00"));
+
+    assertEquals(List.of(
+            new CheckInColumns.WeeklyCount(3, LocalDate.parse("2025-02-17"), 1),
+            new CheckInColumns.WeeklyCount(7, LocalDate.parse("2025-03-03"), 2),
+            new CheckInColumns.WeeklyCount(7, LocalDate.parse("2025-03-10"), 1)),
+            columns.weeklyCounts(CheckInColumns.NONE, null, null));
+
+    assertEquals(List.of(new CheckInColumns.WeeklyCount(7, LocalDate.parse("2025-03-10"), 1)),
+            columns.weeklyCounts(7, LocalDate.parse("2025-03-10"), null));
+    assertTrue(columns.weeklyCounts(9, null, null).isEmpty());
+
+    assertEquals(2, columns.count(7, null, LocalDate.parse("2025-03-09")));
+    assertEquals(5, columns.count(CheckInColumns.NONE, null, null));
+  }
+
+  @Test
+  void insertSetAndRemove_keepRowsAligned() {
+    CheckInColumns columns = new CheckInColumns();
+    for (int i = 0; i < 40; i++) {
+      columns.add(i, checkIn(i, 1L, "2025-01-01T10:00:00"));
+    }
+    columns.add(0, checkIn(100, 2L, "2025-01-01T10:00:00"));
+    columns.remove(5);
+    columns.set(1, checkIn(0, 2L, "2025-01-01T10:00:00"));
+
+    assertEquals(40, columns.size());
+    assertEquals(0, columns.indexOfId(100, 0));
+    assertEquals(1, columns.indexOfId(0, 0));
+    assertEquals(-1, columns.indexOfId(4, 0));
+    assertEquals(2, columns.count(2, null, null));
+    assertEquals(38, columns.count(1, null, null));
+  }
+}
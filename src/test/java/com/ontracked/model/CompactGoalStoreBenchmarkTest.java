@@ -0,0 +1,78 @@
+package com.ontracked.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures retained heap per goal for a plain {@code List<Goal>} against a
+ * {@link CompactGoalStore} holding the same rows.
+ *
+ * <p>Tagged {@code benchmark}; run with {@code mvn -Pbench test}.
+ */
+@Tag("benchmark")
+class CompactGoalStoreBenchmarkTest {
+
+  private static final int GOALS = 200_000;
+  private static final int OWNERS = 2_000;
+
+  private static List<Goal> sampleGoals() {
+    Instant base = Instant.parse("2025-01-01T00:00:00Z");
+    List<String> owners = new ArrayList<>();
+    for (int i = 0; i < OWNERS; i++) {
+      owners.add(UUID.randomUUID().toString());
+    }
+    List<Goal> goals = new ArrayList<>(GOALS);
+    for (int i = 0; i < GOALS; i++) {
+      Instant created = base.plusSeconds(i * 37L).plusNanos(i);
+      String parent = i % 4 == 0 ? null : goals.get(i - 1).getId();
+      goals.add(new Goal(UUID.randomUUID().toString(), owners.get(i % OWNERS), parent, null,
+              "Goal " + i, "Reading plan, week " + (i % 52), "2025-12-31",
+              GoalStatus.values()[i % GoalStatus.values().length], i % 101,
+              created, created.plusSeconds(3600), 1 + i % 5));
+    }
+    return goals;
+  }
+
+  private static long usedHeap() {
+    Runtime rt = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  @Test
+  void bytesPerGoal_listVersusCompactStore() {
+    long before = usedHeap();
+    List<Goal> goals = sampleGoals();
+    long listBytes = usedHeap() - before;
+
+    before = usedHeap();
+    CompactGoalStore store = new CompactGoalStore(GOALS);
+    for (Goal g : goals) {
+      store.add(g);
+    }
+    long storeBytes = usedHeap() - before;
+
+    // Titles are shared with the list here, so add back what the list paid for
+    // them to compare like with like. Descriptions are copied off-heap.
+    long stringBytes = 0;
+    for (Goal g : goals) {
+      stringBytes += 40L + g.getTitle().length();
+    }
+
+    System.out.printf("goals=%d list=%.1f B/goal compact=%.1f B/goal (+%.1f B/goal for shared titles,"
+                    + " %.1f B/goal off-heap descriptions)%n",
+            GOALS, (double) listBytes / GOALS, (double) storeBytes / GOALS, (double) stringBytes / GOALS,
+            (double) store.descriptionBytes() / GOALS);
+    assertEquals(GOALS, store.size());
+    assertTrue(storeBytes + stringBytes < listBytes, "compact store should be smaller than the object graph");
+  }
+}
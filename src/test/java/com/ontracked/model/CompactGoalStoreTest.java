@@ -0,0 +1,120 @@
+package com.ontracked.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CompactGoalStore}: rows must read back exactly as the
+ * goals they were copied from, whatever form their ids take.
+ */
+class CompactGoalStoreTest {
+
+  private static final Instant CREATED = Instant.parse("2025-01-02T03:04:05.123456789Z");
+
+  private static Goal goal(String id, String owner, String parent, List<String> children, GoalStatus status) {
+    return new Goal(id, owner, parent, children, "Title " + id, "Notes for " + id, "2025-06-30",
+            status, 40, CREATED, CREATED.plusSeconds(90), 3);
+  }
+
+  private static void assertSameGoal(GoalView expected, GoalView actual) {
+    assertEquals(expected.getId(), actual.getId());
+    assertEquals(expected.getOwnerId(), actual.getOwnerId());
+    assertEquals(expected.getParentId(), actual.getParentId());
+    assertEquals(expected.getChildrenId(), actual.getChildrenId());
+    assertEquals(expected.getTitle(), actual.getTitle());
+    assertEquals(expected.getDescription(), actual.getDescription());
+    assertEquals(expected.getDueDate(), actual.getDueDate());
+    assertEquals(expected.getStatus(), actual.getStatus());
+    assertEquals(expected.getLatestPercentage(), actual.getLatestPercentage());
+    assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+    assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+    assertEquals(expected.getVersionNumber(), actual.getVersionNumber());
+  }
+
+  /** UUID ids, free-text ids, parents and children all round-trip through the columns. */
+  @Test
+  void rows_roundTripUuidAndTextIds() {
+    String uuid = UUID.randomUUID().toString();
+    String child = UUID.randomUUID().toString();
+    Goal a = goal(uuid, "owner-1", null, List.of(child, "legacy-child"), GoalStatus.ACTIVE);
+    Goal b = goal("goal-7", "owner-2", uuid, null, GoalStatus.COMPLETED);
+    // Upper-case UUIDs are not canonical and must keep their original text.
+    Goal c = goal(uuid.toUpperCase(), "owner-1", "goal-7", null, GoalStatus.ARCHIVED);
+
+    CompactGoalStore store = new CompactGoalStore(1);
+    store.add(a);
+    store.add(b);
+    store.add(c);
+
+    assertEquals(3, store.size());
+    assertSameGoal(a, store.toGoal(0));
+    assertSameGoal(b, store.cursor().at(1));
+    assertSameGoal(c, store.toGoal(2));
+    assertEquals(GoalStatus.COMPLETED, store.status(1));
+  }
+
+  /** Lookups by id return the first row written; owner rows come back in insertion order. */
+  @Test
+  void findAndOwnerRows_useIndexes() {
+    CompactGoalStore store = new CompactGoalStore();
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      String id = UUID.randomUUID().toString();
+      ids.add(id);
+      store.add(goal(id, "owner-" + (i % 3), null, null, GoalStatus.ACTIVE));
+    }
+    store.add(goal(ids.get(5), "owner-2", null, null, GoalStatus.COMPLETED));
+
+    assertEquals(5, store.find(ids.get(5)));
+    assertEquals(42, store.find(ids.get(42)));
+    assertEquals(-1, store.find("missing"));
+    assertEquals(-1, store.find(null));
+    assertEquals(3, store.ownerCount());
+
+    List<Integer> rows = new ArrayList<>();
+    store.forEachRowOfOwner("owner-2", rows::add);
+    assertEquals(34, rows.size());
+    assertEquals(2, rows.get(0));
+    assertEquals(100, rows.get(rows.size() - 1));
+    store.forEachRowOfOwner("nobody", row -> fail("unexpected row " + row));
+  }
+
+  /** A re-saved goal supersedes its earlier rows; find keeps returning the first. */
+  @Test
+  void laterVersions_supersedeEarlierRows() {
+    String id = UUID.randomUUID().toString();
+    CompactGoalStore store = new CompactGoalStore();
+    store.add(goal(id, "o", null, null, GoalStatus.ACTIVE));
+    store.add(goal("other", "o", null, null, GoalStatus.ACTIVE));
+    store.add(goal(id, "o", null, null, GoalStatus.ARCHIVED));
+    store.add(goal(id, "o", null, null, GoalStatus.COMPLETED));
+
+    assertEquals(0, store.find(id));
+    assertEquals(3, store.findLatest(id));
+    assertEquals(-1, store.findLatest("missing"));
+    assertFalse(store.isLatest(0));
+    assertTrue(store.isLatest(1));
+    assertFalse(store.isLatest(2));
+    assertTrue(store.isLatest(3));
+  }
+
+  /** A small store reserves off-heap room for its descriptions only once it has some. */
+  @Test
+  void descriptionArena_isAllocatedLazilyAndSizedToItsContents() {
+    CompactGoalStore store = new CompactGoalStore(16, 100);
+    Goal plain = goal("plain", "o", null, null, GoalStatus.ACTIVE);
+    plain.setDescription(null);
+    store.add(plain);
+    assertEquals(0, store.descriptionBytes());
+
+    store.add(goal("described", "o", null, null, GoalStatus.ACTIVE));
+    assertEquals(1024, store.descriptionBytes(), "One minimum-size segment, not 64 KiB");
+    assertEquals("Notes for described", store.toGoal(1).getDescription());
+  }
+}
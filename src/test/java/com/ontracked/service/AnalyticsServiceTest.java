@@ -0,0 +1,187 @@
+package com.ontracked.service;
+
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import com.ontracked.model.GoalView;
+import com.ontracked.model.User;
+import com.ontracked.service.AnalyticsService.Query;
+import com.ontracked.service.AnalyticsService.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyticsServiceTest {
+
+  /** A Thursday; the week started on 2025-05-05. */
+  private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-05-08T12:00:00Z"), ZoneOffset.UTC);
+
+  private AnalyticsService service;
+
+  @AfterEach
+  void tearDown() {
+    if (service != null) {
+      service.shutdown();
+    }
+  }
+
+  private static GoalService goalsOf(List<Goal> goals) {
+    return new GoalService() {
+      @Override
+      public void forEachLatestGoal(Consumer<? super GoalView> action) {
+        goals.forEach(action);
+      }
+    };
+  }
+
+  private static CheckInService checkInsOf(List<CheckIn> checkIns) {
+    return new CheckInService() {
+      @Override
+      public List<CheckIn> getCheckIns() {
+        return checkIns;
+      }
+    };
+  }
+
+  private static Goal goal(String id, String owner, int percentage) {
+    Instant now = Instant.parse("2025-05-01T00:00:00Z");
+    return new Goal(id, owner, null, null, "t", null, "2025-06-01", GoalStatus.ACTIVE, percentage, now, now, 1);
+  }
+
+  private static CheckIn checkIn(long id, long goalId, String date) {
+    LocalDateTime at = LocalDateTime.parse(date + "T09:00:00");
+    return new CheckIn(id, goalId, at, "", at, at, 1);
+  }
+
+  private AnalyticsService classroom() {
+    List<User> users = List.of(
+            new User(1, "Ann", "ann@x.org", "STUDENT"),
+            new User(2, "Ben", "ben@x.org", "STUDENT"),
+            new User(3, "Cat", "cat@x.org", "STUDENT"),
+            new User(4, "Dee", "dee@x.org", "TEACHER"));
+    GoalService goals = goalsOf(List.of(
+            goal("10", "1", 80), goal("20", "2", 40), goal("30", "3", 60), goal("40", "4", 100)));
+    CheckInService checkIns = checkInsOf(List.of(
+            checkIn(1, 10, "2025-05-06"),
+            checkIn(2, 10, "2025-04-01"),
+            checkIn(3, 20, "2025-05-01"),
+            checkIn(4, 99, "2025-05-07")));
+    service = new AnalyticsService(goals, checkIns, () -> users, CLOCK, 2);
+    return service;
+  }
+
+  @Test
+  void averageCompletionByRole() throws TimeoutException {
+    AnalyticsService analytics = classroom();
+    Query query = analytics.parse("goals", null, List.of("ownerRole"),
+            List.of("avg:latestPercentage", "count", "max:latestPercentage"), null, null, null);
+
+    Result result = analytics.execute(query);
+
+    assertEquals(4, result.scanned());
+    assertEquals(List.of(
+            Map.of("ownerRole", "STUDENT", "avg(latestPercentage)", 60.0, "count", 3L, "max(latestPercentage)", 80L),
+            Map.of("ownerRole", "TEACHER", "avg(latestPercentage)", 100.0, "count", 1L, "max(latestPercentage)", 100L)),
+            result.groups());
+    assertNull(result.rows());
+  }
+
+  @Test
+  void checkInsPerGoal_overTheLastThirtyDays() throws TimeoutException {
+    AnalyticsService analytics = classroom();
+    Query query = analytics.parse("checkins", List.of("checkInDate:gte:today-30"), List.of("goalId", "ownerId"),
+            null, null, null, null);
+
+    List<Map<String, Object>> groups = analytics.execute(query).groups();
+
+    assertEquals(3, groups.size());
+    assertEquals(10L, groups.get(0).get("goalId"));
+    assertEquals("1", groups.get(0).get("ownerId"));
+    assertEquals(1L, groups.get(0).get("count"));
+    assertEquals(99L, groups.get(2).get("goalId"));
+    assertNull(groups.get(2).get("ownerId"));
+  }
+
+  @Test
+  void studentsWithoutACheckInThisWeek_includeThoseWhoNeverCheckedIn() throws TimeoutException {
+    AnalyticsService analytics = classroom();
+    Query query = analytics.parse("users", List.of("role:eq:student", "lastCheckIn:lt:weekStart"), null, null,
+            List.of("userId", "checkIns"), null, null);
+
+    Result result = analytics.execute(query);
+
+    assertEquals(List.of(Map.of("userId", 2L, "checkIns", 1L), Map.of("userId", 3L, "checkIns", 0L)),
+            result.rows());
+    assertEquals(2, result.matched());
+    assertFalse(result.truncated());
+  }
+
+  @Test
+  void largeScan_splitsAcrossLeaves_andMatchesSequentialCounts() throws TimeoutException {
+    List<Goal> goals = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      goals.add(goal("g" + i, String.valueOf(i % 7), i % 101));
+    }
+    service = new AnalyticsService(goalsOf(goals), checkInsOf(List.of()), List::of, CLOCK, 4);
+    Query query = service.parse("goals", List.of("latestPercentage:gte:50"), List.of("ownerId"),
+            List.of("count", "sum:latestPercentage"), null, null, null);
+
+    Result result = service.execute(query);
+
+    assertTrue(result.leaves() > 1, "expected the scan to be split, got " + result.leaves());
+    long expected = goals.stream().filter(g -> g.getLatestPercentage() >= 50).count();
+    assertEquals(expected, result.matched());
+    assertEquals(expected, result.groups().stream().mapToLong(g -> (Long) g.get("count")).sum());
+    double sum = goals.stream().filter(g -> g.getOwnerId().equals("3") && g.getLatestPercentage() >= 50)
+            .mapToInt(Goal::getLatestPercentage).sum();
+    assertEquals(sum, (Double) result.groups().get(3).get("sum(latestPercentage)"), 1e-9);
+  }
+
+  @Test
+  void query_pastItsTimeout_fails() {
+    GoalService slow = new GoalService() {
+      @Override
+      public void forEachLatestGoal(Consumer<? super GoalView> action) {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    service = new AnalyticsService(slow, checkInsOf(List.of()), List::of, CLOCK, 1);
+    Query query = service.parse("goals", null, null, null, null, null, 10L);
+
+    assertThrows(TimeoutException.class, () -> service.execute(query));
+  }
+
+  @Test
+  void parse_rejectsInvalidQueries() {
+    AnalyticsService analytics = classroom();
+    assertThrows(IllegalArgumentException.class,
+            () -> analytics.parse("grades", null, null, null, null, null, null));
+    assertThrows(IllegalArgumentException.class,
+            () -> analytics.parse("goals", List.of("nope:eq:1"), null, null, null, null, null));
+    assertThrows(IllegalArgumentException.class,
+            () -> analytics.parse("goals", List.of("latestPercentage:like:1"), null, null, null, null, null));
+    assertThrows(IllegalArgumentException.class,
+            () -> analytics.parse("goals", List.of("dueDate:lt:soon"), null, null, null, null, null));
+    assertThrows(IllegalArgumentException.class,
+            () -> analytics.parse("goals", null, null, List.of("avg:status"), null, null, null));
+    assertThrows(IllegalArgumentException.class,
+            () -> analytics.parse("goals", null, List.of("status"), null, List.of("id"), null, null));
+    assertThrows(IllegalArgumentException.class,
+            () -> analytics.parse("goals", null, null, null, null, null, 60_000L));
+  }
+}
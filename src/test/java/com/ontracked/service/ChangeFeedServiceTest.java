@@ -0,0 +1,161 @@
+package com.ontracked.service;
+
+import com.ontracked.dto.feed.ChangeEvent;
+import com.ontracked.model.CheckIn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedServiceTest {
+
+  /** Sink recording what the feed delivered; can be made to block to simulate a slow client. */
+  static class RecordingSink implements ChangeFeedService.EventSink {
+    final List<Long> offsets = new CopyOnWriteArrayList<>();
+    final List<String> names = new CopyOnWriteArrayList<>();
+    volatile String resyncReason;
+    volatile boolean closed;
+    final CountDownLatch gate;
+
+    RecordingSink(CountDownLatch gate) {
+      this.gate = gate;
+    }
+
+    @Override
+    public void send(ChangeEvent event) {
+      try {
+        gate.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      offsets.add(event.offset());
+      names.add(event.name());
+    }
+
+    @Override
+    public void resync(String reason, long lastOffset) {
+      resyncReason = reason;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  private ChangeFeedService feed;
+
+  @AfterEach
+  void tearDown() {
+    if (feed != null) {
+      feed.shutdown();
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  void liveSubscriberReceivesServiceWritesInOrder() throws Exception {
+    CheckInServiceTest.TestableCheckInService checkIns = new CheckInServiceTest.TestableCheckInService();
+    feed = new ChangeFeedService(new GoalService(), checkIns, 16, 16);
+    RecordingSink sink = new RecordingSink(new CountDownLatch(0));
+    feed.subscribe(null, sink);
+
+    CheckIn c = new CheckIn();
+    c.setGoalId(1L);
+    checkIns.addCheckIn(c);
+    checkIns.updateCheckIn(c);
+
+    await(() -> sink.offsets.size() == 2);
+    assertEquals(List.of(1L, 2L), sink.offsets);
+    assertEquals(List.of("checkin.created", "checkin.updated"), sink.names);
+  }
+
+  @Test
+  void resumesFromLastEventId() throws Exception {
+    feed = new ChangeFeedService(16, 16);
+    for (int i = 0; i < 5; i++) {
+      feed.publish("goal", "saved", "g" + i, null);
+    }
+    RecordingSink sink = new RecordingSink(new CountDownLatch(0));
+    feed.subscribe(3L, sink);
+    await(() -> sink.offsets.size() == 2);
+    assertEquals(List.of(4L, 5L), sink.offsets);
+    assertNull(sink.resyncReason);
+  }
+
+  @Test
+  void evictedOffsetTriggersResync() throws Exception {
+    feed = new ChangeFeedService(4, 16);
+    for (int i = 0; i < 10; i++) {
+      feed.publish("goal", "saved", "g" + i, null);
+    }
+    RecordingSink sink = new RecordingSink(new CountDownLatch(0));
+    feed.subscribe(2L, sink);
+    await(() -> sink.closed);
+    assertNotNull(sink.resyncReason);
+    assertTrue(sink.offsets.isEmpty());
+    assertEquals(0, feed.subscriberCount());
+  }
+
+  @Test
+  void offsetBeyondLatestTriggersResync() throws Exception {
+    feed = new ChangeFeedService(16, 16);
+    feed.publish("goal", "saved", "g1", null);
+    RecordingSink sink = new RecordingSink(new CountDownLatch(0));
+    feed.subscribe(40L, sink);
+    await(() -> sink.closed);
+    assertNotNull(sink.resyncReason);
+    assertEquals(0, feed.subscriberCount());
+  }
+
+  @Test
+  void unsubscribedSinkReceivesNothingMore() throws Exception {
+    feed = new ChangeFeedService(16, 16);
+    RecordingSink sink = new RecordingSink(new CountDownLatch(0));
+    feed.subscribe(null, sink);
+    feed.publish("goal", "saved", "g1", null);
+    await(() -> sink.offsets.size() == 1);
+
+    feed.unsubscribe(sink);
+    feed.publish("goal", "saved", "g2", null);
+    assertEquals(0, feed.subscriberCount());
+    Thread.sleep(50);
+    assertEquals(List.of(1L), sink.offsets);
+    assertFalse(sink.closed);
+  }
+
+  @Test
+  void slowSubscriberIsDroppedWithoutBlockingWriters() throws Exception {
+    feed = new ChangeFeedService(64, 4);
+    CountDownLatch gate = new CountDownLatch(1);
+    RecordingSink slow = new RecordingSink(gate);
+    RecordingSink fast = new RecordingSink(new CountDownLatch(0));
+    feed.subscribe(null, slow);
+    feed.subscribe(null, fast);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 50; i++) {
+      feed.publish("user", ChangeType.CREATED, String.valueOf(i), null);
+    }
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000,
+            "publishing must not wait on the slow subscriber");
+    gate.countDown();
+
+    await(() -> slow.closed);
+    assertEquals("subscriber buffer overflow", slow.resyncReason);
+    assertEquals(50L, feed.latestOffset());
+  }
+}
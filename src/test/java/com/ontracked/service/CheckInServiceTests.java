@@ -1,10 +1,12 @@
 package com.ontracked.service;
 
 import com.ontracked.model.CheckIn;
+import com.ontracked.model.CheckInColumns;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Method;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -131,6 +133,82 @@ class CheckInServiceTest {
         assertEquals(42L, parseLong.invoke(service, "42"));
     }
 
+    /**
+     * Tests that the id and goalId indexes follow adds, replacements and in-place edits
+     */
+    @Test
+    void testIndexes_FollowListChangesAndUpdates() {
+        CheckIn a = new CheckIn(1L, 5L, null, "a", null, null, 1);
+        CheckIn b = new CheckIn(2L, 5L, null, "b", null, null, 1);
+        service.getCheckIns().add(a);
+        service.addCheckIn(b);
+
+        assertSame(a, service.getCheckIn(1L));
+        assertNull(service.getCheckIn(3L));
+        assertNull(service.getCheckIn(null));
+        assertEquals(List.of(a, b), service.getCheckInsForGoal(5L));
+
+        // Moved to another goal in place, as the controller does.
+        a.setGoalId(6L);
+        service.updateCheckIn(a);
+        assertEquals(List.of(b), service.getCheckInsForGoal(5L));
+        assertEquals(List.of(a), service.getCheckInsForGoal(6L));
+
+        // Replaced by a new instance, as replication does.
+        CheckIn replacement = new CheckIn(2L, 6L, null, "b2", null, null, 2);
+        service.upsertCheckIn(replacement);
+        assertSame(replacement, service.getCheckIn(2L));
+        assertEquals(2, service.getCheckIns().size());
+        assertTrue(service.getCheckInsForGoal(5L).isEmpty());
+        assertEquals(List.of(a, replacement), service.getCheckInsForGoal(6L));
+    }
+
+    /**
+     * Tests that the weekly report sees in-place edits made through updateCheckIn
+     */
+    @Test
+    void testWeeklyCheckIns_FollowUpdates() {
+        CheckIn a = new CheckIn(1L, 5L, LocalDateTime.parse("2025-03-04T09:00:00"), "a", null, null, 1);
+        CheckIn b = new CheckIn(2L, 5L, LocalDateTime.parse("2025-03-05T09:00:00"), "b", null, null, 1);
+        service.getCheckIns().add(a);
+        service.getCheckIns().add(b);
+        assertEquals(2, service.weeklyCheckIns(5L, null, null).get(0).count());
+
+        b.setCheckInDate(LocalDateTime.parse("2025-03-12T09:00:00"));
+        service.updateCheckIn(b);
+
+        assertEquals(List.of(
+                new CheckInColumns.WeeklyCount(5, LocalDate.parse("2025-03-03"), 1),
+                new CheckInColumns.WeeklyCount(5, LocalDate.parse("2025-03-10"), 1)),
+                service.weeklyCheckIns(null, null, null));
+        assertEquals(1, service.countCheckIns(5L, LocalDate.parse("2025-03-10"), null));
+    }
+
+    /**
+     * Replaced notes are reclaimed: rewriting one check-in's 8 KB note 1,000 times
+     * leaves the store's arena far below the 8 MB that was appended.
+     */
+    @Test
+    void testUpdateCheckIn_ReclaimsReplacedNotes() {
+        CheckIn c = new CheckIn();
+        c.setGoalId(5L);
+        c.setNotes("first");
+        service.addCheckIn(c);
+        Long id = service.getCheckIns().get(0).getId();
+
+        String note = "x".repeat(8 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            CheckIn updated = new CheckIn(service.getCheckIn(id));
+            updated.setNotes(note + i);
+            service.updateCheckIn(updated);
+        }
+
+        assertEquals(note + 999, service.getCheckIn(id).getNotes());
+        assertEquals(1001, service.getCheckIn(id).getVersion());
+        assertTrue(service.notesCapacityBytes() < 3 * 1024 * 1024,
+                "arena holds " + service.notesCapacityBytes() + " bytes");
+    }
+
     /**
      * Tests for parse date helper method
      * @throws Exception
@@ -0,0 +1,140 @@
+package com.ontracked.service;
+
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalEvent;
+import com.ontracked.model.GoalStatus;
+import com.ontracked.model.User;
+import com.ontracked.service.DashboardService.Dashboard;
+import com.ontracked.service.DashboardService.Outcome;
+import com.ontracked.service.DashboardService.Section;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardServiceTest {
+
+  private static final Instant NOW = Instant.parse("2025-05-20T12:00:00Z");
+
+  @TempDir
+  Path dir;
+
+  private final CountDownLatch never = new CountDownLatch(1);
+  private DashboardService service;
+
+  @AfterEach
+  void tearDown() {
+    never.countDown();
+    if (service != null) {
+      service.shutdown();
+    }
+  }
+
+  private static Goal goal(String id, int version) {
+    return new Goal(id, "1", null, null, "t", null, null, GoalStatus.ACTIVE, 0, NOW, NOW, version);
+  }
+
+  private static CheckIn checkIn(long id, long goalId, int daysAgo) {
+    LocalDateTime date = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC).minusDays(daysAgo);
+    return new CheckIn(id, goalId, date, "", date, date, 1);
+  }
+
+  private DashboardService dashboards(IntFunction<User> users, GoalHistoryService history, Duration timeout) {
+    GoalService goals = new GoalService() {
+      @Override
+      public List<Goal> loadGoalsForOwner(String ownerId) {
+        return "1".equals(ownerId) ? List.of(goal("10", 1), goal("10", 2), goal("20", 1)) : List.of();
+      }
+    };
+    CheckInService checkIns = new CheckInService() {
+      @Override
+      public Map<Long, List<CheckIn>> getCheckInsForGoals(Collection<Long> goalIds) {
+        Map<Long, List<CheckIn>> found = new LinkedHashMap<>();
+        found.put(10L, List.of(checkIn(1, 10, 30), checkIn(2, 10, 1)));
+        found.put(20L, List.of(checkIn(3, 20, 0)));
+        return found;
+      }
+    };
+    service = new DashboardService(users, goals, checkIns, history, Clock.fixed(NOW, ZoneOffset.UTC),
+            timeout, 14, 20);
+    return service;
+  }
+
+  private GoalHistoryService history() {
+    return new GoalHistoryService(dir.resolve("events.jsonl"), dir.resolve("snapshots.jsonl"), 10) {
+      @Override
+      public List<GoalEvent> history(String id) {
+        return List.of(
+                new GoalEvent(1, id, 1, NOW, Map.of("title", "t", "latestPercentage", "0")),
+                new GoalEvent(2, id, 2, NOW, Map.of("title", "u")),
+                new GoalEvent(3, id, 3, NOW, Map.of("latestPercentage", "40")));
+      }
+    };
+  }
+
+  @Test
+  void dashboard_assemblesAllSections() {
+    DashboardService dashboards = dashboards(
+            id -> new User(id, "Ann", "ann@x.org", "STUDENT"), history(), Duration.ofSeconds(5));
+
+    Dashboard d = dashboards.dashboard(1);
+
+    assertTrue(d.incomplete().isEmpty());
+    assertEquals("Ann", d.user().getFullName());
+    assertEquals(2, d.goals().size());
+    assertEquals(2, d.goals().get(0).getVersionNumber(), "only the latest version of a goal is listed");
+    assertEquals(List.of(3L, 2L), d.recentCheckIns().stream().map(c -> c.getId()).toList());
+    assertEquals(List.of(0, 40), d.progress().get("10").stream().map(p -> p.percentage()).toList());
+  }
+
+  @Test
+  void dashboard_returnsPartialResults_whenASectionIsSlowOrFails() {
+    GoalHistoryService slowHistory = new GoalHistoryService(
+            dir.resolve("events.jsonl"), dir.resolve("snapshots.jsonl"), 10) {
+      @Override
+      public List<GoalEvent> history(String id) {
+        try {
+          never.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return List.of();
+      }
+    };
+    DashboardService dashboards = dashboards(id -> {
+      throw new IllegalStateException("user store down");
+    }, slowHistory, Duration.ofMillis(200));
+
+    Dashboard d = dashboards.dashboard(1);
+
+    assertEquals(Map.of(Section.USER, Outcome.FAILED, Section.PROGRESS, Outcome.TIMED_OUT), d.incomplete());
+    assertNull(d.user());
+    assertNull(d.progress());
+    assertFalse(d.userMissing(), "a failed lookup is not a missing user");
+    assertEquals(2, d.goals().size());
+    assertEquals(2, d.recentCheckIns().size());
+    assertTrue(d.elapsedMs() < 2_000, "bounded by the deadline, took " + d.elapsedMs() + " ms");
+  }
+
+  @Test
+  void dashboard_reportsMissingUser() {
+    Dashboard d = dashboards(id -> null, history(), Duration.ofSeconds(5)).dashboard(2);
+    assertTrue(d.userMissing());
+    assertTrue(d.goals().isEmpty());
+  }
+}
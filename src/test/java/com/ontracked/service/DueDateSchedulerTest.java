@@ -0,0 +1,135 @@
+package com.ontracked.service;
+
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DueDateSchedulerTest {
+
+  private static final Path CSV_PATH = Path.of("goals.csv");
+
+  /** Clock whose date can be moved forward by the test. */
+  static class MutableClock extends Clock {
+    private Instant now;
+
+    MutableClock(LocalDate date) {
+      this.now = date.atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    void plusDays(long days) {
+      now = now.plusSeconds(days * 86_400);
+    }
+
+    @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+    @Override public Clock withZone(ZoneId zone) { return this; }
+    @Override public Instant instant() { return now; }
+  }
+
+  private MutableClock clock;
+  private GoalService goalService;
+  private DueDateScheduler scheduler;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    Files.deleteIfExists(CSV_PATH);
+    clock = new MutableClock(LocalDate.of(2025, 3, 1));
+    goalService = new GoalService();
+    scheduler = new DueDateScheduler(goalService, clock, 2);
+  }
+
+  @AfterEach
+  void cleanAfter() throws Exception {
+    Files.deleteIfExists(CSV_PATH);
+  }
+
+  private Goal goalDue(String id, String dueDate) {
+    Goal g = new Goal("owner-1");
+    g.setId(id);
+    g.setDueDate(dueDate);
+    return g;
+  }
+
+  @Test
+  void goalBecomesOverdueTheDayAfterItsDueDate() {
+    List<String> events = new ArrayList<>();
+    scheduler.addListener((event, goal) -> events.add(event + ":" + goal.getId()));
+    scheduler.register(goalDue("g1", "2025-03-05"));
+
+    clock.plusDays(2);
+    assertTrue(scheduler.getOverdueGoals().isEmpty());
+    assertEquals(List.of("DUE_SOON:g1"), events);
+
+    clock.plusDays(2);
+    assertTrue(scheduler.getOverdueGoals().isEmpty(), "not overdue on the due date itself");
+
+    clock.plusDays(1);
+    List<Goal> overdue = scheduler.getOverdueGoals();
+    assertEquals(1, overdue.size());
+    assertEquals("g1", overdue.get(0).getId());
+    assertEquals(List.of("DUE_SOON:g1", "OVERDUE:g1"), events);
+  }
+
+  @Test
+  void alreadyPastDueGoalIsOverdueImmediately() {
+    scheduler.register(goalDue("old", "2025-01-01"));
+    scheduler.register(goalDue("older", "2024-12-01"));
+    scheduler.register(goalDue("future", "2025-06-01"));
+    scheduler.register(goalDue("none", null));
+
+    List<Goal> overdue = scheduler.getOverdueGoals();
+    assertEquals(List.of("older", "old"), overdue.stream().map(Goal::getId).toList());
+  }
+
+  @Test
+  void statusOrDueDateChangeReRegistersViaGoalService() {
+    Goal g = goalDue("g2", "2025-02-01");
+    goalService.saveGoals(List.of(g));
+    assertEquals(1, scheduler.getOverdueGoals().size());
+
+    g.setDueDate("2025-04-01");
+    goalService.saveGoals(List.of(g));
+    assertTrue(scheduler.getOverdueGoals().isEmpty());
+    assertEquals(2, scheduler.pendingTimers());
+
+    g.setStatus(GoalStatus.COMPLETED);
+    goalService.saveGoals(List.of(g));
+    assertEquals(0, scheduler.pendingTimers());
+    clock.plusDays(60);
+    assertTrue(scheduler.getOverdueGoals().isEmpty());
+  }
+
+  @Test
+  void resavingAnOverdueGoal_firesOverdueOnce() {
+    List<String> events = new ArrayList<>();
+    scheduler.addListener((event, goal) -> events.add(event + ":" + goal.getId()));
+    Goal g = goalDue("late", "2025-02-01");
+    goalService.saveGoals(List.of(g));
+    g.setTitle("Still late");
+    goalService.saveGoals(List.of(g));
+    assertEquals(List.of("OVERDUE:late"), events);
+    assertEquals("Still late", scheduler.getOverdueGoals().get(0).getTitle());
+
+    // Archiving and reopening keeps the same due date, so the event is not raised again.
+    g.setStatus(GoalStatus.ARCHIVED);
+    goalService.saveGoals(List.of(g));
+    assertTrue(scheduler.getOverdueGoals().isEmpty());
+    g.setStatus(GoalStatus.ACTIVE);
+    goalService.saveGoals(List.of(g));
+    assertEquals(List.of("OVERDUE:late"), events);
+    assertEquals(1, scheduler.getOverdueGoals().size());
+  }
+}
@@ -0,0 +1,95 @@
+package com.ontracked.service;
+
+import com.ontracked.dto.checkin.ExpandedCheckIn;
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import com.ontracked.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpansionServiceTest {
+
+  private final List<Collection<String>> goalLookups = new ArrayList<>();
+  private final List<Collection<Integer>> userLookups = new ArrayList<>();
+
+  private ExpansionService expansions(Goal... goals) {
+    GoalService goalService = new GoalService() {
+      @Override
+      public Map<String, Goal> retrieveGoals(Collection<String> ids) {
+        goalLookups.add(List.copyOf(ids));
+        Map<String, Goal> found = new LinkedHashMap<>();
+        for (Goal g : goals) {
+          if (ids.contains(g.getId())) {
+            found.put(g.getId(), g);
+          }
+        }
+        return found;
+      }
+    };
+    return new ExpansionService(goalService, new CheckInService(), ids -> {
+      userLookups.add(List.copyOf(ids));
+      Map<Integer, User> found = new LinkedHashMap<>();
+      for (Integer id : ids) {
+        if (id == 1) {
+          found.put(id, new User(1, "Ann", "ann@x.org", "STUDENT"));
+        }
+      }
+      return found;
+    });
+  }
+
+  private static Goal goal(String id, String owner) {
+    Instant now = Instant.parse("2025-05-01T00:00:00Z");
+    return new Goal(id, owner, null, null, "t", null, null, GoalStatus.ACTIVE, 0, now, now, 1);
+  }
+
+  private static CheckIn checkIn(long id, Long goalId) {
+    return new CheckIn(id, goalId, null, "", null, null, 1);
+  }
+
+  @Test
+  void parse_addsParentsOfNestedPaths_andRejectsUnknownPaths() {
+    ExpansionService expansions = expansions();
+    assertEquals(Set.of("goal", "goal.owner"), expansions.parse(" goal.owner ", ExpansionService.CHECK_IN_PATHS));
+    assertTrue(expansions.parse(null, ExpansionService.CHECK_IN_PATHS).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> expansions.parse("owner", ExpansionService.CHECK_IN_PATHS));
+  }
+
+  @Test
+  void expandCheckIns_resolvesEachGoalAndOwnerOnce() {
+    ExpansionService expansions = expansions(goal("10", "1"), goal("20", "1"), goal("30", "bob"));
+    List<CheckIn> checkIns = List.of(
+            checkIn(1, 10L), checkIn(2, 20L), checkIn(3, 10L), checkIn(4, 30L), checkIn(5, 99L), checkIn(6, null));
+
+    List<ExpandedCheckIn> expanded = expansions.expandCheckIns(checkIns,
+            expansions.parse("goal.owner", ExpansionService.CHECK_IN_PATHS));
+
+    assertEquals(List.of(List.of("10", "20", "30", "99")), goalLookups);
+    assertEquals(List.of(List.of(1)), userLookups);
+    assertEquals(6, expanded.size());
+    assertSame(expanded.get(0).goal(), expanded.get(2).goal());
+    assertEquals("Ann", expanded.get(1).goal().owner().getFullName());
+    assertNull(expanded.get(3).goal().owner(), "a non-numeric owner id matches no user");
+    assertNull(expanded.get(4).goal());
+    assertNull(expanded.get(5).goal());
+    assertEquals(4L, expanded.get(3).checkIn().getId());
+  }
+
+  @Test
+  void expandCheckIns_withoutPaths_looksNothingUp() {
+    List<ExpandedCheckIn> expanded = expansions(goal("10", "1")).expandCheckIns(List.of(checkIn(1, 10L)), Set.of());
+    assertNull(expanded.get(0).goal());
+    assertTrue(goalLookups.isEmpty());
+    assertTrue(userLookups.isEmpty());
+  }
+}
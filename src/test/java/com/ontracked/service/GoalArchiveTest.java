@@ -0,0 +1,74 @@
+package com.ontracked.service;
+
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoalArchiveTest {
+
+  @TempDir
+  Path dir;
+
+  private static Goal goal(String id, String owner, GoalStatus status) {
+    Instant created = Instant.parse("2025-01-02T03:04:05.123456789Z");
+    return new Goal(id, owner, null, null, "Title " + id, "Notes, with \"quotes\"", "2025-06-30",
+            status, 100, created, created.plusSeconds(60), 4);
+  }
+
+  @Test
+  void appendedGoals_roundTripByIdAcrossSegments_andSurviveReopen() {
+    GoalArchive archive = new GoalArchive(dir, 3);
+    List<Goal> goals = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      goals.add(goal("g" + i, "owner-" + (i % 2), i % 3 == 0 ? GoalStatus.ARCHIVED : GoalStatus.COMPLETED));
+    }
+    archive.append(goals);
+    assertEquals(3, archive.segmentCount());
+    assertEquals(7, archive.size());
+
+    GoalArchive reopened = new GoalArchive(dir, 3);
+    Goal g = reopened.get("g4");
+    assertNotNull(g);
+    assertEquals("owner-0", g.getOwnerId());
+    assertEquals(GoalStatus.COMPLETED, g.getStatus());
+    assertEquals("Notes, with \"quotes\"", g.getDescription());
+    assertEquals("2025-06-30", g.getDueDate());
+    assertEquals(goals.get(4).getCreatedAt(), g.getCreatedAt());
+    assertEquals(goals.get(4).getUpdatedAt(), g.getUpdatedAt());
+    assertEquals(4, g.getVersionNumber());
+    assertNull(reopened.get("missing"));
+
+    Map<GoalStatus, Integer> counts = reopened.countByStatus();
+    assertEquals(3, counts.get(GoalStatus.ARCHIVED));
+    assertEquals(4, counts.get(GoalStatus.COMPLETED));
+    assertEquals(3, reopened.findByOwner("owner-1").size());
+  }
+
+  @Test
+  void supersededAndRemovedRows_areNotLive_evenAfterReopen() {
+    GoalArchive archive = new GoalArchive(dir, 10);
+    archive.append(List.of(goal("a", "o", GoalStatus.COMPLETED), goal("b", "o", GoalStatus.COMPLETED)));
+    archive.append(List.of(goal("a", "o", GoalStatus.ARCHIVED)));
+    assertTrue(archive.remove("b"));
+    assertFalse(archive.remove("b"));
+
+    GoalArchive reopened = new GoalArchive(dir, 10);
+    assertEquals(1, reopened.size());
+    assertNull(reopened.get("b"));
+    assertEquals(GoalStatus.ARCHIVED, reopened.get("a").getStatus());
+    assertEquals(Map.of(GoalStatus.ARCHIVED, 1), reopened.countByStatus());
+
+    // A goal removed and archived again later is live in its new segment.
+    reopened.append(List.of(goal("b", "o", GoalStatus.COMPLETED)));
+    assertEquals(2, new GoalArchive(dir, 10).size());
+  }
+}
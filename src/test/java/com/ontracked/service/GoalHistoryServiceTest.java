@@ -0,0 +1,178 @@
+package com.ontracked.service;
+
+import com.ontracked.dto.goal.UpdateGoalRequest;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalEvent;
+import com.ontracked.model.GoalStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoalHistoryServiceTest {
+
+  /** File of the single goal shard, written to the working directory. */
+  private static final Path GOALS_FILE = Path.of("goals.csv");
+
+  @TempDir
+  Path dir;
+
+  private Path events;
+  private Path snapshots;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    events = dir.resolve("events.jsonl");
+    snapshots = dir.resolve("snapshots.jsonl");
+    Files.deleteIfExists(GOALS_FILE);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    Files.deleteIfExists(GOALS_FILE);
+  }
+
+  private Goal newGoal() {
+    Goal g = new Goal("owner-1");
+    g.setId("g1");
+    g.setTitle("Read");
+    return g;
+  }
+
+  @Test
+  void recordsOnlyChangedFieldsAndRebuildsEveryVersion() {
+    GoalHistoryService history = new GoalHistoryService(events, snapshots, 3);
+    Goal g = newGoal();
+    history.record(g);
+    int first = g.getVersionNumber();
+
+    int[] versions = new int[8];
+    for (int i = 0; i < versions.length; i++) {
+      g.setLatestPercentage(10 * (i + 1));
+      history.record(g);
+      versions[i] = g.getVersionNumber();
+    }
+
+    GoalEvent last = history.history("g1").get(8);
+    assertFalse(last.changes().containsKey("title"), "unchanged fields are not repeated");
+    assertEquals("80", last.changes().get("latestPercentage"));
+
+    assertEquals(0, history.goalAtVersion("g1", first).getLatestPercentage());
+    for (int i = 0; i < versions.length; i++) {
+      Goal rebuilt = history.goalAtVersion("g1", versions[i]);
+      assertEquals(10 * (i + 1), rebuilt.getLatestPercentage());
+      assertEquals("Read", rebuilt.getTitle());
+      assertEquals(versions[i], rebuilt.getVersionNumber());
+    }
+    assertNull(history.goalAtVersion("g1", first - 1));
+    assertNull(history.goalAtVersion("unknown", 1));
+  }
+
+  @Test
+  void unchangedResaveIsNotRecorded() {
+    GoalHistoryService history = new GoalHistoryService(events, snapshots, 10);
+    Goal g = newGoal();
+    assertNotNull(history.record(g));
+    assertNull(history.record(g));
+    assertEquals(1, history.history("g1").size());
+  }
+
+  @Test
+  void asOfTimestampAndReloadFromDisk() throws Exception {
+    GoalHistoryService history = new GoalHistoryService(events, snapshots, 2);
+    Goal g = newGoal();
+    history.record(g);
+    Instant between = Instant.now();
+    Thread.sleep(5);
+    g.setStatus(GoalStatus.COMPLETED);
+    history.record(g);
+    g.setTitle("Read more");
+    history.record(g);
+
+    assertEquals(GoalStatus.ACTIVE, history.goalAsOf("g1", between).getStatus());
+    assertNull(history.goalAsOf("g1", Instant.EPOCH));
+
+    GoalHistoryService reloaded = new GoalHistoryService(events, snapshots, 2);
+    List<GoalEvent> loaded = reloaded.history("g1");
+    assertEquals(3, loaded.size());
+    assertEquals("Read more", reloaded.goalAtVersion("g1", g.getVersionNumber()).getTitle());
+    assertEquals(GoalStatus.ACTIVE, reloaded.goalAsOf("g1", between).getStatus());
+    assertEquals(2, Files.readAllLines(snapshots).size(), "snapshot at first event and every 2 events");
+
+    g.setLatestPercentage(50);
+    GoalEvent next = reloaded.record(g);
+    assertEquals(4, next.sequence());
+  }
+
+  /** A row written below the last recorded version is skipped, so as-of reads stay consistent. */
+  @Test
+  void olderVersionResaveIsNotRecorded() {
+    GoalHistoryService history = new GoalHistoryService(events, snapshots, 1);
+    Goal g = newGoal();
+    history.record(g);
+    Goal stale = newGoal();
+    g.setTitle("Read more");
+    history.record(g);
+
+    stale.setTitle("Read less");
+    stale.setVersionNumber(g.getVersionNumber() - 1);
+    assertNull(history.record(stale));
+    stale.setVersionNumber(g.getVersionNumber());
+    assertNull(history.record(stale), "the same version as the last event is not recorded again");
+
+    assertEquals(2, history.history("g1").size());
+    assertEquals("Read", history.goalAtVersion("g1", g.getVersionNumber() - 1).getTitle());
+    assertEquals("Read more", history.goalAtVersion("g1", g.getVersionNumber()).getTitle());
+  }
+
+  /** Concurrent updates are recorded in write order, each at the version stored in its row. */
+  @Test
+  void concurrentUpdates_recordPersistedVersionsInOrder() throws Exception {
+    GoalService goals = new GoalService(1, new GoalArchive(dir.resolve("archive"), 100), 100);
+    GoalHistoryService history = new GoalHistoryService(goals, events.toString(), snapshots.toString(), 5);
+    Goal g = newGoal();
+    goals.saveGoals(List.of(g));
+
+    int writers = 8;
+    int updatesEach = 20;
+    ExecutorService pool = Executors.newFixedThreadPool(writers);
+    try {
+      List<Future<?>> done = new ArrayList<>();
+      for (int w = 0; w < writers; w++) {
+        int writer = w;
+        done.add(pool.submit(() -> {
+          for (int i = 0; i < updatesEach; i++) {
+            goals.updateGoal(new UpdateGoalRequest("g1", null, "Read " + writer + "-" + i,
+                    null, null, null, null, null));
+          }
+        }));
+      }
+      for (Future<?> f : done) {
+        f.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    Goal stored = goals.retrieveGoal("g1");
+    List<GoalEvent> recorded = history.history("g1");
+    assertEquals(1 + writers * updatesEach, recorded.size());
+    for (int i = 1; i < recorded.size(); i++) {
+      assertEquals(recorded.get(i - 1).version() + 1, recorded.get(i).version(),
+              "each update's event carries the next stored version");
+    }
+    assertEquals(stored.getVersionNumber(), recorded.get(recorded.size() - 1).version());
+    assertEquals(stored.getTitle(), history.goalAtVersion("g1", stored.getVersionNumber()).getTitle());
+  }
+}
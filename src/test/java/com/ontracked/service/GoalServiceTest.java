@@ -1,32 +1,51 @@
 package com.ontracked.service;
 
+import com.ontracked.dto.goal.UpdateGoalRequest;
 import com.ontracked.model.Goal;
 import com.ontracked.model.GoalStatus;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class GoalServiceTest {
 
   private static final Path CSV_PATH = Path.of("goals.csv");
+  private static final int SHARDS = 4;
 
   @BeforeEach
   void cleanBefore() throws Exception {
-    Files.deleteIfExists(CSV_PATH);
+    deleteGoalFiles();
   }
 
   @AfterEach
   void cleanAfter() throws Exception {
+    deleteGoalFiles();
+  }
+
+  private static void deleteGoalFiles() throws Exception {
     Files.deleteIfExists(CSV_PATH);
+    Files.deleteIfExists(Path.of("goals.csv.unsharded"));
+    for (int i = 0; i < SHARDS; i++) {
+      Files.deleteIfExists(Path.of("goals-" + i + ".csv"));
+    }
   }
 
   @Test
@@ -38,23 +57,18 @@ class GoalServiceTest {
   }
 
   @Test
-  void retrieveGoal_foundAndNotFound_pathsCovered_viaOverriddenLoad() {
-    // Override loadGoals to avoid file parsing and to hit both branches
+  void retrieveGoal_foundAndNotFound_acrossShards(@TempDir Path archiveDir) {
+    GoalService svc = new GoalService(SHARDS, new GoalArchive(archiveDir, 100), 100);
     Goal g1 = new Goal("owner-1");
     g1.setId("id-1");
     Goal g2 = new Goal("owner-2");
     g2.setId("id-2");
-
-    GoalService svc = new GoalService() {
-      @Override
-      public List<Goal> loadGoals() {
-        return List.of(g1, g2);
-      }
-    };
+    svc.saveGoals(List.of(g1, g2));
 
     Goal found = svc.retrieveGoal("id-2");
     assertNotNull(found);
     assertEquals("id-2", found.getId());
+    assertEquals("owner-2", found.getOwnerId());
 
     Goal missing = svc.retrieveGoal("nope");
     assertNull(missing, "Expected null when id is not present");
@@ -133,4 +147,246 @@ class GoalServiceTest {
     assertNotNull(goals);
     assertTrue(goals.isEmpty(), "Malformed rows should be ignored");
   }
+
+  @Test
+  void loadGoals_restoresPersistedVersionAndTimestamps() {
+    GoalService svc = new GoalService();
+    Goal g = new Goal("owner-9");
+    g.setId("goal-9");
+    g.setTitle("Versioned");
+    g.setLatestPercentage(70);
+    svc.saveGoals(List.of(g));
+
+    Goal loaded = svc.retrieveGoal("goal-9");
+    assertNotNull(loaded);
+    assertEquals(g.getVersionNumber(), loaded.getVersionNumber());
+    assertEquals(g.getCreatedAt(), loaded.getCreatedAt());
+    assertEquals(g.getUpdatedAt(), loaded.getUpdatedAt());
+    assertEquals(70, loaded.getLatestPercentage());
+  }
+
+  @Test
+  void shardedService_routesByOwner_andMergesAcrossShards() {
+    GoalService svc = new GoalService(SHARDS);
+    try {
+      for (int i = 0; i < 20; i++) {
+        Goal g = new Goal("owner-" + (i % 5));
+        g.setId("goal-" + i);
+        g.setTitle("Goal " + i);
+        g.setStatus(i % 2 == 0 ? GoalStatus.ACTIVE : GoalStatus.COMPLETED);
+        svc.saveGoals(List.of(g));
+      }
+
+      assertFalse(Files.exists(CSV_PATH), "Sharded service should not write goals.csv");
+      assertEquals(20, svc.loadGoals().size());
+
+      List<Goal> owned = svc.loadGoalsForOwner("owner-3");
+      assertEquals(4, owned.size());
+      assertTrue(owned.stream().allMatch(g -> g.getOwnerId().equals("owner-3")));
+
+      Map<String, Object> stats = svc.goalStats();
+      assertEquals(20, stats.get("total"));
+      Map<?, ?> byStatus = (Map<?, ?>) stats.get("byStatus");
+      assertEquals(10, byStatus.get(GoalStatus.ACTIVE));
+      assertEquals(10, byStatus.get(GoalStatus.COMPLETED));
+      assertEquals(SHARDS, ((List<?>) stats.get("shards")).size());
+    } finally {
+      svc.shutdown();
+    }
+  }
+
+  @Test
+  void retrieveGoals_probesAllShardsAndTheArchive_inRequestOrder(@TempDir Path archiveDir) {
+    GoalService svc = new GoalService(SHARDS, new GoalArchive(archiveDir, 100), 100);
+    try {
+      for (int i = 0; i < 8; i++) {
+        Goal g = new Goal("owner-" + i);
+        g.setId("goal-" + i);
+        g.setStatus(i == 5 ? GoalStatus.COMPLETED : GoalStatus.ACTIVE);
+        svc.saveGoals(List.of(g));
+      }
+      assertEquals(1, svc.archiveTerminalGoals());
+
+      Map<String, Goal> found = svc.retrieveGoals(
+              Arrays.asList("goal-6", "nope", "goal-1", null, "goal-6", "goal-5"));
+
+      assertEquals(List.of("goal-6", "goal-1", "goal-5"), List.copyOf(found.keySet()));
+      assertEquals(GoalStatus.COMPLETED, found.get("goal-5").getStatus());
+      assertTrue(svc.retrieveGoals(List.of()).isEmpty());
+    } finally {
+      svc.shutdown();
+    }
+  }
+
+  @Test
+  void shardedService_splitsExistingUnshardedFile() {
+    GoalService single = new GoalService();
+    for (int i = 0; i < 6; i++) {
+      Goal g = new Goal("owner-" + i);
+      g.setId("goal-" + i);
+      single.saveGoals(List.of(g));
+    }
+
+    GoalService sharded = new GoalService(SHARDS);
+    try {
+      assertFalse(Files.exists(CSV_PATH), "goals.csv should be moved aside after the split");
+      assertTrue(Files.exists(Path.of("goals.csv.unsharded")));
+      assertEquals(6, sharded.loadGoals().size());
+      assertEquals(1, sharded.loadGoalsForOwner("owner-2").size());
+    } finally {
+      sharded.shutdown();
+    }
+  }
+
+  @Test
+  void loadGoals_rereadsFileChangedOutsideTheService() throws Exception {
+    GoalService svc = new GoalService();
+    Goal g = new Goal("owner-1");
+    g.setId("goal-1");
+    svc.saveGoals(List.of(g));
+    assertEquals(1, svc.warm());
+
+    Files.writeString(CSV_PATH,
+            "id,ownerId,parentId,title,description,dueDate,status,latestPercentage,createdAt,updatedAt,versionNumber\n");
+    assertTrue(svc.loadGoals().isEmpty(), "Cache should be dropped once the file changes");
+    assertTrue(svc.loadGoalsForOwner("owner-1").isEmpty());
+  }
+
+  @Test
+  void terminalGoals_migrateToArchive_andStayReadableById(@TempDir Path archiveDir) {
+    GoalService svc = new GoalService(1, new GoalArchive(archiveDir, 100), 3);
+    Goal active = new Goal("owner-1");
+    active.setId("active");
+    svc.saveGoals(List.of(active));
+
+    Goal done = new Goal("owner-1");
+    done.setId("done");
+    svc.saveGoals(List.of(done));
+    done.setStatus(GoalStatus.COMPLETED);
+    svc.saveGoals(List.of(done));
+    assertEquals(0, svc.getArchive().size(), "Below the batch size nothing migrates yet");
+
+    assertEquals(1, svc.archiveTerminalGoals());
+    assertEquals(1, svc.getArchive().size());
+    assertEquals(List.of("active"), svc.loadGoals().stream().map(Goal::getId).toList(),
+            "Every hot row of the archived goal should be gone");
+    assertEquals(GoalStatus.COMPLETED, svc.retrieveGoal("done").getStatus());
+    assertEquals(1, svc.loadArchivedGoalsForOwner("owner-1").size());
+    assertEquals(2, svc.goalStats().get("total"));
+
+    // Reopening the goal brings it back to the hot store and out of the archive.
+    Goal reopened = svc.retrieveGoal("done");
+    reopened.setStatus(GoalStatus.ACTIVE);
+    svc.saveGoals(List.of(reopened));
+    assertEquals(0, svc.getArchive().size());
+    assertEquals(GoalStatus.ACTIVE, svc.retrieveGoal("done").getStatus());
+  }
+
+  @Test
+  void goalStats_countsEachGoalOnceAtItsLatestStatus(@TempDir Path archiveDir) {
+    GoalService svc = new GoalService(SHARDS, new GoalArchive(archiveDir, 100), 100);
+    Goal g = new Goal("owner-1");
+    g.setId("resaved");
+    g.setStatus(GoalStatus.ACTIVE);
+    svc.saveGoals(List.of(g));
+    g.setStatus(GoalStatus.COMPLETED);
+    svc.saveGoals(List.of(g));
+
+    Map<String, Object> stats = svc.goalStats();
+    assertEquals(1, stats.get("total"));
+    Map<?, ?> byStatus = (Map<?, ?>) stats.get("byStatus");
+    assertEquals(0, byStatus.get(GoalStatus.ACTIVE), "The superseded ACTIVE row is not counted");
+    assertEquals(1, byStatus.get(GoalStatus.COMPLETED));
+    assertEquals(1, ((List<?>) stats.get("shards")).stream().mapToInt(n -> (Integer) n).sum());
+  }
+
+  @Test
+  void updateGoal_replacesRowInPlace_andChecksExpectedVersion() throws Exception {
+    GoalService svc = new GoalService();
+    Goal g = new Goal("owner-1");
+    g.setId("g-1");
+    g.setTitle("Read");
+    svc.saveGoals(List.of(g));
+    // An older save left a duplicate row behind.
+    svc.saveGoals(List.of(g));
+    int version = svc.retrieveGoal("g-1").getVersionNumber();
+
+    UpdateGoalRequest first = new UpdateGoalRequest("g-1", null, null, null, null, null, 40, version);
+    Goal updated = svc.updateGoal(first);
+    assertEquals(40, updated.getLatestPercentage());
+    assertEquals("Read", updated.getTitle(), "Fields left out are unchanged");
+    assertEquals(version + 1, updated.getVersionNumber(), "One update bumps the version once");
+
+    // A second writer still holding the old version loses.
+    UpdateGoalRequest stale = new UpdateGoalRequest("g-1", null, "Write", null, null, null, null, version);
+    GoalVersionConflictException conflict =
+            assertThrows(GoalVersionConflictException.class, () -> svc.updateGoal(stale));
+    assertEquals(version + 1, conflict.getCurrentVersion());
+
+    svc.updateGoal(new UpdateGoalRequest("g-1", null, null, null, null, GoalStatus.ACTIVE, 60, null));
+    assertEquals(2, Files.readAllLines(CSV_PATH).size(), "Header plus a single row for the goal");
+    assertEquals(60, svc.retrieveGoal("g-1").getLatestPercentage());
+    assertEquals(1, new GoalService().loadGoals().size(), "A fresh reader sees the same single row");
+    assertNull(svc.updateGoal(new UpdateGoalRequest("missing", null, "x", null, null, null, null, null)));
+  }
+
+  @Test
+  void updateGoal_thatChangesNothing_notifiesNoListener(@TempDir Path archiveDir) {
+    GoalService svc = new GoalService(SHARDS, new GoalArchive(archiveDir, 100), 100);
+    Goal g = new Goal("owner-1");
+    g.setId("quiet");
+    svc.saveGoals(List.of(g));
+    List<Goal> notified = new ArrayList<>();
+    svc.addGoalListener(notified::add);
+    int version = svc.retrieveGoal("quiet").getVersionNumber();
+
+    Goal same = svc.updateGoal(new UpdateGoalRequest("quiet", null, null, null, null, null, null, version));
+    assertEquals(version, same.getVersionNumber());
+    assertTrue(notified.isEmpty(), "A PATCH with no fields writes nothing and notifies no one");
+
+    svc.updateGoal(new UpdateGoalRequest("quiet", null, "Now titled", null, null, null, null, version));
+    assertEquals(1, notified.size());
+  }
+
+  @Test
+  void updateGoal_onArchivedGoal_admitsOneWriterPerVersion(@TempDir Path archiveDir) throws Exception {
+    GoalService svc = new GoalService(SHARDS, new GoalArchive(archiveDir, 100), 100);
+    Goal done = new Goal("owner-1");
+    done.setId("done");
+    done.setStatus(GoalStatus.COMPLETED);
+    svc.saveGoals(List.of(done));
+    assertEquals(1, svc.archiveTerminalGoals());
+    int version = svc.retrieveGoal("done").getVersionNumber();
+
+    int writers = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger conflicts = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(writers);
+    try {
+      List<Future<Goal>> results = new ArrayList<>();
+      for (int i = 0; i < writers; i++) {
+        String title = "title-" + i;
+        results.add(pool.submit(() -> {
+          start.await();
+          try {
+            return svc.updateGoal(new UpdateGoalRequest("done", null, title, null, null, null, null, version));
+          } catch (GoalVersionConflictException e) {
+            conflicts.incrementAndGet();
+            return null;
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<Goal> f : results) {
+        f.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(writers - 1, conflicts.get(), "Only one writer may move the goal past its version");
+    assertEquals(version + 1, svc.retrieveGoal("done").getVersionNumber());
+    assertEquals(0, svc.getArchive().size(), "The updated goal is back in the hot store");
+    assertEquals(1, svc.loadGoals().size(), "A single hot row for the goal");
+  }
 }
@@ -0,0 +1,78 @@
+package com.ontracked.service;
+
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import com.ontracked.model.GoalView;
+import com.ontracked.service.ProgressReportService.GroupBy;
+import com.ontracked.service.ProgressReportService.Report;
+import com.ontracked.service.ProgressReportService.Summary;
+import com.ontracked.util.IntKernels;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressReportServiceTest {
+
+  /** Serves a fixed list of goals instead of reading shard files. */
+  private static GoalService goalsOf(List<Goal> goals) {
+    return new GoalService() {
+      @Override
+      public void forEachLatestGoal(Consumer<? super GoalView> action) {
+        goals.forEach(action);
+      }
+    };
+  }
+
+  private static Goal goal(String owner, GoalStatus status, int percentage) {
+    Instant now = Instant.parse("2025-05-01T00:00:00Z");
+    return new Goal(null, owner, null, null, "t", null, null, status, percentage, now, now, 1);
+  }
+
+  @Test
+  void report_groupsByOwnerAndStatus_withThresholdsAndHistogram() {
+    GoalService goals = goalsOf(List.of(
+            goal("bob", GoalStatus.ACTIVE, 20),
+            goal("amy", GoalStatus.ACTIVE, 90),
+            goal("amy", GoalStatus.ACTIVE, 100),
+            goal("amy", GoalStatus.COMPLETED, 100),
+            goal("bob", GoalStatus.ACTIVE, 45)));
+
+    Report report = new ProgressReportService(goals).report(GroupBy.OWNER_STATUS, 80);
+
+    Summary overall = report.overall();
+    assertEquals(5, overall.count());
+    assertEquals(71.0, overall.average(), 1e-9);
+    assertEquals(20, overall.min());
+    assertEquals(100, overall.max());
+    assertEquals(3, overall.atOrAboveThreshold());
+    assertArrayEquals(new int[] {0, 0, 1, 0, 1, 0, 0, 0, 0, 3}, overall.histogram());
+
+    List<Summary> groups = report.groups();
+    assertEquals(List.of("amy/ACTIVE", "amy/COMPLETED", "bob/ACTIVE"),
+            groups.stream().map(s -> s.ownerId() + "/" + s.status()).toList());
+    assertEquals(95.0, groups.get(0).average(), 1e-9);
+    assertEquals(32.5, groups.get(2).average(), 1e-9);
+    assertEquals(0, groups.get(2).atOrAboveThreshold());
+  }
+
+  @Test
+  void report_byStatusOnly_andEmptyStore() {
+    GoalService goals = goalsOf(List.of(
+            goal("bob", GoalStatus.ACTIVE, 10),
+            goal("amy", GoalStatus.ACTIVE, 30)));
+    List<Summary> byStatus = new ProgressReportService(goals, IntKernels.scalar())
+            .report(GroupBy.STATUS, 50).groups();
+    assertEquals(1, byStatus.size());
+    assertNull(byStatus.get(0).ownerId());
+    assertEquals(GoalStatus.ACTIVE, byStatus.get(0).status());
+    assertEquals(20.0, byStatus.get(0).average(), 1e-9);
+
+    Report empty = new ProgressReportService(goalsOf(List.of())).report(GroupBy.OWNER, 50);
+    assertEquals(0, empty.overall().count());
+    assertTrue(empty.groups().isEmpty());
+  }
+}
@@ -0,0 +1,58 @@
+package com.ontracked.service;
+
+import com.ontracked.model.ProgressUpdate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressUpdateServiceTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void flush_completesOnceEveryEarlierUpdateIsWritten_andIdsContinueAfterRestart() throws Exception {
+    Path file = dir.resolve("progress.csv");
+    ProgressUpdateService service = new ProgressUpdateService(file, 64, 16, Duration.ofSeconds(5));
+    for (int i = 0; i < 1_000; i++) {
+      assertTrue(service.put(new ProgressUpdate(7L, i % 101, i % 2 == 0 ? "a, b" : null)));
+    }
+    service.flush().get(5, TimeUnit.SECONDS);
+
+    List<String> lines = Files.readAllLines(file);
+    assertEquals(1_001, lines.size());
+    assertTrue(lines.get(1).startsWith("1,7,0,"));
+    assertTrue(lines.get(1).endsWith(",a  b"), "commas in notes must not split the row");
+    assertEquals(1_000, service.persisted());
+    assertTrue(service.batches() >= 1_000 / 16, "writes are batched");
+    service.close();
+
+    ProgressUpdateService restarted = new ProgressUpdateService(file, 64, 16, Duration.ofSeconds(5));
+    ProgressUpdate next = new ProgressUpdate(7L, 50);
+    restarted.put(next);
+    restarted.flush().get(5, TimeUnit.SECONDS);
+    assertEquals(1_001L, next.getId());
+    restarted.close();
+  }
+
+  @Test
+  void unwritableLog_rejectsUpdates_andFailsFlush() throws Exception {
+    ProgressUpdateService service = new ProgressUpdateService(dir.resolve("missing/progress.csv"), 8, 8,
+            Duration.ofMillis(100));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (service.put(new ProgressUpdate(1L, 10)) && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertFalse(service.put(new ProgressUpdate(1L, 10)));
+    assertThrows(ExecutionException.class, () -> service.flush().get(5, TimeUnit.SECONDS));
+    assertEquals(0, service.persisted());
+  }
+}
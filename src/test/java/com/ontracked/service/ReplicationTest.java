@@ -0,0 +1,158 @@
+package com.ontracked.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ontracked.dto.replication.ReplicationRecord;
+import com.ontracked.model.CheckIn;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Leader and follower talking over a real loopback socket inside one JVM.
+ */
+class ReplicationTest {
+
+  @TempDir
+  Path dir;
+
+  private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+  private ReplicationLeader leader;
+  private ReplicationFollower follower;
+
+  @AfterEach
+  void tearDown() {
+    if (follower != null) {
+      follower.stop();
+    }
+    if (leader != null) {
+      leader.stop();
+    }
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+      Thread.sleep(10);
+    }
+  }
+
+  private ReplicationLeader startLeader() throws Exception {
+    ReplicationLeader l = new ReplicationLeader(new ReplicationLog(dir.resolve("leader.jsonl"), mapper),
+            mapper, 0, 100);
+    l.start();
+    return l;
+  }
+
+  @Test
+  void followerCatchesUpThenResumesFromPersistedOffset() throws Exception {
+    leader = startLeader();
+    for (int i = 1; i <= 3; i++) {
+      leader.append("user", ChangeType.CREATED, String.valueOf(i), Map.of("n", i));
+    }
+
+    List<String> applied = new CopyOnWriteArrayList<>();
+    ReplicationFollower.RecordApplier recorder = r -> applied.add(r.entity() + ":" + r.id());
+    Path offsetFile = dir.resolve("follower.offset");
+    follower = new ReplicationFollower("127.0.0.1", leader.getLocalPort(), offsetFile, mapper, recorder);
+    follower.start();
+    await(() -> follower.getAppliedOffset() == 3);
+
+    leader.append("goal", ChangeType.UPDATED, "g1", Map.of("title", "live"));
+    await(() -> follower.getAppliedOffset() == 4);
+    assertEquals(List.of("user:1", "user:2", "user:3", "goal:g1"), applied);
+    await(() -> (long) follower.status().get("lagRecords") == 0 && follower.isConnected());
+
+    follower.stop();
+    leader.append("checkin", ChangeType.CREATED, "7", Map.of());
+    follower = new ReplicationFollower("127.0.0.1", leader.getLocalPort(), offsetFile, mapper, recorder);
+    assertEquals(4, follower.getAppliedOffset(), "offset survives restart");
+    follower.start();
+    await(() -> follower.getAppliedOffset() == 5);
+    assertEquals(5, applied.size(), "records before the persisted offset are not re-applied");
+  }
+
+  @Test
+  void followerSkipsRecordsOlderThanAnAppliedVersion() throws Exception {
+    leader = startLeader();
+    leader.append("checkin", ChangeType.UPDATED, "7", 3, Map.of("notes", "v3"));
+    leader.append("checkin", ChangeType.UPDATED, "7", 2, Map.of("notes", "v2"));
+    leader.append("checkin", ChangeType.UPDATED, "8", 1, Map.of("notes", "other"));
+    leader.append("user", ChangeType.UPDATED, "1", Map.of());
+
+    List<String> applied = new CopyOnWriteArrayList<>();
+    follower = new ReplicationFollower("127.0.0.1", leader.getLocalPort(), dir.resolve("f.offset"), mapper,
+            r -> applied.add(r.id() + "@" + r.version()));
+    follower.start();
+    await(() -> follower.getAppliedOffset() == 4);
+
+    assertEquals(List.of("7@3", "8@1", "1@0"), applied);
+    assertEquals(1, follower.getStaleRecords());
+  }
+
+  @Test
+  void compactionKeepsLatestRecordPerEntityAtItsOffset() throws Exception {
+    Path file = dir.resolve("compact.jsonl");
+    ReplicationLog log = new ReplicationLog(file, mapper, 4);
+    for (int i = 1; i <= 8; i++) {
+      log.append("goal", "saved", i % 2 == 0 ? "a" : "b", i, Map.of("n", i));
+    }
+    // Compacted once 5 records covered 2 entities, and again at 8.
+    assertEquals(2, log.compactions());
+    assertEquals(2, log.size());
+    assertEquals(8, log.latestOffset());
+
+    List<ReplicationRecord> all = log.readAfter(0, 100, 0);
+    assertEquals(List.of(7L, 8L), all.stream().map(ReplicationRecord::offset).toList());
+    assertEquals(List.of(8L), log.readAfter(7, 100, 0).stream().map(ReplicationRecord::offset).toList());
+
+    ReplicationLog reopened = new ReplicationLog(file, mapper, 4);
+    assertEquals(8, reopened.latestOffset());
+    assertEquals(all, reopened.readAfter(0, 100, 0));
+  }
+
+  @Test
+  void heartbeatsReportLeaderOffsetWhileFollowerIsBehind() throws Exception {
+    leader = startLeader();
+    leader.append("user", ChangeType.CREATED, "1", Map.of());
+    leader.append("user", ChangeType.CREATED, "2", Map.of());
+
+    ReplicationFollower.RecordApplier failing = r -> {
+      throw new IllegalStateException("apply failed");
+    };
+    follower = new ReplicationFollower("127.0.0.1", leader.getLocalPort(), dir.resolve("f.offset"), mapper, failing);
+    follower.start();
+    Thread.sleep(300);
+    assertEquals(0, follower.getAppliedOffset());
+  }
+
+  @Test
+  void serviceApplierUpsertsCheckIns() throws Exception {
+    CheckInServiceTest.TestableCheckInService checkIns = new CheckInServiceTest.TestableCheckInService();
+    ReplicationFollower.RecordApplier applier =
+            ReplicationFollower.serviceApplier(new GoalService(), checkIns, mapper);
+
+    CheckIn c = new CheckIn(12L, 3L, LocalDateTime.of(2025, 1, 2, 9, 0), "first",
+            LocalDateTime.of(2025, 1, 2, 9, 0), LocalDateTime.of(2025, 1, 2, 9, 0), 1);
+    applier.apply(new ReplicationRecord(1, "checkin", "created", "12", 1, 0, mapper.valueToTree(c)));
+    c.setNotes("second");
+    c.setVersion(2);
+    applier.apply(new ReplicationRecord(2, "checkin", "updated", "12", 2, 0, mapper.valueToTree(c)));
+
+    assertEquals(1, checkIns.getCheckIns().size());
+    CheckIn stored = checkIns.getCheckIns().get(0);
+    assertEquals(12L, stored.getId());
+    assertEquals("second", stored.getNotes());
+    assertEquals(2, stored.getVersion());
+  }
+}
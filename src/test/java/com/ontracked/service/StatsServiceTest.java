@@ -0,0 +1,132 @@
+package com.ontracked.service;
+
+import com.ontracked.model.CheckIn;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import com.ontracked.model.GoalView;
+import com.ontracked.model.User;
+import com.ontracked.service.StatsService.Snapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatsServiceTest {
+
+  private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-05-08T12:00:00Z"), ZoneOffset.UTC);
+
+  @TempDir
+  Path archiveDir;
+
+  private final List<User> users = new ArrayList<>();
+  private final List<Goal> goals = new ArrayList<>();
+  private final List<CheckIn> checkIns = new ArrayList<>();
+  private StatsService stats;
+
+  @AfterEach
+  void tearDown() {
+    stats.close();
+  }
+
+  private StatsService newStats() {
+    GoalArchive archive = new GoalArchive(archiveDir, 16);
+    GoalService goalService = new GoalService() {
+      @Override
+      public void forEachLatestGoal(Consumer<? super GoalView> action) {
+        goals.forEach(action);
+      }
+
+      @Override
+      public GoalArchive getArchive() {
+        return archive;
+      }
+    };
+    CheckInService checkInService = new CheckInService() {
+      @Override
+      public List<CheckIn> getCheckIns() {
+        return checkIns;
+      }
+    };
+    stats = new StatsService(goalService, checkInService, () -> users, CLOCK);
+    return stats;
+  }
+
+  private static Goal goal(String id, GoalStatus status, int percentage) {
+    Instant now = Instant.parse("2025-05-01T00:00:00Z");
+    return new Goal(id, "1", null, null, "t", null, null, status, percentage, now, now, 1);
+  }
+
+  private static CheckIn checkIn(long id, String date) {
+    LocalDateTime at = LocalDateTime.parse(date + "T09:00:00");
+    return new CheckIn(id, 1L, at, "", at, at, 1);
+  }
+
+  @Test
+  void updates_moveEntitiesBetweenCounters() {
+    users.add(new User(1, "Ann", "ann@x.org", "STUDENT"));
+    users.add(new User(2, "Ben", "ben@x.org", "TEACHER"));
+    goals.add(goal("a", GoalStatus.ACTIVE, 20));
+    goals.add(goal("b", GoalStatus.ACTIVE, 60));
+    checkIns.add(checkIn(1, "2025-05-08"));
+    checkIns.add(checkIn(2, "2025-05-07"));
+    StatsService stats = newStats();
+    assertEquals(6, stats.reconcile());
+
+    Snapshot s = stats.snapshot();
+    assertEquals(2, s.users());
+    assertEquals(1L, s.usersByRole().get(User.Role.STUDENT));
+    assertEquals(2L, s.goalsByStatus().get(GoalStatus.ACTIVE));
+    assertEquals(40.0, s.averagePercentage(), 1e-9);
+    assertEquals(2, s.checkIns());
+    assertEquals(1, s.checkInsToday());
+    assertEquals(1, s.reconciliations());
+
+    stats.onUser(new User(2, "Ben", "ben@x.org", "STUDENT"));
+    stats.onGoal(goal("b", GoalStatus.COMPLETED, 100));
+    stats.onGoal(goal("c", GoalStatus.ACTIVE, 0));
+    stats.onCheckIn(checkIn(1, "2025-05-06"));
+    stats.onCheckIn(checkIn(3, "2025-05-08"));
+    stats.onCheckIn(checkIn(4, "2025-05-08"));
+
+    s = stats.snapshot();
+    assertEquals(2, s.users());
+    assertEquals(2L, s.usersByRole().get(User.Role.STUDENT));
+    assertEquals(0L, s.usersByRole().get(User.Role.TEACHER));
+    assertEquals(3, s.goals());
+    assertEquals(2L, s.goalsByStatus().get(GoalStatus.ACTIVE));
+    assertEquals(1L, s.goalsByStatus().get(GoalStatus.COMPLETED));
+    assertEquals(40.0, s.averagePercentage(), 1e-9);
+    assertEquals(4, s.checkIns());
+    assertEquals(2, s.checkInsToday());
+  }
+
+  @Test
+  void reconcile_correctsWritesTheListenersMissed() {
+    goals.add(goal("a", GoalStatus.ACTIVE, 50));
+    StatsService stats = newStats();
+    stats.reconcile();
+    stats.onGoal(goal("a", GoalStatus.ACTIVE, 70));
+
+    // Written behind the services' backs: one goal changed, one check-in added.
+    goals.set(0, goal("a", GoalStatus.ACTIVE, 90));
+    checkIns.add(checkIn(7, "2025-05-08"));
+    assertEquals(0, stats.snapshot().checkIns());
+
+    assertEquals(2, stats.reconcile());
+    Snapshot s = stats.snapshot();
+    assertEquals(90.0, s.averagePercentage(), 1e-9);
+    assertEquals(1, s.checkInsToday());
+    assertEquals(2, s.lastDrift());
+    assertEquals(0, stats.reconcile());
+  }
+}
@@ -0,0 +1,63 @@
+package com.ontracked.service;
+
+import com.ontracked.service.WarmupService.StoreState;
+import com.ontracked.service.WarmupService.StoreStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmupServiceTest {
+
+  @Test
+  void loadsStoresConcurrently_andBecomesReadyWhenAllFinish() throws Exception {
+    // Each loader waits until all three are running, so this only completes if they run in parallel.
+    CountDownLatch allStarted = new CountDownLatch(3);
+    Map<String, Callable<Integer>> loaders = new LinkedHashMap<>();
+    for (String store : List.of("users", "goals", "checkins")) {
+      loaders.put(store, () -> {
+        allStarted.countDown();
+        assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        return store.length();
+      });
+    }
+
+    WarmupService warmup = new WarmupService(loaders, 3);
+    assertFalse(warmup.isReady());
+    warmup.start();
+
+    assertTrue(warmup.awaitReady(10, TimeUnit.SECONDS));
+    List<StoreStatus> statuses = warmup.getStatuses();
+    assertEquals(List.of("users", "goals", "checkins"), statuses.stream().map(StoreStatus::store).toList());
+    for (StoreStatus s : statuses) {
+      assertEquals(StoreState.READY, s.state());
+      assertEquals(s.store().length(), s.records());
+      assertTrue(s.durationMs() >= 20, "duration should cover the load: " + s);
+    }
+  }
+
+  @Test
+  void failedStore_keepsInstanceUnready() throws Exception {
+    Map<String, Callable<Integer>> loaders = new LinkedHashMap<>();
+    loaders.put("users", () -> 2);
+    loaders.put("goals", () -> {
+      throw new IllegalStateException("corrupt goals file");
+    });
+
+    WarmupService warmup = new WarmupService(loaders, 1);
+    warmup.start();
+
+    assertFalse(warmup.awaitReady(10, TimeUnit.SECONDS));
+    StoreStatus goals = warmup.getStatuses().get(1);
+    assertEquals(StoreState.FAILED, goals.state());
+    assertEquals("corrupt goals file", goals.error());
+    assertEquals(StoreState.READY, warmup.getStatuses().get(0).state());
+  }
+}
@@ -0,0 +1,72 @@
+package com.ontracked.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long MS = 1_000_000L;
+
+  @Test
+  void fullLimiter_queuesUpToQueueSize_andRejectsTheRest() throws Exception {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1, 5, TimeUnit.SECONDS, 2.0);
+    assertTrue(limiter.tryAcquire());
+
+    CountDownLatch started = new CountDownLatch(1);
+    CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> {
+      started.countDown();
+      return limiter.tryAcquire();
+    });
+    started.await();
+    while (limiter.snapshot().waiting() == 0) {
+      Thread.onSpinWait();
+    }
+
+    // The single queue slot is taken, so a third caller fails fast.
+    long before = System.nanoTime();
+    assertFalse(limiter.tryAcquire());
+    assertTrue(System.nanoTime() - before < 1_000 * MS);
+    assertTrue(limiter.retryAfterSeconds() >= 1);
+
+    limiter.release(10 * MS);
+    assertTrue(queued.get(5, TimeUnit.SECONDS));
+    assertEquals(1, limiter.snapshot().rejected());
+    assertEquals(2, limiter.snapshot().accepted());
+  }
+
+  @Test
+  void queuedCaller_isRejectedAfterMaxWait() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 4, 20, TimeUnit.MILLISECONDS, 2.0);
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    assertEquals(0, limiter.snapshot().waiting());
+  }
+
+  /** Saturated with steady latency the limit grows; once latency balloons it backs off. */
+  @Test
+  void limit_growsWhileHealthy_andShrinksWhenLatencyDegrades() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0, 0, TimeUnit.MILLISECONDS, 2.0);
+    for (int i = 0; i < 20; i++) {
+      int limit = limiter.limit();
+      for (int p = 0; p < limit; p++) {
+        assertTrue(limiter.tryAcquire());
+      }
+      for (int p = 0; p < limit; p++) {
+        limiter.release(10 * MS);
+      }
+    }
+    assertEquals(10, limiter.limit());
+
+    for (int i = 0; i < 30; i++) {
+      assertTrue(limiter.tryAcquire());
+      limiter.release(200 * MS);
+    }
+    assertEquals(1, limiter.limit());
+    assertEquals(10.0, limiter.snapshot().baselineLatencyMs(), 1e-9);
+  }
+}
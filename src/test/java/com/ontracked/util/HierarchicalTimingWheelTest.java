@@ -0,0 +1,62 @@
+package com.ontracked.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+  @Test
+  void firesTimersInDeadlineOrderAcrossLevels() {
+    HierarchicalTimingWheel<String, Long> wheel = new HierarchicalTimingWheel<>(1000);
+    long[] deadlines = {1001, 1063, 1064, 1500, 5000, 300_000, 20_000_000};
+    for (long d : deadlines) {
+      wheel.schedule("t" + d, d, d);
+    }
+
+    List<Long> fired = new ArrayList<>();
+    List<Long> firedAt = new ArrayList<>();
+    for (long tick = 1000; tick <= 20_000_000; tick += 997) {
+      wheel.advanceTo(tick, (k, v) -> {
+        fired.add(v);
+        firedAt.add(wheel.getCurrentTick());
+      });
+    }
+    wheel.advanceTo(20_000_000, (k, v) -> fired.add(v));
+
+    assertEquals(List.of(1001L, 1063L, 1064L, 1500L, 5000L, 300_000L, 20_000_000L), fired);
+    for (int i = 0; i < firedAt.size(); i++) {
+      assertEquals(fired.get(i), firedAt.get(i), "timer must fire exactly on its deadline tick");
+    }
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void cancelAndRescheduleReplaceTimer() {
+    HierarchicalTimingWheel<String, String> wheel = new HierarchicalTimingWheel<>(0);
+    wheel.schedule("a", "first", 10);
+    wheel.schedule("a", "second", 20);
+    wheel.schedule("b", "b", 15);
+    assertTrue(wheel.cancel("b"));
+    assertFalse(wheel.cancel("missing"));
+
+    List<String> fired = new ArrayList<>();
+    wheel.advanceTo(30, (k, v) -> fired.add(v));
+    assertEquals(List.of("second"), fired);
+  }
+
+  @Test
+  void pastDeadlinesFireOnNextAdvance() {
+    HierarchicalTimingWheel<String, String> wheel = new HierarchicalTimingWheel<>(100);
+    wheel.schedule("late", "late", 50);
+    assertEquals(1, wheel.size());
+
+    List<String> fired = new ArrayList<>();
+    wheel.advanceTo(100, (k, v) -> fired.add(v));
+    assertEquals(List.of("late"), fired);
+    assertFalse(wheel.contains("late"));
+  }
+}
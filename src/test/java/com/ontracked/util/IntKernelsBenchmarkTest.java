@@ -0,0 +1,59 @@
+package com.ontracked.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Times the scalar and vector {@link IntKernels} over one million percentages,
+ * the size of a large class report.
+ *
+ * <p>Tagged {@code benchmark}; run with {@code mvn -Pbench test}.
+ */
+@Tag("benchmark")
+class IntKernelsBenchmarkTest {
+
+  private static final int VALUES = 1_000_000;
+  private static final int WARMUP = 50;
+  private static final int ROUNDS = 200;
+
+  /** Runs every kernel once over the column; returns a checksum so nothing is optimized away. */
+  private static long pass(IntKernels k, int[] values, int[] histogram) {
+    long check = k.sum(values, 0, values.length);
+    check += k.min(values, 0, values.length) + k.max(values, 0, values.length);
+    check += k.countAtLeast(values, 0, values.length, 80);
+    k.histogram(values, 0, values.length, 10, histogram);
+    return check;
+  }
+
+  private static double nanosPerValue(IntKernels k, int[] values) {
+    int[] histogram = new int[10];
+    long sink = 0;
+    for (int i = 0; i < WARMUP; i++) {
+      sink += pass(k, values, histogram);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      sink += pass(k, values, histogram);
+    }
+    long elapsed = System.nanoTime() - start;
+    assertNotEquals(0, sink);
+    return (double) elapsed / ROUNDS / VALUES;
+  }
+
+  @Test
+  void vectorKernels_versusScalar() {
+    int[] values = new int[VALUES];
+    Random random = new Random(1);
+    for (int i = 0; i < VALUES; i++) {
+      values[i] = random.nextInt(101);
+    }
+    double scalar = nanosPerValue(IntKernels.scalar(), values);
+    double best = nanosPerValue(IntKernels.best(), values);
+    System.out.printf("values=%d scalar=%.3f ns/value %s=%.3f ns/value speedup=%.1fx%n",
+            VALUES, scalar, IntKernels.best().name(), best, scalar / best);
+  }
+}
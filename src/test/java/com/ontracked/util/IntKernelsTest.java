@@ -0,0 +1,52 @@
+package com.ontracked.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntKernelsTest {
+
+  /** Surefire starts the JVM with the vector module, so the SIMD kernels must be picked. */
+  @Test
+  void best_usesVectorKernels_whenModuleIsPresent() {
+    boolean present = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    assertEquals(present ? "vector" : "scalar", IntKernels.best().name());
+    assertEquals("scalar", IntKernels.scalar().name());
+  }
+
+  /** Every kernel agrees with the scalar loop on unaligned slices of every length up to 100. */
+  @Test
+  void kernels_matchScalar_onUnalignedSlices() {
+    IntKernels best = IntKernels.best();
+    IntKernels scalar = IntKernels.scalar();
+    Random random = new Random(7);
+    int[] values = new int[300];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = random.nextInt(111) - 5; // a few values fall outside 0..100
+    }
+    for (int from = 0; from < 5; from++) {
+      for (int to = from; to <= from + 100; to++) {
+        assertEquals(scalar.sum(values, from, to), best.sum(values, from, to));
+        assertEquals(scalar.min(values, from, to), best.min(values, from, to));
+        assertEquals(scalar.max(values, from, to), best.max(values, from, to));
+        assertEquals(scalar.countAtLeast(values, from, to, 80), best.countAtLeast(values, from, to, 80));
+        int[] expected = new int[10];
+        int[] actual = new int[10];
+        scalar.histogram(values, from, to, 10, expected);
+        best.histogram(values, from, to, 10, actual);
+        assertArrayEquals(expected, actual, "histogram of [" + from + ", " + to + ")");
+      }
+    }
+  }
+
+  @Test
+  void emptySlice_hasIdentityResults() {
+    int[] values = {1, 2, 3};
+    IntKernels best = IntKernels.best();
+    assertEquals(0, best.sum(values, 1, 1));
+    assertEquals(Integer.MAX_VALUE, best.min(values, 1, 1));
+    assertEquals(Integer.MIN_VALUE, best.max(values, 1, 1));
+  }
+}
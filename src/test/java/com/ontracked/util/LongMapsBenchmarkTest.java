@@ -0,0 +1,103 @@
+package com.ontracked.util;
+
+import com.ontracked.model.CheckIn;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares allocation and GC activity of boxed {@code HashMap} indexes against
+ * {@link LongObjectMap} / {@link LongListMap} for the check-in id and goalId
+ * indexes: build both over the same check-ins, then run a burst of lookups.
+ *
+ * <p>Tagged {@code benchmark}; run with {@code mvn -Pbench test}.
+ */
+@Tag("benchmark")
+class LongMapsBenchmarkTest {
+
+  private static final int CHECK_INS = 500_000;
+  private static final int GOALS = 20_000;
+  private static final int LOOKUPS = 5_000_000;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+          (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private record Sample(long allocatedBytes, long gcCount, long gcMillis, long elapsedMillis, long checksum) { }
+
+  private static Sample measure(Runnable build, java.util.function.LongSupplier lookups) {
+    System.gc();
+    long gcCount = 0;
+    long gcMillis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount -= gc.getCollectionCount();
+      gcMillis -= gc.getCollectionTime();
+    }
+    long thread = Thread.currentThread().threadId();
+    long allocated = THREADS.getThreadAllocatedBytes(thread);
+    long start = System.nanoTime();
+    build.run();
+    long checksum = lookups.getAsLong();
+    long elapsed = (System.nanoTime() - start) / 1_000_000;
+    allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount += gc.getCollectionCount();
+      gcMillis += gc.getCollectionTime();
+    }
+    return new Sample(allocated, gcCount, gcMillis, elapsed, checksum);
+  }
+
+  @Test
+  void indexAllocation_boxedVersusPrimitive() {
+    List<CheckIn> checkIns = new ArrayList<>(CHECK_INS);
+    for (long id = 1; id <= CHECK_INS; id++) {
+      checkIns.add(new CheckIn(id, 1_000_000 + id % GOALS, null, null, null, null, 1));
+    }
+
+    Map<Long, CheckIn> boxedById = new HashMap<>();
+    Map<Long, List<Long>> boxedByGoal = new HashMap<>();
+    Sample boxed = measure(() -> {
+      for (CheckIn c : checkIns) {
+        boxedById.put(c.getId(), c);
+        boxedByGoal.computeIfAbsent(c.getGoalId(), k -> new ArrayList<>()).add(c.getId());
+      }
+    }, () -> {
+      long sum = 0;
+      for (long i = 0; i < LOOKUPS; i++) {
+        sum += boxedById.get(1 + i % CHECK_INS).getVersion();
+        sum += boxedByGoal.get(1_000_000 + i % GOALS).size();
+      }
+      return sum;
+    });
+
+    LongObjectMap<CheckIn> byId = new LongObjectMap<>();
+    LongListMap byGoal = new LongListMap();
+    Sample primitive = measure(() -> {
+      for (CheckIn c : checkIns) {
+        byId.put(c.getId(), c);
+        byGoal.add(c.getGoalId(), c.getId());
+      }
+    }, () -> {
+      long sum = 0;
+      for (long i = 0; i < LOOKUPS; i++) {
+        sum += byId.get(1 + i % CHECK_INS).getVersion();
+        sum += byGoal.count(1_000_000 + i % GOALS);
+      }
+      return sum;
+    });
+
+    System.out.printf("boxed:     %,d bytes allocated, %d GCs (%d ms), %d ms%n",
+            boxed.allocatedBytes(), boxed.gcCount(), boxed.gcMillis(), boxed.elapsedMillis());
+    System.out.printf("primitive: %,d bytes allocated, %d GCs (%d ms), %d ms%n",
+            primitive.allocatedBytes(), primitive.gcCount(), primitive.gcMillis(), primitive.elapsedMillis());
+    assertEquals(boxed.checksum(), primitive.checksum());
+    assertTrue(primitive.allocatedBytes() < boxed.allocatedBytes());
+  }
+}
@@ -0,0 +1,71 @@
+package com.ontracked.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectMapTest {
+
+  /** Random puts and removes must leave the map agreeing with a HashMap. */
+  @Test
+  void randomOperations_matchHashMap() {
+    LongObjectMap<String> map = new LongObjectMap<>(4);
+    Map<Long, String> reference = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 50_000; i++) {
+      // A small key range forces collisions, overwrites and backward shifts.
+      long key = random.nextInt(2_000) - 1_000L;
+      if (random.nextInt(3) == 0) {
+        assertEquals(reference.remove(key), map.remove(key));
+      } else {
+        String value = "v" + i;
+        assertEquals(reference.put(key, value), map.put(key, value));
+      }
+    }
+    assertEquals(reference.size(), map.size());
+    for (long key = -1_000; key < 1_000; key++) {
+      assertEquals(reference.get(key), map.get(key), "key " + key);
+    }
+  }
+
+  @Test
+  void putIfAbsent_keepsFirstValue_andNullsAreRejected() {
+    LongObjectMap<String> map = new LongObjectMap<>();
+    assertNull(map.putIfAbsent(0L, "first"));
+    assertEquals("first", map.putIfAbsent(0L, "second"));
+    assertEquals("first", map.get(0L));
+    assertTrue(map.containsKey(0L));
+    assertThrows(IllegalArgumentException.class, () -> map.put(1L, null));
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(0L));
+  }
+
+  @Test
+  void longListMap_keepsInsertionOrder_andDropsEmptyKeys() {
+    LongListMap map = new LongListMap();
+    for (long id = 1; id <= 100; id++) {
+      map.add(id % 7, id);
+    }
+    assertEquals(7, map.size());
+    assertEquals(15, map.count(1));
+    assertArrayEquals(new long[] {1, 8, 15}, Arrays.copyOf(map.get(1), 3));
+    assertFalse(map.addIfAbsent(1, 8));
+    assertTrue(map.remove(1, 8));
+    assertFalse(map.contains(1, 8));
+    assertArrayEquals(new long[] {1, 15}, Arrays.copyOf(map.get(1), 2));
+
+    long[] values = map.get(3);
+    for (long v : values) {
+      map.remove(3, v);
+    }
+    assertEquals(6, map.size());
+    assertEquals(0, map.get(3).length);
+    assertEquals(14, map.count(6));
+  }
+}
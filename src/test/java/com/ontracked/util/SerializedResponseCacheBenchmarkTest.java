@@ -0,0 +1,81 @@
+package com.ontracked.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ontracked.dto.goal.GoalResponse;
+import com.ontracked.model.Goal;
+import com.ontracked.model.GoalStatus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the CPU cost of answering repeated GETs for unchanged goals by
+ * building, serializing and compressing each response, against serving the
+ * bytes from a {@link SerializedResponseCache}.
+ *
+ * <p>Tagged {@code benchmark}; run with {@code mvn -Pbench test}.
+ */
+@Tag("benchmark")
+class SerializedResponseCacheBenchmarkTest {
+
+  private static final int GOALS = 200;
+  private static final int REQUESTS = 100_000;
+
+  private final ObjectMapper mapper =
+          Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+  @Test
+  void repeatedGets_serializeEachTime_versusCache() throws Exception {
+    Goal[] goals = new Goal[GOALS];
+    for (int i = 0; i < GOALS; i++) {
+      Goal g = new Goal("owner-" + (i % 20));
+      g.setTitle("Goal " + i);
+      g.setDescription("Finish unit " + i + " and summarize every chapter in the reading log. ".repeat(4));
+      g.setStatus(GoalStatus.ACTIVE);
+      g.setLatestPercentage(i % 101);
+      goals[i] = g;
+    }
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader("Accept-Encoding", "gzip");
+    SerializedResponseCache cache = new SerializedResponseCache(mapper, GOALS);
+
+    long sink = 0;
+    for (int round = 0; round < 2; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < REQUESTS; i++) {
+        sink += gzip(mapper.writeValueAsBytes(GoalResponse.from(goals[i % GOALS]))).length;
+      }
+      long uncached = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < REQUESTS; i++) {
+        Goal g = goals[i % GOALS];
+        String etag = ETags.revision(g.getVersionNumber(), g.getUpdatedAt());
+        sink += cache.get(g.getId(), etag, () -> GoalResponse.from(g)).toResponse(request).getBody().length;
+      }
+      long cached = System.nanoTime() - start;
+
+      System.out.printf("round %d: %d GETs of %d goals: serialize+gzip %.0f ns/request, cached %.0f ns/request%n",
+              round, REQUESTS, GOALS, (double) uncached / REQUESTS, (double) cached / REQUESTS);
+      if (round == 1) {
+        assertTrue(cached * 5 < uncached, "cache hits should be far cheaper than serializing");
+      }
+    }
+    assertTrue(sink > 0);
+  }
+
+  private static byte[] gzip(byte[] bytes) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+      gz.write(bytes);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,78 @@
+package com.ontracked.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedResponseCacheTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void sameRevision_isServedFromCache_newRevisionOrEvictionRebuilds() {
+    SerializedResponseCache cache = new SerializedResponseCache(mapper, 10);
+    AtomicInteger builds = new AtomicInteger();
+
+    SerializedResponseCache.Entry first = cache.get("g1", "\"1.a\"", () -> {
+      builds.incrementAndGet();
+      return Map.of("title", "Read");
+    });
+    SerializedResponseCache.Entry again = cache.get("g1", "\"1.a\"", () -> {
+      builds.incrementAndGet();
+      return Map.of("title", "changed without a new revision");
+    });
+    assertSame(first, again);
+    assertEquals("{\"title\":\"Read\"}", new String(again.json()));
+
+    cache.get("g1", "\"2.b\"", () -> Map.of("title", "Write"));
+    cache.evict("g1");
+    cache.get("g1", "\"2.b\"", () -> Map.of("title", "Write"));
+    assertEquals(1, builds.get());
+    assertEquals(new SerializedResponseCache.Stats(1, 3, 1), cache.stats());
+  }
+
+  @Test
+  void leastRecentlyUsed_isDroppedBeyondCapacity() {
+    SerializedResponseCache cache = new SerializedResponseCache(mapper, 2);
+    cache.get("a", "\"1\"", () -> 1);
+    cache.get("b", "\"1\"", () -> 2);
+    cache.get("a", "\"1\"", () -> 1);
+    cache.get("c", "\"1\"", () -> 3);
+    assertEquals(1, cache.stats().hits());
+    cache.get("a", "\"1\"", () -> 1);
+    assertEquals(2, cache.stats().hits(), "a was used recently and kept");
+    cache.get("b", "\"1\"", () -> 2);
+    assertEquals(2, cache.stats().hits(), "b was the eldest and dropped");
+  }
+
+  @Test
+  void largeBodies_areGzippedForClientsThatAcceptIt() throws Exception {
+    SerializedResponseCache cache = new SerializedResponseCache(mapper, 10);
+    String text = "progress ".repeat(100);
+    SerializedResponseCache.Entry entry = cache.get("c1", "\"3.f\"", () -> Map.of("notes", text));
+    assertNotNull(entry.gzip());
+    assertTrue(entry.gzip().length < entry.json().length);
+    assertNull(cache.get("c2", "\"1.0\"", () -> Map.of("notes", "short")).gzip());
+
+    MockHttpServletRequest gzipClient = new MockHttpServletRequest();
+    gzipClient.addHeader("Accept-Encoding", "deflate, gzip;q=0.8");
+    ResponseEntity<byte[]> compressed = entry.toResponse(gzipClient);
+    assertEquals("gzip", compressed.getHeaders().getFirst("Content-Encoding"));
+    assertEquals("\"3.f\"", compressed.getHeaders().getETag());
+    byte[] inflated = new GZIPInputStream(new ByteArrayInputStream(compressed.getBody())).readAllBytes();
+    assertArrayEquals(entry.json(), inflated);
+
+    MockHttpServletRequest refuses = new MockHttpServletRequest();
+    refuses.addHeader("Accept-Encoding", "gzip;q=0");
+    assertNull(entry.toResponse(refuses).getHeaders().getFirst("Content-Encoding"));
+    assertArrayEquals(entry.json(), entry.toResponse(new MockHttpServletRequest()).getBody());
+  }
+}
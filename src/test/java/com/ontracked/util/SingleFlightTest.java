@@ -0,0 +1,95 @@
+package com.ontracked.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+  private final ExecutorService pool = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void shutdownPool() {
+    pool.shutdownNow();
+  }
+
+  /** Callers arriving while a load runs share it; the loader runs once. */
+  @Test
+  void concurrentCallers_shareOneLoad() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+      calls.incrementAndGet();
+      loading.countDown();
+      await(release);
+      return "v" + calls.get();
+    }), pool);
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    List<CompletableFuture<String>> followers = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      followers.add(CompletableFuture.supplyAsync(() -> flight.execute("k", () -> "v" + calls.incrementAndGet()), pool));
+    }
+    while (flight.stats().shared() < 8) {
+      Thread.onSpinWait();
+    }
+    // A different key is not held up.
+    assertEquals("other", flight.execute("other-key", () -> "other"));
+
+    release.countDown();
+    assertEquals("v1", leader.get(5, TimeUnit.SECONDS));
+    for (CompletableFuture<String> f : followers) {
+      assertEquals("v1", f.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, calls.get());
+    assertEquals(new SingleFlight.Stats(2, 8), flight.stats());
+
+    // Once finished, the next caller loads again.
+    assertEquals("v2", flight.execute("k", () -> "v" + calls.incrementAndGet()));
+  }
+
+  @Test
+  void failedLoad_isRethrownToSharingCallers_andNotRemembered() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> {
+      loading.countDown();
+      await(release);
+      throw new IllegalStateException("disk gone");
+    }), pool);
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+    CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> flight.execute("k", () -> "unused"), pool);
+    while (flight.stats().shared() < 1) {
+      Thread.onSpinWait();
+    }
+    release.countDown();
+
+    Exception e = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalStateException.class, e.getCause());
+    assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    assertEquals("ok", flight.execute("k", () -> "ok"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
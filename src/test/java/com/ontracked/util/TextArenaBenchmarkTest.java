@@ -0,0 +1,61 @@
+package com.ontracked.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures retained heap for notes held as {@code String}s against the same
+ * notes held as {@link TextArena} references.
+ *
+ * <p>Tagged {@code benchmark}; run with {@code mvn -Pbench test}.
+ */
+@Tag("benchmark")
+class TextArenaBenchmarkTest {
+
+  private static final int RECORDS = 200_000;
+  private static final int NOTE_CHARS = 400;
+
+  private static long usedHeap() {
+    Runtime rt = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  private static String note(int i) {
+    StringBuilder sb = new StringBuilder(NOTE_CHARS);
+    sb.append("Check-in ").append(i).append(": ");
+    while (sb.length() < NOTE_CHARS) {
+      sb.append("read two chapters and summarized them; ");
+    }
+    return sb.substring(0, NOTE_CHARS);
+  }
+
+  @Test
+  void heapPerRecord_stringsVersusArena() {
+    long before = usedHeap();
+    String[] strings = new String[RECORDS];
+    for (int i = 0; i < RECORDS; i++) {
+      strings[i] = note(i);
+    }
+    long stringHeap = usedHeap() - before;
+
+    before = usedHeap();
+    TextArena arena = new TextArena(TextArena.MAX_SEGMENT_BYTES);
+    long[] refs = new long[RECORDS];
+    for (int i = 0; i < RECORDS; i++) {
+      refs[i] = arena.put(note(i));
+    }
+    long arenaHeap = usedHeap() - before;
+
+    System.out.printf("records=%d notes=%d chars: strings %.1f B/record on heap;"
+                    + " arena %.1f B/record on heap + %.1f B/record off-heap%n",
+            RECORDS, NOTE_CHARS, (double) stringHeap / RECORDS, (double) arenaHeap / RECORDS,
+            (double) arena.capacityBytes() / RECORDS);
+    assertEquals(strings[RECORDS - 1], arena.get(refs[RECORDS - 1]));
+    assertTrue(arenaHeap < stringHeap / 10);
+  }
+}
@@ -0,0 +1,79 @@
+package com.ontracked.util;
+
+import com.ontracked.model.CheckIn;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextArenaTest {
+
+  /** Texts round-trip across segment boundaries, including multi-byte and oversized ones. */
+  @Test
+  void texts_roundTripAcrossSegments() {
+    TextArena arena = new TextArena(64);
+    List<String> texts = new ArrayList<>();
+    List<Long> refs = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      String text = "note " + i + " – café ✓ " + "x".repeat(i % 40);
+      texts.add(text);
+      refs.add(arena.put(text));
+    }
+    String big = "long text ".repeat(100);
+    long bigRef = arena.put(big);
+    long after = arena.put("after");
+
+    for (int i = 0; i < texts.size(); i++) {
+      assertEquals(texts.get(i), arena.get(refs.get(i)));
+    }
+    assertEquals(big, arena.get(bigRef));
+    assertEquals("after", arena.get(after));
+    assertEquals(1000, TextArena.length(bigRef));
+    assertTrue(arena.capacityBytes() >= arena.bytesUsed());
+  }
+
+  @Test
+  void nullAndEmpty_areDistinct() {
+    TextArena arena = new TextArena(16);
+    assertEquals(TextArena.NULL, arena.put(null));
+    assertNull(arena.get(TextArena.NULL));
+    assertEquals("", arena.get(arena.put("")));
+    assertEquals(0, arena.bytesUsed());
+    assertThrows(IllegalArgumentException.class, () -> new TextArena(0));
+  }
+
+  @Test
+  void checkInNotes_stayOnHeapUntilMovedIntoAnArena() {
+    TextArena arena = new TextArena(64);
+    CheckIn c = new CheckIn(1L, 2L, null, "Finished chapter 3", null, null, 1);
+    CheckIn copy = new CheckIn(c);
+    c.moveNotesTo(arena);
+    assertEquals("Finished chapter 3", c.getNotes());
+    assertEquals("Finished chapter 3".length(), arena.bytesUsed());
+
+    c.setNotes("Finished chapter 4");
+    assertEquals("Finished chapter 4", c.getNotes());
+    assertEquals(2 * "Finished chapter 3".length(), arena.bytesUsed());
+    copy.setNotes(null);
+    assertNull(copy.getNotes());
+    assertEquals(2 * "Finished chapter 3".length(), arena.bytesUsed());
+  }
+
+  @Test
+  void segments_doubleUpToTheMaximum() {
+    TextArena arena = new TextArena(16, 64);
+    assertEquals(0, arena.capacityBytes(), "Nothing is reserved before the first text");
+    List<Long> refs = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      refs.add(arena.put("0123456789"));
+    }
+    // Segments of 16, 32, 64 and 64 bytes hold 1, 3, 6 and 6 texts of 10 bytes.
+    assertEquals(176, arena.capacityBytes());
+    for (long ref : refs) {
+      assertEquals("0123456789", arena.get(ref));
+    }
+    assertThrows(IllegalArgumentException.class, () -> new TextArena(128, 64));
+  }
+}